@@ -0,0 +1,131 @@
+package snake.winter.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.winter.game.Point.Direction;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole batches of games per second, played to the end in lockstep by a {@link BatchBoard}, by an array of
+ * {@link MutableBoard}s and by an array of {@link Board}s. Every engine plays exactly the same games, heading straight
+ * for the food until the snake runs into itself, so the ratio of the scores is the ratio of moves per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBoardBenchmark {
+  @Param({"1000"})
+  public int games;
+
+  @Param({"10", "30"})
+  public int size;
+
+  private long[] seeds;
+  private BatchBoard batch;
+  private int[] moves;
+  private MutableBoard[] mutables;
+  private Random[] rngs;
+
+  @Setup
+  public void setup() {
+    seeds = new long[games];
+    for (int g = 0; g < games; g++) {
+      seeds[g] = 42 + g;
+    }
+    batch = BatchBoard.batchBoard(size, size, games);
+    moves = new int[games];
+    mutables = new MutableBoard[games];
+    rngs = new Random[games];
+    for (int g = 0; g < games; g++) {
+      rngs[g] = new Random(seeds[g]);
+      mutables[g] = MutableBoard.newStartBoard(size, size, rngs[g]);
+    }
+  }
+
+  @Benchmark
+  public int batchGames() {
+    batch.start(seeds);
+    Grid grid = batch.getGrid();
+    int moved = 0;
+    while (batch.liveCount() > 0) {
+      for (int s = 0; s < batch.liveCount(); s++) {
+        int g = batch.liveGame(s);
+        moves[s] = towardFood(grid, batch.getHeadCell(g), batch.getFoodCell(g)).ordinal();
+      }
+      moved += batch.liveCount();
+      batch.update(moves);
+    }
+    return moved;
+  }
+
+  @Benchmark
+  public int mutableGames() {
+    for (int g = 0; g < games; g++) {
+      rngs[g].setSeed(seeds[g]);
+      mutables[g].reset(rngs[g]);
+    }
+    Grid grid = mutables[0].getGrid();
+    int moved = 0;
+    for (int live = games; live > 0; ) {
+      live = 0;
+      for (int g = 0; g < games; g++) {
+        MutableBoard board = mutables[g];
+        if (board.isLive()) {
+          moved++;
+          if (board.updateBoard(towardFood(grid, board.getHeadCell(), board.getFoodCell()), rngs[g])) {
+            live++;
+          }
+        }
+      }
+    }
+    return moved;
+  }
+
+  @Benchmark
+  public int boardGames() {
+    Board[] boards = new Board[games];
+    for (int g = 0; g < games; g++) {
+      rngs[g].setSeed(seeds[g]);
+      boards[g] = Board.newStartBoard(size, size, rngs[g]);
+    }
+    Grid grid = boards[0].getGrid();
+    int moved = 0;
+    for (int live = games; live > 0; ) {
+      live = 0;
+      for (int g = 0; g < games; g++) {
+        Board board = boards[g];
+        if (board.isLive()) {
+          moved++;
+          Direction d = towardFood(grid, grid.cell(board.getSnake().getHead()), grid.cell(board.getFood()));
+          boards[g] = board.updateBoard(d, rngs[g]);
+          if (boards[g].isLive()) {
+            live++;
+          }
+        }
+      }
+    }
+    return moved;
+  }
+
+  private static Direction towardFood(Grid grid, int head, int food) {
+    int dx = grid.x(food) - grid.x(head);
+    if (dx != 0) {
+      return dx > 0 ? Direction.EAST : Direction.WEST;
+    }
+    return grid.y(food) > grid.y(head) ? Direction.SOUTH : Direction.NORTH;
+  }
+}
@@ -0,0 +1,101 @@
+package snake.winter.game;
+
+import io.vavr.control.Option;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.winter.game.Point.Direction;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single operations on the immutable game core, for boards from 10x10 to 200x200 and snakes from length 3 up to
+ * nearly filling the board. Every board and snake here is immutable, so each invocation measures exactly the same
+ * operation on exactly the same state.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+  @Param({"10", "50", "100", "200"})
+  public int size;
+
+  // either a snake length, or the fraction of the board the snake covers
+  @Param({"3", "0.25", "0.9"})
+  public String fill;
+
+  private Board stepBoard;
+  private Board eatBoard;
+  private Snake snake;
+  private Direction forward;
+  private Point probe;
+  private Random rng;
+
+  @Setup
+  public void setup() {
+    int length = CycleBoards.length(fill, size);
+    stepBoard = CycleBoards.board(size, length, 2);
+    eatBoard = CycleBoards.board(size, length, 1);
+    snake = stepBoard.getSnake();
+    forward = CycleBoards.directions(stepBoard.getGrid())[stepBoard.getGrid().cell(snake.getHead())];
+    probe = snake.getTail().get(snake.length() / 2 - 1);
+    rng = new Random(42);
+  }
+
+  @Benchmark
+  public Board updateBoardStep() {
+    return stepBoard.updateBoard(forward, rng);
+  }
+
+  @Benchmark
+  public Board updateBoardEat() {
+    return eatBoard.updateBoard(forward, rng);
+  }
+
+  @Benchmark
+  public Point newFood() {
+    return stepBoard.newFood(rng);
+  }
+
+  @Benchmark
+  public Option<Snake> snakeStep() {
+    return snake.step(forward);
+  }
+
+  @Benchmark
+  public Option<Snake> snakeGrow() {
+    return snake.grow(forward);
+  }
+
+  @Benchmark
+  public boolean snakeContains() {
+    return snake.contains(probe);
+  }
+
+  @Benchmark
+  public int pointHashCode() {
+    return probe.hashCode();
+  }
+
+  @Benchmark
+  public String boardToString() {
+    return stepBoard.toString();
+  }
+
+  @Benchmark
+  public int boardHashCode() {
+    return stepBoard.hashCode();
+  }
+}
@@ -0,0 +1,102 @@
+package snake.winter.game;
+
+import io.vavr.collection.List;
+import snake.winter.game.Point.Direction;
+
+import static snake.winter.game.Point.Direction.*;
+
+/**
+ * Builds benchmark boards on a Hamiltonian cycle, so a snake of any length can keep moving forever without dying.
+ *
+ * <p>The cycle runs east along the top row, snakes back and forth over every other column, and returns north up the
+ * left-hand column, which needs an even number of rows. The benchmarks live in this package so they can build boards
+ * straight from a snake without replaying a game to get there.
+ */
+final class CycleBoards {
+  private CycleBoards() {
+  }
+
+  /**
+   * Returns the cells of a square board in cycle order.
+   */
+  static int[] cycle(Grid grid) {
+    int width = grid.getWidth();
+    int height = grid.getHeight();
+    if (height % 2 != 0) {
+      throw new IllegalArgumentException("the cycle needs an even number of rows");
+    }
+
+    int[] cells = new int[grid.size()];
+    int i = 0;
+    for (int y = 0; y < height; y++) {
+      if (y == 0) {
+        for (int x = 0; x < width; x++) {
+          cells[i++] = grid.cell(x, y);
+        }
+      }
+      else if (y % 2 == 1) {
+        for (int x = width - 1; x >= 1; x--) {
+          cells[i++] = grid.cell(x, y);
+        }
+      }
+      else {
+        for (int x = 1; x < width; x++) {
+          cells[i++] = grid.cell(x, y);
+        }
+      }
+    }
+    for (int y = height - 1; y >= 1; y--) {
+      cells[i++] = grid.cell(0, y);
+    }
+    return cells;
+  }
+
+  /**
+   * Returns, for every cell, the direction the cycle leaves it in.
+   */
+  static Direction[] directions(Grid grid) {
+    int[] cycle = cycle(grid);
+    Direction[] dirs = new Direction[grid.size()];
+    for (int i = 0; i < cycle.length; i++) {
+      int next = cycle[(i + 1) % cycle.length];
+      for (Direction d : Direction.values()) {
+        if (grid.neighbor(cycle[i], d) == next) {
+          dirs[cycle[i]] = d;
+        }
+      }
+    }
+    return dirs;
+  }
+
+  /**
+   * Returns a board with a snake of the given length lying along the cycle, and the food the given number of cells
+   * ahead of its head. A food offset of 1 means the next move eats.
+   */
+  static Board board(int size, int length, int foodOffset) {
+    Grid grid = Grid.grid(size, size);
+    int[] cycle = cycle(grid);
+    if (length + foodOffset > cycle.length) {
+      throw new IllegalArgumentException("snake and food do not fit on the board");
+    }
+
+    // head at cycle[length - 1], tail end at cycle[0]
+    List<Point> tail = List.empty();
+    for (int i = 0; i < length - 1; i++) {
+      tail = tail.prepend(grid.point(cycle[i]));
+    }
+    Point head = grid.point(cycle[length - 1]);
+    Direction dir = length > 1 ? tail.head().directionTo(head).get() : EAST;
+    Point food = grid.point(cycle[length - 1 + foodOffset]);
+    return Board.board(grid, food, Snake.trustedSnake(head, tail, dir), 0, 0, true);
+  }
+
+  /**
+   * Turns a benchmark parameter into a snake length: either a plain length, or a fraction of the board when it
+   * contains a decimal point.
+   */
+  static int length(String fill, int size) {
+    return fill.contains(".")
+               ? Math.max(3, (int) (Double.parseDouble(fill) * size * size))
+               : Integer.parseInt(fill);
+  }
+}
@@ -0,0 +1,63 @@
+package snake.winter.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.winter.game.MutableBoard.FoodPlacement;
+import snake.winter.game.Point.Direction;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single moves of the mutable engine, with the snake following the Hamiltonian cycle so it never dies. The snake grows
+ * whenever it meets the food, so once it has grown by a twentieth of the board it is put back to its starting length.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MutableBoardBenchmark {
+  @Param({"10", "50", "100", "200"})
+  public int size;
+
+  // either a snake length, or the fraction of the board the snake covers
+  @Param({"3", "0.25", "0.9"})
+  public String fill;
+
+  @Param({"ORDERED", "INDEXED"})
+  public FoodPlacement placement;
+
+  private Board start;
+  private MutableBoard board;
+  private Direction[] cycle;
+  private int maxLength;
+  private Random rng;
+
+  @Setup
+  public void setup() {
+    start = CycleBoards.board(size, CycleBoards.length(fill, size), 2);
+    board = MutableBoard.fromBoard(start, placement);
+    cycle = CycleBoards.directions(start.getGrid());
+    maxLength = Math.min(size * size - 2, board.length() + Math.max(1, size * size / 20));
+    rng = new Random(42);
+  }
+
+  @Benchmark
+  public boolean updateBoard() {
+    if (board.length() >= maxLength) {
+      board.copyFrom(start);
+    }
+    return board.updateBoard(cycle[board.getHeadCell()], rng);
+  }
+}
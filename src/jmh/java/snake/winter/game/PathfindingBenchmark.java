@@ -0,0 +1,51 @@
+package snake.winter.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.winter.controller.PathfindingController;
+import snake.winter.game.Point.Direction;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One decision of the pathfinding controller, on a snake lying along the Hamiltonian cycle with the food halfway round
+ * the free part of the cycle. Run with {@code -prof gc} to see that a decision allocates nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfindingBenchmark {
+  @Param({"10", "50", "100"})
+  public int size;
+
+  // either a snake length, or the fraction of the board the snake covers
+  @Param({"3", "0.25", "0.9"})
+  public String fill;
+
+  private MutableBoard board;
+  private PathfindingController controller;
+
+  @Setup
+  public void setup() {
+    int length = CycleBoards.length(fill, size);
+    board = MutableBoard.fromBoard(CycleBoards.board(size, length, Math.max(1, (size * size - length) / 2)));
+    controller = new PathfindingController();
+  }
+
+  @Benchmark
+  public Direction nextMove() {
+    return controller.nextMove(board);
+  }
+}
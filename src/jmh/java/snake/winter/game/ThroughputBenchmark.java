@@ -0,0 +1,102 @@
+package snake.winter.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.winter.game.MutableBoard.FoodPlacement;
+import snake.winter.game.Point.Direction;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves per second for both engines, on one thread and on every core. Each operation plays a run of moves around the
+ * Hamiltonian cycle starting from a short snake, so the snake grows as it goes, the way it does in a real game. The
+ * parallel runs show how well the engines scale, and with {@code -prof gc} how much garbage each move makes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThroughputBenchmark {
+  private static final int MOVES = 1000;
+
+  @Param({"10", "50", "100", "200"})
+  public int size;
+
+  private Board start;
+  private MutableBoard mutable;
+  private Direction[] cycle;
+  private Random rng;
+
+  @Setup
+  public void setup() {
+    start = CycleBoards.board(size, 3, 2);
+    mutable = MutableBoard.fromBoard(start, FoodPlacement.INDEXED);
+    cycle = CycleBoards.directions(start.getGrid());
+    rng = new Random(42);
+  }
+
+  @Benchmark
+  @Threads(1)
+  @OperationsPerInvocation(MOVES)
+  public Board boardMoves() {
+    return playBoard();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  @OperationsPerInvocation(MOVES)
+  public Board boardMovesParallel() {
+    return playBoard();
+  }
+
+  @Benchmark
+  @Threads(1)
+  @OperationsPerInvocation(MOVES)
+  public int mutableMoves() {
+    return playMutable();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  @OperationsPerInvocation(MOVES)
+  public int mutableMovesParallel() {
+    return playMutable();
+  }
+
+  private Board playBoard() {
+    Board board = start;
+    Grid grid = board.getGrid();
+    for (int i = 0; i < MOVES; i++) {
+      board = board.updateBoard(cycle[grid.cell(board.getSnake().getHead())], rng);
+      if (board.getSnake().length() * 2 > grid.size()) {
+        board = start;
+      }
+    }
+    return board;
+  }
+
+  private int playMutable() {
+    mutable.copyFrom(start);
+    for (int i = 0; i < MOVES; i++) {
+      mutable.updateBoard(cycle[mutable.getHeadCell()], rng);
+      if (mutable.length() * 2 > mutable.getGrid().size()) {
+        mutable.copyFrom(start);
+      }
+    }
+    return mutable.getScore();
+  }
+}
@@ -0,0 +1,74 @@
+package snake.winter.neuralnet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time to breed one whole generation: every child is a crossover of two random parents followed by a weight
+ * mutation and the occasional structural one. The population is first grown for a few generations so the genomes
+ * carry hidden nodes and disabled genes, like they do mid-run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenomeBenchmark {
+  // the inputs and outputs of a typical snake controller
+  private static final int INPUTS = 24;
+  private static final int OUTPUTS = 4;
+
+  @Param({"1000", "10000"})
+  public int population;
+
+  private InnovationTracker tracker;
+  private Genome[] parents;
+  private SplittableRandom rng;
+
+  @Setup
+  public void setup() {
+    tracker = InnovationTracker.tracker(INPUTS, OUTPUTS);
+    rng = new SplittableRandom(42);
+    parents = new Genome[population];
+    for (int i = 0; i < population; i++) {
+      parents[i] = Genome.minimal(tracker, rng);
+    }
+    for (int generation = 0; generation < 20; generation++) {
+      parents = reproduce();
+    }
+  }
+
+  @Benchmark
+  public Genome[] reproduceGeneration() {
+    return reproduce();
+  }
+
+  private Genome[] reproduce() {
+    Genome[] children = new Genome[parents.length];
+    for (int i = 0; i < children.length; i++) {
+      Genome child = Genome.crossover(parents[rng.nextInt(parents.length)], parents[rng.nextInt(parents.length)], rng);
+      child = child.perturbWeights(rng, 0.8, 0.5, 0.1);
+      if (rng.nextDouble() < 0.03) {
+        child = child.addNode(tracker, rng);
+      }
+      if (rng.nextDouble() < 0.05) {
+        child = child.addConnection(tracker, rng, 20);
+      }
+      children[i] = child;
+    }
+    return children;
+  }
+}
@@ -0,0 +1,81 @@
+package snake.winter.neuralnet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Network evaluations per second, one input vector at a time and in batches, for genomes grown to a given number of
+ * hidden nodes. Also measures how long compiling a genome takes, since that happens once per genome per generation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkBenchmark {
+  private static final int INPUTS = 24;
+  private static final int OUTPUTS = 4;
+  private static final int BATCH = 256;
+
+  @Param({"0", "10", "50"})
+  public int hidden;
+
+  private Genome genome;
+  private CompiledNetwork network;
+  private float[] inputs;
+  private float[] outputs;
+
+  @Setup
+  public void setup() {
+    InnovationTracker tracker = InnovationTracker.tracker(INPUTS, OUTPUTS);
+    SplittableRandom rng = new SplittableRandom(42);
+    genome = Genome.minimal(tracker, rng);
+    while (genome.nodeCount() < INPUTS + 1 + OUTPUTS + hidden) {
+      genome = genome.addNode(tracker, rng).addConnection(tracker, rng, 20);
+    }
+    network = CompiledNetwork.compile(genome);
+    inputs = new float[BATCH * INPUTS];
+    for (int i = 0; i < inputs.length; i++) {
+      inputs[i] = (float) rng.nextDouble();
+    }
+    outputs = new float[BATCH * OUTPUTS];
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public float[] single() {
+    float[] in = new float[INPUTS];
+    float[] out = new float[OUTPUTS];
+    for (int b = 0; b < BATCH; b++) {
+      System.arraycopy(inputs, b * INPUTS, in, 0, INPUTS);
+      network.evaluate(in, out);
+    }
+    return out;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public float[] batch() {
+    network.evaluate(inputs, outputs, BATCH);
+    return outputs;
+  }
+
+  @Benchmark
+  public CompiledNetwork compile() {
+    return CompiledNetwork.compile(genome);
+  }
+}
@@ -0,0 +1,71 @@
+package snake.winter.neuralnet;
+
+import io.vavr.collection.Array;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time to speciate a whole population against the species of the generation before, on every core. Genomes get
+ * a random number of structural mutations so they spread over many species, the way they do mid-run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpeciationBenchmark {
+  private static final int INPUTS = 24;
+  private static final int OUTPUTS = 4;
+
+  @Param({"5000", "50000"})
+  public int population;
+
+  @Param({"10", "50"})
+  public int species;
+
+  private Array<Genome> genomes;
+  private Speciation speciation;
+
+  @Setup
+  public void setup() {
+    InnovationTracker tracker = InnovationTracker.tracker(INPUTS, OUTPUTS);
+    SplittableRandom rng = new SplittableRandom(42);
+    Genome[] ancestors = new Genome[species];
+    for (int i = 0; i < species; i++) {
+      ancestors[i] = Genome.minimal(tracker, rng);
+      for (int m = 0; m < 10; m++) {
+        ancestors[i] = ancestors[i].addNode(tracker, rng).addConnection(tracker, rng, 20);
+      }
+    }
+    genomes = Array.fill(population, () -> {
+      Genome g = ancestors[rng.nextInt(species)].perturbWeights(rng, 0.8, 0.5, 0.1);
+      for (int m = rng.nextInt(4); m > 0; m--) {
+        g = g.addNode(tracker, rng).addConnection(tracker, rng, 20);
+      }
+      return g;
+    });
+
+    speciation = Speciation.speciation(Compatibility.compatibility(), species);
+    for (int generation = 0; generation < 20; generation++) {
+      speciation = speciation.speciate(genomes, new SplittableRandom(generation));
+    }
+  }
+
+  @Benchmark
+  public Speciation speciate() {
+    return speciation.speciate(genomes, new SplittableRandom(7));
+  }
+}
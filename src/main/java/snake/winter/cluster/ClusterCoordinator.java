@@ -0,0 +1,501 @@
+package snake.winter.cluster;
+
+import io.vavr.collection.Array;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import snake.winter.evolution.Evaluation;
+import snake.winter.evolution.EvaluationStats;
+import snake.winter.evolution.Evaluator;
+import snake.winter.evolution.Fitness;
+import snake.winter.metrics.Counter;
+import snake.winter.metrics.Metrics;
+import snake.winter.neuralnet.Genome;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scores populations on {@link ClusterWorker}s in other JVMs, usually on other machines, that connect to it over TCP.
+ *
+ * <p>Each evaluation cuts the population into batches, several per worker thread so that fast workers can take more
+ * of them, and sends each worker up to {@link #getInFlight()} batches per thread ahead of what it has answered. A
+ * worker always has its next batches queued, and never waits for a round trip. When a worker's connection drops, its
+ * unanswered batches go back to the front of the queue for the others. So do those of a worker that is still connected
+ * but stops answering: a worker with batches in flight must answer one within {@value #SLOW_FACTOR} times the time its
+ * own measured speed says they take, and never less than the answer timeout, or it is dropped. Workers can join at any
+ * time, even during an evaluation, and an evaluation with no workers waits for one.
+ *
+ * <p>Results are written into place by genome index, and each genome is scored only with its own seed, so an
+ * evaluation's results are the same however the batches were spread, and whichever workers came and went. A worker
+ * must score genomes exactly as the coordinator would: it describes its fitness function when it connects, and the
+ * coordinator refuses it unless the description matches its own.
+ *
+ * <p>{@link #getWorkers()} reports each worker's throughput and how many batches it has queued; the {@code cluster.*}
+ * counters count batches, genomes and reassigned batches when metrics are {@linkplain Metrics#ENABLED enabled}.
+ * Evaluations must not overlap.
+ */
+public final class ClusterCoordinator implements Evaluator {
+  private static final Logger log = LoggerFactory.getLogger(ClusterCoordinator.class);
+  private static final Counter BATCHES = Metrics.counter("cluster.batches");
+  private static final Counter GENOMES = Metrics.counter("cluster.genomes");
+  private static final Counter REASSIGNED = Metrics.counter("cluster.reassigned");
+  private static final Counter LOST = Metrics.counter("cluster.lostWorkers");
+  // batches per worker thread in an evaluation, so work can flow to whoever is fastest
+  private static final int BATCHES_PER_THREAD = 4;
+  private static final int HANDSHAKE_MILLIS = 10_000;
+  private static final long ANSWER_TIMEOUT_MILLIS = 60_000;
+  // how many times slower than its measured speed a worker may be before it counts as stuck
+  private static final int SLOW_FACTOR = 4;
+  private static final long POLL_MILLIS = 200;
+
+  /**
+   * Genomes {@code from} to {@code to} of the population being evaluated, sent as one batch.
+   */
+  private static final class Job {
+    final int id;
+    final int from;
+    final int to;
+
+    Job(int id, int from, int to) {
+      this.id = id;
+      this.from = from;
+      this.to = to;
+    }
+
+    int size() {
+      return to - from;
+    }
+  }
+
+  /**
+   * A connected worker. Only the evaluating thread sends to it and touches its batches in flight.
+   */
+  private static final class Worker {
+    final Socket socket;
+    final DataOutputStream out;
+    final String name;
+    final int threads;
+    final long connectedAt = System.nanoTime();
+    final ArrayDeque<Job> inFlight = new ArrayDeque<>();
+    final AtomicLong genomes = new AtomicLong();
+    final AtomicLong batches = new AtomicLong();
+    final AtomicLong busyNanos = new AtomicLong();
+    volatile int queuedBatches;
+    volatile int queuedGenomes;
+    volatile boolean alive = true;
+    // when the worker last answered, or was handed work with nothing in flight
+    long lastProgress;
+
+    Worker(Socket socket, DataOutputStream out, int threads) {
+      this.socket = socket;
+      this.out = out;
+      this.name = String.valueOf(socket.getRemoteSocketAddress());
+      this.threads = threads;
+    }
+
+    void updateQueue() {
+      int genomesQueued = 0;
+      for (Job job : inFlight) {
+        genomesQueued += job.size();
+      }
+      queuedBatches = inFlight.size();
+      queuedGenomes = genomesQueued;
+    }
+
+    /**
+     * Returns when the worker should have answered its oldest batch in flight: the given least timeout after it last
+     * made progress, or longer if its measured speed says what it has queued takes longer.
+     */
+    long answerDeadline(long timeoutNanos) {
+      long scored = genomes.get();
+      long expected = scored == 0 ? 0 : busyNanos.get() / scored * queuedGenomes / threads;
+      return lastProgress + Math.max(timeoutNanos, SLOW_FACTOR * expected);
+    }
+
+    WorkerStats stats() {
+      return new WorkerStats(name, threads, genomes.get(), batches.get(), busyNanos.get(),
+          System.nanoTime() - connectedAt, queuedBatches, queuedGenomes);
+    }
+  }
+
+  /**
+   * Something a worker's reader thread saw: a batch's results, or, when {@code results} is null, that the worker
+   * joined or went away.
+   */
+  private static final class Event {
+    final Worker worker;
+    final Protocol.Results results;
+
+    Event(Worker worker, Protocol.Results results) {
+      this.worker = worker;
+      this.results = results;
+    }
+  }
+
+  private final ServerSocket server;
+  private final String fitness;
+  private final int inFlight;
+  private final long answerTimeoutNanos;
+  private final CopyOnWriteArrayList<Worker> workers = new CopyOnWriteArrayList<>();
+  private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+  private volatile boolean closed;
+  private int nextBatch;
+
+  private ClusterCoordinator(ServerSocket server, String fitness, int inFlight, long answerTimeoutNanos) {
+    this.server = server;
+    this.fitness = fitness;
+    this.inFlight = inFlight;
+    this.answerTimeoutNanos = answerTimeoutNanos;
+  }
+
+  /**
+   * Starts listening for workers on the given address, for workers whose fitness function has the given description,
+   * keeping up to the given number of batches per worker thread in flight. Use port 0 for any free port.
+   */
+  public static ClusterCoordinator start(InetSocketAddress address, String fitness, int inFlight) throws IOException {
+    return start(address, fitness, inFlight, ANSWER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Starts listening for workers as above, dropping a worker that has batches in flight but answers none of them
+   * within the given timeout, or within the longer time its measured speed says they take.
+   */
+  public static ClusterCoordinator start(InetSocketAddress address, String fitness, int inFlight, long answerTimeout,
+                                         TimeUnit unit) throws IOException {
+    if (inFlight < 1) {
+      throw new IllegalArgumentException("a worker needs at least one batch in flight");
+    }
+    if (answerTimeout <= 0) {
+      throw new IllegalArgumentException("the answer timeout must be positive");
+    }
+    ServerSocket server = new ServerSocket();
+    try {
+      server.bind(address);
+    }
+    catch (IOException ex) {
+      server.close();
+      throw ex;
+    }
+    ClusterCoordinator coordinator = new ClusterCoordinator(server, fitness, inFlight, unit.toNanos(answerTimeout));
+    startDaemon(coordinator::accept, "cluster-acceptor");
+    log.info("waiting for workers on {}", server.getLocalSocketAddress());
+    return coordinator;
+  }
+
+  public int getPort() {
+    return server.getLocalPort();
+  }
+
+  public int getInFlight() {
+    return inFlight;
+  }
+
+  /**
+   * Returns how each connected worker is doing.
+   */
+  public Array<WorkerStats> getWorkers() {
+    return Array.ofAll(workers).map(Worker::stats);
+  }
+
+  /**
+   * Waits until at least the given number of workers are connected, and returns whether they are.
+   */
+  public boolean awaitWorkers(int count, long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    synchronized (workers) {
+      while (workers.size() < count) {
+        long left = deadline - System.nanoTime();
+        if (left <= 0 || closed) {
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(workers, left);
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public synchronized Evaluation evaluate(Array<Genome> population, long[] seeds) {
+    if (seeds.length != population.size()) {
+      throw new IllegalArgumentException(population.size() + " genomes need as many seeds, not " + seeds.length);
+    }
+    Genome[] genomes = population.toJavaArray(Genome.class);
+    Fitness[] results = new Fitness[genomes.length];
+    ArrayDeque<Job> pending = new ArrayDeque<>();
+    int size = Math.max(1, genomes.length / (Math.max(1, threads()) * BATCHES_PER_THREAD));
+    for (int from = 0; from < genomes.length; from += size) {
+      pending.add(new Job(nextBatch++, from, Math.min(genomes.length, from + size)));
+    }
+
+    long start = System.nanoTime();
+    int remaining = genomes.length;
+    long busy = 0;
+    int reassigned = 0;
+    int maxThreads = 0;
+    boolean warned = false;
+    while (remaining > 0) {
+      if (closed) {
+        throw new IllegalStateException("the coordinator closed during an evaluation");
+      }
+      reassigned += dispatch(pending, genomes, seeds);
+      maxThreads = Math.max(maxThreads, threads());
+      Event event;
+      try {
+        event = events.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+      }
+      catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("interrupted while waiting for workers", ex);
+      }
+      if (event == null) {
+        if (workers.isEmpty() && !warned) {
+          log.warn("no workers connected, waiting for one");
+          warned = true;
+        }
+      }
+      else if (event.results != null) {
+        Job job = event.worker.inFlight.peek();
+        Protocol.Results r = event.results;
+        if (!event.worker.alive) {
+          // answered before the worker was dropped; its batches are already back in the queue
+          continue;
+        }
+        if (job == null || job.id != r.batch || job.size() != r.fitness.length) {
+          log.warn("worker {} answered batch {} out of turn", event.worker.name, r.batch);
+          reassigned += lose(event.worker, pending);
+          continue;
+        }
+        event.worker.inFlight.poll();
+        event.worker.lastProgress = System.nanoTime();
+        System.arraycopy(r.fitness, 0, results, job.from, job.size());
+        remaining -= job.size();
+        busy += r.busyNanos;
+        event.worker.genomes.addAndGet(job.size());
+        event.worker.batches.incrementAndGet();
+        event.worker.busyNanos.addAndGet(r.busyNanos);
+        event.worker.updateQueue();
+        if (Metrics.ENABLED) {
+          GENOMES.add(job.size());
+        }
+      }
+      else if (event.worker.alive && !event.worker.socket.isClosed()) {
+        // a worker joined; the next dispatch hands it work
+        continue;
+      }
+      else {
+        reassigned += lose(event.worker, pending);
+      }
+      reassigned += dropStuck(pending);
+    }
+
+    long wall = System.nanoTime() - start;
+    EvaluationStats stats = EvaluationStats.evaluationStats(genomes.length, Math.max(1, maxThreads), wall, busy,
+        reassigned);
+    return Evaluation.evaluation(Array.of(results), seeds, stats);
+  }
+
+  /**
+   * Stops listening and drops every worker. Workers then stop on their own.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    try {
+      server.close();
+    }
+    catch (IOException ex) {
+      // closing anyway
+    }
+    for (Worker w : workers) {
+      closeQuietly(w.socket);
+    }
+    synchronized (workers) {
+      workers.notifyAll();
+    }
+  }
+
+  /**
+   * Tops every worker up to its share of batches in flight, and returns how many batches came back from workers lost
+   * while sending.
+   */
+  private int dispatch(ArrayDeque<Job> pending, Genome[] genomes, long[] seeds) {
+    int reassigned = 0;
+    for (Worker w : workers) {
+      int window = inFlight * w.threads;
+      while (w.alive && w.inFlight.size() < window && !pending.isEmpty()) {
+        Job job = pending.poll();
+        if (w.inFlight.isEmpty()) {
+          w.lastProgress = System.nanoTime();
+        }
+        w.inFlight.add(job);
+        try {
+          Protocol.write(w.out, Protocol.BATCH, Protocol.batch(job.id, genomes, seeds, job.from, job.to));
+          if (Metrics.ENABLED) {
+            BATCHES.increment();
+          }
+        }
+        catch (IOException ex) {
+          reassigned += lose(w, pending);
+        }
+      }
+      w.updateQueue();
+    }
+    return reassigned;
+  }
+
+  /**
+   * Drops the workers that have batches in flight but are long overdue to answer one, though still connected, and
+   * returns how many batches came back from them.
+   */
+  private int dropStuck(ArrayDeque<Job> pending) {
+    int reassigned = 0;
+    long now = System.nanoTime();
+    for (Worker w : workers) {
+      if (!w.inFlight.isEmpty() && now - w.answerDeadline(answerTimeoutNanos) > 0) {
+        log.warn("worker {} has not answered for {} ms", w.name, TimeUnit.NANOSECONDS.toMillis(now - w.lastProgress));
+        reassigned += lose(w, pending);
+      }
+    }
+    return reassigned;
+  }
+
+  /**
+   * Drops a worker and puts its batches in flight back at the front of the queue, in order, returning how many.
+   */
+  private int lose(Worker worker, ArrayDeque<Job> pending) {
+    if (!worker.alive) {
+      return 0;
+    }
+    worker.alive = false;
+    workers.remove(worker);
+    closeQuietly(worker.socket);
+    int count = worker.inFlight.size();
+    for (Iterator<Job> i = worker.inFlight.descendingIterator(); i.hasNext(); ) {
+      pending.addFirst(i.next());
+    }
+    worker.inFlight.clear();
+    worker.updateQueue();
+    if (Metrics.ENABLED) {
+      LOST.increment();
+      REASSIGNED.add(count);
+    }
+    log.warn("lost worker {}, handing its {} batches to the others", worker.name, count);
+    return count;
+  }
+
+  private int threads() {
+    int threads = 0;
+    for (Worker w : workers) {
+      threads += w.threads;
+    }
+    return threads;
+  }
+
+  private void accept() {
+    while (!closed) {
+      Socket socket;
+      try {
+        socket = server.accept();
+      }
+      catch (IOException ex) {
+        if (!closed) {
+          log.warn("stopped accepting workers: {}", ex.toString());
+        }
+        return;
+      }
+      try {
+        handshake(socket);
+      }
+      catch (IOException | RuntimeException ex) {
+        log.warn("worker {} failed to join: {}", socket.getRemoteSocketAddress(), ex.toString());
+        closeQuietly(socket);
+      }
+    }
+  }
+
+  private void handshake(Socket socket) throws IOException {
+    socket.setTcpNoDelay(true);
+    socket.setSoTimeout(HANDSHAKE_MILLIS);
+    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    ByteBuffer hello = Protocol.read(in);
+    if (hello.get() != Protocol.HELLO || hello.getInt() != Protocol.MAGIC) {
+      throw new IOException("not a worker");
+    }
+    short version = hello.getShort();
+    int threads = hello.getInt();
+    String description = Protocol.readString(hello);
+    String problem = version != Protocol.VERSION ? "protocol version " + version + ", expected " + Protocol.VERSION
+                     : threads < 1 ? "no threads"
+                     : !description.equals(fitness) ? "fitness " + description + ", expected " + fitness
+                     : null;
+    if (problem != null) {
+      Protocol.write(out, Protocol.REJECT, Protocol.reject(problem));
+      throw new IOException("refused: " + problem);
+    }
+    Protocol.write(out, Protocol.WELCOME, ByteBuffer.allocate(0));
+    socket.setSoTimeout(0);
+
+    Worker worker = new Worker(socket, out, threads);
+    synchronized (workers) {
+      workers.add(worker);
+      workers.notifyAll();
+    }
+    events.add(new Event(worker, null));
+    startDaemon(() -> read(worker, in), "cluster-reader-" + worker.name);
+    log.info("worker {} joined with {} threads", worker.name, threads);
+  }
+
+  private void read(Worker worker, DataInputStream in) {
+    try {
+      while (true) {
+        ByteBuffer frame = Protocol.read(in);
+        byte type = frame.get();
+        if (type != Protocol.RESULTS) {
+          throw new IOException("unexpected frame " + type);
+        }
+        events.add(new Event(worker, Protocol.readResults(frame)));
+      }
+    }
+    catch (IOException | RuntimeException ex) {
+      if (!closed) {
+        log.info("worker {} went away: {}", worker.name, ex.toString());
+      }
+    }
+    finally {
+      closeQuietly(worker.socket);
+      // stop sending it work at once; the evaluating thread takes back its batches when it sees the event
+      workers.remove(worker);
+      events.add(new Event(worker, null));
+    }
+  }
+
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    }
+    catch (IOException ex) {
+      // closing anyway
+    }
+  }
+
+  private static void startDaemon(Runnable task, String name) {
+    Thread thread = new Thread(task, name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+}
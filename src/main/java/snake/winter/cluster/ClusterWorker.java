@@ -0,0 +1,202 @@
+package snake.winter.cluster;
+
+import io.vavr.collection.Array;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import snake.winter.evolution.Evaluation;
+import snake.winter.evolution.Fitness;
+import snake.winter.evolution.FitnessFunction;
+import snake.winter.evolution.PopulationEvaluator;
+import snake.winter.neuralnet.Genome;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scores batches of genomes for a {@link ClusterCoordinator}, on a local {@link PopulationEvaluator}.
+ *
+ * <p>A worker dials the coordinator, so workers can come and go while a run goes on. A reader thread decodes the
+ * batches as they arrive and queues them. A scoring thread takes everything queued, scores it all at once on every
+ * thread, and sends back each batch's results in turn. Since the coordinator keeps several batches in flight, the next
+ * ones are usually queued before the last are done, and the worker never sits idle waiting on the network.
+ *
+ * @param <W> the fitness function's workspace
+ */
+public final class ClusterWorker<W> implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(ClusterWorker.class);
+  // queued by the reader when the connection ends, to stop the scoring thread
+  private static final Protocol.Batch END = new Protocol.Batch(-1, null, null);
+
+  private final Socket socket;
+  private final DataInputStream in;
+  private final DataOutputStream out;
+  private final PopulationEvaluator<W> evaluator;
+  private final BlockingQueue<Protocol.Batch> batches = new LinkedBlockingQueue<>();
+  private final CountDownLatch finished = new CountDownLatch(1);
+  private final AtomicLong genomes = new AtomicLong();
+
+  private ClusterWorker(Socket socket, DataInputStream in, DataOutputStream out, PopulationEvaluator<W> evaluator) {
+    this.socket = socket;
+    this.in = in;
+    this.out = out;
+    this.evaluator = evaluator;
+  }
+
+  /**
+   * Connects to a coordinator and starts scoring its batches with the given fitness function on the given number of
+   * threads. The coordinator refuses a worker whose fitness description differs from its own.
+   *
+   * @throws IOException if the coordinator cannot be reached or refuses the worker
+   */
+  public static <W> ClusterWorker<W> connect(InetSocketAddress coordinator, String fitness,
+                                             FitnessFunction<W> function, int threads) throws IOException {
+    Socket socket = new Socket();
+    try {
+      socket.setTcpNoDelay(true);
+      socket.connect(coordinator);
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      Protocol.write(out, Protocol.HELLO, Protocol.hello(threads, fitness));
+      ByteBuffer reply = Protocol.read(in);
+      byte type = reply.get();
+      if (type == Protocol.REJECT) {
+        throw new IOException("coordinator refused the worker: " + Protocol.readString(reply));
+      }
+      if (type != Protocol.WELCOME) {
+        throw new IOException("unexpected frame " + type + " from the coordinator");
+      }
+
+      ClusterWorker<W> worker = new ClusterWorker<>(socket, in, out, PopulationEvaluator.evaluator(function, threads));
+      startDaemon(worker::read, "cluster-worker-reader");
+      startDaemon(worker::score, "cluster-worker");
+      log.info("scoring for {} on {} threads", coordinator, threads);
+      return worker;
+    }
+    catch (IOException | RuntimeException ex) {
+      socket.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Returns the genomes scored so far.
+   */
+  public long getGenomes() {
+    return genomes.get();
+  }
+
+  /**
+   * Blocks until the connection ends, because the coordinator closed or went away, or the worker was closed.
+   */
+  public void awaitFinish() throws InterruptedException {
+    finished.await();
+  }
+
+  /**
+   * Drops the connection at once, abandoning any batches not yet answered, and stops scoring.
+   */
+  @Override
+  public void close() {
+    try {
+      socket.close();
+    }
+    catch (IOException ex) {
+      // closing anyway
+    }
+    batches.add(END);
+  }
+
+  private void read() {
+    try {
+      while (true) {
+        ByteBuffer frame = Protocol.read(in);
+        byte type = frame.get();
+        if (type != Protocol.BATCH) {
+          throw new IOException("unexpected frame " + type + " from the coordinator");
+        }
+        batches.add(Protocol.readBatch(frame));
+      }
+    }
+    catch (IOException | RuntimeException ex) {
+      if (!socket.isClosed()) {
+        log.info("connection to the coordinator ended: {}", ex.toString());
+      }
+    }
+    finally {
+      close();
+    }
+  }
+
+  /**
+   * Scores every batch queued so far in one go, so that many small batches still keep all the threads busy, then
+   * answers each batch in turn. If scoring fails the worker drops the connection rather than leave its batches
+   * unanswered.
+   */
+  private void score() {
+    List<Protocol.Batch> taken = new ArrayList<>();
+    try {
+      while (true) {
+        taken.clear();
+        taken.add(batches.take());
+        batches.drainTo(taken);
+        if (taken.contains(END) || socket.isClosed()) {
+          return;
+        }
+        Array<Genome> genomes = Array.empty();
+        long[] seeds = new long[0];
+        for (Protocol.Batch batch : taken) {
+          genomes = genomes.appendAll(batch.genomes);
+          int at = seeds.length;
+          seeds = Arrays.copyOf(seeds, at + batch.seeds.length);
+          System.arraycopy(batch.seeds, 0, seeds, at, batch.seeds.length);
+        }
+        Evaluation evaluation = evaluator.evaluate(genomes, seeds);
+
+        // counted before answering, so the count is up to date by the time the coordinator has the results
+        this.genomes.addAndGet(genomes.size());
+        long busy = evaluation.getStats().getBusyNanos();
+        int at = 0;
+        for (Protocol.Batch batch : taken) {
+          int size = batch.genomes.size();
+          Array<Fitness> fitness = evaluation.getFitness().subSequence(at, at + size);
+          Protocol.write(out, Protocol.RESULTS, Protocol.results(batch.batch, busy * size / genomes.size(), fitness));
+          at += size;
+        }
+      }
+    }
+    catch (IOException ex) {
+      close();
+    }
+    catch (RuntimeException ex) {
+      // drop the connection, so the coordinator hands the batches to a worker that can score them
+      log.error("could not score a batch, leaving the coordinator", ex);
+      close();
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    finally {
+      evaluator.close();
+      finished.countDown();
+    }
+  }
+
+  private static void startDaemon(Runnable task, String name) {
+    Thread thread = new Thread(task, name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+}
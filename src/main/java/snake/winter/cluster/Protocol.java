@@ -0,0 +1,167 @@
+package snake.winter.cluster;
+
+import io.vavr.collection.Array;
+import snake.winter.evolution.Fitness;
+import snake.winter.neuralnet.Genome;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The wire format between a {@link ClusterCoordinator} and its {@link ClusterWorker}s. Every message is one frame: a
+ * big-endian {@code int} length, then that many bytes, the first of which is the frame's type:
+ *
+ * <ul>
+ *   <li>{@link #HELLO}, worker to coordinator: magic, version, worker threads, and the description of its fitness
+ *   function as a length-prefixed UTF-8 string.</li>
+ *   <li>{@link #WELCOME}, or {@link #REJECT} with a reason string, coordinator to worker.</li>
+ *   <li>{@link #BATCH}, coordinator to worker: batch id, genome count, then each genome's seed and
+ *   {@linkplain Genome#writeTo encoding}.</li>
+ *   <li>{@link #RESULTS}, worker to coordinator: batch id, nanoseconds spent scoring, fitness count, then each
+ *   {@linkplain Fitness#writeTo fitness} in batch order.</li>
+ * </ul>
+ *
+ * <p>A worker answers batches in the order they arrive. Either side leaves by closing the connection.
+ */
+final class Protocol {
+  static final int MAGIC = 0x534e_4b45;
+  static final short VERSION = 1;
+  static final byte HELLO = 1;
+  static final byte WELCOME = 2;
+  static final byte REJECT = 3;
+  static final byte BATCH = 4;
+  static final byte RESULTS = 5;
+  // far more than any batch needs, but small enough that a corrupt length cannot exhaust the heap
+  static final int MAX_FRAME = 64 << 20;
+
+  /**
+   * The results of one batch, decoded.
+   */
+  static final class Results {
+    final int batch;
+    final long busyNanos;
+    final Fitness[] fitness;
+
+    Results(int batch, long busyNanos, Fitness[] fitness) {
+      this.batch = batch;
+      this.busyNanos = busyNanos;
+      this.fitness = fitness;
+    }
+  }
+
+  /**
+   * A batch of genomes to score, decoded.
+   */
+  static final class Batch {
+    final int batch;
+    final Array<Genome> genomes;
+    final long[] seeds;
+
+    Batch(int batch, Array<Genome> genomes, long[] seeds) {
+      this.batch = batch;
+      this.genomes = genomes;
+      this.seeds = seeds;
+    }
+  }
+
+  private Protocol() {
+  }
+
+  /**
+   * Writes a frame of the given type with the payload from position 0 to the buffer's position, and flushes.
+   */
+  static void write(DataOutputStream out, byte type, ByteBuffer payload) throws IOException {
+    out.writeInt(1 + payload.position());
+    out.writeByte(type);
+    out.write(payload.array(), payload.arrayOffset(), payload.position());
+    out.flush();
+  }
+
+  /**
+   * Reads the next frame and returns it with its type at the buffer's position.
+   */
+  static ByteBuffer read(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 1 || length > MAX_FRAME) {
+      throw new IOException("bad frame length " + length);
+    }
+    byte[] frame = new byte[length];
+    in.readFully(frame);
+    return ByteBuffer.wrap(frame);
+  }
+
+  static ByteBuffer hello(int threads, String fitness) {
+    byte[] description = fitness.getBytes(StandardCharsets.UTF_8);
+    return ByteBuffer.allocate(4 + 2 + 4 + 4 + description.length)
+               .putInt(MAGIC).putShort(VERSION).putInt(threads).putInt(description.length).put(description);
+  }
+
+  static ByteBuffer reject(String reason) {
+    byte[] bytes = reason.getBytes(StandardCharsets.UTF_8);
+    return ByteBuffer.allocate(4 + bytes.length).putInt(bytes.length).put(bytes);
+  }
+
+  static ByteBuffer batch(int batch, Genome[] genomes, long[] seeds, int from, int to) {
+    int size = 4 + 4;
+    for (int i = from; i < to; i++) {
+      size += 8 + genomes[i].byteSize();
+    }
+    ByteBuffer out = ByteBuffer.allocate(size).putInt(batch).putInt(to - from);
+    for (int i = from; i < to; i++) {
+      out.putLong(seeds[i]);
+      genomes[i].writeTo(out);
+    }
+    return out;
+  }
+
+  static Batch readBatch(ByteBuffer in) {
+    int batch = in.getInt();
+    int count = count(in, 8);
+    Genome[] genomes = new Genome[count];
+    long[] seeds = new long[count];
+    for (int i = 0; i < count; i++) {
+      seeds[i] = in.getLong();
+      genomes[i] = Genome.readFrom(in);
+    }
+    return new Batch(batch, Array.of(genomes), seeds);
+  }
+
+  static ByteBuffer results(int batch, long busyNanos, Array<Fitness> fitness) {
+    ByteBuffer out = ByteBuffer.allocate(4 + 8 + 4 + fitness.size() * Fitness.BYTES)
+                         .putInt(batch).putLong(busyNanos).putInt(fitness.size());
+    for (Fitness f : fitness) {
+      f.writeTo(out);
+    }
+    return out;
+  }
+
+  static Results readResults(ByteBuffer in) {
+    int batch = in.getInt();
+    long busyNanos = in.getLong();
+    Fitness[] fitness = new Fitness[count(in, Fitness.BYTES)];
+    for (int i = 0; i < fitness.length; i++) {
+      fitness[i] = Fitness.readFrom(in);
+    }
+    return new Results(batch, busyNanos, fitness);
+  }
+
+  static String readString(ByteBuffer in) {
+    byte[] bytes = new byte[count(in, 1)];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads a count of items at least the given size each, checking it against what is left of the frame.
+   */
+  private static int count(ByteBuffer in, int minBytes) {
+    int count = in.getInt();
+    if (count < 0 || count > in.remaining() / minBytes) {
+      throw new IllegalArgumentException("bad count " + count + " for a frame with " + in.remaining() + " bytes left");
+    }
+    return count;
+  }
+}
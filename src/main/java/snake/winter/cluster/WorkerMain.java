@@ -0,0 +1,76 @@
+package snake.winter.cluster;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import snake.winter.controller.RaySensors;
+import snake.winter.evolution.GameFitness;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command-line entry point for a worker that scores genomes for a training run started with
+ * {@code gradle runDashboard -Pargs="--cluster-port 4568 ..."}. Run it with {@code gradle runWorker -Pargs="..."},
+ * giving it the same board size and games as the run, or with {@code --help} to list the options. Start as many as
+ * there are machines, or several on one machine to try it out.
+ */
+public class WorkerMain {
+  @Parameter(names = "--host", description = "Host the training run listens for workers on")
+  private String host = "127.0.0.1";
+
+  @Parameter(names = "--port", description = "Port the training run listens for workers on")
+  private int port = 4568;
+
+  @Parameter(names = "--height", description = "Board height, as in the training run")
+  private int height = 10;
+
+  @Parameter(names = "--width", description = "Board width, as in the training run")
+  private int width = 10;
+
+  @Parameter(names = "--games", description = "Games each genome plays per generation, as in the training run")
+  private int games = 3;
+
+  @Parameter(names = {"--threads", "-t"}, description = "Worker threads, defaults to one per core")
+  private int threads = Runtime.getRuntime().availableProcessors();
+
+  @Parameter(names = "--wait", description = "Seconds to keep trying to reach the training run")
+  private int wait = 30;
+
+  @Parameter(names = {"--help", "-h"}, help = true, description = "Show this message")
+  private boolean help;
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    WorkerMain main = new WorkerMain();
+    JCommander commander = JCommander.newBuilder().addObject(main).programName("runWorker").build();
+    commander.parse(args);
+    if (main.help) {
+      commander.usage();
+      return;
+    }
+    main.run();
+  }
+
+  private void run() throws IOException, InterruptedException {
+    GameFitness fitness = GameFitness.gameFitness(height, width, games).withSensors(new RaySensors());
+    InetSocketAddress coordinator = new InetSocketAddress(host, port);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(wait);
+    while (true) {
+      try (ClusterWorker<GameFitness.Workspace> worker =
+               ClusterWorker.connect(coordinator, fitness.toString(), fitness, threads)) {
+        System.out.println("Scoring for " + coordinator + " on " + threads + " threads");
+        worker.awaitFinish();
+        System.out.println("Training run finished after " + worker.getGenomes() + " genomes");
+        return;
+      }
+      catch (ConnectException ex) {
+        // the training run may not have started yet
+        if (System.nanoTime() > deadline) {
+          throw ex;
+        }
+        Thread.sleep(1000);
+      }
+    }
+  }
+}
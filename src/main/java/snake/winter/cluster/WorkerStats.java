@@ -0,0 +1,99 @@
+package snake.winter.cluster;
+
+import com.google.errorprone.annotations.Immutable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How one worker of a {@link ClusterCoordinator} is doing: what it has scored since it connected, and how many
+ * genomes it has been sent but not yet answered for.
+ */
+@Immutable
+public final class WorkerStats {
+  private final String name;
+  private final int threads;
+  private final long genomes;
+  private final long batches;
+  private final long busyNanos;
+  private final long connectedNanos;
+  private final int queuedBatches;
+  private final int queuedGenomes;
+
+  WorkerStats(String name, int threads, long genomes, long batches, long busyNanos, long connectedNanos,
+              int queuedBatches, int queuedGenomes) {
+    this.name = name;
+    this.threads = threads;
+    this.genomes = genomes;
+    this.batches = batches;
+    this.busyNanos = busyNanos;
+    this.connectedNanos = connectedNanos;
+    this.queuedBatches = queuedBatches;
+    this.queuedGenomes = queuedGenomes;
+  }
+
+  /**
+   * Returns the worker's remote address.
+   */
+  public String getName() {
+    return name;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Returns the genomes the worker has scored since it connected.
+   */
+  public long getGenomes() {
+    return genomes;
+  }
+
+  public long getBatches() {
+    return batches;
+  }
+
+  /**
+   * Returns the time the worker spent scoring, summed over its threads.
+   */
+  public long getBusyNanos() {
+    return busyNanos;
+  }
+
+  public long getConnectedNanos() {
+    return connectedNanos;
+  }
+
+  /**
+   * Returns the batches sent to the worker that it has not answered yet.
+   */
+  public int getQueuedBatches() {
+    return queuedBatches;
+  }
+
+  public int getQueuedGenomes() {
+    return queuedGenomes;
+  }
+
+  /**
+   * Returns the genomes scored per second of the time the worker has been connected.
+   */
+  public double genomesPerSecond() {
+    return connectedNanos == 0 ? 0 : genomes * 1e9 / connectedNanos;
+  }
+
+  /**
+   * Returns the share of the worker's threads' time spent scoring, from 0 to 1.
+   */
+  public double utilization() {
+    return connectedNanos == 0 ? 0 : busyNanos / ((double) connectedNanos * threads);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: %d genomes in %d batches over %d s on %d threads (%.0f genomes/s), %.1f%% utilization, "
+                         + "%d batches (%d genomes) queued",
+        name, genomes, batches, TimeUnit.NANOSECONDS.toSeconds(connectedNanos), threads, genomesPerSecond(),
+        100 * utilization(), queuedBatches, queuedGenomes);
+  }
+}
@@ -0,0 +1,16 @@
+package snake.winter.controller;
+
+import snake.winter.game.MutableBoard;
+import snake.winter.game.Point.Direction;
+
+/**
+ * Decides where the snake goes next. Controllers are handed the live engine for speed and must treat it as
+ * read-only. A controller may keep state between moves, so each game gets its own instance.
+ */
+@FunctionalInterface
+public interface Controller {
+  /**
+   * Returns the direction the snake should move in next.
+   */
+  Direction nextMove(MutableBoard board);
+}
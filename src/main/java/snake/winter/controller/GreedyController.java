@@ -0,0 +1,35 @@
+package snake.winter.controller;
+
+import snake.winter.game.Grid;
+import snake.winter.game.MutableBoard;
+import snake.winter.game.Point.Direction;
+
+/**
+ * Heads straight for the food, taking the first safe move that gets closer and otherwise any safe move at all. It
+ * looks only one step ahead, so it happily walks into dead ends.
+ */
+public class GreedyController implements Controller {
+  private static final Direction[] directions = Direction.values();
+
+  @Override
+  public Direction nextMove(MutableBoard board) {
+    Grid grid = board.getGrid();
+    int distance = distanceToFood(board, board.getHeadCell());
+    Direction fallback = board.getDir();
+    for (Direction d : directions) {
+      int next = grid.neighbor(board.getHeadCell(), d);
+      if (next != Grid.WALL && !board.isOccupied(next)) {
+        if (distanceToFood(board, next) < distance) {
+          return d;
+        }
+        fallback = d;
+      }
+    }
+    return fallback;
+  }
+
+  private static int distanceToFood(MutableBoard board, int cell) {
+    Grid grid = board.getGrid();
+    return Math.abs(grid.x(cell) - board.getFoodX()) + Math.abs(grid.y(cell) - board.getFoodY());
+  }
+}
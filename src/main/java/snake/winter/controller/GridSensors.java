@@ -0,0 +1,37 @@
+package snake.winter.controller;
+
+import snake.winter.game.MutableBoard;
+
+/**
+ * The whole board, cell by cell in cell id order, with three values per cell: whether the snake covers it, whether it
+ * is the head and whether it holds the food. Only fits boards of the size it was made for.
+ */
+public class GridSensors implements SensorSet {
+  private final int height;
+  private final int width;
+
+  public GridSensors(int height, int width) {
+    this.height = height;
+    this.width = width;
+  }
+
+  @Override
+  public int size() {
+    return 3 * height * width;
+  }
+
+  @Override
+  public void sense(MutableBoard board, float[] out, int offset) {
+    if (board.getHeight() != height || board.getWidth() != width) {
+      throw new IllegalArgumentException("board is not " + height + " by " + width);
+    }
+    int cells = height * width;
+    for (int cell = 0; cell < cells; cell++) {
+      out[offset + 3 * cell] = board.isOccupied(cell) ? 1f : 0f;
+      out[offset + 3 * cell + 1] = 0f;
+      out[offset + 3 * cell + 2] = 0f;
+    }
+    out[offset + 3 * board.getHeadCell() + 1] = 1f;
+    out[offset + 3 * board.getFoodCell() + 2] = 1f;
+  }
+}
@@ -0,0 +1,413 @@
+package snake.winter.controller;
+
+import snake.winter.game.Grid;
+import snake.winter.game.MutableBoard;
+import snake.winter.game.Point.Direction;
+import snake.winter.metrics.Counter;
+import snake.winter.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks each move by Monte Carlo tree search: it plays thousands of short games from the current position, growing a
+ * tree of the positions they pass through, and takes the move whose games went best.
+ *
+ * <p>Each iteration walks down the tree choosing moves by UCT, adds the first position not in the tree yet, and plays
+ * on from it with a cheap rollout policy (a random safe move, or half the time the safe move nearest the food) until
+ * the snake dies or {@linkplain #withHorizon a horizon} is reached. A game is worth the food it eats, discounted by
+ * how long it takes, minus one if the snake dies. Moves straight into a wall or the body are never searched.
+ *
+ * <p>Positions are identified by their Zobrist key, so two move orders that reach the same position share one node
+ * through a transposition table, and the statistics live on the moves out of each node. Nodes are slots in
+ * preallocated primitive arrays and the table is open addressed, both cleared between moves by bumping a stamp. Every
+ * iteration replays from the current position on a scratch {@link MutableBoard} with one reused {@link Random}, so
+ * the search allocates nothing once it is set up.
+ *
+ * <p>With more than one thread the search uses root parallelism: every thread grows its own tree from its own seed, and
+ * the move with the most visits over all trees wins. The trees share nothing, so there is no locking or virtual loss.
+ * Searching stops at the {@linkplain #withBudget time budget}, or after a {@linkplain #withIterations fixed number of
+ * iterations} per thread, which makes a single-threaded search repeatable.
+ *
+ * <p>A controller owns its trees and threads, so each game needs its own, and it should be {@linkplain #close closed}
+ * when its game is over.
+ */
+public final class MctsController implements Controller, AutoCloseable {
+  private static final Direction[] directions = Direction.values();
+  private static final Counter ITERATIONS = Metrics.counter("mcts.iterations");
+  private static final double EXPLORATION = 1.0;
+  private static final double DISCOUNT = 0.97;
+  private static final double DEATH = -1.0;
+
+  private final int threads;
+  private final long budgetNanos;
+  private final int iterations;
+  private final int nodes;
+  private final int horizon;
+  private final long seed;
+
+  // set up on the first move
+  private Tree[] trees;
+  private List<Callable<Void>> tasks;
+  private ExecutorService pool;
+  // the position being searched, handed to the trees
+  private MutableBoard root;
+  private long deadline;
+  private long moveSeed;
+
+  private MctsController(int threads, long budgetNanos, int iterations, int nodes, int horizon, long seed) {
+    this.threads = threads;
+    this.budgetNanos = budgetNanos;
+    this.iterations = iterations;
+    this.nodes = nodes;
+    this.horizon = horizon;
+    this.seed = seed;
+  }
+
+  /**
+   * Returns a single-threaded search with 10 ms per move, 65536 nodes and a horizon of 100 moves.
+   */
+  public static MctsController mcts() {
+    return new MctsController(1, TimeUnit.MILLISECONDS.toNanos(10), 0, 1 << 16, 100, 0);
+  }
+
+  public MctsController withThreads(int newThreads) {
+    if (newThreads < 1) {
+      throw new IllegalArgumentException("need at least one thread");
+    }
+    return new MctsController(newThreads, budgetNanos, iterations, nodes, horizon, seed);
+  }
+
+  /**
+   * Returns a copy that searches for about the given number of milliseconds per move.
+   */
+  public MctsController withBudget(long millis) {
+    return new MctsController(threads, TimeUnit.MILLISECONDS.toNanos(millis), 0, nodes, horizon, seed);
+  }
+
+  /**
+   * Returns a copy that runs exactly the given number of iterations per thread per move, however long they take.
+   */
+  public MctsController withIterations(int newIterations) {
+    if (newIterations < 1) {
+      throw new IllegalArgumentException("need at least one iteration");
+    }
+    return new MctsController(threads, budgetNanos, newIterations, nodes, horizon, seed);
+  }
+
+  /**
+   * Returns a copy whose trees hold at most the given number of positions each. A full tree keeps searching, it just
+   * stops growing.
+   */
+  public MctsController withNodes(int newNodes) {
+    return new MctsController(threads, budgetNanos, iterations, newNodes, horizon, seed);
+  }
+
+  /**
+   * Returns a copy that looks at most the given number of moves ahead.
+   */
+  public MctsController withHorizon(int newHorizon) {
+    return new MctsController(threads, budgetNanos, iterations, nodes, newHorizon, seed);
+  }
+
+  public MctsController withSeed(long newSeed) {
+    return new MctsController(threads, budgetNanos, iterations, nodes, horizon, newSeed);
+  }
+
+  @Override
+  public Direction nextMove(MutableBoard board) {
+    if (trees == null) {
+      setUp(board);
+    }
+    root = board;
+    deadline = System.nanoTime() + budgetNanos;
+    moveSeed = seed * 0x9e37_79b9_7f4a_7c15L + board.getMoves();
+    if (pool == null) {
+      trees[0].search(board, deadline, moveSeed);
+    }
+    else {
+      try {
+        for (Future<Void> done : pool.invokeAll(tasks)) {
+          done.get();
+        }
+      }
+      catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return board.getDir();
+      }
+      catch (ExecutionException ex) {
+        throw new IllegalStateException("search failed", ex.getCause());
+      }
+    }
+
+    Direction best = board.getDir();
+    long bestVisits = 0;
+    double bestValue = Double.NEGATIVE_INFINITY;
+    for (int a = 0; a < directions.length; a++) {
+      long visits = 0;
+      double value = 0;
+      for (Tree tree : trees) {
+        visits += tree.rootVisits(a);
+        value += tree.rootValue(a);
+      }
+      double mean = visits == 0 ? 0 : value / visits;
+      if (visits > bestVisits || (visits == bestVisits && visits > 0 && mean > bestValue)) {
+        best = directions[a];
+        bestVisits = visits;
+        bestValue = mean;
+      }
+    }
+    return best;
+  }
+
+  @Override
+  public void close() {
+    if (pool != null) {
+      pool.shutdownNow();
+    }
+  }
+
+  private void setUp(MutableBoard board) {
+    trees = new Tree[threads];
+    tasks = new ArrayList<>(threads);
+    for (int t = 0; t < threads; t++) {
+      Tree tree = new Tree(MutableBoard.fromBoard(board.toBoard(), board.getFoodPlacement()), nodes, horizon,
+          iterations);
+      long offset = t;
+      trees[t] = tree;
+      tasks.add(() -> {
+        tree.search(root, deadline, moveSeed + offset * 0x632b_e59b_d9b4_e019L);
+        return null;
+      });
+    }
+    if (threads > 1) {
+      pool = Executors.newFixedThreadPool(threads, r -> {
+        Thread thread = new Thread(r, "mcts");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  /**
+   * One thread's search tree. Node n's statistics for the move with ordinal a sit at index {@code 4 * n + a}.
+   */
+  private static final class Tree {
+    private final MutableBoard scratch;
+    private final Grid grid;
+    private final Random rng = new Random();
+    private final int capacity;
+    private final int horizon;
+    private final int iterations;
+
+    private final int[] nodeVisits;
+    private final int[] edgeVisits;
+    private final float[] edgeValue;
+    private int nodeCount;
+
+    // open-addressed table from Zobrist key to node; a slot is in use when its stamp is the current one
+    private final long[] tableKeys;
+    private final int[] tableNodes;
+    private final int[] tableStamps;
+    private final int mask;
+    private int stamp;
+
+    // the nodes, moves and rewards of the current iteration's walk down the tree
+    private final int[] pathNodes;
+    private final int[] pathMoves;
+    private final float[] pathRewards;
+    private final int[] safe = new int[4];
+
+    Tree(MutableBoard scratch, int capacity, int horizon, int iterations) {
+      this.scratch = scratch;
+      this.grid = scratch.getGrid();
+      this.capacity = capacity;
+      this.horizon = horizon;
+      this.iterations = iterations;
+      this.nodeVisits = new int[capacity];
+      this.edgeVisits = new int[4 * capacity];
+      this.edgeValue = new float[4 * capacity];
+      int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+      this.tableKeys = new long[tableSize];
+      this.tableNodes = new int[tableSize];
+      this.tableStamps = new int[tableSize];
+      this.mask = tableSize - 1;
+      this.pathNodes = new int[horizon];
+      this.pathMoves = new int[horizon];
+      this.pathRewards = new float[horizon];
+    }
+
+    int rootVisits(int move) {
+      return edgeVisits[move];
+    }
+
+    float rootValue(int move) {
+      return edgeValue[move];
+    }
+
+    /**
+     * Throws away the old tree and searches from the given position until the deadline or the iteration count.
+     */
+    void search(MutableBoard root, long deadline, long seed) {
+      rng.setSeed(seed);
+      nodeCount = 0;
+      if (++stamp == 0) {
+        Arrays.fill(tableStamps, 0);
+        stamp = 1;
+      }
+      int rootNode = insert(root.getZobristKey());
+      int done = 0;
+      do {
+        iterate(root, rootNode);
+        done++;
+      }
+      while (iterations > 0 ? done < iterations : System.nanoTime() < deadline);
+      if (Metrics.ENABLED) {
+        ITERATIONS.add(done);
+      }
+    }
+
+    private void iterate(MutableBoard root, int rootNode) {
+      scratch.copyFrom(root);
+      int node = rootNode;
+      int depth = 0;
+      double value = 0;
+      while (depth < horizon) {
+        int move = select(node);
+        if (move < 0) {
+          // every move is fatal
+          value = DEATH;
+          break;
+        }
+        int score = scratch.getScore();
+        boolean live = scratch.updateBoard(directions[move], rng);
+        pathNodes[depth] = node;
+        pathMoves[depth] = move;
+        pathRewards[depth] = scratch.getScore() - score + (live ? 0 : (float) DEATH);
+        depth++;
+        if (!live || depth == horizon) {
+          break;
+        }
+        int child = find(scratch.getZobristKey());
+        if (child < 0) {
+          insert(scratch.getZobristKey());
+          value = rollout(horizon - depth);
+          break;
+        }
+        node = child;
+      }
+
+      for (int k = depth - 1; k >= 0; k--) {
+        value = pathRewards[k] + DISCOUNT * value;
+        int edge = 4 * pathNodes[k] + pathMoves[k];
+        nodeVisits[pathNodes[k]]++;
+        edgeVisits[edge]++;
+        edgeValue[edge] += (float) value;
+      }
+    }
+
+    /**
+     * Picks the move out of a node by UCT, trying every safe move once first, or returns -1 if no move is safe.
+     */
+    private int select(int node) {
+      int head = scratch.getHeadCell();
+      double logVisits = Math.log(nodeVisits[node] + 1);
+      int best = -1;
+      double bestScore = Double.NEGATIVE_INFINITY;
+      for (int a = 0; a < directions.length; a++) {
+        int next = grid.neighbor(head, directions[a]);
+        if (next == Grid.WALL || scratch.isOccupied(next)) {
+          continue;
+        }
+        int visits = edgeVisits[4 * node + a];
+        double score = visits == 0
+                           ? Double.MAX_VALUE
+                           : edgeValue[4 * node + a] / visits + EXPLORATION * Math.sqrt(logVisits / visits);
+        if (score > bestScore) {
+          best = a;
+          bestScore = score;
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Plays on from the scratch position for at most the given number of moves and returns the discounted value.
+     */
+    private double rollout(int moves) {
+      double value = 0;
+      double weight = 1;
+      for (int m = 0; m < moves; m++) {
+        int head = scratch.getHeadCell();
+        int count = 0;
+        int nearest = -1;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (int a = 0; a < directions.length; a++) {
+          int next = grid.neighbor(head, directions[a]);
+          if (next == Grid.WALL || scratch.isOccupied(next)) {
+            continue;
+          }
+          safe[count++] = a;
+          int distance = Math.abs(grid.x(next) - scratch.getFoodX()) + Math.abs(grid.y(next) - scratch.getFoodY());
+          if (distance < nearestDistance) {
+            nearest = a;
+            nearestDistance = distance;
+          }
+        }
+        if (count == 0) {
+          return value + weight * DEATH;
+        }
+
+        int move = rng.nextBoolean() ? nearest : safe[rng.nextInt(count)];
+        int score = scratch.getScore();
+        scratch.updateBoard(directions[move], rng);
+        value += weight * (scratch.getScore() - score);
+        weight *= DISCOUNT;
+      }
+      return value;
+    }
+
+    private int find(long key) {
+      for (int slot = hash(key); tableStamps[slot] == stamp; slot = (slot + 1) & mask) {
+        if (tableKeys[slot] == key) {
+          return tableNodes[slot];
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Adds a node for a position not in the table yet, unless the tree is full.
+     */
+    private int insert(long key) {
+      if (nodeCount == capacity) {
+        return -1;
+      }
+      int node = nodeCount++;
+      nodeVisits[node] = 0;
+      Arrays.fill(edgeVisits, 4 * node, 4 * node + 4, 0);
+      Arrays.fill(edgeValue, 4 * node, 4 * node + 4, 0f);
+
+      int slot = hash(key);
+      while (tableStamps[slot] == stamp) {
+        slot = (slot + 1) & mask;
+      }
+      tableStamps[slot] = stamp;
+      tableKeys[slot] = key;
+      tableNodes[slot] = node;
+      return node;
+    }
+
+    private int hash(long key) {
+      return (int) (key ^ (key >>> 32)) & mask;
+    }
+  }
+}
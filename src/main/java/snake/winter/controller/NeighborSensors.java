@@ -0,0 +1,31 @@
+package snake.winter.controller;
+
+import snake.winter.game.Grid;
+import snake.winter.game.MutableBoard;
+import snake.winter.game.Point.Direction;
+
+/**
+ * The smallest useful view of the board: for each direction, whether the next cell that way is blocked and whether
+ * the food lies that way.
+ */
+public class NeighborSensors implements SensorSet {
+  private static final Direction[] directions = Direction.values();
+
+  @Override
+  public int size() {
+    return 2 * directions.length;
+  }
+
+  @Override
+  public void sense(MutableBoard board, float[] out, int offset) {
+    Grid grid = board.getGrid();
+    int head = board.getHeadCell();
+    int dx = board.getFoodX() - board.getHeadX();
+    int dy = board.getFoodY() - board.getHeadY();
+    for (Direction d : directions) {
+      int next = grid.neighbor(head, d);
+      out[offset + d.ordinal()] = next == Grid.WALL || board.isOccupied(next) ? 1f : 0f;
+      out[offset + directions.length + d.ordinal()] = dx * d.getDir().x + dy * d.getDir().y > 0 ? 1f : 0f;
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package snake.winter.controller;
+
+import snake.winter.game.MutableBoard;
+import snake.winter.game.Point.Direction;
+import snake.winter.neuralnet.CompiledNetwork;
+
+/**
+ * Steers with a compiled neural network fed by a {@link SensorSet}, {@link NeighborSensors} unless told otherwise.
+ * The network has one output per direction and the strongest output wins.
+ *
+ * <p>A controller owns its network's buffers, so it must stay on one thread.
+ */
+public class NetworkController implements Controller {
+  /**
+   * The number of inputs of networks driven by the default sensors.
+   */
+  public static final int INPUTS = new NeighborSensors().size();
+  public static final int OUTPUTS = Direction.values().length;
+
+  private static final Direction[] directions = Direction.values();
+
+  private final CompiledNetwork network;
+  private final SensorSet sensors;
+  private final float[] inputs;
+  private final float[] outputs = new float[OUTPUTS];
+
+  public NetworkController(CompiledNetwork network) {
+    this(network, new NeighborSensors());
+  }
+
+  public NetworkController(CompiledNetwork network, SensorSet sensors) {
+    if (network.getInputs() != sensors.size() || network.getOutputs() != OUTPUTS) {
+      throw new IllegalArgumentException(
+          "network must have " + sensors.size() + " inputs and " + OUTPUTS + " outputs");
+    }
+    this.network = network;
+    this.sensors = sensors;
+    this.inputs = new float[sensors.size()];
+  }
+
+  @Override
+  public Direction nextMove(MutableBoard board) {
+    sensors.sense(board, inputs, 0);
+    network.evaluate(inputs, outputs);
+    int best = 0;
+    for (int o = 1; o < OUTPUTS; o++) {
+      if (outputs[o] > outputs[best]) {
+        best = o;
+      }
+    }
+    return directions[best];
+  }
+}
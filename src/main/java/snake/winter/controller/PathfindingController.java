@@ -0,0 +1,263 @@
+package snake.winter.controller;
+
+import snake.winter.game.Grid;
+import snake.winter.game.MutableBoard;
+import snake.winter.game.Point.Direction;
+
+import java.util.Arrays;
+
+/**
+ * A strong non-neural baseline: takes the shortest path to the food, but only if the snake could still reach its own
+ * tail after eating, and otherwise chases its tail the long way round until the food is safe to go for.
+ *
+ * <p>The searches know that the body moves on: the segment {@code i} places behind the head leaves its cell after
+ * {@code length - i} moves, so a path may run through a cell the tail will have left by the time the head gets there.
+ * The safety check moves a virtual snake down the path to the food and searches from its new head for its new tail.
+ * When no move keeps the tail in reach, the snake takes the move into the largest open area, found by a flood fill
+ * over a bitset of the free cells.
+ *
+ * <p>Every search works on primitive buffers owned by the controller: an {@code int[]} queue, generation-stamped
+ * visited marks, and per-cell release times that are cleared cell by cell. After the first move on a board, a
+ * decision allocates nothing, and its cost is a few breadth-first searches over the board.
+ */
+public class PathfindingController implements Controller {
+  private static final Direction[] directions = Direction.values();
+  private static final int NONE = -1;
+
+  private Grid grid;
+  // the searches' queue, the cell each search reached a cell from, and when it got there
+  private int[] queue;
+  private int[] from;
+  private int[] time;
+  // seen[cell] == stamp marks the cells the current search has reached
+  private int[] seen;
+  private int stamp;
+  // release[cell] is how many moves until a body segment leaves the cell, 0 for free cells
+  private int[] release;
+  // the snake's body from the head, then the path to the food, then the virtual snake after eating
+  private int[] body;
+  private int[] path;
+  private int[] virtual;
+  // a flood fill's bitset of the cells the body covers or the fill has reached
+  private long[] blocked;
+
+  @Override
+  public Direction nextMove(MutableBoard board) {
+    prepare(board.getGrid());
+    int length = board.length();
+    for (int i = 0; i < length; i++) {
+      body[i] = board.getBodyCell(i);
+    }
+    int head = body[0];
+    int tail = body[length - 1];
+
+    markBody(body, length);
+    Direction move = null;
+    int steps = search(head, 0, board.getFoodCell());
+    if (steps != NONE) {
+      tracePath(board.getFoodCell(), steps);
+      if (safeAfterEating(steps, length)) {
+        move = directionTo(head, path[0]);
+      }
+    }
+    if (move == null) {
+      move = chaseTail(head, tail);
+    }
+    if (move == null) {
+      move = largestArea(head, length);
+    }
+    clearBody(body, length);
+    return move != null ? move : board.getDir();
+  }
+
+  /**
+   * Makes sure the buffers fit the grid. Controllers are made per game, so this only allocates on the first move.
+   */
+  private void prepare(Grid newGrid) {
+    if (newGrid == grid) {
+      return;
+    }
+    int cells = newGrid.size();
+    grid = newGrid;
+    queue = new int[cells];
+    from = new int[cells];
+    time = new int[cells];
+    seen = new int[cells];
+    stamp = 0;
+    release = new int[cells];
+    body = new int[cells];
+    path = new int[cells];
+    virtual = new int[cells];
+    blocked = new long[(cells + 63) >>> 6];
+  }
+
+  /**
+   * Searches breadth first from a cell reached at the given time, through cells that are free by the time the search
+   * gets to them, and returns the time it reaches the target, or {@link #NONE}. The search stops at the target, so
+   * {@link #from} leads back from it to the start.
+   */
+  private int search(int start, int startTime, int target) {
+    int mark = nextStamp();
+    seen[start] = mark;
+    time[start] = startTime;
+    from[start] = NONE;
+    int read = 0;
+    int write = 0;
+    queue[write++] = start;
+    while (read < write) {
+      int cell = queue[read++];
+      int t = time[cell] + 1;
+      for (Direction d : directions) {
+        int next = grid.neighbor(cell, d);
+        // a cell still covered is not seen yet, since a longer way round may reach it after it empties
+        if (next == Grid.WALL || seen[next] == mark || release[next] >= t) {
+          continue;
+        }
+        seen[next] = mark;
+        time[next] = t;
+        from[next] = cell;
+        if (next == target) {
+          return t;
+        }
+        queue[write++] = next;
+      }
+    }
+    return NONE;
+  }
+
+  /**
+   * Copies the path the last search found to the given cell, the given number of steps from the start, into
+   * {@link #path}, leaving the start out.
+   */
+  private void tracePath(int target, int steps) {
+    int cell = target;
+    for (int i = steps - 1; i >= 0; i--) {
+      path[i] = cell;
+      cell = from[cell];
+    }
+  }
+
+  /**
+   * Moves a virtual snake down {@link #path} to the food, growing by one as it eats, and checks that it could still
+   * get to its tail from there.
+   */
+  private boolean safeAfterEating(int steps, int length) {
+    int newLength = Math.min(length + 1, grid.size());
+    if (newLength == grid.size()) {
+      // the snake fills the board, and the game is won
+      return true;
+    }
+    for (int i = 0; i < newLength; i++) {
+      virtual[i] = i < steps ? path[steps - 1 - i] : body[i - steps];
+    }
+
+    clearBody(body, length);
+    markBody(virtual, newLength);
+    boolean safe = search(virtual[0], 0, virtual[newLength - 1]) != NONE;
+    clearBody(virtual, newLength);
+    markBody(body, length);
+    return safe;
+  }
+
+  /**
+   * Returns the move from which the tail is furthest away but still in reach, to buy time for the body to clear, or
+   * null if no move keeps the tail in reach.
+   */
+  private Direction chaseTail(int head, int tail) {
+    Direction best = null;
+    int bestTime = NONE;
+    for (Direction d : directions) {
+      int next = grid.neighbor(head, d);
+      if (next == Grid.WALL || release[next] >= 1) {
+        continue;
+      }
+      int t = search(next, 1, tail);
+      if (t > bestTime) {
+        best = d;
+        bestTime = t;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Returns the safe move into the largest open area, counting the free cells a flood fill reaches, or null if every
+   * move is fatal.
+   */
+  private Direction largestArea(int head, int length) {
+    Direction best = null;
+    int bestArea = -1;
+    for (Direction d : directions) {
+      int next = grid.neighbor(head, d);
+      if (next == Grid.WALL || release[next] >= 1) {
+        continue;
+      }
+      int area = floodFill(next, length);
+      if (area > bestArea) {
+        best = d;
+        bestArea = area;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Counts the cells reachable from the given one through cells the body covers none of.
+   */
+  private int floodFill(int start, int length) {
+    Arrays.fill(blocked, 0L);
+    for (int i = 0; i < length; i++) {
+      set(body[i]);
+    }
+
+    int read = 0;
+    int write = 0;
+    queue[write++] = start;
+    set(start);
+    while (read < write) {
+      int cell = queue[read++];
+      for (Direction d : directions) {
+        int next = grid.neighbor(cell, d);
+        if (next != Grid.WALL && (blocked[next >>> 6] & (1L << next)) == 0) {
+          set(next);
+          queue[write++] = next;
+        }
+      }
+    }
+    return write;
+  }
+
+  private void set(int cell) {
+    blocked[cell >>> 6] |= 1L << cell;
+  }
+
+  private Direction directionTo(int cell, int next) {
+    for (Direction d : directions) {
+      if (grid.neighbor(cell, d) == next) {
+        return d;
+      }
+    }
+    throw new IllegalStateException("cells " + cell + " and " + next + " are not neighbors");
+  }
+
+  private void markBody(int[] cells, int length) {
+    for (int i = 0; i < length; i++) {
+      release[cells[i]] = length - i;
+    }
+  }
+
+  private void clearBody(int[] cells, int length) {
+    for (int i = 0; i < length; i++) {
+      release[cells[i]] = 0;
+    }
+  }
+
+  private int nextStamp() {
+    if (++stamp == 0) {
+      // wrapped around after four billion searches; forget every old mark
+      Arrays.fill(seen, 0);
+      stamp = 1;
+    }
+    return stamp;
+  }
+}
@@ -0,0 +1,27 @@
+package snake.winter.controller;
+
+import snake.winter.game.MutableBoard;
+import snake.winter.game.Point.Direction;
+
+import java.util.Random;
+
+import static snake.winter.game.Point.Direction.complement;
+
+/**
+ * Wanders at random, never turning straight back on itself.
+ */
+public class RandomController implements Controller {
+  private static final Direction[] directions = Direction.values();
+
+  private final Random rng;
+
+  public RandomController(Random rng) {
+    this.rng = rng;
+  }
+
+  @Override
+  public Direction nextMove(MutableBoard board) {
+    Direction d = directions[rng.nextInt(directions.length)];
+    return d == complement(board.getDir()) ? board.getDir() : d;
+  }
+}
@@ -0,0 +1,64 @@
+package snake.winter.controller;
+
+import snake.winter.game.MutableBoard;
+import snake.winter.game.Point.Direction;
+
+/**
+ * The classic snake vision: eight rays cast from the head, along the axes and the diagonals. Each ray reports the
+ * inverse distance to the wall, to the food and to the nearest part of the body along it, or 0 for food or body it
+ * does not hit. After the rays come the direction the snake is facing and the directions the food lies in, each one
+ * hot per {@link Direction}.
+ *
+ * <p>Rays step over cell ids, so each step costs an add, a bounds check and a bit test.
+ */
+public class RaySensors implements SensorSet {
+  // the ray offsets, clockwise from north
+  private static final int[] rayX = {0, 1, 1, 1, 0, -1, -1, -1};
+  private static final int[] rayY = {-1, -1, 0, 1, 1, 1, 0, -1};
+  private static final Direction[] directions = Direction.values();
+
+  @Override
+  public int size() {
+    return 3 * rayX.length + 2 * directions.length;
+  }
+
+  @Override
+  public void sense(MutableBoard board, float[] out, int offset) {
+    int height = board.getHeight();
+    int width = board.getWidth();
+    int headX = board.getHeadX();
+    int headY = board.getHeadY();
+    int food = board.getFoodCell();
+
+    for (int r = 0; r < rayX.length; r++) {
+      int dx = rayX[r];
+      int dy = rayY[r];
+      int step = dx * height + dy;
+      int x = headX + dx;
+      int y = headY + dy;
+      int cell = board.getHeadCell() + step;
+      int distance = 1;
+      float foodSeen = 0;
+      float bodySeen = 0;
+      for (; x >= 0 && x < width && y >= 0 && y < height; x += dx, y += dy, cell += step, distance++) {
+        if (cell == food) {
+          foodSeen = 1f / distance;
+        }
+        if (bodySeen == 0 && board.isOccupied(cell)) {
+          bodySeen = 1f / distance;
+        }
+      }
+      out[offset + 3 * r] = 1f / distance;
+      out[offset + 3 * r + 1] = foodSeen;
+      out[offset + 3 * r + 2] = bodySeen;
+    }
+
+    int at = offset + 3 * rayX.length;
+    int foodDx = board.getFoodX() - headX;
+    int foodDy = board.getFoodY() - headY;
+    for (Direction d : directions) {
+      out[at + d.ordinal()] = d == board.getDir() ? 1f : 0f;
+      out[at + directions.length + d.ordinal()] = foodDx * d.getDir().x + foodDy * d.getDir().y > 0 ? 1f : 0f;
+    }
+  }
+}
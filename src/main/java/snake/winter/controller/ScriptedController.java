@@ -0,0 +1,53 @@
+package snake.winter.controller;
+
+import io.vavr.collection.Array;
+import snake.winter.game.MutableBoard;
+import snake.winter.game.Point.Direction;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Plays a fixed list of moves, then keeps going in whatever direction the snake last moved.
+ */
+public class ScriptedController implements Controller {
+  private final Array<Direction> script;
+  private int next;
+
+  public ScriptedController(Array<Direction> script) {
+    this.script = script;
+  }
+
+  /**
+   * Parses a script of moves separated by whitespace or commas. Each move is a direction name or its first letter,
+   * in any case, so {@code "N n north NORTH"} is four moves north.
+   */
+  public static Array<Direction> parse(String text) {
+    return Array.of(text.trim().split("[\\s,]+"))
+               .filter(token -> !token.isEmpty())
+               .map(ScriptedController::parseDirection);
+  }
+
+  /**
+   * Reads a script file in the format accepted by {@link #parse(String)}.
+   */
+  public static Array<Direction> load(Path path) throws IOException {
+    return parse(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+  }
+
+  private static Direction parseDirection(String token) {
+    for (Direction d : Direction.values()) {
+      if (d.name().equalsIgnoreCase(token) || d.name().substring(0, 1).equalsIgnoreCase(token)) {
+        return d;
+      }
+    }
+    throw new IllegalArgumentException("not a direction: " + token);
+  }
+
+  @Override
+  public Direction nextMove(MutableBoard board) {
+    return next < script.length() ? script.get(next++) : board.getDir();
+  }
+}
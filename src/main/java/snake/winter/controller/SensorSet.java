@@ -0,0 +1,47 @@
+package snake.winter.controller;
+
+import snake.winter.game.MutableBoard;
+
+/**
+ * Turns the state of a board into the input vector of a network. Sensor sets write straight into a caller-supplied
+ * array and read the board's occupancy bitset, so sensing allocates nothing and never walks the snake's body. They
+ * hold no mutable state and can be shared between threads.
+ */
+public interface SensorSet {
+  /**
+   * Returns the number of values {@link #sense} writes.
+   */
+  int size();
+
+  /**
+   * Writes this set's {@link #size()} values into {@code out}, starting at {@code offset}.
+   */
+  void sense(MutableBoard board, float[] out, int offset);
+
+  /**
+   * Returns a sensor set that writes each of the given sets' values one after another.
+   */
+  static SensorSet concat(SensorSet... sets) {
+    SensorSet[] parts = sets.clone();
+    int total = 0;
+    for (SensorSet s : parts) {
+      total += s.size();
+    }
+    int size = total;
+    return new SensorSet() {
+      @Override
+      public int size() {
+        return size;
+      }
+
+      @Override
+      public void sense(MutableBoard board, float[] out, int offset) {
+        int at = offset;
+        for (SensorSet s : parts) {
+          s.sense(board, out, at);
+          at += s.size();
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,44 @@
+package snake.winter.controller;
+
+import snake.winter.game.MutableBoard;
+
+/**
+ * A square window of cells centered on the head, row by row from the top left. Each cell gets two values: whether it
+ * is blocked, by the snake or by lying off the board, and whether it holds the food.
+ */
+public class WindowSensors implements SensorSet {
+  private final int size;
+
+  /**
+   * Creates a window the given number of cells across, which must be odd so the head sits in the middle.
+   */
+  public WindowSensors(int size) {
+    if (size < 1 || size % 2 == 0) {
+      throw new IllegalArgumentException("window size must be odd and positive");
+    }
+    this.size = size;
+  }
+
+  @Override
+  public int size() {
+    return 2 * size * size;
+  }
+
+  @Override
+  public void sense(MutableBoard board, float[] out, int offset) {
+    int height = board.getHeight();
+    int width = board.getWidth();
+    int food = board.getFoodCell();
+    int left = board.getHeadX() - size / 2;
+    int top = board.getHeadY() - size / 2;
+    int at = offset;
+    for (int y = top; y < top + size; y++) {
+      for (int x = left; x < left + size; x++) {
+        boolean onBoard = x >= 0 && x < width && y >= 0 && y < height;
+        int cell = x * height + y;
+        out[at++] = !onBoard || board.isOccupied(cell) ? 1f : 0f;
+        out[at++] = onBoard && cell == food ? 1f : 0f;
+      }
+    }
+  }
+}
@@ -0,0 +1,405 @@
+package snake.winter.dashboard;
+
+import io.vavr.collection.Array;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import snake.winter.evolution.Champion;
+import snake.winter.evolution.ChampionFeed;
+import snake.winter.evolution.GameFitness;
+import snake.winter.evolution.GenerationStats;
+import snake.winter.evolution.Population;
+import snake.winter.game.Board;
+import snake.winter.replay.ReplayPlayer;
+import spark.Request;
+import spark.Response;
+import spark.Service;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static j2html.TagCreator.body;
+import static j2html.TagCreator.canvas;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.document;
+import static j2html.TagCreator.h1;
+import static j2html.TagCreator.h2;
+import static j2html.TagCreator.head;
+import static j2html.TagCreator.html;
+import static j2html.TagCreator.link;
+import static j2html.TagCreator.meta;
+import static j2html.TagCreator.script;
+import static j2html.TagCreator.span;
+import static j2html.TagCreator.title;
+
+/**
+ * A local web dashboard for a training run: fitness and species curves per generation, and the current champion
+ * playing live.
+ *
+ * <p>The training loop only ever hands the dashboard immutable values: it publishes champions to {@link #getFeed()}
+ * and calls {@link #update} with the population after each generation, both single writes that never wait. Everything
+ * else runs on the dashboard's own threads. A player thread replays the newest champion's game and posts a snapshot of
+ * the board every frame. Each browser's server-sent event stream is an asynchronous request that holds no thread;
+ * a single broadcaster thread sends every stream the new generations and, every {@link #BATCH_FRAMES} frames, one
+ * batch of delta frames from its own {@link FrameEncoder}. Writes never block: a browser that has not taken the last
+ * batch yet just skips boards, so neither it nor the player can hold up training or the other browsers. At most
+ * {@link #MAX_VIEWERS} streams are open at once; more are refused with 503.
+ *
+ * <p>The server only listens on the loopback address.
+ */
+public final class Dashboard implements AutoCloseable {
+  private static final int FRAME_MILLIS = 33;
+  private static final int BATCH_FRAMES = 6;
+  private static final int THREADS = 8;
+  private static final int MAX_VIEWERS = 32;
+  private static final Logger log = LoggerFactory.getLogger(Dashboard.class);
+
+  /**
+   * A board of the champion's game, numbered so viewers can tell when a new one arrives.
+   */
+  private static final class Frame {
+    final long sequence;
+    final int generation;
+    final Board board;
+
+    Frame(long sequence, int generation, Board board) {
+      this.sequence = sequence;
+      this.generation = generation;
+      this.board = board;
+    }
+  }
+
+  private final Service http;
+  private final GameFitness fitness;
+  private final int movesPerSecond;
+  private final ChampionFeed feed = new ChampionFeed();
+  private final AtomicReference<Array<GenerationStats>> history = new AtomicReference<>(Array.empty());
+  private final AtomicReference<Frame> latest = new AtomicReference<>();
+  private final ScheduledExecutorService player;
+  private final ScheduledExecutorService broadcaster;
+  private final List<Viewer> viewers = new CopyOnWriteArrayList<>();
+  // streams open or being opened, so concurrent requests cannot overshoot the limit
+  private final AtomicInteger open = new AtomicInteger();
+
+  // only touched by the player thread
+  private Champion champion;
+  private ReplayPlayer replay;
+  private long frames;
+  private long moveDebt;
+
+  // only touched by the broadcaster thread
+  private long ticks;
+
+  private Dashboard(Service http, GameFitness fitness, int movesPerSecond) {
+    this.http = http;
+    this.fitness = fitness;
+    this.movesPerSecond = movesPerSecond;
+    this.player = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "dashboard-player"));
+    this.broadcaster = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "dashboard-broadcaster"));
+  }
+
+  /**
+   * Starts a dashboard on the given port of the loopback address, showing champions playing games of the given
+   * fitness function at about the given number of moves per second. Use port 0 for any free port.
+   */
+  public static Dashboard start(int port, GameFitness fitness, int movesPerSecond) {
+    Service http = Service.ignite().ipAddress("127.0.0.1").port(port).threadPool(THREADS);
+    Dashboard dashboard = new Dashboard(http, fitness, movesPerSecond);
+    http.staticFiles.location("/dashboard");
+    http.get("/", (request, response) -> page());
+    http.get("/stats", (request, response) -> {
+      response.type("application/json");
+      return stats(dashboard.history.get()).toString();
+    });
+    http.get("/events", dashboard::events);
+    http.init();
+    http.awaitInitialization();
+    dashboard.player.scheduleAtFixedRate(dashboard::playFrame, 0, FRAME_MILLIS, TimeUnit.MILLISECONDS);
+    dashboard.broadcaster.scheduleAtFixedRate(dashboard::broadcast, FRAME_MILLIS, FRAME_MILLIS, TimeUnit.MILLISECONDS);
+    return dashboard;
+  }
+
+  /**
+   * Returns the port the server listens on.
+   */
+  public int getPort() {
+    return http.port();
+  }
+
+  /**
+   * Returns the feed to publish champions to, as with {@code Evolution.withFeed}.
+   */
+  public ChampionFeed getFeed() {
+    return feed;
+  }
+
+  /**
+   * Shows the generations the population has been through so far.
+   */
+  public void update(Population population) {
+    history.set(population.getHistory());
+  }
+
+  @Override
+  public void close() {
+    player.shutdownNow();
+    broadcaster.shutdownNow();
+    for (Viewer viewer : viewers) {
+      viewer.close();
+    }
+    http.stop();
+  }
+
+  /**
+   * Moves the champion's game on by one frame's worth of moves, switching to a newer champion whenever its game ends.
+   * A failure is logged and the champion dropped, since an exception would stop the player for good.
+   */
+  private void playFrame() {
+    try {
+      nextFrame();
+    }
+    catch (RuntimeException ex) {
+      log.error("could not play the champion's game", ex);
+      replay = null;
+    }
+  }
+
+  private void nextFrame() {
+    if (replay == null || replay.isFinished()) {
+      Champion next = feed.take().getOrNull();
+      if (next != null) {
+        champion = next;
+        replay = fitness.replay(next.getGenome(), next.getSeed()).player();
+      }
+      else if (replay != null) {
+        replay.seek(0);
+      }
+      else {
+        return;
+      }
+    }
+    else {
+      // carry fractions of a move over to the next frame, so slow speeds still move
+      for (moveDebt += (long) movesPerSecond * FRAME_MILLIS; moveDebt >= 1000; moveDebt -= 1000) {
+        if (!replay.step()) {
+          moveDebt = 0;
+          break;
+        }
+      }
+    }
+    latest.set(new Frame(++frames, champion.getGeneration(), replay.getBoard()));
+  }
+
+  /**
+   * Opens a stream of new generations and batches of delta frames to one browser, which the broadcaster keeps writing
+   * to until the browser goes away or the dashboard closes.
+   */
+  private Object events(Request request, Response response) throws IOException {
+    if (open.incrementAndGet() > MAX_VIEWERS) {
+      open.decrementAndGet();
+      response.status(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      return "Too many dashboards open";
+    }
+    try {
+      response.type("text/event-stream");
+      response.header("Cache-Control", "no-cache");
+      // send the headers now, so Spark leaves the stream open once the route returns
+      response.raw().flushBuffer();
+      AsyncContext context = request.raw().startAsync();
+      context.setTimeout(0);
+      Viewer viewer = new Viewer(context);
+      context.addListener(viewer);
+      viewer.out.setWriteListener(viewer);
+      viewers.add(viewer);
+      return "";
+    }
+    catch (IOException | RuntimeException ex) {
+      open.decrementAndGet();
+      throw ex;
+    }
+  }
+
+  /**
+   * Encodes the newest frame for every open stream and, every {@link #BATCH_FRAMES} ticks, sends each its batch.
+   */
+  private void broadcast() {
+    try {
+      Frame frame = latest.get();
+      Array<GenerationStats> generations = history.get();
+      boolean send = ++ticks % BATCH_FRAMES == 0;
+      for (Viewer viewer : viewers) {
+        if (viewer.closed) {
+          viewers.remove(viewer);
+          open.decrementAndGet();
+          viewer.close();
+        }
+        else {
+          viewer.tick(frame, generations, send);
+        }
+      }
+    }
+    catch (RuntimeException ex) {
+      log.error("could not update the dashboards", ex);
+    }
+  }
+
+  /**
+   * One browser's stream. Only the broadcaster thread writes to it; Jetty's threads only mark it closed.
+   */
+  private static final class Viewer implements AsyncListener, WriteListener {
+    private final AsyncContext context;
+    private final ServletOutputStream out;
+    private FrameEncoder encoder = new FrameEncoder();
+    private JSONArray batch = new JSONArray();
+    private long lastFrame;
+    private int sentGenerations;
+    volatile boolean closed;
+
+    Viewer(AsyncContext context) throws IOException {
+      this.context = context;
+      this.out = context.getResponse().getOutputStream();
+    }
+
+    void tick(Frame frame, Array<GenerationStats> generations, boolean send) {
+      if (frame != null && frame.sequence != lastFrame) {
+        batch.put(encoder.encode(frame.board, frame.generation));
+        lastFrame = frame.sequence;
+      }
+      if (!send) {
+        return;
+      }
+      if (!out.isReady()) {
+        // still busy with the last batch: skip these boards, and start the next batch afresh
+        encoder = new FrameEncoder();
+        batch = new JSONArray();
+        return;
+      }
+      StringBuilder events = new StringBuilder();
+      if (generations.size() > sentGenerations) {
+        event(events, "stats", stats(generations.drop(sentGenerations)).toString());
+        sentGenerations = generations.size();
+      }
+      if (batch.length() > 0) {
+        event(events, "frames", batch.toString());
+        batch = new JSONArray();
+      }
+      if (events.length() == 0) {
+        // a comment, so a browser that went away is noticed even while nothing happens
+        events.append(":\n\n");
+      }
+      try {
+        out.write(events.toString().getBytes(StandardCharsets.UTF_8));
+        if (out.isReady()) {
+          out.flush();
+        }
+      }
+      catch (IOException | IllegalStateException ex) {
+        // the browser went away
+        closed = true;
+      }
+    }
+
+    void close() {
+      closed = true;
+      try {
+        context.complete();
+      }
+      catch (IllegalStateException ex) {
+        // already completed
+      }
+    }
+
+    @Override
+    public void onWritePossible() {
+      // the broadcaster checks isReady before each batch instead
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      closed = true;
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      closed = true;
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      closed = true;
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      closed = true;
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      // nothing to do
+    }
+  }
+
+  private static void event(StringBuilder events, String event, String data) {
+    events.append("event: ").append(event).append("\ndata: ").append(data).append("\n\n");
+  }
+
+  private static Thread daemon(Runnable task, String name) {
+    Thread thread = new Thread(task, name);
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private static JSONArray stats(Array<GenerationStats> generations) {
+    JSONArray result = new JSONArray();
+    for (GenerationStats s : generations) {
+      result.put(new JSONObject()
+                     .put("generation", s.getGeneration())
+                     .put("best", s.getBestFitness())
+                     .put("mean", s.getMeanFitness())
+                     .put("meanScore", s.getMeanScore())
+                     .put("species", s.getSpecies()));
+    }
+    return result;
+  }
+
+  private static String page() {
+    return document(
+        html(
+            head(
+                meta().withCharset("utf-8"),
+                title("Snakevolution"),
+                link().withRel("stylesheet").withHref("/dashboard.css")),
+            body(
+                h1("Snakevolution"),
+                div(
+                    div(
+                        h2("Champion"),
+                        div(span().withId("generation"), span().withId("score"), span().withId("moves"))
+                            .withClass("status"),
+                        canvas().withId("board").attr("width", "500").attr("height", "500")
+                    ).withClass("panel"),
+                    div(
+                        h2("Fitness"),
+                        canvas().withId("fitness").attr("width", "600").attr("height", "220"),
+                        h2("Species"),
+                        canvas().withId("species").attr("width", "600").attr("height", "220")
+                    ).withClass("panel")
+                ).withClass("panels"),
+                script().withSrc("/dashboard.js"))));
+  }
+}
@@ -0,0 +1,161 @@
+package snake.winter.dashboard;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import snake.winter.cluster.ClusterCoordinator;
+import snake.winter.cluster.WorkerStats;
+import snake.winter.controller.NetworkController;
+import snake.winter.controller.RaySensors;
+import snake.winter.evolution.Evaluator;
+import snake.winter.evolution.Evolution;
+import snake.winter.evolution.FitnessCache;
+import snake.winter.evolution.GameFitness;
+import snake.winter.evolution.Population;
+import snake.winter.evolution.PopulationEvaluator;
+import snake.winter.evolution.SteadyStateEvolution;
+import snake.winter.metrics.Metrics;
+import snake.winter.metrics.MetricsReporter;
+import snake.winter.neuralnet.Compatibility;
+import snake.winter.neuralnet.InnovationTracker;
+import snake.winter.neuralnet.Speciation;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command-line entry point that trains a population and serves the {@link Dashboard} while it runs. Run it with
+ * {@code gradle runDashboard -Pargs="..."}, or with {@code --help} to list the options, then open
+ * {@code http://localhost:4567/}.
+ */
+public class DashboardMain {
+  @Parameter(names = "--port", description = "Port to serve the dashboard on, on localhost only")
+  private int port = 4567;
+
+  @Parameter(names = "--height", description = "Board height")
+  private int height = 10;
+
+  @Parameter(names = "--width", description = "Board width")
+  private int width = 10;
+
+  @Parameter(names = "--games", description = "Games each genome plays per generation")
+  private int games = 3;
+
+  @Parameter(names = "--population", description = "Number of genomes")
+  private int population = 150;
+
+  @Parameter(names = "--species", description = "Number of species to aim for")
+  private int species = 10;
+
+  @Parameter(names = "--generations", description = "Generations to train, or 0 to train until stopped")
+  private int generations = 0;
+
+  @Parameter(names = "--seed", description = "Seed of the run")
+  private long seed = 0;
+
+  @Parameter(names = {"--threads", "-t"}, description = "Worker threads, defaults to one per core")
+  private int threads = Runtime.getRuntime().availableProcessors();
+
+  @Parameter(names = "--speed", description = "Moves per second the champion plays at on the dashboard")
+  private int speed = 30;
+
+  @Parameter(names = "--cache", description = "Fitness results to cache, or 0 for none. Caching plays every genome on "
+      + "the same games each generation, so unchanged genomes need not play again. Ignored with --cluster-port")
+  private int cache = 0;
+
+  @Parameter(names = "--steady-state", description = "Breed a child whenever a genome finishes scoring, instead of "
+      + "a generation at a time; each population-size births count as a generation. Scores locally, without "
+      + "--cluster-port or --cache")
+  private boolean steadyState;
+
+  @Parameter(names = "--cluster-port", description = "Port to score genomes on workers started with runWorker "
+      + "instead of locally, or 0 to score locally")
+  private int clusterPort = 0;
+
+  @Parameter(names = "--cluster-address", description = "Address to listen for workers on")
+  private String clusterAddress = "127.0.0.1";
+
+  @Parameter(names = "--in-flight", description = "Batches per worker thread sent ahead of the worker's answers")
+  private int inFlight = 2;
+
+  @Parameter(names = "--worker-timeout", description = "Seconds a worker with batches in flight may go without "
+      + "answering before its batches go to the others; slow workers get longer")
+  private int workerTimeout = 60;
+
+  @Parameter(names = "--metrics-period", description = "Seconds between metrics logs, when run with -Dsnake.metrics=true")
+  private int metricsPeriod = 10;
+
+  @Parameter(names = {"--help", "-h"}, help = true, description = "Show this message")
+  private boolean help;
+
+  public static void main(String[] args) throws IOException {
+    DashboardMain main = new DashboardMain();
+    JCommander commander = JCommander.newBuilder().addObject(main).programName("runDashboard").build();
+    commander.parse(args);
+    if (main.help) {
+      commander.usage();
+      return;
+    }
+    main.validate();
+    main.run();
+  }
+
+  /**
+   * Rejects options that do not go together, rather than quietly ignore some of them.
+   */
+  private void validate() {
+    if (steadyState && clusterPort != 0) {
+      throw new ParameterException("--steady-state scores locally and cannot be used with --cluster-port");
+    }
+    if (steadyState && cache > 0) {
+      throw new ParameterException("--steady-state does not cache fitness and cannot be used with --cache");
+    }
+  }
+
+  private void run() throws IOException {
+    GameFitness fitness = GameFitness.gameFitness(height, width, games).withSensors(new RaySensors());
+    try (Dashboard dashboard = Dashboard.start(port, fitness, speed)) {
+      System.out.println("Dashboard at http://localhost:" + dashboard.getPort() + "/");
+      if (Metrics.ENABLED) {
+        MetricsReporter.start(metricsPeriod);
+      }
+      InnovationTracker tracker = InnovationTracker.tracker(fitness.getSensors().size(), NetworkController.OUTPUTS);
+      Population p = Population.initial(tracker, population, Speciation.speciation(Compatibility.compatibility(),
+          species), seed);
+      if (steadyState) {
+        SteadyStateEvolution.steadyState(fitness, threads).withFeed(dashboard.getFeed())
+            .run(p, generations == 0 ? Integer.MAX_VALUE : generations, next -> {
+              dashboard.update(next);
+              System.out.println(next.getHistory().last());
+            });
+      }
+      else {
+        runGenerations(fitness, dashboard, p);
+      }
+    }
+  }
+
+  private void runGenerations(GameFitness fitness, Dashboard dashboard, Population initial) throws IOException {
+    ClusterCoordinator cluster = clusterPort == 0 ? null : ClusterCoordinator.start(
+        new InetSocketAddress(clusterAddress, clusterPort), fitness.toString(), inFlight, workerTimeout, TimeUnit.SECONDS);
+    try (Evaluator evaluator = cluster != null ? cluster : PopulationEvaluator.evaluator(
+        cache > 0 ? FitnessCache.cache(fitness, cache) : fitness, threads)) {
+      Evolution evolution = Evolution.evolution(evaluator).withFeed(dashboard.getFeed());
+      if (cache > 0) {
+        evolution = evolution.withFixedSeed(seed);
+      }
+      Population p = initial;
+      for (int g = 0; generations == 0 || g < generations; g++) {
+        p = evolution.step(p);
+        dashboard.update(p);
+        System.out.println(p.getHistory().last());
+        if (cluster != null) {
+          for (WorkerStats w : cluster.getWorkers()) {
+            System.out.println("  " + w);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package snake.winter.dashboard;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import snake.winter.game.Board;
+import snake.winter.game.BoardDiff;
+
+/**
+ * Turns a stream of boards into delta frames for one viewer: each frame carries the score and moves, plus only the
+ * cells that changed since the last frame this encoder produced, as flat {@code [cell, contents, ...]} pairs. Cells are
+ * {@link snake.winter.game.Grid} ids and contents are {@link BoardDiff} codes.
+ *
+ * <p>The first frame, and the first after the board size changes, is marked as a reset and lists every non-empty cell.
+ * Boards may be skipped freely; the next frame still brings the viewer up to date.
+ */
+final class FrameEncoder {
+  private BoardDiff diff;
+  private int height;
+  private int width;
+
+  /**
+   * Encodes the changes from the last board to this one, for the champion of the given generation.
+   */
+  JSONObject encode(Board board, int generation) {
+    boolean reset = diff == null || board.getHeight() != height || board.getWidth() != width;
+    if (reset) {
+      height = board.getHeight();
+      width = board.getWidth();
+      diff = new BoardDiff(height * width);
+    }
+    JSONArray cells = new JSONArray();
+    diff.diff(board, (cell, contents) -> cells.put(cell).put(contents));
+    return new JSONObject()
+               .put("generation", generation)
+               .put("score", board.getScore())
+               .put("moves", board.getMoves())
+               .put("height", height)
+               .put("width", width)
+               .put("reset", reset)
+               .put("cells", cells);
+  }
+}
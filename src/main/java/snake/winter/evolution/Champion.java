@@ -0,0 +1,46 @@
+package snake.winter.evolution;
+
+import snake.winter.neuralnet.Genome;
+
+/**
+ * The best genome of a generation, with the fitness it earned and the seed it was scored with, so its games can be
+ * played again exactly.
+ */
+public final class Champion {
+  private final int generation;
+  private final Genome genome;
+  private final Fitness fitness;
+  private final long seed;
+
+  private Champion(int generation, Genome genome, Fitness fitness, long seed) {
+    this.generation = generation;
+    this.genome = genome;
+    this.fitness = fitness;
+    this.seed = seed;
+  }
+
+  public static Champion champion(int generation, Genome genome, Fitness fitness, long seed) {
+    return new Champion(generation, genome, fitness, seed);
+  }
+
+  public int getGeneration() {
+    return generation;
+  }
+
+  public Genome getGenome() {
+    return genome;
+  }
+
+  public Fitness getFitness() {
+    return fitness;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  @Override
+  public String toString() {
+    return "Champion(generation " + generation + ", " + fitness + ")";
+  }
+}
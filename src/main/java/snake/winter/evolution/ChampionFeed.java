@@ -0,0 +1,30 @@
+package snake.winter.evolution;
+
+import io.vavr.control.Option;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A single-slot, lock-free handoff of the latest {@link Champion} from a training run to a spectator.
+ *
+ * <p>Publishing overwrites whatever the spectator has not picked up yet, so training never waits on the spectator and
+ * the spectator only ever sees the newest champion. Champions and their genomes are immutable, so nothing is copied on
+ * either side.
+ */
+public final class ChampionFeed {
+  private final AtomicReference<Champion> slot = new AtomicReference<>();
+
+  /**
+   * Offers a new champion, replacing any the spectator has not taken yet.
+   */
+  public void publish(Champion champion) {
+    slot.lazySet(champion);
+  }
+
+  /**
+   * Takes the newest champion published since the last call, if there is one.
+   */
+  public Option<Champion> take() {
+    return Option.of(slot.getAndSet(null));
+  }
+}
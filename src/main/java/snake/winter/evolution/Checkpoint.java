@@ -0,0 +1,184 @@
+package snake.winter.evolution;
+
+import io.vavr.collection.Array;
+import snake.winter.neuralnet.Genome;
+import snake.winter.neuralnet.InnovationTracker;
+import snake.winter.neuralnet.Speciation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A saved {@link Population}, in a compact versioned binary file.
+ *
+ * <p>The file starts with a fixed header (magic, format version, generation, genome count, seed), followed by the
+ * innovation tracker, the speciation, the generation history, a table of where each genome starts, the genomes
+ * themselves, and finally a CRC32 of everything before it. {@link #write} builds the whole file in memory, writes it
+ * through a {@link FileChannel} to a temporary file next to the target, forces it to disk and only then renames it
+ * over the target, so a crash mid-write leaves the last good checkpoint untouched.
+ *
+ * <p>{@link #open} memory-maps the file, checks it and decodes only the small parts. Genomes stay encoded in the
+ * mapping until {@link #getGenome} or {@link #toPopulation} asks for them.
+ */
+public final class Checkpoint {
+  static final int MAGIC = 0x534e_4b43;
+  static final int VERSION = 1;
+  private static final int HEADER_BYTES = 4 + 4 + 4 + 4 + 8;
+
+  private final ByteBuffer data;
+  private final int generation;
+  private final long seed;
+  private final InnovationTracker tracker;
+  private final Speciation speciation;
+  private final Array<GenerationStats> history;
+  private final int[] offsets;
+
+  private Checkpoint(ByteBuffer data, int generation, long seed, InnovationTracker tracker, Speciation speciation,
+                     Array<GenerationStats> history, int[] offsets) {
+    this.data = data;
+    this.generation = generation;
+    this.seed = seed;
+    this.tracker = tracker;
+    this.speciation = speciation;
+    this.history = history;
+    this.offsets = offsets;
+  }
+
+  /**
+   * Saves the population to the given file, atomically replacing any file already there.
+   */
+  public static void write(Population population, Path path) throws IOException {
+    Array<Genome> genomes = population.getGenomes();
+    int size = HEADER_BYTES + population.getTracker().byteSize() + population.getSpeciation().byteSize()
+                   + 4 + GenerationStats.BYTES * population.getHistory().size()
+                   + 4 * genomes.size() + genomes.map(Genome::byteSize).sum().intValue() + 8;
+    ByteBuffer out = ByteBuffer.allocate(size);
+    out.putInt(MAGIC).putInt(VERSION).putInt(population.getGeneration()).putInt(genomes.size())
+       .putLong(population.getSeed());
+    population.getTracker().writeTo(out);
+    population.getSpeciation().writeTo(out);
+    out.putInt(population.getHistory().size());
+    population.getHistory().forEach(s -> s.writeTo(out));
+
+    int table = out.position();
+    int offset = table + 4 * genomes.size();
+    for (Genome g : genomes) {
+      out.putInt(offset);
+      offset += g.byteSize();
+    }
+    genomes.forEach(g -> g.writeTo(out));
+    out.putLong(checksum(out.array(), out.position()));
+    out.flip();
+
+    Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (out.hasRemaining()) {
+        channel.write(out);
+      }
+      channel.force(true);
+    }
+    Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Maps a checkpoint file and checks that it is intact. Only the header, tracker, species and history are decoded.
+   *
+   * @throws IOException if the file cannot be read, is not a checkpoint, has an unknown version or is corrupt
+   */
+  public static Checkpoint open(Path path) throws IOException {
+    MappedByteBuffer data;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_BYTES + 8 || channel.size() > Integer.MAX_VALUE) {
+        throw new IOException(path + " is not a checkpoint");
+      }
+      data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    ByteBuffer in = data.duplicate();
+    if (in.getInt() != MAGIC) {
+      throw new IOException(path + " is not a checkpoint");
+    }
+    int version = in.getInt();
+    if (version != VERSION) {
+      throw new IOException(path + " has checkpoint version " + version + ", expected " + VERSION);
+    }
+    ByteBuffer body = data.duplicate();
+    body.limit(data.capacity() - 8);
+    CRC32 crc = new CRC32();
+    crc.update(body);
+    if (crc.getValue() != data.getLong(data.capacity() - 8)) {
+      throw new IOException(path + " is corrupt");
+    }
+
+    int generation = in.getInt();
+    int count = in.getInt();
+    long seed = in.getLong();
+    InnovationTracker tracker = InnovationTracker.readFrom(in);
+    Speciation speciation = Speciation.readFrom(in);
+    GenerationStats[] history = new GenerationStats[in.getInt()];
+    for (int i = 0; i < history.length; i++) {
+      history[i] = GenerationStats.readFrom(in);
+    }
+    int[] offsets = new int[count];
+    in.asIntBuffer().get(offsets);
+    return new Checkpoint(data, generation, seed, tracker, speciation, Array.of(history), offsets);
+  }
+
+  public int getGeneration() {
+    return generation;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public InnovationTracker getTracker() {
+    return tracker;
+  }
+
+  public Speciation getSpeciation() {
+    return speciation;
+  }
+
+  public Array<GenerationStats> getHistory() {
+    return history;
+  }
+
+  /**
+   * Returns the number of genomes saved.
+   */
+  public int size() {
+    return offsets.length;
+  }
+
+  /**
+   * Decodes the i'th genome straight from the mapped file. Safe to call from many threads at once.
+   */
+  public Genome getGenome(int i) {
+    ByteBuffer in = data.duplicate();
+    in.position(offsets[i]);
+    return Genome.readFrom(in);
+  }
+
+  /**
+   * Decodes every genome and returns the population exactly as it was saved.
+   */
+  public Population toPopulation() {
+    Array<Genome> genomes = Array.range(0, offsets.length).map(this::getGenome);
+    return new Population(generation, genomes, tracker, speciation, seed, history);
+  }
+
+  private static long checksum(byte[] bytes, int length) {
+    CRC32 crc = new CRC32();
+    crc.update(bytes, 0, length);
+    return crc.getValue();
+  }
+}
@@ -0,0 +1,42 @@
+package snake.winter.evolution;
+
+import io.vavr.collection.Array;
+
+/**
+ * The fitness of every genome of a population, in population order, the seed each was scored with, and how the
+ * evaluation went.
+ */
+public class Evaluation {
+  private final Array<Fitness> fitness;
+  private final long[] seeds;
+  private final EvaluationStats stats;
+
+  private Evaluation(Array<Fitness> fitness, long[] seeds, EvaluationStats stats) {
+    this.fitness = fitness;
+    this.seeds = seeds;
+    this.stats = stats;
+  }
+
+  public static Evaluation evaluation(Array<Fitness> fitness, long[] seeds, EvaluationStats stats) {
+    return new Evaluation(fitness, seeds, stats);
+  }
+
+  public Array<Fitness> getFitness() {
+    return fitness;
+  }
+
+  public Fitness getFitness(int i) {
+    return fitness.get(i);
+  }
+
+  /**
+   * Returns the seed the i'th genome was scored with, so its games can be played again.
+   */
+  public long getSeed(int i) {
+    return seeds[i];
+  }
+
+  public EvaluationStats getStats() {
+    return stats;
+  }
+}
@@ -0,0 +1,74 @@
+package snake.winter.evolution;
+
+import com.google.errorprone.annotations.Immutable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How one generation's evaluation went: how long it took, how busy the workers were and how much work they stole
+ * from each other.
+ */
+@Immutable
+public class EvaluationStats {
+  private final int genomes;
+  private final int threads;
+  private final long wallNanos;
+  private final long busyNanos;
+  private final long steals;
+
+  private EvaluationStats(int genomes, int threads, long wallNanos, long busyNanos, long steals) {
+    this.genomes = genomes;
+    this.threads = threads;
+    this.wallNanos = wallNanos;
+    this.busyNanos = busyNanos;
+    this.steals = steals;
+  }
+
+  public static EvaluationStats evaluationStats(int genomes, int threads, long wallNanos, long busyNanos, long steals) {
+    return new EvaluationStats(genomes, threads, wallNanos, busyNanos, steals);
+  }
+
+  public int getGenomes() {
+    return genomes;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public long getWallNanos() {
+    return wallNanos;
+  }
+
+  /**
+   * Returns the time spent scoring genomes, summed over every worker.
+   */
+  public long getBusyNanos() {
+    return busyNanos;
+  }
+
+  /**
+   * Returns the number of tasks workers stole from each other's queues, or for a cluster, the batches handed to
+   * another worker after theirs went away.
+   */
+  public long getSteals() {
+    return steals;
+  }
+
+  /**
+   * Returns the share of the workers' time spent scoring genomes, from 0 to 1.
+   */
+  public double utilization() {
+    return wallNanos == 0 ? 0 : busyNanos / ((double) wallNanos * threads);
+  }
+
+  public double genomesPerSecond() {
+    return wallNanos == 0 ? 0 : genomes * 1e9 / wallNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d genomes in %d ms on %d threads (%.0f genomes/s), %.1f%% utilization, %d steals",
+        genomes, TimeUnit.NANOSECONDS.toMillis(wallNanos), threads, genomesPerSecond(), 100 * utilization(), steals);
+  }
+}
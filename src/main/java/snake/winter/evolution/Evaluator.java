@@ -0,0 +1,35 @@
+package snake.winter.evolution;
+
+import io.vavr.collection.Array;
+import snake.winter.neuralnet.Genome;
+
+import java.util.SplittableRandom;
+
+/**
+ * Scores whole populations, on however many threads or machines it has. Genome {@code i} is always scored with seed
+ * {@code i}, so the results are the same whoever does the work. Close the evaluator to release its threads and
+ * connections.
+ */
+public interface Evaluator extends AutoCloseable {
+  /**
+   * Scores every genome of the population with its own given seed and returns their fitness in the same order.
+   * Blocks until done.
+   */
+  Evaluation evaluate(Array<Genome> population, long[] seeds);
+
+  /**
+   * Scores every genome of the population and returns their fitness in the same order. Blocks until done. Genome
+   * {@code i} gets its own seed from a {@link SplittableRandom} started from the given seed.
+   */
+  default Evaluation evaluate(Array<Genome> population, long seed) {
+    long[] seeds = new long[population.size()];
+    SplittableRandom root = new SplittableRandom(seed);
+    for (int i = 0; i < seeds.length; i++) {
+      seeds[i] = root.nextLong();
+    }
+    return evaluate(population, seeds);
+  }
+
+  @Override
+  void close();
+}
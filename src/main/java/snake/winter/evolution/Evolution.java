@@ -0,0 +1,135 @@
+package snake.winter.evolution;
+
+import io.vavr.collection.Array;
+import snake.winter.neuralnet.Genome;
+import snake.winter.metrics.Counter;
+import snake.winter.metrics.Metrics;
+import snake.winter.metrics.Timer;
+import snake.winter.neuralnet.Speciation;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static snake.winter.evolution.Champion.champion;
+import static snake.winter.evolution.GenerationStats.generationStats;
+
+/**
+ * Runs generational NEAT: score every genome, speciate, breed a whole new population. A generation's randomness all
+ * comes from the population's seed, so a run resumed from a {@link Checkpoint} carries on exactly as it would have.
+ *
+ * <p>With {@link #withFeed}, each generation's best genome is also published to a {@link ChampionFeed} for a spectator
+ * to watch. With {@link #withFixedSeed}, every genome plays the same games every generation, which makes the scores of
+ * different generations comparable and lets a {@link FitnessCache} skip genomes that carry over unchanged.
+ *
+ * <p>With metrics {@linkplain Metrics#ENABLED enabled}, each step times its evaluate, speciate and reproduce phases.
+ */
+public final class Evolution {
+  private static final Counter GENERATIONS = Metrics.counter("evolution.generations");
+  private static final Timer EVALUATE = Metrics.timer("evolution.evaluate");
+  private static final Timer SPECIATE = Metrics.timer("evolution.speciate");
+  private static final Timer REPRODUCE = Metrics.timer("evolution.reproduce");
+
+  private final Evaluator evaluator;
+  private final Reproduction reproduction;
+  private final ChampionFeed feed;
+  private final boolean fixedSeed;
+  private final long evaluationSeed;
+
+  private Evolution(Evaluator evaluator, Reproduction reproduction, ChampionFeed feed, boolean fixedSeed,
+                    long evaluationSeed) {
+    this.evaluator = evaluator;
+    this.reproduction = reproduction;
+    this.feed = feed;
+    this.fixedSeed = fixedSeed;
+    this.evaluationSeed = evaluationSeed;
+  }
+
+  public static Evolution evolution(Evaluator evaluator) {
+    return new Evolution(evaluator, Reproduction.reproduction(), null, false, 0);
+  }
+
+  public Evolution withReproduction(Reproduction newReproduction) {
+    return new Evolution(evaluator, newReproduction, feed, fixedSeed, evaluationSeed);
+  }
+
+  public Evolution withFeed(ChampionFeed newFeed) {
+    return new Evolution(evaluator, reproduction, newFeed, fixedSeed, evaluationSeed);
+  }
+
+  /**
+   * Scores every genome of every generation with the given seed, rather than a fresh seed per genome and generation.
+   * The rest of a generation's randomness is unchanged.
+   */
+  public Evolution withFixedSeed(long seed) {
+    return new Evolution(evaluator, reproduction, feed, true, seed);
+  }
+
+  /**
+   * Scores and speciates the population and returns the next generation.
+   */
+  public Population step(Population population) {
+    SplittableRandom rng = new SplittableRandom(population.getSeed());
+    Array<Genome> genomes = population.getGenomes();
+    long start = Timer.start();
+    long seed = rng.nextLong();
+    Evaluation evaluation;
+    if (fixedSeed) {
+      long[] seeds = new long[genomes.size()];
+      Arrays.fill(seeds, evaluationSeed);
+      evaluation = evaluator.evaluate(genomes, seeds);
+    }
+    else {
+      evaluation = evaluator.evaluate(genomes, seed);
+    }
+    EVALUATE.stop(start);
+    if (feed != null && !genomes.isEmpty()) {
+      publishChampion(population.getGeneration(), genomes, evaluation);
+    }
+    start = Timer.start();
+    Speciation speciation = population.getSpeciation().speciate(genomes, rng.split());
+    SPECIATE.stop(start);
+    Array<Fitness> fitness = evaluation.getFitness();
+    start = Timer.start();
+    Array<Genome> children = reproduction.reproduce(genomes, fitness, speciation.getSpecies(),
+        population.getTracker(), rng);
+    REPRODUCE.stop(start);
+    if (Metrics.ENABLED) {
+      GENERATIONS.increment();
+    }
+
+    GenerationStats stats = stats(population.getGeneration(), evaluation, speciation);
+    return new Population(population.getGeneration() + 1, children, population.getTracker(), speciation,
+        rng.nextLong(), population.getHistory().append(stats));
+  }
+
+  /**
+   * Runs the given number of generations.
+   */
+  public Population run(Population population, int generations) {
+    Population p = population;
+    for (int g = 0; g < generations; g++) {
+      p = step(p);
+    }
+    return p;
+  }
+
+  private void publishChampion(int generation, Array<Genome> genomes, Evaluation evaluation) {
+    int best = 0;
+    for (int i = 1; i < genomes.size(); i++) {
+      if (evaluation.getFitness(i).compareTo(evaluation.getFitness(best)) > 0) {
+        best = i;
+      }
+    }
+    feed.publish(champion(generation, genomes.get(best), evaluation.getFitness(best), evaluation.getSeed(best)));
+  }
+
+  private static GenerationStats stats(int generation, Evaluation evaluation, Speciation speciation) {
+    Array<Fitness> fitness = evaluation.getFitness();
+    double best = fitness.map(Fitness::getValue).max().getOrElse(0.0);
+    double mean = fitness.map(Fitness::getValue).average().getOrElse(0.0);
+    long games = fitness.map(f -> (long) f.getGames()).sum().longValue();
+    long score = fitness.map(Fitness::getScore).sum().longValue();
+    return generationStats(generation, best, mean, games == 0 ? 0 : score / (double) games,
+        speciation.getSpecies().size(), evaluation.getStats().getWallNanos(), evaluation.getStats().utilization());
+  }
+}
@@ -0,0 +1,90 @@
+package snake.winter.evolution;
+
+import com.google.errorprone.annotations.Immutable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * How well a genome did: the value selection ranks by, and the totals over the games it played to earn it.
+ */
+@Immutable
+public class Fitness implements Comparable<Fitness> {
+  /**
+   * The size of a fitness written by {@link #writeTo}.
+   */
+  public static final int BYTES = 8 + 4 + 8 + 8;
+
+  private final double value;
+  private final int games;
+  private final long score;
+  private final long moves;
+
+  private Fitness(double value, int games, long score, long moves) {
+    this.value = value;
+    this.games = games;
+    this.score = score;
+    this.moves = moves;
+  }
+
+  public static Fitness fitness(double value, int games, long score, long moves) {
+    return new Fitness(value, games, score, moves);
+  }
+
+  public double getValue() {
+    return value;
+  }
+
+  public int getGames() {
+    return games;
+  }
+
+  /**
+   * Returns the total score over every game played.
+   */
+  public long getScore() {
+    return score;
+  }
+
+  /**
+   * Returns the total moves over every game played.
+   */
+  public long getMoves() {
+    return moves;
+  }
+
+  public void writeTo(ByteBuffer out) {
+    out.putDouble(value).putInt(games).putLong(score).putLong(moves);
+  }
+
+  public static Fitness readFrom(ByteBuffer in) {
+    double value = in.getDouble();
+    int games = in.getInt();
+    long score = in.getLong();
+    long moves = in.getLong();
+    return new Fitness(value, games, score, moves);
+  }
+
+  @Override
+  public int compareTo(Fitness other) {
+    return Double.compare(value, other.value);
+  }
+
+  @Override
+  public String toString() {
+    return "Fitness(" + value + ", games: " + games + ", score: " + score + ", moves: " + moves + ")";
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof Fitness)) {
+      return false;
+    }
+    Fitness f = (Fitness) obj;
+    return Double.compare(f.value, value) == 0 && f.games == games && f.score == score && f.moves == moves;
+  }
+
+  @Override
+  public int hashCode() {
+    return ((Double.hashCode(value) * 31 + games) * 31 + Long.hashCode(score)) * 31 + Long.hashCode(moves);
+  }
+}
@@ -0,0 +1,188 @@
+package snake.winter.evolution;
+
+import snake.winter.metrics.Counter;
+import snake.winter.metrics.Metrics;
+import snake.winter.neuralnet.Genome;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the fitness of genomes already scored, so a genome that survives unchanged into the next generation is
+ * not played again. Wraps another fitness function, and scores whatever it has not seen through it.
+ *
+ * <p>A result is keyed by the genome's {@linkplain Genome#structuralHash() structural hash} and the seed it was scored
+ * with. Everything else that decides a fitness, such as the board size, the number of games and the rules, is fixed
+ * by the wrapped function, so a cache belongs to one function and a new function needs a new cache. A hit is checked
+ * against the genome itself, so a hash collision costs a miss rather than a wrong result. Elites only hit the cache if
+ * they are scored with the same seed again, as {@link Evolution#withFixedSeed} arranges.
+ *
+ * <p>The cache holds at most the given number of results, and evicts the least recently used first. It is split into
+ * segments, each with its own lock held only for a lookup or an insert, so parallel evaluators rarely wait on each
+ * other and never while a genome plays. Two threads that miss on the same genome at once both score it, which is
+ * harmless since the results are equal. Hits, misses and evictions are counted, and also reported as
+ * {@code fitness.cache.*} when metrics are {@linkplain Metrics#ENABLED enabled}.
+ *
+ * @param <W> the wrapped function's workspace
+ */
+public final class FitnessCache<W> implements FitnessFunction<W> {
+  private static final Counter HITS = Metrics.counter("fitness.cache.hits");
+  private static final Counter MISSES = Metrics.counter("fitness.cache.misses");
+  private static final Counter EVICTIONS = Metrics.counter("fitness.cache.evictions");
+  private static final int SEGMENTS = 16;
+
+  /**
+   * A scored genome, kept whole to tell hash collisions apart.
+   */
+  private static final class Result {
+    final Genome genome;
+    final long seed;
+    final Fitness fitness;
+
+    Result(Genome genome, long seed, Fitness fitness) {
+      this.genome = genome;
+      this.seed = seed;
+      this.fitness = fitness;
+    }
+  }
+
+  /**
+   * One lock's worth of the cache, a map in least recently used order.
+   */
+  private static final class Segment extends LinkedHashMap<Long, Result> {
+    private static final long serialVersionUID = 1L;
+    private final int capacity;
+    private final LongAdder evictions;
+
+    Segment(int capacity, LongAdder evictions) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+      this.evictions = evictions;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, Result> eldest) {
+      if (size() <= capacity) {
+        return false;
+      }
+      evictions.increment();
+      if (Metrics.ENABLED) {
+        EVICTIONS.increment();
+      }
+      return true;
+    }
+  }
+
+  private final FitnessFunction<W> function;
+  private final Segment[] segments;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  private FitnessCache(FitnessFunction<W> function, int capacity) {
+    this.function = function;
+    this.segments = new Segment[SEGMENTS];
+    for (int i = 0; i < SEGMENTS; i++) {
+      // spread the capacity so the segments add up to it exactly
+      segments[i] = new Segment(capacity / SEGMENTS + (i < capacity % SEGMENTS ? 1 : 0), evictions);
+    }
+  }
+
+  /**
+   * Wraps a fitness function in a cache of at most the given number of results.
+   */
+  public static <W> FitnessCache<W> cache(FitnessFunction<W> function, int capacity) {
+    if (capacity < SEGMENTS) {
+      throw new IllegalArgumentException("a cache holds at least " + SEGMENTS + " results, not " + capacity);
+    }
+    return new FitnessCache<>(function, capacity);
+  }
+
+  public FitnessFunction<W> getFunction() {
+    return function;
+  }
+
+  @Override
+  public W newWorkspace() {
+    return function.newWorkspace();
+  }
+
+  @Override
+  public Fitness evaluate(Genome genome, long seed, W workspace) {
+    long key = key(genome.structuralHash(), seed);
+    Segment segment = segments[(int) (key >>> 60) & (SEGMENTS - 1)];
+    Result result;
+    synchronized (segment) {
+      result = segment.get(key);
+    }
+    if (result != null && result.seed == seed && result.genome.equals(genome)) {
+      hits.increment();
+      if (Metrics.ENABLED) {
+        HITS.increment();
+      }
+      return result.fitness;
+    }
+
+    misses.increment();
+    if (Metrics.ENABLED) {
+      MISSES.increment();
+    }
+    Fitness fitness = function.evaluate(genome, seed, workspace);
+    Result scored = new Result(genome, seed, fitness);
+    synchronized (segment) {
+      segment.put(key, scored);
+    }
+    return fitness;
+  }
+
+  /**
+   * Returns how many results the cache holds.
+   */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  public long hits() {
+    return hits.sum();
+  }
+
+  public long misses() {
+    return misses.sum();
+  }
+
+  public long evictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * Returns the share of lookups that hit, or 0 before the first.
+   */
+  public double hitRate() {
+    long h = hits();
+    long total = h + misses();
+    return total == 0 ? 0 : h / (double) total;
+  }
+
+  /**
+   * Forgets every result, for when the same genomes should be scored afresh. Leaves the counts alone.
+   */
+  public void clear() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+  private static long key(long hash, long seed) {
+    long x = (hash ^ Long.rotateLeft(seed, 32)) * 0xbf58_476d_1ce4_e5b9L;
+    return x ^ (x >>> 31);
+  }
+}
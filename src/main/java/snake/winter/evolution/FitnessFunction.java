@@ -0,0 +1,19 @@
+package snake.winter.evolution;
+
+import snake.winter.neuralnet.Genome;
+
+/**
+ * Scores one genome. Evaluation runs on many threads at once, so each thread gets its own workspace, made once by
+ * {@link #newWorkspace()} and then reused for every genome that thread scores.
+ *
+ * @param <W> the reusable per-thread state, such as boards and random generators
+ */
+public interface FitnessFunction<W> {
+  W newWorkspace();
+
+  /**
+   * Scores a genome. The result must depend only on the genome and the seed, and never on what the workspace held
+   * before, so results do not depend on which thread scores which genome.
+   */
+  Fitness evaluate(Genome genome, long seed, W workspace);
+}
@@ -0,0 +1,195 @@
+package snake.winter.evolution;
+
+import snake.winter.controller.NeighborSensors;
+import snake.winter.controller.NetworkController;
+import snake.winter.controller.SensorSet;
+import snake.winter.game.MutableBoard;
+import snake.winter.game.MutableBoard.FoodPlacement;
+import snake.winter.game.Point.Direction;
+import snake.winter.game.Rules;
+import snake.winter.neuralnet.CompiledNetwork;
+import snake.winter.neuralnet.Genome;
+import snake.winter.replay.GameRecorder;
+import snake.winter.replay.GameReplay;
+import snake.winter.replay.ReplayRandom;
+import snake.winter.replay.ReplayWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.SplittableRandom;
+
+import static snake.winter.evolution.Fitness.fitness;
+
+/**
+ * Scores a genome by letting a {@link NetworkController} play a few seeded games with it, seeing the board through a
+ * {@link SensorSet}. Each game is seeded from a
+ * {@link SplittableRandom} stream started from the genome's seed. A game ends when the snake dies or hits the move
+ * limit. By default the games are played by {@link Rules} under which the snake starves after a whole board's worth
+ * of moves without eating, and dies as soon as it repeats a position since it last ate. A network picks its move from
+ * the position alone, so such a snake would circle forever; ending the game there keeps loopers from stalling a
+ * generation.
+ *
+ * <p>The fitness is the mean score, with the mean number of moves survived as a small bonus that breaks ties.
+ *
+ * <p>With {@link #withReplays} every game played is also recorded to a replay file, labelled with the genome's seed.
+ */
+public class GameFitness implements FitnessFunction<GameFitness.Workspace> {
+  private static final int REPLAY_KEYFRAMES = 100;
+
+  /**
+   * The board, random generator and replay recorder one thread reuses for all its games.
+   */
+  public static final class Workspace {
+    private final ReplayRandom rng = new ReplayRandom();
+    private final GameRecorder recorder;
+    private MutableBoard board;
+
+    private Workspace(GameRecorder recorder) {
+      this.recorder = recorder;
+    }
+  }
+
+  private final int height;
+  private final int width;
+  private final int games;
+  private final int maxMoves;
+  private final Rules rules;
+  private final SensorSet sensors;
+  private final ReplayWriter replays;
+  private final int keyframeInterval;
+
+  private GameFitness(int height, int width, int games, int maxMoves, Rules rules, SensorSet sensors,
+                      ReplayWriter replays, int keyframeInterval) {
+    this.height = height;
+    this.width = width;
+    this.games = games;
+    this.maxMoves = maxMoves;
+    this.rules = rules;
+    this.sensors = sensors;
+    this.replays = replays;
+    this.keyframeInterval = keyframeInterval;
+  }
+
+  /**
+   * Plays the given number of games per genome on boards of the given size with {@link NeighborSensors}, cut off
+   * after 100 moves per cell, starving after one move per cell without food and ending loops.
+   */
+  public static GameFitness gameFitness(int height, int width, int games) {
+    return new GameFitness(height, width, games, 100 * height * width, Rules.rules().withHunger(1).withLoops(true),
+        new NeighborSensors(), null, 0);
+  }
+
+  public GameFitness withMaxMoves(int newMaxMoves) {
+    return new GameFitness(height, width, games, newMaxMoves, rules, sensors, replays, keyframeInterval);
+  }
+
+  public GameFitness withRules(Rules newRules) {
+    return new GameFitness(height, width, games, maxMoves, newRules, sensors, replays, keyframeInterval);
+  }
+
+  public GameFitness withSensors(SensorSet newSensors) {
+    return new GameFitness(height, width, games, maxMoves, rules, newSensors, replays, keyframeInterval);
+  }
+
+  /**
+   * Records every game to the given writer, with a keyframe every given number of moves. The caller still owns the
+   * writer and must close it once evaluation is done.
+   */
+  public GameFitness withReplays(ReplayWriter newReplays, int newKeyframeInterval) {
+    return new GameFitness(height, width, games, maxMoves, rules, sensors, newReplays, newKeyframeInterval);
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public Rules getRules() {
+    return rules;
+  }
+
+  public SensorSet getSensors() {
+    return sensors;
+  }
+
+  /**
+   * Describes everything that decides a genome's fitness, so two processes can check they score genomes alike.
+   */
+  @Override
+  public String toString() {
+    return "GameFitness(" + width + "x" + height + ", " + games + " games, " + maxMoves + " moves, " + rules + ", "
+           + sensors.getClass().getName() + "/" + sensors.size() + ")";
+  }
+
+  @Override
+  public Workspace newWorkspace() {
+    return new Workspace(replays == null ? null : new GameRecorder(keyframeInterval));
+  }
+
+  @Override
+  public Fitness evaluate(Genome genome, long seed, Workspace workspace) {
+    NetworkController controller = new NetworkController(CompiledNetwork.compile(genome), sensors);
+    SplittableRandom seeds = new SplittableRandom(seed);
+    ReplayRandom rng = workspace.rng;
+    GameRecorder recorder = workspace.recorder;
+    long score = 0;
+    long moves = 0;
+    for (int game = 0; game < games; game++) {
+      long gameSeed = seeds.nextLong();
+      rng.setSeed(gameSeed);
+      if (workspace.board == null) {
+        workspace.board = MutableBoard.newStartBoard(height, width, rng, FoodPlacement.INDEXED);
+        workspace.board.setRules(rules);
+      }
+      else {
+        workspace.board.reset(rng);
+      }
+
+      MutableBoard board = workspace.board;
+      if (recorder != null) {
+        recorder.start(seed, game, gameSeed, board);
+      }
+      play(controller, board, rng, recorder);
+      if (recorder != null) {
+        try {
+          replays.write(recorder);
+        }
+        catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      }
+      score += board.getScore();
+      moves += board.getMoves();
+    }
+    double value = (score + moves / (double) maxMoves) / games;
+    return fitness(value, games, score, moves);
+  }
+
+  /**
+   * Plays the first of the games the genome would play when scored with the given seed, and returns it as a replay.
+   */
+  public GameReplay replay(Genome genome, long seed) {
+    NetworkController controller = new NetworkController(CompiledNetwork.compile(genome), sensors);
+    long gameSeed = new SplittableRandom(seed).nextLong();
+    ReplayRandom rng = new ReplayRandom(gameSeed);
+    MutableBoard board = MutableBoard.newStartBoard(height, width, rng, FoodPlacement.INDEXED);
+    board.setRules(rules);
+    GameRecorder recorder = new GameRecorder(keyframeInterval > 0 ? keyframeInterval : REPLAY_KEYFRAMES);
+    recorder.start(seed, 0, gameSeed, board);
+    play(controller, board, rng, recorder);
+    return recorder.toReplay();
+  }
+
+  private void play(NetworkController controller, MutableBoard board, ReplayRandom rng, GameRecorder recorder) {
+    while (board.isLive() && board.getMoves() < maxMoves) {
+      Direction d = controller.nextMove(board);
+      board.updateBoard(d, rng);
+      if (recorder != null) {
+        recorder.move(d, board, rng);
+      }
+    }
+  }
+}
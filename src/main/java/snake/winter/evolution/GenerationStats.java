@@ -0,0 +1,104 @@
+package snake.winter.evolution;
+
+import com.google.errorprone.annotations.Immutable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A summary of one generation: how its genomes scored, how many species they formed and how long scoring them took.
+ */
+@Immutable
+public class GenerationStats {
+  static final int BYTES = 4 + 8 + 8 + 8 + 4 + 8 + 8;
+
+  private final int generation;
+  private final double bestFitness;
+  private final double meanFitness;
+  private final double meanScore;
+  private final int species;
+  private final long evaluationNanos;
+  private final double utilization;
+
+  private GenerationStats(int generation, double bestFitness, double meanFitness, double meanScore, int species,
+                          long evaluationNanos, double utilization) {
+    this.generation = generation;
+    this.bestFitness = bestFitness;
+    this.meanFitness = meanFitness;
+    this.meanScore = meanScore;
+    this.species = species;
+    this.evaluationNanos = evaluationNanos;
+    this.utilization = utilization;
+  }
+
+  public static GenerationStats generationStats(int generation, double bestFitness, double meanFitness,
+                                                double meanScore, int species, long evaluationNanos,
+                                                double utilization) {
+    return new GenerationStats(generation, bestFitness, meanFitness, meanScore, species, evaluationNanos,
+        utilization);
+  }
+
+  public int getGeneration() {
+    return generation;
+  }
+
+  public double getBestFitness() {
+    return bestFitness;
+  }
+
+  public double getMeanFitness() {
+    return meanFitness;
+  }
+
+  /**
+   * Returns the mean score per game over the whole generation.
+   */
+  public double getMeanScore() {
+    return meanScore;
+  }
+
+  public int getSpecies() {
+    return species;
+  }
+
+  public long getEvaluationNanos() {
+    return evaluationNanos;
+  }
+
+  public double getUtilization() {
+    return utilization;
+  }
+
+  void writeTo(ByteBuffer out) {
+    out.putInt(generation).putDouble(bestFitness).putDouble(meanFitness).putDouble(meanScore).putInt(species)
+       .putLong(evaluationNanos).putDouble(utilization);
+  }
+
+  static GenerationStats readFrom(ByteBuffer in) {
+    return new GenerationStats(in.getInt(), in.getDouble(), in.getDouble(), in.getDouble(), in.getInt(),
+        in.getLong(), in.getDouble());
+  }
+
+  @Override
+  public String toString() {
+    return String.format("generation %d: best %.3f, mean %.3f, mean score %.2f, %d species, evaluated in %d ms"
+                             + " (%.0f%% utilization)", generation, bestFitness, meanFitness, meanScore, species,
+        evaluationNanos / 1_000_000, 100 * utilization);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof GenerationStats)) {
+      return false;
+    }
+    GenerationStats s = (GenerationStats) obj;
+    return s.generation == generation && Double.compare(s.bestFitness, bestFitness) == 0
+               && Double.compare(s.meanFitness, meanFitness) == 0 && Double.compare(s.meanScore, meanScore) == 0
+               && s.species == species && s.evaluationNanos == evaluationNanos
+               && Double.compare(s.utilization, utilization) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return (generation * 31 + Double.hashCode(bestFitness)) * 31 + Double.hashCode(meanFitness);
+  }
+}
@@ -0,0 +1,75 @@
+package snake.winter.evolution;
+
+import io.vavr.collection.Array;
+import snake.winter.neuralnet.Genome;
+import snake.winter.neuralnet.InnovationTracker;
+import snake.winter.neuralnet.Speciation;
+
+import java.util.SplittableRandom;
+
+/**
+ * The whole state of an evolution run between two generations: the genomes about to be scored, the innovation
+ * tracker they share, the species of the last generation, the seed the next generation draws all its randomness
+ * from, and the stats of every generation so far. Everything a run needs to resume lives here, so a population can be
+ * saved to a {@link Checkpoint} and picked up later with the same results.
+ *
+ * <p>Populations are immutable apart from the tracker, which only ever grows.
+ */
+public final class Population {
+  private final int generation;
+  private final Array<Genome> genomes;
+  private final InnovationTracker tracker;
+  private final Speciation speciation;
+  private final long seed;
+  private final Array<GenerationStats> history;
+
+  Population(int generation, Array<Genome> genomes, InnovationTracker tracker, Speciation speciation, long seed,
+             Array<GenerationStats> history) {
+    this.generation = generation;
+    this.genomes = genomes;
+    this.tracker = tracker;
+    this.speciation = speciation;
+    this.seed = seed;
+    this.history = history;
+  }
+
+  /**
+   * Creates generation 0: the given number of minimal genomes with random weights.
+   */
+  public static Population initial(InnovationTracker tracker, int size, Speciation speciation, long seed) {
+    SplittableRandom rng = new SplittableRandom(seed);
+    Array<Genome> genomes = Array.fill(size, () -> Genome.minimal(tracker, rng));
+    return new Population(0, genomes, tracker, speciation, rng.nextLong(), Array.empty());
+  }
+
+  public int getGeneration() {
+    return generation;
+  }
+
+  public Array<Genome> getGenomes() {
+    return genomes;
+  }
+
+  public int size() {
+    return genomes.size();
+  }
+
+  public InnovationTracker getTracker() {
+    return tracker;
+  }
+
+  public Speciation getSpeciation() {
+    return speciation;
+  }
+
+  /**
+   * Returns the seed of the next generation's random generator.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  public Array<GenerationStats> getHistory() {
+    return history;
+  }
+}
@@ -0,0 +1,135 @@
+package snake.winter.evolution;
+
+import io.vavr.collection.Array;
+import snake.winter.neuralnet.Genome;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scores a whole population on a fork-join pool that lives as long as the evaluator.
+ *
+ * <p>The population is split in halves recursively down to small runs of genomes, and idle workers steal halves from
+ * busy ones, so uneven genomes (one snake dies at once, another plays for ages) still keep every core busy. Each
+ * worker thread owns one workspace from the {@link FitnessFunction} and reuses it for every genome it scores.
+ *
+ * <p>Results do not depend on the thread count or on who steals what: before evaluation starts, genome {@code i}
+ * gets its own seed, and fitness functions may only depend on the genome and that seed. Close the evaluator to stop
+ * its threads.
+ */
+public final class PopulationEvaluator<W> implements Evaluator {
+  private final FitnessFunction<W> function;
+  private final ForkJoinPool pool;
+  private final int threads;
+
+  private PopulationEvaluator(FitnessFunction<W> function, int threads) {
+    this.function = function;
+    this.threads = threads;
+    this.pool = new ForkJoinPool(threads, p -> new Worker<>(p, function.newWorkspace()), null, false);
+  }
+
+  /**
+   * Creates an evaluator running on every core.
+   */
+  public static <W> PopulationEvaluator<W> evaluator(FitnessFunction<W> function) {
+    return evaluator(function, Runtime.getRuntime().availableProcessors());
+  }
+
+  public static <W> PopulationEvaluator<W> evaluator(FitnessFunction<W> function, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("an evaluator needs at least one thread");
+    }
+    return new PopulationEvaluator<>(function, threads);
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  @Override
+  public Evaluation evaluate(Array<Genome> population, long[] seeds) {
+    if (seeds.length != population.size()) {
+      throw new IllegalArgumentException(population.size() + " genomes need as many seeds, not " + seeds.length);
+    }
+    Genome[] genomes = population.toJavaArray(Genome.class);
+    Fitness[] results = new Fitness[genomes.length];
+    LongAdder busy = new LongAdder();
+    // split down to runs small enough that every worker gets several, but no smaller than one genome
+    int grain = Math.max(1, genomes.length / (threads * 8));
+    long steals = pool.getStealCount();
+    long start = System.nanoTime();
+    pool.invoke(new EvaluateRange(genomes, seeds, results, busy, grain, 0, genomes.length));
+    long wall = System.nanoTime() - start;
+
+    EvaluationStats stats = EvaluationStats.evaluationStats(genomes.length, threads, wall, busy.sum(),
+        pool.getStealCount() - steals);
+    return Evaluation.evaluation(Array.of(results), seeds, stats);
+  }
+
+  @Override
+  public void close() {
+    pool.shutdownNow();
+  }
+
+  /**
+   * Returns the workspace of the current worker, or a fresh one if this somehow runs outside the pool.
+   */
+  @SuppressWarnings("unchecked")
+  private W workspace() {
+    Thread t = Thread.currentThread();
+    return t instanceof Worker && ((Worker<?>) t).getPool() == pool
+               ? ((Worker<W>) t).workspace
+               : function.newWorkspace();
+  }
+
+  private static final class Worker<W> extends ForkJoinWorkerThread {
+    private final W workspace;
+
+    private Worker(ForkJoinPool pool, W workspace) {
+      super(pool);
+      this.workspace = workspace;
+      setName("evaluator-" + getPoolIndex());
+      setDaemon(true);
+    }
+  }
+
+  private final class EvaluateRange extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Genome[] genomes;
+    private final long[] seeds;
+    private final Fitness[] results;
+    private final LongAdder busy;
+    private final int grain;
+    private final int from;
+    private final int to;
+
+    EvaluateRange(Genome[] genomes, long[] seeds, Fitness[] results, LongAdder busy, int grain, int from, int to) {
+      this.genomes = genomes;
+      this.seeds = seeds;
+      this.results = results;
+      this.busy = busy;
+      this.grain = grain;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > grain) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new EvaluateRange(genomes, seeds, results, busy, grain, from, mid),
+            new EvaluateRange(genomes, seeds, results, busy, grain, mid, to));
+        return;
+      }
+      W workspace = workspace();
+      long start = System.nanoTime();
+      for (int i = from; i < to; i++) {
+        results[i] = function.evaluate(genomes[i], seeds[i], workspace);
+      }
+      busy.add(System.nanoTime() - start);
+    }
+  }
+}
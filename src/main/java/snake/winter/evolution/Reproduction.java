@@ -0,0 +1,197 @@
+package snake.winter.evolution;
+
+import com.google.errorprone.annotations.Immutable;
+import io.vavr.collection.Array;
+import snake.winter.neuralnet.Genome;
+import snake.winter.neuralnet.InnovationTracker;
+import snake.winter.neuralnet.Species;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Breeds the next generation from a scored, speciated one, NEAT style.
+ *
+ * <p>Each species gets a share of the offspring in proportion to its mean fitness, so a species cannot take over just
+ * by being big. Within a species only the best genomes breed, and the champion of every species that has offspring
+ * is copied over unchanged. Every other child is a crossover of two parents or a copy of one, followed by mutation.
+ * Reproduction is deterministic given the random generator. Settings are immutable; the {@code with} methods return
+ * copies.
+ */
+@Immutable
+public class Reproduction {
+  private final double survival;
+  private final double crossoverRate;
+  private final double weightMutationRate;
+  private final double weightGeneRate;
+  private final double perturbPower;
+  private final double weightResetRate;
+  private final double addNodeRate;
+  private final double addConnectionRate;
+
+  private Reproduction(double survival, double crossoverRate, double weightMutationRate, double weightGeneRate,
+                       double perturbPower, double weightResetRate, double addNodeRate, double addConnectionRate) {
+    this.survival = survival;
+    this.crossoverRate = crossoverRate;
+    this.weightMutationRate = weightMutationRate;
+    this.weightGeneRate = weightGeneRate;
+    this.perturbPower = perturbPower;
+    this.weightResetRate = weightResetRate;
+    this.addNodeRate = addNodeRate;
+    this.addConnectionRate = addConnectionRate;
+  }
+
+  /**
+   * Returns the usual NEAT settings: the best 20% of each species breed, 75% of children come from crossover, 80%
+   * get their weights mutated, 3% gain a node and 5% a connection.
+   */
+  public static Reproduction reproduction() {
+    return new Reproduction(0.2, 0.75, 0.8, 0.9, 0.5, 0.1, 0.03, 0.05);
+  }
+
+  public Reproduction withSurvival(double newSurvival) {
+    return new Reproduction(newSurvival, crossoverRate, weightMutationRate, weightGeneRate, perturbPower,
+        weightResetRate, addNodeRate, addConnectionRate);
+  }
+
+  public Reproduction withCrossoverRate(double newCrossoverRate) {
+    return new Reproduction(survival, newCrossoverRate, weightMutationRate, weightGeneRate, perturbPower,
+        weightResetRate, addNodeRate, addConnectionRate);
+  }
+
+  public Reproduction withStructuralRates(double newAddNodeRate, double newAddConnectionRate) {
+    return new Reproduction(survival, crossoverRate, weightMutationRate, weightGeneRate, perturbPower,
+        weightResetRate, newAddNodeRate, newAddConnectionRate);
+  }
+
+  /**
+   * Breeds a new population of the same size.
+   *
+   * @param fitness the fitness of every genome, in population order
+   * @param species the species the population was split into
+   */
+  public Array<Genome> reproduce(Array<Genome> population, Array<Fitness> fitness, Array<Species> species,
+                                 InnovationTracker tracker, SplittableRandom rng) {
+    int size = population.size();
+    int[] offspring = shares(fitness, species, size);
+    Genome[] children = new Genome[size];
+    int next = 0;
+    for (int s = 0; s < species.size(); s++) {
+      if (offspring[s] == 0) {
+        continue;
+      }
+      Integer[] ranked = ranked(species.get(s).getMembers().toJavaArray(Integer.class), fitness);
+      children[next++] = population.get(ranked[0]);
+      for (int k = 1; k < offspring[s]; k++) {
+        children[next++] = child(population, fitness, ranked, tracker, rng);
+      }
+    }
+    return Array.of(children);
+  }
+
+  /**
+   * Breeds one child from the best of the given members of the population, as {@link #reproduce} breeds each child
+   * of a species after its champion. For steady-state evolution, which breeds a child at a time.
+   *
+   * @param members the indices of the genomes of one species
+   */
+  public Genome breed(Array<Genome> population, Array<Fitness> fitness, int[] members, InnovationTracker tracker,
+                      SplittableRandom rng) {
+    Integer[] boxed = new Integer[members.length];
+    for (int k = 0; k < members.length; k++) {
+      boxed[k] = members[k];
+    }
+    return child(population, fitness, ranked(boxed, fitness), tracker, rng);
+  }
+
+  private Genome child(Array<Genome> population, Array<Fitness> fitness, Integer[] ranked, InnovationTracker tracker,
+                       SplittableRandom rng) {
+    int parents = Math.max(1, (int) Math.ceil(survival * ranked.length));
+    int a = ranked[rng.nextInt(parents)];
+    Genome child;
+    if (parents > 1 && rng.nextDouble() < crossoverRate) {
+      int b = ranked[rng.nextInt(parents)];
+      child = fitter(a, b, fitness)
+                  ? Genome.crossover(population.get(a), population.get(b), rng)
+                  : Genome.crossover(population.get(b), population.get(a), rng);
+    }
+    else {
+      child = population.get(a);
+    }
+    return mutate(child, tracker, rng);
+  }
+
+  /**
+   * Applies each mutation to the genome with its own chance.
+   */
+  public Genome mutate(Genome genome, InnovationTracker tracker, SplittableRandom rng) {
+    Genome g = genome;
+    if (rng.nextDouble() < weightMutationRate) {
+      g = g.perturbWeights(rng, weightGeneRate, perturbPower, weightResetRate);
+    }
+    if (rng.nextDouble() < addNodeRate) {
+      g = g.addNode(tracker, rng);
+    }
+    if (rng.nextDouble() < addConnectionRate) {
+      g = g.addConnection(tracker, rng, 20);
+    }
+    return g;
+  }
+
+  /**
+   * Splits the offspring between species in proportion to their mean fitness, handing out what rounding leaves over
+   * by largest remainder.
+   */
+  private static int[] shares(Array<Fitness> fitness, Array<Species> species, int size) {
+    double[] means = new double[species.size()];
+    double total = 0;
+    for (int s = 0; s < means.length; s++) {
+      Species sp = species.get(s);
+      double sum = 0;
+      for (int k = 0; k < sp.size(); k++) {
+        sum += Math.max(0, fitness.get(sp.getMember(k)).getValue());
+      }
+      means[s] = sum / sp.size();
+      total += means[s];
+    }
+
+    int[] shares = new int[means.length];
+    double[] remainders = new double[means.length];
+    int given = 0;
+    for (int s = 0; s < means.length; s++) {
+      // with no fitness at all, fall back to sharing by size
+      double exact = total > 0 ? means[s] / total * size : species.get(s).size();
+      shares[s] = (int) exact;
+      remainders[s] = exact - shares[s];
+      given += shares[s];
+    }
+    while (given < size) {
+      int best = 0;
+      for (int s = 1; s < remainders.length; s++) {
+        if (remainders[s] > remainders[best]) {
+          best = s;
+        }
+      }
+      shares[best]++;
+      remainders[best] = -1;
+      given++;
+    }
+    return shares;
+  }
+
+  /**
+   * Sorts the members of a species from fittest to least fit, ties broken by population order, and returns them.
+   */
+  private static Integer[] ranked(Integer[] members, Array<Fitness> fitness) {
+    Arrays.sort(members, (a, b) -> {
+      int c = fitness.get(b).compareTo(fitness.get(a));
+      return c != 0 ? c : Integer.compare(a, b);
+    });
+    return members;
+  }
+
+  private static boolean fitter(int a, int b, Array<Fitness> fitness) {
+    int c = fitness.get(a).compareTo(fitness.get(b));
+    return c > 0 || (c == 0 && a <= b);
+  }
+}
@@ -0,0 +1,424 @@
+package snake.winter.evolution;
+
+import io.vavr.collection.Array;
+import snake.winter.metrics.Counter;
+import snake.winter.metrics.Metrics;
+import snake.winter.neuralnet.Compatibility;
+import snake.winter.neuralnet.Genome;
+import snake.winter.neuralnet.InnovationTracker;
+import snake.winter.neuralnet.Speciation;
+import snake.winter.neuralnet.Species;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import static snake.winter.evolution.Champion.champion;
+import static snake.winter.evolution.GenerationStats.generationStats;
+
+/**
+ * Runs steady-state NEAT: rather than scoring a whole generation and waiting for its slowest game before breeding the
+ * next, a child is bred and sent off the moment any thread finishes scoring one. Threads never wait for each other, so
+ * they stay busy however uneven the games are.
+ *
+ * <p>A scored child takes the place of the genome with the lowest fitness shared out over its species, though never the
+ * best genome of all. It joins the first species whose representative is close enough, or founds a new one. Each new
+ * child comes from a species picked in proportion to its mean fitness, and is bred from that species' best genomes by
+ * {@link Reproduction#breed}. Every population-size births make an epoch, which stands in for a generation: the
+ * whole population is speciated afresh, which moves the threshold and picks new representatives, and the epoch's
+ * {@link GenerationStats} are recorded and its champion is published to the feed.
+ *
+ * <p>All randomness is drawn on the calling thread, in the order scored children come back. With one thread that order
+ * is fixed, so a run is reproducible; with more it depends on which games finish first. At most one child per thread,
+ * plus one waiting, is out being scored at any time. Settings are immutable; the {@code with} methods return copies.
+ *
+ * @param <W> the fitness function's workspace
+ */
+public final class SteadyStateEvolution<W> {
+  private static final Counter BIRTHS = Metrics.counter("evolution.births");
+
+  private final FitnessFunction<W> function;
+  private final int threads;
+  private final Reproduction reproduction;
+  private final ChampionFeed feed;
+
+  private SteadyStateEvolution(FitnessFunction<W> function, int threads, Reproduction reproduction,
+                               ChampionFeed feed) {
+    this.function = function;
+    this.threads = threads;
+    this.reproduction = reproduction;
+    this.feed = feed;
+  }
+
+  public static <W> SteadyStateEvolution<W> steadyState(FitnessFunction<W> function, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("steady-state evolution needs at least one thread");
+    }
+    return new SteadyStateEvolution<>(function, threads, Reproduction.reproduction(), null);
+  }
+
+  public SteadyStateEvolution<W> withReproduction(Reproduction newReproduction) {
+    return new SteadyStateEvolution<>(function, threads, newReproduction, feed);
+  }
+
+  public SteadyStateEvolution<W> withFeed(ChampionFeed newFeed) {
+    return new SteadyStateEvolution<>(function, threads, reproduction, newFeed);
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Scores the population, then runs the given number of epochs and returns the population after the last.
+   */
+  public Population run(Population population, int epochs) {
+    return run(population, epochs, p -> { });
+  }
+
+  /**
+   * Scores the population, then runs the given number of epochs, handing the population after each to the listener on
+   * the calling thread, and returns the population after the last.
+   */
+  public Population run(Population population, int epochs, Consumer<Population> listener) {
+    List<Scorer<W>> scorers = new CopyOnWriteArrayList<>();
+    ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+      Scorer<W> scorer = new Scorer<>(r, function.newWorkspace());
+      scorers.add(scorer);
+      return scorer;
+    });
+    try {
+      return new Run(population, pool, scorers).run(epochs, listener);
+    }
+    finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * A genome back from a scoring thread.
+   */
+  private static final class Scored {
+    final Genome genome;
+    final long seed;
+    final Fitness fitness;
+    final int slot;
+    final long start;
+    final long end;
+
+    Scored(Genome genome, long seed, Fitness fitness, int slot, long start, long end) {
+      this.genome = genome;
+      this.seed = seed;
+      this.fitness = fitness;
+      this.slot = slot;
+      this.start = start;
+      this.end = end;
+    }
+  }
+
+  private static final class Scorer<W> extends Thread {
+    private static final long IDLE = Long.MIN_VALUE;
+    private final W workspace;
+    // when the genome being scored started, so an epoch can count scoring still under way when it ends
+    private volatile long scoringSince = IDLE;
+
+    Scorer(Runnable task, W workspace) {
+      super(task, "steady-state-scorer");
+      this.workspace = workspace;
+      setDaemon(true);
+    }
+  }
+
+  /**
+   * The state of one run. Only the calling thread touches it.
+   */
+  private final class Run {
+    private final CompletionService<Scored> scoring;
+    private final List<Scorer<W>> scorers;
+    private final InnovationTracker tracker;
+    private final SplittableRandom rng;
+    private final Compatibility compatibility;
+    private final int size;
+    private int generation;
+    private Array<GenerationStats> history;
+    private Speciation speciation;
+
+    // the scored population, and the seed each genome was scored with
+    private Array<Genome> genomes;
+    private Array<Fitness> fitness;
+    private final long[] seeds;
+    // the species of each genome, as an index into the representatives; species may be left empty until the epoch ends
+    private final int[] speciesOf;
+    private final List<Genome> representatives = new ArrayList<>();
+    private final List<Integer> speciesSizes = new ArrayList<>();
+
+    // this epoch's totals, for its stats
+    private long epochStart;
+    private long busyNanos;
+    private double fitnessSum;
+    private long score;
+    private long games;
+
+    Run(Population population, ExecutorService pool, List<Scorer<W>> scorers) {
+      this.scoring = new ExecutorCompletionService<>(pool);
+      this.scorers = scorers;
+      this.tracker = population.getTracker();
+      this.rng = new SplittableRandom(population.getSeed());
+      this.compatibility = population.getSpeciation().getCompatibility();
+      this.size = population.size();
+      this.generation = population.getGeneration();
+      this.history = population.getHistory();
+      this.speciation = population.getSpeciation();
+      this.genomes = population.getGenomes();
+      this.seeds = new long[size];
+      this.speciesOf = new int[size];
+    }
+
+    Population run(int epochs, Consumer<Population> listener) {
+      // the one barrier: the whole population must be scored before anything can breed
+      Fitness[] initial = new Fitness[size];
+      for (int i = 0; i < size; i++) {
+        seeds[i] = rng.nextLong();
+        submit(genomes.get(i), seeds[i], i);
+      }
+      for (int i = 0; i < size; i++) {
+        Scored s = take();
+        initial[s.slot] = s.fitness;
+      }
+      fitness = Array.of(initial);
+      speciate();
+
+      long births = (long) epochs * size;
+      long bred = 0;
+      Population last = null;
+      epochStart = System.nanoTime();
+      for (; bred < Math.min(births, threads + 1); bred++) {
+        breed();
+      }
+      for (long born = 1; born <= births; born++) {
+        Scored s = take();
+        insert(s);
+        if (born % size == 0) {
+          last = endEpoch();
+          listener.accept(last);
+        }
+        if (bred < births) {
+          breed();
+          bred++;
+        }
+      }
+      return last != null ? last : population();
+    }
+
+    /**
+     * Builds the population as it stands, drawing the seed it carries on with from the breeding generator.
+     */
+    private Population population() {
+      return new Population(generation, genomes, tracker, speciation, rng.nextLong(), history);
+    }
+
+    /**
+     * Breeds a child from a species picked by mean fitness and sends it off to be scored.
+     */
+    private void breed() {
+      int species = pickSpecies();
+      int[] members = new int[speciesSizes.get(species)];
+      int count = 0;
+      for (int i = 0; i < size; i++) {
+        if (speciesOf[i] == species) {
+          members[count++] = i;
+        }
+      }
+      Genome child = reproduction.breed(genomes, fitness, members, tracker, rng);
+      submit(child, rng.nextLong(), -1);
+    }
+
+    private int pickSpecies() {
+      double[] means = new double[representatives.size()];
+      double total = 0;
+      for (int i = 0; i < size; i++) {
+        means[speciesOf[i]] += Math.max(0, fitness.get(i).getValue());
+      }
+      for (int s = 0; s < means.length; s++) {
+        int n = speciesSizes.get(s);
+        means[s] = n == 0 ? 0 : means[s] / n;
+        total += means[s];
+      }
+      if (total == 0) {
+        // with no fitness at all, pick by size
+        return speciesOf[rng.nextInt(size)];
+      }
+      double pick = rng.nextDouble() * total;
+      int last = 0;
+      for (int s = 0; s < means.length; s++) {
+        if (means[s] > 0) {
+          last = s;
+          pick -= means[s];
+          if (pick < 0) {
+            return s;
+          }
+        }
+      }
+      return last;
+    }
+
+    /**
+     * Puts a scored child in place of the genome with the lowest fitness shared over its species, sparing the best.
+     */
+    private void insert(Scored child) {
+      int best = 0;
+      int victim = -1;
+      double worst = Double.POSITIVE_INFINITY;
+      for (int i = 0; i < size; i++) {
+        if (fitness.get(i).compareTo(fitness.get(best)) > 0) {
+          best = i;
+        }
+      }
+      for (int i = 0; i < size; i++) {
+        double shared = fitness.get(i).getValue() / speciesSizes.get(speciesOf[i]);
+        if (i != best && shared < worst) {
+          victim = i;
+          worst = shared;
+        }
+      }
+      if (victim < 0) {
+        // a population of one: the child only replaces it if better
+        if (child.fitness.compareTo(fitness.get(0)) <= 0) {
+          record(child);
+          return;
+        }
+        victim = 0;
+      }
+
+      int old = speciesOf[victim];
+      speciesSizes.set(old, speciesSizes.get(old) - 1);
+      genomes = genomes.update(victim, child.genome);
+      fitness = fitness.update(victim, child.fitness);
+      seeds[victim] = child.seed;
+      int species = match(child.genome);
+      speciesOf[victim] = species;
+      speciesSizes.set(species, speciesSizes.get(species) + 1);
+      record(child);
+    }
+
+    private void record(Scored child) {
+      // count only the scoring since the epoch began, since the last epoch counted the rest
+      busyNanos += Math.max(0, child.end - Math.max(child.start, epochStart));
+      fitnessSum += child.fitness.getValue();
+      score += child.fitness.getScore();
+      games += child.fitness.getGames();
+      if (Metrics.ENABLED) {
+        BIRTHS.increment();
+      }
+    }
+
+    /**
+     * Returns the first species whose representative is within the threshold of the genome, founding a new one if
+     * there is none.
+     */
+    private int match(Genome genome) {
+      double threshold = speciation.getThreshold();
+      for (int s = 0; s < representatives.size(); s++) {
+        if (speciesSizes.get(s) > 0 && compatibility.distance(genome, representatives.get(s), threshold) <= threshold) {
+          return s;
+        }
+      }
+      representatives.add(genome);
+      speciesSizes.add(0);
+      return representatives.size() - 1;
+    }
+
+    /**
+     * Speciates the whole population afresh, dropping the species that emptied since the last time.
+     */
+    private void speciate() {
+      speciation = speciation.speciate(genomes, rng.split());
+      representatives.clear();
+      speciesSizes.clear();
+      Array<Species> species = speciation.getSpecies();
+      for (int s = 0; s < species.size(); s++) {
+        Species sp = species.get(s);
+        representatives.add(sp.getRepresentative());
+        speciesSizes.add(sp.size());
+        for (int k = 0; k < sp.size(); k++) {
+          speciesOf[sp.getMember(k)] = s;
+        }
+      }
+    }
+
+    /**
+     * Records the epoch's stats and publishes its champion, and returns the population the epoch ends with.
+     */
+    private Population endEpoch() {
+      speciate();
+      int best = 0;
+      for (int i = 1; i < size; i++) {
+        if (fitness.get(i).compareTo(fitness.get(best)) > 0) {
+          best = i;
+        }
+      }
+      if (feed != null) {
+        feed.publish(champion(generation, genomes.get(best), fitness.get(best), seeds[best]));
+      }
+
+      long now = System.nanoTime();
+      for (Scorer<W> scorer : scorers) {
+        long since = scorer.scoringSince;
+        if (since != Scorer.IDLE) {
+          busyNanos += now - Math.max(since, epochStart);
+        }
+      }
+      long wall = now - epochStart;
+      history = history.append(generationStats(generation, fitness.get(best).getValue(), fitnessSum / size,
+          games == 0 ? 0 : score / (double) games, representatives.size(), wall,
+          wall == 0 ? 0 : busyNanos / ((double) wall * threads)));
+      generation++;
+      epochStart = now;
+      busyNanos = 0;
+      fitnessSum = 0;
+      score = 0;
+      games = 0;
+      return population();
+    }
+
+    private void submit(Genome genome, long seed, int slot) {
+      scoring.submit(() -> {
+        Scorer<W> scorer = scorer();
+        long start = System.nanoTime();
+        scorer.scoringSince = start;
+        try {
+          Fitness f = function.evaluate(genome, seed, scorer.workspace);
+          return new Scored(genome, seed, f, slot, start, System.nanoTime());
+        }
+        finally {
+          scorer.scoringSince = Scorer.IDLE;
+        }
+      });
+    }
+
+    private Scored take() {
+      try {
+        return scoring.take().get();
+      }
+      catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("interrupted while scoring", ex);
+      }
+      catch (ExecutionException ex) {
+        throw new IllegalStateException("scoring failed", ex.getCause());
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Scorer<W> scorer() {
+    return (Scorer<W>) Thread.currentThread();
+  }
+}
@@ -0,0 +1,418 @@
+package snake.winter.game;
+
+import io.vavr.collection.List;
+import snake.winter.game.Point.Direction;
+import snake.winter.metrics.Metrics;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static snake.winter.game.Point.Direction.EAST;
+
+/**
+ * Many games on boards of the same size, stepped together in lockstep and stored as a struct of arrays.
+ *
+ * <p>Every per-game field lives in one flat array indexed by game: head slots, lengths, food, score, moves, direction
+ * and liveness, plus one ring-buffer body and one occupancy bitset per game laid end to end. {@link #update} moves
+ * every live game once in a single pass over those arrays, then compacts the finished games out of the live list, so
+ * a population's worth of games advances without touching an object per game.
+ *
+ * <p>The rules are exactly those of {@link Board#updateBoard(Direction, Random)}, food included: each game carries
+ * the state of its own {@link Random}, stepped inline, so a game started from a seed plays out move for move like a
+ * {@link Board} or {@link MutableBoard} given {@code new Random(seed)}.
+ *
+ * <p>{@link #setRules Rules} with a hunger budget or loop detection apply to every game, exactly as in {@link Board}.
+ * Each game keeps its own rolling Zobrist key for the loop detection.
+ *
+ * <p>The live games are numbered by slot, densely from 0, in the order they were started. Slot order lines up with the
+ * back to back input and output vectors of a batched network evaluation, so one batch of network outputs turns
+ * straight into the {@code int[]} of moves for {@link #update}.
+ */
+public final class BatchBoard {
+  private static final Direction[] directions = Direction.values();
+  private static final DeathCause[] deathCauses = DeathCause.values();
+  private static final long MULTIPLIER = 0x5_deec_e66dL;
+  private static final long ADDEND = 0xbL;
+  private static final long MASK = (1L << 48) - 1;
+
+  private final Grid grid;
+  private final int capacity;
+  private final int cells;
+  private final int words;
+
+  // game g's body is bodies[g * cells ..), a ring with the head at heads[g] and the tail end lengths[g] - 1 behind it
+  private final int[] bodies;
+  private final int[] heads;
+  private final int[] lengths;
+  // game g's occupancy bitset is occupied[g * words ..), padded like FreeCells
+  private final long[] occupied;
+  private final int[] food;
+  private final int[] scores;
+  private final int[] moves;
+  private final byte[] dirs;
+  private final boolean[] live;
+  private final long[] rng;
+  private final long[] keys;
+  private final byte[] causes;
+  // moves since each game's snake last ate, and Brent's loop detection state as in Board
+  private final int[] hungers;
+  private final long[] loopKeys;
+  private final int[] loopSteps;
+  private final int[] loopPowers;
+  private Rules rules = Rules.rules();
+  private int hungerLimit = Integer.MAX_VALUE;
+
+  // live games by slot
+  private final int[] slots;
+  private int games;
+  private int liveCount;
+
+  private BatchBoard(Grid grid, int capacity) {
+    this.grid = grid;
+    this.capacity = capacity;
+    this.cells = grid.size();
+    this.words = (cells + 63) >>> 6;
+    this.bodies = new int[capacity * cells];
+    this.heads = new int[capacity];
+    this.lengths = new int[capacity];
+    this.occupied = new long[capacity * words];
+    this.food = new int[capacity];
+    this.scores = new int[capacity];
+    this.moves = new int[capacity];
+    this.dirs = new byte[capacity];
+    this.live = new boolean[capacity];
+    this.rng = new long[capacity];
+    this.keys = new long[capacity];
+    this.causes = new byte[capacity];
+    this.hungers = new int[capacity];
+    this.loopKeys = new long[capacity];
+    this.loopSteps = new int[capacity];
+    this.loopPowers = new int[capacity];
+    this.slots = new int[capacity];
+  }
+
+  /**
+   * Creates an engine with room for the given number of games on boards of the given size.
+   */
+  public static BatchBoard batchBoard(int height, int width, int capacity) {
+    if (width / 2 < 1 || height / 2 < 1) {
+      throw new RuntimeException("board is too small");
+    }
+    return new BatchBoard(Grid.grid(height, width), capacity);
+  }
+
+  /**
+   * Throws away every game and starts one fresh game per seed, each laid out exactly like
+   * {@link Board#newStartBoard(int, int, Random)} given {@code new Random(seed)}. Game {@code g} starts in slot
+   * {@code g}.
+   */
+  public void start(long[] seeds) {
+    if (seeds.length > capacity) {
+      throw new IllegalArgumentException(seeds.length + " games do not fit in a batch of " + capacity);
+    }
+    int centerX = grid.getWidth() / 2;
+    int centerY = grid.getHeight() / 2;
+    int startLength = Math.min(3, centerX);
+    games = seeds.length;
+    liveCount = games;
+    Arrays.fill(occupied, 0, games * words, 0L);
+    for (int g = 0; g < games; g++) {
+      FreeCells.padBitset(occupied, g * words, cells);
+      heads[g] = cells - 1;
+      lengths[g] = 0;
+      for (int i = startLength - 1; i >= 0; i--) {
+        pushHead(g, grid.cell(centerX - i, centerY));
+      }
+      rng[g] = (seeds[g] ^ MULTIPLIER) & MASK;
+      food[g] = randomFood(g);
+      scores[g] = 0;
+      moves[g] = 0;
+      dirs[g] = (byte) EAST.ordinal();
+      live[g] = true;
+      slots[g] = g;
+      keys[g] = zobristKey(g);
+      causes[g] = (byte) DeathCause.NONE.ordinal();
+      hungers[g] = 0;
+      restartLoops(g);
+    }
+  }
+
+  /**
+   * Moves the game in each live slot one step, in the direction with ordinal {@code slotMoves[slot]}, then drops the
+   * games that died or were {@linkplain #stop stopped} from the live slots, keeping the rest in order. Returns the
+   * number of games still live.
+   */
+  public int update(int[] slotMoves) {
+    int kept = 0;
+    for (int s = 0; s < liveCount; s++) {
+      int g = slots[s];
+      if (live[g] && step(g, slotMoves[s])) {
+        slots[kept++] = g;
+      }
+    }
+    liveCount = kept;
+    return kept;
+  }
+
+  /**
+   * Ends a game early, as when it hits a move limit. It leaves the live slots at the next {@link #update}.
+   */
+  public void stop(int game) {
+    live[game] = false;
+  }
+
+  /**
+   * Plays every game by the given rules from the next {@link #update} on, including games already under way, as
+   * {@link MutableBoard#setRules} does. Loop detection starts over from each game's current position.
+   */
+  public void setRules(Rules newRules) {
+    rules = newRules;
+    hungerLimit = newRules.hungerLimit(grid);
+    for (int g = 0; g < games; g++) {
+      restartLoops(g);
+    }
+  }
+
+  public Rules getRules() {
+    return rules;
+  }
+
+  public int getHeight() {
+    return grid.getHeight();
+  }
+
+  public int getWidth() {
+    return grid.getWidth();
+  }
+
+  public Grid getGrid() {
+    return grid;
+  }
+
+  /**
+   * Returns the number of games the engine has room for.
+   */
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns the number of games started.
+   */
+  public int gameCount() {
+    return games;
+  }
+
+  /**
+   * Returns the number of live slots, the games the next {@link #update} will move.
+   */
+  public int liveCount() {
+    return liveCount;
+  }
+
+  /**
+   * Returns the game in the given live slot.
+   */
+  public int liveGame(int slot) {
+    return slots[slot];
+  }
+
+  public boolean isLive(int game) {
+    return live[game];
+  }
+
+  public int getScore(int game) {
+    return scores[game];
+  }
+
+  public int getMoves(int game) {
+    return moves[game];
+  }
+
+  public int length(int game) {
+    return lengths[game];
+  }
+
+  /**
+   * Returns why a game ended, or {@link DeathCause#NONE} while it is live or if it was {@linkplain #stop stopped}.
+   */
+  public DeathCause getDeathCause(int game) {
+    return deathCauses[causes[game]];
+  }
+
+  /**
+   * Returns the number of moves since a game's snake last ate.
+   */
+  public int getHunger(int game) {
+    return hungers[game];
+  }
+
+  /**
+   * Returns the same Zobrist hash of a game's position that {@link Board#getZobristKey()} gives.
+   */
+  public long getZobristKey(int game) {
+    return keys[game];
+  }
+
+  public Direction getDir(int game) {
+    return directions[dirs[game]];
+  }
+
+  public int getHeadCell(int game) {
+    return bodies[game * cells + heads[game]];
+  }
+
+  public int getFoodCell(int game) {
+    return food[game];
+  }
+
+  /**
+   * Returns the cell of the i'th body segment of a game, counting back from the head.
+   */
+  public int getBodyCell(int game, int i) {
+    int index = heads[game] - i;
+    return bodies[game * cells + (index < 0 ? index + cells : index)];
+  }
+
+  /**
+   * Returns whether the given cell is covered by a game's snake.
+   */
+  public boolean isOccupied(int game, int cell) {
+    return (occupied[game * words + (cell >>> 6)] & (1L << cell)) != 0;
+  }
+
+  /**
+   * Returns an immutable {@link Board} holding the current state of a game.
+   */
+  public Board toBoard(int game) {
+    List<Point> tail = List.empty();
+    for (int i = lengths[game] - 1; i >= 1; i--) {
+      tail = tail.prepend(grid.point(getBodyCell(game, i)));
+    }
+    Snake snake = Snake.trustedSnake(grid.point(getHeadCell(game)), tail, getDir(game));
+    return Board.board(grid, grid.point(food[game]), snake, scores[game], moves[game], live[game], rules,
+        getDeathCause(game), hungers[game]);
+  }
+
+  private boolean step(int g, int d) {
+    moves[g]++;
+    if (Metrics.ENABLED) {
+      GameMetrics.MOVES.increment();
+    }
+    int next = grid.neighbor(bodies[g * cells + heads[g]], d);
+    if (next == Grid.WALL || isOccupied(g, next)) {
+      // like Board, the cell the tail is about to leave still counts as part of the snake
+      live[g] = false;
+      causes[g] = (byte) (next == Grid.WALL ? DeathCause.WALL : DeathCause.SELF).ordinal();
+      if (Metrics.ENABLED) {
+        (next == Grid.WALL ? GameMetrics.WALL_DEATHS : GameMetrics.SELF_DEATHS).increment();
+      }
+      return false;
+    }
+    Zobrist z = grid.getZobrist();
+    int oldHead = getHeadCell(g);
+    if (next == food[g]) {
+      // Board picks the new food before the snake grows, so the cell being eaten is still a candidate
+      food[g] = randomFood(g);
+      pushHead(g, next);
+      scores[g]++;
+      // the food eaten was on the cell the head moved to
+      keys[g] ^= z.move(oldHead, next, Grid.WALL, directions[dirs[g]], directions[d]) ^ z.food(next)
+                     ^ z.food(food[g]);
+      dirs[g] = (byte) d;
+      hungers[g] = 0;
+      restartLoops(g);
+      return true;
+    }
+
+    int tail = getBodyCell(g, lengths[g] - 1);
+    occupied[g * words + (tail >>> 6)] &= ~(1L << tail);
+    lengths[g]--;
+    pushHead(g, next);
+    keys[g] ^= z.move(oldHead, next, tail, directions[dirs[g]], directions[d]);
+    dirs[g] = (byte) d;
+    if (++hungers[g] >= hungerLimit) {
+      live[g] = false;
+      causes[g] = (byte) DeathCause.STARVED.ordinal();
+      if (Metrics.ENABLED) {
+        GameMetrics.STARVED_DEATHS.increment();
+      }
+      return false;
+    }
+    if (rules.detectsLoops()) {
+      if (keys[g] == loopKeys[g]) {
+        live[g] = false;
+        causes[g] = (byte) DeathCause.LOOPED.ordinal();
+        if (Metrics.ENABLED) {
+          GameMetrics.LOOPED_DEATHS.increment();
+        }
+        return false;
+      }
+      if (++loopSteps[g] == loopPowers[g]) {
+        loopKeys[g] = keys[g];
+        loopSteps[g] = 0;
+        loopPowers[g] = Math.min(loopPowers[g] << 1, 1 << 30);
+      }
+    }
+    return true;
+  }
+
+  private void restartLoops(int g) {
+    loopKeys[g] = keys[g];
+    loopSteps[g] = 0;
+    loopPowers[g] = 1;
+  }
+
+  private long zobristKey(int g) {
+    Zobrist z = grid.getZobrist();
+    long result = z.head(getHeadCell(g)) ^ z.dir(directions[dirs[g]]) ^ z.food(food[g]);
+    for (int i = 0; i < lengths[g]; i++) {
+      result ^= z.body(getBodyCell(g, i));
+    }
+    return result;
+  }
+
+  private void pushHead(int g, int cell) {
+    int head = heads[g] + 1 == cells ? 0 : heads[g] + 1;
+    heads[g] = head;
+    bodies[g * cells + head] = cell;
+    lengths[g]++;
+    occupied[g * words + (cell >>> 6)] |= 1L << cell;
+  }
+
+  /**
+   * Picks the next food cell like {@code Board.randomFoodHelper}: a uniform index into the free cells, taken in
+   * column-major order.
+   */
+  private int randomFood(int g) {
+    int free = cells - lengths[g];
+    if (free == 0) {
+      throw new RuntimeException("board is full, new food cannot be created");
+    }
+    if (Metrics.ENABLED) {
+      GameMetrics.FOOD_PLACEMENTS.increment();
+    }
+    return FreeCells.selectClearBit(occupied, g * words, words, nextInt(g, free));
+  }
+
+  /**
+   * The same draw as {@link Random#nextInt(int)}, on game g's generator state.
+   */
+  private int nextInt(int g, int bound) {
+    int r = next(g);
+    int m = bound - 1;
+    if ((bound & m) == 0) {
+      return (int) ((bound * (long) r) >> 31);
+    }
+    for (int u = r; u - (r = u % bound) + m < 0; u = next(g)) {
+      // reject the top of the range so every bound is uniform
+    }
+    return r;
+  }
+
+  private int next(int g) {
+    long state = (rng[g] * MULTIPLIER + ADDEND) & MASK;
+    rng[g] = state;
+    return (int) (state >>> 17);
+  }
+}
@@ -1,35 +1,91 @@
 package snake.winter.game;
 
 import io.vavr.collection.List;
-import io.vavr.collection.Stream;
 import io.vavr.control.Option;
 import snake.winter.game.Point.Direction;
+import snake.winter.metrics.Metrics;
 
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static snake.winter.game.Point.Direction.EAST;
 import static snake.winter.game.Point.point;
 import static snake.winter.game.Snake.snake;
 
 public class Board {
-  private static final Random defaultRandom = new Random();
-
-  private final int height;
-  private final int width;
+  private final Grid grid;
   private final Point food;
   private final Snake snake;
   private final int score;
   private final int moves;
   private final boolean live;
-
-  private Board(int height, int width, Point food, Snake snake, int score, int moves, boolean live) {
-    this.height = height;
-    this.width = width;
+  // Zobrist hash of the snake, its head, its direction and the food; see Zobrist
+  private final long key;
+  private final Rules rules;
+  private final DeathCause cause;
+  // moves since the snake last ate, and Brent's loop detection: a remembered key, the moves since it was remembered,
+  // and the number of moves after which it is replaced
+  private final int hunger;
+  private final long loopKey;
+  private final int loopSteps;
+  private final int loopPower;
+
+  private Board(Grid grid, Point food, Snake snake, int score, int moves, boolean live, long key, Rules rules,
+                DeathCause cause, int hunger, long loopKey, int loopSteps, int loopPower) {
+    this.grid = grid;
     this.food = food;
     this.snake = snake;
     this.score = score;
     this.moves = moves;
     this.live = live;
+    this.key = key;
+    this.rules = rules;
+    this.cause = cause;
+    this.hunger = hunger;
+    this.loopKey = loopKey;
+    this.loopSteps = loopSteps;
+    this.loopPower = loopPower;
+  }
+
+  /**
+   * Builds a board directly from its parts, used by the other engines when converting back to a {@link Board}.
+   */
+  static Board board(Grid grid, Point food, Snake snake, int score, int moves, boolean live) {
+    return board(grid, food, snake, score, moves, live, Rules.rules(), DeathCause.NONE, 0);
+  }
+
+  /**
+   * Builds a board directly from its parts, including the rules it plays by and how long the snake has gone without
+   * food. Loop detection starts over from this position.
+   */
+  static Board board(Grid grid, Point food, Snake snake, int score, int moves, boolean live, Rules rules,
+                     DeathCause cause, int hunger) {
+    long key = zobristKey(grid, food, snake);
+    return new Board(grid, food, snake, score, moves, live, key, rules, cause, hunger, key, 0, 1);
+  }
+
+  /**
+   * Hashes a board's state from scratch. Moves update the key incrementally instead; this is only for new boards.
+   */
+  private static long zobristKey(Grid grid, Point food, Snake snake) {
+    Zobrist z = grid.getZobrist();
+    long key = z.head(grid.cell(snake.getHead())) ^ z.dir(snake.getDir()) ^ z.food(grid.cell(food));
+    for (Point p : snake.cells()) {
+      key ^= z.body(grid.cell(p));
+    }
+    return key;
+  }
+
+  public int getHeight() {
+    return grid.getHeight();
+  }
+
+  public int getWidth() {
+    return grid.getWidth();
+  }
+
+  public Grid getGrid() {
+    return grid;
   }
 
   public Point getFood() {
@@ -52,28 +108,60 @@ public class Board {
     return live;
   }
 
-  public Board incrementScore() {
-    return new Board(height, width, food, snake, score + 1, moves, live);
+  /**
+   * Returns a 64-bit Zobrist hash of the snake, its head, its direction and the food. Boards with the same key are
+   * almost certainly in the same position, though their score, moves and liveness may differ. The key is updated in
+   * constant time on every move, which makes it cheap to use for transposition tables and deduplication.
+   */
+  public long getZobristKey() {
+    return key;
   }
 
-  public Board incrementMoves() {
-    return new Board(height, width, food, snake, score, moves + 1, live);
+  public Rules getRules() {
+    return rules;
   }
 
-  public Board killBoard() {
-    return new Board(height, width, food, snake, score, moves, false);
+  /**
+   * Returns why the game ended, or {@link DeathCause#NONE} while it is live.
+   */
+  public DeathCause getDeathCause() {
+    return cause;
+  }
+
+  /**
+   * Returns the number of moves since the snake last ate, or since the game started if it has not eaten yet.
+   */
+  public int getHunger() {
+    return hunger;
+  }
+
+  /**
+   * Returns the same game played by the given rules from now on. Loop detection starts over from this position.
+   */
+  public Board withRules(Rules newRules) {
+    return new Board(grid, food, snake, score, moves, live, key, newRules, cause, hunger, key, 0, 1);
+  }
+
+  public Board incrementScore() {
+    return new Board(grid, food, snake, score + 1, moves, live, key, rules, cause, hunger, loopKey, loopSteps,
+        loopPower);
   }
 
-  private Board updateSnake(Snake newSnake) {
-    return new Board(height, width, food, newSnake, score, moves, live);
+  public Board incrementMoves() {
+    return new Board(grid, food, snake, score, moves + 1, live, key, rules, cause, hunger, loopKey, loopSteps,
+        loopPower);
   }
 
-  private Board updateFood(Point newFood) {
-    return new Board(height, width, newFood, snake, score, moves, live);
+  public Board killBoard() {
+    return new Board(grid, food, snake, score, moves, false, key, rules, cause, hunger, loopKey, loopSteps, loopPower);
   }
 
+
+  /**
+   * Creates a new board with unseeded food, drawn from the calling thread's own generator so threads never contend.
+   */
   public static Board newStartBoard(int height, int width) {
-    return newStartBoard(height, width, defaultRandom);
+    return newStartBoard(height, width, ThreadLocalRandom.current());
   }
 
   public static Board newStartBoard(int height, int width, int seed) {
@@ -88,9 +176,9 @@ public class Board {
     }
     else {
       // New board with 0 score, 0 moves and a snake of at most length 3 facing east
+      Grid grid = Grid.grid(height, width);
       Snake newSnake = snake(center, Math.min(3, center.x), EAST);
-      return new Board(height, width, randomFoodHelper(height, width, newSnake, rng), newSnake,
-          0, 0, true);
+      return board(grid, randomFoodHelper(grid, newSnake, rng), newSnake, 0, 0, true);
     }
   }
 
@@ -100,20 +188,26 @@ public class Board {
     return point(x, y);
   }
 
-  private static Point randomFoodHelper(int height, int width, Snake snake, Random rng) {
-    List<Point> snakeList = snake.toList();
-    Stream<Point> validPoints = Stream.range(0, width)
-                                    .flatMap(x -> Stream.range(0, height)
-                                                      .filter(y -> !snakeList.contains(point(x, y)))
-                                                      .map(y -> point(x, y)));
-    if (validPoints.length() == 0) {
+  /**
+   * Picks a uniformly random free cell. Free cells are numbered column by column, and the snake is marked in a bitset
+   * so the k'th free cell is found by popcounting whole words; seeded games get the same food as they always have.
+   */
+  private static Point randomFoodHelper(Grid grid, Snake snake, Random rng) {
+    int free = grid.size() - snake.length();
+    if (free == 0) {
       throw new RuntimeException("board is full, new food cannot be created");
     }
-    return validPoints.get(rng.nextInt(validPoints.length()));
+    if (Metrics.ENABLED) {
+      GameMetrics.FOOD_PLACEMENTS.increment();
+    }
+
+    long[] occupied = FreeCells.newBitset(grid.size());
+    snake.cells().forEach(p -> FreeCells.setBit(occupied, grid.cell(p)));
+    return grid.point(FreeCells.selectClearBit(occupied, rng.nextInt(free)));
   }
 
   public Point newFood() {
-    return newFood(defaultRandom);
+    return newFood(ThreadLocalRandom.current());
   }
 
   public Point newFood(int seed) {
@@ -121,13 +215,17 @@ public class Board {
   }
 
   public Point newFood(Random rng) {
-    return randomFoodHelper(height, width, snake, rng);
+    return randomFoodHelper(grid, snake, rng);
   }
 
   public Board updateBoard(Direction dir) {
-    return updateBoard(dir, defaultRandom);
+    return updateBoard(dir, ThreadLocalRandom.current());
   }
 
+  /**
+   * Moves with food seeded by a fresh generator. Every call starts the same sequence over, so to replay a game pass
+   * one {@link Random} to {@link #updateBoard(Direction, Random)} for the whole game instead.
+   */
   public Board updateBoard(Direction dir, int seed) {
     return updateBoard(dir, new Random(seed));
   }
@@ -136,29 +234,51 @@ public class Board {
     if (!live) {
       return this;
     }
+    if (Metrics.ENABLED) {
+      GameMetrics.MOVES.increment();
+    }
 
-    Point newHead = snake.getHead().add(dir);
-    Board newBoard;
-    if (snake.getHead().add(dir).equals(food)) {
-      Option<Snake> newSnake = snake.grow(dir);
-      newBoard = newSnake.isDefined()
-                     ? updateSnake(newSnake.get()).updateFood(newFood(rng)).incrementScore()
-                     : killBoard();
+    // walk the grid's neighbor table, so the new head is the grid's shared point rather than a fresh one
+    int headCell = grid.cell(snake.getHead());
+    int newCell = grid.neighbor(headCell, dir);
+    if (newCell == Grid.WALL) {
+      if (Metrics.ENABLED) {
+        GameMetrics.WALL_DEATHS.increment();
+      }
+      return died(DeathCause.WALL);
     }
-    else if (!(newHead.x >= width || newHead.x < 0 || newHead.y >= height || newHead.y < 0)) {
-      Option<Snake> newSnake = snake.step(dir);
-      newBoard = newSnake.isDefined()
-                     ? updateSnake(newSnake.get())
-                     : killBoard();
+
+    Zobrist z = grid.getZobrist();
+    Point newHead = grid.point(newCell);
+    if (newHead.equals(food)) {
+      Option<Snake> newSnake = snake.grow(dir, newHead);
+      if (newSnake.isEmpty()) {
+        if (Metrics.ENABLED) {
+          GameMetrics.SELF_DEATHS.increment();
+        }
+        return died(DeathCause.SELF);
+      }
+      Point newFood = newFood(rng);
+      long newKey = key ^ z.move(headCell, newCell, Grid.WALL, snake.getDir(), dir)
+                        ^ z.food(newCell) ^ z.food(grid.cell(newFood));
+      return new Board(grid, newFood, newSnake.get(), score + 1, moves + 1, true, newKey, rules, DeathCause.NONE, 0,
+          newKey, 0, 1);
     }
     else {
-      newBoard = killBoard();
+      Option<Snake> newSnake = snake.step(dir, newHead);
+      if (newSnake.isEmpty()) {
+        if (Metrics.ENABLED) {
+          GameMetrics.SELF_DEATHS.increment();
+        }
+        return died(DeathCause.SELF);
+      }
+      long newKey = key ^ z.move(headCell, newCell, grid.cell(snake.getTailEnd()), snake.getDir(), dir);
+      return steppedWithoutEating(newSnake.get(), newKey);
     }
-    return newBoard.incrementMoves();
   }
 
   public Board updateBoard(Direction... dirs) {
-    return updateBoard(defaultRandom, dirs);
+    return updateBoard(ThreadLocalRandom.current(), dirs);
   }
 
   public Board updateBoard(int seed, Direction... dirs) {
@@ -169,26 +289,66 @@ public class Board {
     return List.of(dirs).foldLeft(this, (board, d) -> board.updateBoard(d, rng));
   }
 
+  /**
+   * The board after a move into a wall or the body: the snake stays where it was, but the move counts.
+   */
+  private Board died(DeathCause newCause) {
+    return new Board(grid, food, snake, score, moves + 1, false, key, rules, newCause, hunger, loopKey, loopSteps,
+        loopPower);
+  }
+
+  /**
+   * The board after a safe move that did not eat, which may still starve the snake or close a loop.
+   */
+  private Board steppedWithoutEating(Snake newSnake, long newKey) {
+    int newHunger = hunger + 1;
+    if (newHunger >= rules.hungerLimit(grid)) {
+      if (Metrics.ENABLED) {
+        GameMetrics.STARVED_DEATHS.increment();
+      }
+      return new Board(grid, food, newSnake, score, moves + 1, false, newKey, rules, DeathCause.STARVED, newHunger,
+          loopKey, loopSteps, loopPower);
+    }
+    if (!rules.detectsLoops()) {
+      return new Board(grid, food, newSnake, score, moves + 1, true, newKey, rules, DeathCause.NONE, newHunger,
+          loopKey, loopSteps, loopPower);
+    }
+    if (newKey == loopKey) {
+      if (Metrics.ENABLED) {
+        GameMetrics.LOOPED_DEATHS.increment();
+      }
+      return new Board(grid, food, newSnake, score, moves + 1, false, newKey, rules, DeathCause.LOOPED, newHunger,
+          loopKey, loopSteps, loopPower);
+    }
+    if (loopSteps + 1 == loopPower) {
+      // remember this position instead, and wait twice as long before moving on again
+      return new Board(grid, food, newSnake, score, moves + 1, true, newKey, rules, DeathCause.NONE, newHunger,
+          newKey, 0, Math.min(loopPower << 1, 1 << 30));
+    }
+    return new Board(grid, food, newSnake, score, moves + 1, true, newKey, rules, DeathCause.NONE, newHunger,
+        loopKey, loopSteps + 1, loopPower);
+  }
+
   @Override
   public String toString() {
-    return "Board(status: " + (live ? "live" : "dead") + "\n"
-               + List.range(0, height)
-                     .map(y -> List.range(0, width)
-                                   .map(x -> {
-                                     Point p = point(x,y);
-                                     if (snake.contains(p)) {
-                                       return (snake.getHead().equals(p)) ? "H" : "X";
-                                     }
-                                     else if (food.equals(p)) {
-                                       return "O";
-                                     }
-                                     else {
-                                       return ".";
-                                     }})
-                                   .foldLeft("\t", (row, s) -> row + s))
-                      .foldLeft("", (row, s) -> row + s + "\n") +
-               "\tScore: " + score + ", Moves: " + moves + "\n)";
-
+    StringBuilder sb = new StringBuilder("Board(status: ").append(live ? "live" : "dead").append("\n");
+    for (int y = 0; y < grid.getHeight(); y++) {
+      sb.append('\t');
+      for (int x = 0; x < grid.getWidth(); x++) {
+        Point p = grid.point(grid.cell(x, y));
+        if (snake.contains(p)) {
+          sb.append(snake.getHead().equals(p) ? 'H' : 'X');
+        }
+        else if (food.equals(p)) {
+          sb.append('O');
+        }
+        else {
+          sb.append('.');
+        }
+      }
+      sb.append('\n');
+    }
+    return sb.append("\tScore: ").append(score).append(", Moves: ").append(moves).append("\n)").toString();
   }
 
   @Override
@@ -198,13 +358,16 @@ public class Board {
     }
 
     Board b = (Board) obj;
-    return live == b.live && width == b.width && height == b.height
+    return live == b.live && getWidth() == b.getWidth() && getHeight() == b.getHeight()
                && score == b.score && moves == b.moves
                && food.equals(b.food) && snake.equals(b.snake);
   }
 
   @Override
   public int hashCode() {
-    return toString().hashCode();
+    int result = Long.hashCode(key);
+    result = 31 * result + score;
+    result = 31 * result + moves;
+    return 31 * result + (live ? 1 : 0);
   }
 }
@@ -0,0 +1,108 @@
+package snake.winter.game;
+
+/**
+ * Tracks what a view of a board currently shows in every cell, and reports just the cells that change when the view
+ * moves on to a new board.
+ *
+ * <p>Only the cells the old and the new board cover are visited, so a diff costs time in the length of the snake rather
+ * than the size of the board. It stays correct however many moves separate the two boards, which lets a view skip
+ * boards freely. Each cell shows one of {@link #EMPTY}, {@link #HEAD}, {@link #BODY} or {@link #FOOD}; the head wins
+ * when food lands under it.
+ */
+public final class BoardDiff {
+  public static final byte EMPTY = 0;
+  public static final byte HEAD = 1;
+  public static final byte BODY = 2;
+  public static final byte FOOD = 3;
+
+  /**
+   * Receives each cell whose contents changed.
+   */
+  @FunctionalInterface
+  public interface Listener {
+    void changed(int cell, byte contents);
+  }
+
+  // shown[cell] is what the view shows in a cell, next[cell] what the board being diffed puts there
+  private final byte[] shown;
+  private final byte[] next;
+  // the cells shown non-empty, and the cells the board being diffed covers
+  private int[] covered;
+  private int coveredCount;
+  private int[] touched;
+  private int touchedCount;
+
+  /**
+   * Creates a diff for boards with the given number of cells, starting from an empty view.
+   */
+  public BoardDiff(int cells) {
+    this.shown = new byte[cells];
+    this.next = new byte[cells];
+    this.covered = new int[cells];
+    this.touched = new int[cells];
+  }
+
+  /**
+   * Forgets what the view shows, as if it had been blanked.
+   */
+  public void clear() {
+    for (int i = 0; i < coveredCount; i++) {
+      shown[covered[i]] = EMPTY;
+    }
+    coveredCount = 0;
+  }
+
+  /**
+   * Returns what the view shows in a cell.
+   */
+  public byte get(int cell) {
+    return shown[cell];
+  }
+
+  /**
+   * Moves the view on to the given board, telling the listener about every cell that changed, and returns how many
+   * did.
+   */
+  public int diff(Board board, Listener listener) {
+    Grid grid = board.getGrid();
+    touchedCount = 0;
+    mark(grid.cell(board.getFood()), FOOD);
+    for (Point p : board.getSnake().getTail()) {
+      mark(grid.cell(p), BODY);
+    }
+    mark(grid.cell(board.getSnake().getHead()), HEAD);
+
+    int changes = 0;
+    for (int i = 0; i < coveredCount; i++) {
+      int cell = covered[i];
+      if (next[cell] == EMPTY && shown[cell] != EMPTY) {
+        shown[cell] = EMPTY;
+        listener.changed(cell, EMPTY);
+        changes++;
+      }
+    }
+    for (int i = 0; i < touchedCount; i++) {
+      int cell = touched[i];
+      byte contents = next[cell];
+      if (shown[cell] != contents) {
+        shown[cell] = contents;
+        listener.changed(cell, contents);
+        changes++;
+      }
+      next[cell] = EMPTY;
+    }
+
+    int[] swap = covered;
+    covered = touched;
+    coveredCount = touchedCount;
+    touched = swap;
+    return changes;
+  }
+
+  private void mark(int cell, byte contents) {
+    if (next[cell] == EMPTY) {
+      touched[touchedCount++] = cell;
+    }
+    next[cell] = contents;
+  }
+}
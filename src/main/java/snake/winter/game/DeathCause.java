@@ -0,0 +1,31 @@
+package snake.winter.game;
+
+/**
+ * Why a game ended.
+ */
+public enum DeathCause {
+  /**
+   * The game is still live, or was ended from outside, e.g. by {@link Board#killBoard()} or a move limit.
+   */
+  NONE,
+
+  /**
+   * The snake ran into a wall.
+   */
+  WALL,
+
+  /**
+   * The snake ran into its own body.
+   */
+  SELF,
+
+  /**
+   * The snake used up its {@linkplain Rules#withHunger hunger budget} without eating.
+   */
+  STARVED,
+
+  /**
+   * The snake came back to a position it had already been in since it last ate; see {@link Rules#withLoops}.
+   */
+  LOOPED
+}
@@ -0,0 +1,206 @@
+package snake.winter.game;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tracks which cells of a board are covered by the snake and which are free.
+ *
+ * <p>Occupancy lives in a bitset, which makes membership checks and ordered selection cheap. The free cells are also
+ * kept in a dense array with a reverse index: occupying a cell swaps it out with the last free cell and releasing it
+ * appends it again, so a uniformly random free cell can be picked in constant time.
+ */
+public class FreeCells {
+  private final int size;
+  private final long[] occupied;
+  // free[0 .. count) are the free cells, in no particular order
+  private final int[] free;
+  // position[cell] is where cell sits in free, or -1 when it is occupied
+  private final int[] position;
+  private int count;
+
+  /**
+   * Creates an index over the given number of cells, all of them free.
+   */
+  public FreeCells(int size) {
+    this.size = size;
+    this.occupied = newBitset(size);
+    this.free = new int[size];
+    this.position = new int[size];
+    clear();
+  }
+
+  /**
+   * Frees every cell. The dense array goes back to ascending order, so replays from a cleared index are repeatable.
+   */
+  public void clear() {
+    Arrays.fill(occupied, 0L);
+    padBitset(occupied, size);
+    for (int i = 0; i < size; i++) {
+      free[i] = i;
+      position[i] = i;
+    }
+    count = size;
+  }
+
+  /**
+   * Overwrites this index with a copy of another one over the same number of cells.
+   */
+  public void copyFrom(FreeCells other) {
+    if (other.size != size) {
+      throw new IllegalArgumentException("free cell indices have different sizes");
+    }
+    System.arraycopy(other.occupied, 0, occupied, 0, occupied.length);
+    System.arraycopy(other.free, 0, free, 0, size);
+    System.arraycopy(other.position, 0, position, 0, size);
+    count = other.count;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of free cells.
+   */
+  public int count() {
+    return count;
+  }
+
+  public boolean isOccupied(int cell) {
+    return isBitSet(occupied, cell);
+  }
+
+  /**
+   * Marks a free cell as occupied.
+   */
+  public void occupy(int cell) {
+    int index = position[cell];
+    int last = free[--count];
+    free[index] = last;
+    position[last] = index;
+    position[cell] = -1;
+    setBit(occupied, cell);
+  }
+
+  /**
+   * Marks an occupied cell as free again.
+   */
+  public void release(int cell) {
+    free[count] = cell;
+    position[cell] = count++;
+    clearBit(occupied, cell);
+  }
+
+  /**
+   * Picks a free cell uniformly at random in constant time.
+   */
+  public int sample(Random rng) {
+    if (count == 0) {
+      throw new RuntimeException("board is full, new food cannot be created");
+    }
+    return free[rng.nextInt(count)];
+  }
+
+  /**
+   * Returns the k'th free cell in ascending cell order.
+   */
+  public int select(int k) {
+    return selectClearBit(occupied, k);
+  }
+
+  /**
+   * Returns the number of bytes {@link #writeTo} takes right now.
+   */
+  public int byteSize() {
+    return 4 + 4 * count;
+  }
+
+  /**
+   * Writes the free cells in their current order, which is all it takes to restore an index that samples exactly like
+   * this one.
+   */
+  public void writeTo(ByteBuffer out) {
+    out.putInt(count);
+    for (int i = 0; i < count; i++) {
+      out.putInt(free[i]);
+    }
+  }
+
+  /**
+   * Overwrites this index with one written by {@link #writeTo} for the same number of cells.
+   */
+  public void readFrom(ByteBuffer in) {
+    Arrays.fill(occupied, -1L);
+    Arrays.fill(position, -1);
+    count = in.getInt();
+    for (int i = 0; i < count; i++) {
+      int cell = in.getInt();
+      free[i] = cell;
+      position[cell] = i;
+      clearBit(occupied, cell);
+    }
+  }
+
+  /**
+   * Returns a bitset large enough for the given number of cells, with every bit past the last cell set, so those
+   * bits always read as occupied.
+   */
+  static long[] newBitset(int size) {
+    long[] bits = new long[(size + 63) >>> 6];
+    padBitset(bits, size);
+    return bits;
+  }
+
+  static boolean isBitSet(long[] bits, int cell) {
+    return (bits[cell >>> 6] & (1L << cell)) != 0;
+  }
+
+  static void setBit(long[] bits, int cell) {
+    bits[cell >>> 6] |= 1L << cell;
+  }
+
+  static void clearBit(long[] bits, int cell) {
+    bits[cell >>> 6] &= ~(1L << cell);
+  }
+
+  /**
+   * Returns the k'th clear bit of a padded bitset, counting from zero, by skipping whole words with a popcount.
+   */
+  static int selectClearBit(long[] bits, int k) {
+    return selectClearBit(bits, 0, bits.length, k);
+  }
+
+  /**
+   * Returns the k'th clear bit of the padded bitset stored in {@code bits[from .. from + words)}, counting from the
+   * start of that range.
+   */
+  static int selectClearBit(long[] bits, int from, int words, int k) {
+    for (int w = 0; w < words; w++) {
+      long empty = ~bits[from + w];
+      int zeros = Long.bitCount(empty);
+      if (k < zeros) {
+        for (; k > 0; k--) {
+          empty &= empty - 1;
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(empty);
+      }
+      k -= zeros;
+    }
+    throw new IllegalArgumentException("there are fewer free cells than requested");
+  }
+
+  private static void padBitset(long[] bits, int size) {
+    padBitset(bits, 0, size);
+  }
+
+  /**
+   * Sets every bit past the last cell of the bitset stored from {@code bits[from]}.
+   */
+  static void padBitset(long[] bits, int from, int size) {
+    if ((size & 63) != 0) {
+      bits[from + ((size - 1) >>> 6)] |= -1L << (size & 63);
+    }
+  }
+}
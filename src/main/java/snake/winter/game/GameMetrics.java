@@ -0,0 +1,20 @@
+package snake.winter.game;
+
+import snake.winter.metrics.Counter;
+import snake.winter.metrics.Metrics;
+
+/**
+ * The counters every board engine shares, so {@link Board}, {@link MutableBoard} and {@link BatchBoard} games all add
+ * up to the same totals. Updates must be guarded by {@link Metrics#ENABLED}.
+ */
+final class GameMetrics {
+  static final Counter MOVES = Metrics.counter("game.moves");
+  static final Counter FOOD_PLACEMENTS = Metrics.counter("game.foodPlacements");
+  static final Counter WALL_DEATHS = Metrics.counter("game.deaths.wall");
+  static final Counter SELF_DEATHS = Metrics.counter("game.deaths.self");
+  static final Counter STARVED_DEATHS = Metrics.counter("game.deaths.starved");
+  static final Counter LOOPED_DEATHS = Metrics.counter("game.deaths.looped");
+
+  private GameMetrics() {
+  }
+}
@@ -0,0 +1,129 @@
+package snake.winter.game;
+
+import snake.winter.game.Point.Direction;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The cells of a board of a given size, each packed into a single {@code int} cell id.
+ *
+ * <p>Cells are numbered column by column ({@code x * height + y}), the order {@link Board} walks when it places food.
+ * A grid holds one shared {@link Point} per cell and a table of each cell's neighbor in every direction, so the hot
+ * loops can step around the board on plain ints and only turn them back into points, without allocating, at the
+ * edges. Grids are immutable and shared between every board of the same size; get them with {@link #grid(int, int)}.
+ */
+public final class Grid {
+  /**
+   * The neighbor of a cell that lies off the board.
+   */
+  public static final int WALL = -1;
+
+  private static final ConcurrentHashMap<Long, Grid> grids = new ConcurrentHashMap<>();
+
+  private final int height;
+  private final int width;
+  private final Point[] points;
+  // neighbors[(cell << 2) | dir.ordinal()] is the cell next to cell in that direction, or WALL
+  private final int[] neighbors;
+  private final Zobrist zobrist;
+
+  private Grid(int height, int width) {
+    this.height = height;
+    this.width = width;
+    this.zobrist = new Zobrist(height, width);
+    this.points = new Point[height * width];
+    this.neighbors = new int[height * width * 4];
+
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        int cell = cell(x, y);
+        points[cell] = Point.point(x, y);
+        for (Direction d : Direction.values()) {
+          int nx = x + d.getDir().x;
+          int ny = y + d.getDir().y;
+          neighbors[(cell << 2) | d.ordinal()] = contains(nx, ny) ? cell(nx, ny) : WALL;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the shared grid for boards of the given size.
+   */
+  public static Grid grid(int height, int width) {
+    return grids.computeIfAbsent(((long) height << 32) | width, key -> new Grid(height, width));
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the keys used to hash the state of boards on this grid.
+   */
+  public Zobrist getZobrist() {
+    return zobrist;
+  }
+
+  /**
+   * Returns the number of cells on the board.
+   */
+  public int size() {
+    return points.length;
+  }
+
+  public boolean contains(int x, int y) {
+    return x >= 0 && x < width && y >= 0 && y < height;
+  }
+
+  public boolean contains(Point p) {
+    return contains(p.x, p.y);
+  }
+
+  /**
+   * Packs the given coordinates, which must be on the board, into a cell id.
+   */
+  public int cell(int x, int y) {
+    return x * height + y;
+  }
+
+  /**
+   * Packs the given point, which must be on the board, into a cell id.
+   */
+  public int cell(Point p) {
+    return cell(p.x, p.y);
+  }
+
+  public int x(int cell) {
+    return cell / height;
+  }
+
+  public int y(int cell) {
+    return cell % height;
+  }
+
+  /**
+   * Returns the shared point for the given cell.
+   */
+  public Point point(int cell) {
+    return points[cell];
+  }
+
+  /**
+   * Returns the cell next to the given one in the given direction, or {@link #WALL} if that is off the board.
+   */
+  public int neighbor(int cell, Direction d) {
+    return neighbors[(cell << 2) | d.ordinal()];
+  }
+
+  /**
+   * Returns the cell next to the given one in the direction with the given ordinal, or {@link #WALL}.
+   */
+  int neighbor(int cell, int dir) {
+    return neighbors[(cell << 2) | dir];
+  }
+}
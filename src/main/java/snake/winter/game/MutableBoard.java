@@ -0,0 +1,516 @@
+package snake.winter.game;
+
+import io.vavr.collection.List;
+import snake.winter.game.Point.Direction;
+import snake.winter.metrics.Metrics;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static snake.winter.game.Point.Direction.EAST;
+
+/**
+ * A mutable game engine that follows exactly the same rules as {@link Board}, but never allocates while playing.
+ *
+ * <p>The snake body is a ring buffer of packed cell indices and the cells it covers are tracked in a bitset, so
+ * stepping, growing and checking for self-collisions are all constant time. Cells are the packed ids of the board's
+ * {@link Grid}, which run in the same order {@link Board} walks when it places food, so given the same
+ * {@link Random} both engines put the food in the same place.
+ *
+ * <p>That ordered food placement costs a scan over the occupancy bitset every time food is eaten. Engines created
+ * with {@link FoodPlacement#INDEXED} instead pick from a free-cell index in constant time; the food is still uniform
+ * over the free cells, but the sequence no longer matches {@link Board}.
+ */
+public class MutableBoard {
+  /**
+   * How new food is picked from the free cells.
+   */
+  public enum FoodPlacement {
+    /**
+     * The k'th free cell in column-major order, exactly like {@link Board}, so seeded games replay identically.
+     */
+    ORDERED,
+
+    /**
+     * A swap-remove index of free cells, sampled in constant time once the snake has grown, so unlike
+     * {@link Board} the food never lands on the new head.
+     */
+    INDEXED
+  }
+
+  private final Grid grid;
+  private final FoodPlacement placement;
+
+  // body[head] is the head of the snake, the tail end sits length - 1 slots behind it
+  private final int[] body;
+  private final FreeCells cells;
+
+  private int head;
+  private int length;
+  private int food;
+  private Direction dir;
+  private int score;
+  private int moves;
+  private boolean live;
+  private long key;
+  private Rules rules = Rules.rules();
+  private int hungerLimit = Integer.MAX_VALUE;
+  private DeathCause cause = DeathCause.NONE;
+  // moves since the snake last ate, and Brent's loop detection state as in Board
+  private int hunger;
+  private long loopKey;
+  private int loopSteps;
+  private int loopPower;
+
+  private MutableBoard(Grid grid, FoodPlacement placement) {
+    this.grid = grid;
+    this.placement = placement;
+    this.body = new int[grid.size()];
+    this.cells = new FreeCells(grid.size());
+  }
+
+  /**
+   * Creates a new engine with a fresh game, laid out exactly like {@link Board#newStartBoard(int, int, Random)}.
+   */
+  public static MutableBoard newStartBoard(int height, int width, Random rng) {
+    return newStartBoard(height, width, rng, FoodPlacement.ORDERED);
+  }
+
+  /**
+   * Creates a new engine with a fresh game, placing food with the given strategy.
+   */
+  public static MutableBoard newStartBoard(int height, int width, Random rng, FoodPlacement placement) {
+    MutableBoard board = new MutableBoard(Grid.grid(height, width), placement);
+    board.reset(rng);
+    return board;
+  }
+
+  /**
+   * Creates a new engine holding the same game as the given board.
+   */
+  public static MutableBoard fromBoard(Board board) {
+    return fromBoard(board, FoodPlacement.ORDERED);
+  }
+
+  /**
+   * Creates a new engine holding the same game as the given board, placing later food with the given strategy.
+   */
+  public static MutableBoard fromBoard(Board board, FoodPlacement placement) {
+    MutableBoard result = new MutableBoard(board.getGrid(), placement);
+    result.copyFrom(board);
+    return result;
+  }
+
+  /**
+   * Throws away the current game and starts a new one, reusing this engine's buffers.
+   */
+  public void reset(Random rng) {
+    int centerX = grid.getWidth() / 2;
+    int centerY = grid.getHeight() / 2;
+    if (centerX < 1 || centerY < 1) {
+      throw new RuntimeException("board is too small");
+    }
+
+    clearBody();
+    int startLength = Math.min(3, centerX);
+    for (int i = startLength - 1; i >= 0; i--) {
+      pushHead(grid.cell(centerX - i, centerY));
+    }
+    dir = EAST;
+    score = 0;
+    moves = 0;
+    live = true;
+    food = randomFood(rng);
+    key = zobristKey();
+    cause = DeathCause.NONE;
+    hunger = 0;
+    restartLoops();
+  }
+
+  /**
+   * Overwrites the current game with the one held by the given board, which must have the same dimensions.
+   */
+  public void copyFrom(Board board) {
+    if (board.getGrid() != grid) {
+      throw new IllegalArgumentException("board dimensions do not match");
+    }
+
+    clearBody();
+    List<Point> cells = board.getSnake().toList().reverse();
+    cells.forEach(p -> pushHead(grid.cell(p)));
+    dir = board.getSnake().getDir();
+    food = grid.cell(board.getFood());
+    score = board.getScore();
+    moves = board.getMoves();
+    live = board.isLive();
+    key = board.getZobristKey();
+    setRules(board.getRules());
+    cause = board.getDeathCause();
+    hunger = board.getHunger();
+  }
+
+  /**
+   * Overwrites the current game with a copy of another engine's, which must have the same dimensions and food
+   * placement. The copy then plays out exactly like the original would. Nothing is allocated, so search code can
+   * restore a scratch engine to the same position over and over.
+   */
+  public void copyFrom(MutableBoard other) {
+    if (other.grid != grid || other.placement != placement) {
+      throw new IllegalArgumentException("boards do not match");
+    }
+
+    System.arraycopy(other.body, 0, body, 0, body.length);
+    cells.copyFrom(other.cells);
+    head = other.head;
+    length = other.length;
+    food = other.food;
+    dir = other.dir;
+    score = other.score;
+    moves = other.moves;
+    live = other.live;
+    key = other.key;
+    rules = other.rules;
+    hungerLimit = other.hungerLimit;
+    cause = other.cause;
+    hunger = other.hunger;
+    loopKey = other.loopKey;
+    loopSteps = other.loopSteps;
+    loopPower = other.loopPower;
+  }
+
+  /**
+   * Plays the rest of the game by the given rules. Loop detection starts over from the current position.
+   */
+  public void setRules(Rules newRules) {
+    rules = newRules;
+    hungerLimit = newRules.hungerLimit(grid);
+    restartLoops();
+  }
+
+  /**
+   * Returns the number of bytes {@link #writeTo} takes right now.
+   */
+  public int byteSize() {
+    int size = 4 + 4 + 1 + 4 + 4 * length + 4 + 1 + 4 + 4 + 1 + Rules.BYTES + 1 + 4 + 8 + 4 + 4;
+    return placement == FoodPlacement.INDEXED ? size + cells.byteSize() : size;
+  }
+
+  /**
+   * Writes the whole game: size, food placement, the body from the tail end to the head, food, direction, score,
+   * moves and liveness, the rules with the hunger and loop detection state, plus the order of the free-cell index when
+   * food placement depends on it. Together with the state of the {@link Random} it was played with, that is enough
+   * to carry on the game exactly.
+   */
+  public void writeTo(ByteBuffer out) {
+    out.putInt(grid.getHeight()).putInt(grid.getWidth()).put((byte) placement.ordinal()).putInt(length);
+    for (int i = length - 1; i >= 0; i--) {
+      out.putInt(bodyAt(i));
+    }
+    out.putInt(food).put((byte) dir.ordinal()).putInt(score).putInt(moves).put(live ? (byte) 1 : (byte) 0);
+    rules.writeTo(out);
+    out.put((byte) cause.ordinal()).putInt(hunger).putLong(loopKey).putInt(loopSteps).putInt(loopPower);
+    if (placement == FoodPlacement.INDEXED) {
+      cells.writeTo(out);
+    }
+  }
+
+  /**
+   * Reads a game written by {@link #writeTo} into a new engine.
+   */
+  public static MutableBoard readFrom(ByteBuffer in) {
+    int height = in.getInt();
+    int width = in.getInt();
+    MutableBoard board = new MutableBoard(Grid.grid(height, width), FoodPlacement.values()[in.get()]);
+    board.clearBody();
+    for (int i = in.getInt(); i > 0; i--) {
+      board.pushHead(in.getInt());
+    }
+    board.food = in.getInt();
+    board.dir = Direction.values()[in.get()];
+    board.score = in.getInt();
+    board.moves = in.getInt();
+    board.live = in.get() != 0;
+    board.setRules(Rules.readFrom(in));
+    board.cause = DeathCause.values()[in.get()];
+    board.hunger = in.getInt();
+    board.loopKey = in.getLong();
+    board.loopSteps = in.getInt();
+    board.loopPower = in.getInt();
+    if (board.placement == FoodPlacement.INDEXED) {
+      board.cells.readFrom(in);
+    }
+    board.key = board.zobristKey();
+    return board;
+  }
+
+  /**
+   * Returns an immutable {@link Board} holding the current game.
+   */
+  public Board toBoard() {
+    List<Point> tail = List.empty();
+    for (int i = length - 1; i >= 1; i--) {
+      tail = tail.prepend(grid.point(bodyAt(i)));
+    }
+    Snake snake = Snake.trustedSnake(grid.point(bodyAt(0)), tail, dir);
+    return Board.board(grid, grid.point(food), snake, score, moves, live, rules, cause, hunger);
+  }
+
+  public int getHeight() {
+    return grid.getHeight();
+  }
+
+  public int getWidth() {
+    return grid.getWidth();
+  }
+
+  public Grid getGrid() {
+    return grid;
+  }
+
+  public FoodPlacement getFoodPlacement() {
+    return placement;
+  }
+
+  public int getScore() {
+    return score;
+  }
+
+  public int getMoves() {
+    return moves;
+  }
+
+  public boolean isLive() {
+    return live;
+  }
+
+  public Rules getRules() {
+    return rules;
+  }
+
+  /**
+   * Returns why the game ended, or {@link DeathCause#NONE} while it is live.
+   */
+  public DeathCause getDeathCause() {
+    return cause;
+  }
+
+  /**
+   * Returns the number of moves since the snake last ate, or since the game started if it has not eaten yet.
+   */
+  public int getHunger() {
+    return hunger;
+  }
+
+  public Direction getDir() {
+    return dir;
+  }
+
+  /**
+   * Returns the same Zobrist hash of the position that {@link Board#getZobristKey()} gives, kept up to date move by
+   * move.
+   */
+  public long getZobristKey() {
+    return key;
+  }
+
+  public int length() {
+    return length;
+  }
+
+  public int getHeadCell() {
+    return body[head];
+  }
+
+  public int getHeadX() {
+    return grid.x(body[head]);
+  }
+
+  public int getHeadY() {
+    return grid.y(body[head]);
+  }
+
+  public int getFoodCell() {
+    return food;
+  }
+
+  public int getFoodX() {
+    return grid.x(food);
+  }
+
+  public int getFoodY() {
+    return grid.y(food);
+  }
+
+  /**
+   * Returns the cell of the i'th body segment, counting back from the head, so 0 is the head and
+   * {@code length() - 1} the tail end.
+   */
+  public int getBodyCell(int i) {
+    return bodyAt(i);
+  }
+
+  /**
+   * Returns whether the given cell is covered by the snake.
+   */
+  public boolean isOccupied(int cell) {
+    return cells.isOccupied(cell);
+  }
+
+  /**
+   * Returns whether the given coordinates are covered by the snake. Cells off the board are never occupied.
+   */
+  public boolean isOccupied(int x, int y) {
+    return grid.contains(x, y) && cells.isOccupied(grid.cell(x, y));
+  }
+
+  /**
+   * Moves the snake one step in the given direction, following the same rules as
+   * {@link Board#updateBoard(Direction, Random)}. Returns whether the game is still live afterwards.
+   */
+  public boolean updateBoard(Direction d, Random rng) {
+    if (!live) {
+      return false;
+    }
+
+    if (Metrics.ENABLED) {
+      GameMetrics.MOVES.increment();
+    }
+
+    int oldHead = body[head];
+    int newHead = grid.neighbor(oldHead, d);
+    if (newHead == Grid.WALL) {
+      live = false;
+      cause = DeathCause.WALL;
+      if (Metrics.ENABLED) {
+        GameMetrics.WALL_DEATHS.increment();
+      }
+    }
+    else if (cells.isOccupied(newHead)) {
+      // like Board, the cell the tail is about to leave still counts as part of the snake
+      live = false;
+      cause = DeathCause.SELF;
+      if (Metrics.ENABLED) {
+        GameMetrics.SELF_DEATHS.increment();
+      }
+    }
+    else if (newHead == food) {
+      int oldFood = food;
+      if (placement == FoodPlacement.ORDERED) {
+        // Board picks the new food before the snake grows, so the cell being eaten is still a candidate
+        food = randomFood(rng);
+        pushHead(newHead);
+      }
+      else {
+        pushHead(newHead);
+        food = randomFood(rng);
+      }
+      Zobrist z = grid.getZobrist();
+      key ^= z.move(oldHead, newHead, Grid.WALL, dir, d) ^ z.food(oldFood) ^ z.food(food);
+      dir = d;
+      score++;
+      hunger = 0;
+      restartLoops();
+    }
+    else {
+      int oldTail = bodyAt(length - 1);
+      cells.release(oldTail);
+      length--;
+      pushHead(newHead);
+      key ^= grid.getZobrist().move(oldHead, newHead, oldTail, dir, d);
+      dir = d;
+      if (++hunger >= hungerLimit) {
+        live = false;
+        cause = DeathCause.STARVED;
+        if (Metrics.ENABLED) {
+          GameMetrics.STARVED_DEATHS.increment();
+        }
+      }
+      else if (rules.detectsLoops()) {
+        watchForLoops();
+      }
+    }
+    moves++;
+    return live;
+  }
+
+  /**
+   * Applies each of the given moves in turn. Returns whether the game is still live afterwards.
+   */
+  public boolean updateBoard(Random rng, Direction... dirs) {
+    for (Direction d : dirs) {
+      updateBoard(d, rng);
+    }
+    return live;
+  }
+
+  /**
+   * Returns the cell of the i'th body segment, counting back from the head.
+   */
+  private int bodyAt(int i) {
+    int index = head - i;
+    return body[index < 0 ? index + body.length : index];
+  }
+
+  private void restartLoops() {
+    loopKey = key;
+    loopSteps = 0;
+    loopPower = 1;
+  }
+
+  /**
+   * Ends the game if the position repeats the remembered one, moving the remembered position on at powers of two.
+   */
+  private void watchForLoops() {
+    if (key == loopKey) {
+      live = false;
+      cause = DeathCause.LOOPED;
+      if (Metrics.ENABLED) {
+        GameMetrics.LOOPED_DEATHS.increment();
+      }
+    }
+    else if (++loopSteps == loopPower) {
+      loopKey = key;
+      loopSteps = 0;
+      loopPower = Math.min(loopPower << 1, 1 << 30);
+    }
+  }
+
+  private long zobristKey() {
+    Zobrist z = grid.getZobrist();
+    long result = z.head(body[head]) ^ z.dir(dir) ^ z.food(food);
+    for (int i = 0; i < length; i++) {
+      result ^= z.body(bodyAt(i));
+    }
+    return result;
+  }
+
+  private void pushHead(int cell) {
+    head = head + 1 == body.length ? 0 : head + 1;
+    body[head] = cell;
+    length++;
+    cells.occupy(cell);
+  }
+
+  private void clearBody() {
+    cells.clear();
+    head = body.length - 1;
+    length = 0;
+  }
+
+  /**
+   * Picks the next food cell. In ordered mode this matches {@code Board.randomFoodHelper}: a uniform index into the
+   * free cells, taken in column-major order.
+   */
+  private int randomFood(Random rng) {
+    if (Metrics.ENABLED) {
+      GameMetrics.FOOD_PLACEMENTS.increment();
+    }
+    if (placement == FoodPlacement.INDEXED) {
+      return cells.sample(rng);
+    }
+    if (cells.count() == 0) {
+      throw new RuntimeException("board is full, new food cannot be created");
+    }
+    return cells.select(rng.nextInt(cells.count()));
+  }
+}
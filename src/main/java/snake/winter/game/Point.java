@@ -18,6 +18,9 @@ public class Point {
     NORTH(point(0, -1)), SOUTH(point(0, 1)),
     EAST(point(1, 0)), WEST(point(-1, 0));
 
+    // complements[d.ordinal()] is the direction opposite d
+    private static final Direction[] complements = {SOUTH, NORTH, WEST, EAST};
+
     private final Point dir;
 
     public Point getDir() {
@@ -32,26 +35,30 @@ public class Point {
      * Returns the complement of the input direction.
      */
     public static Direction complement(Direction d) {
-      return fromPoint(d.getDir().mult(-1)).getOrElseThrow(
-          () -> {
-            throw new RuntimeException("invalid input direction");
-          });
+      return complements[d.ordinal()];
     }
 
     /**
      * Returns the direction that corresponds to the given point if one exists.
      */
     public static Option<Direction> fromPoint(Point p) {
-      if (p.equals(NORTH.dir)) {
+      return fromDelta(p.x, p.y);
+    }
+
+    /**
+     * Returns the direction that moves by the given offset if one exists.
+     */
+    public static Option<Direction> fromDelta(int dx, int dy) {
+      if (dx == 0 && dy == -1) {
         return some(NORTH);
       }
-      else if (p.equals(SOUTH.dir)) {
+      else if (dx == 0 && dy == 1) {
         return some(SOUTH);
       }
-      else if (p.equals(EAST.dir)) {
+      else if (dx == 1 && dy == 0) {
         return some(EAST);
       }
-      else if (p.equals(WEST.dir)) {
+      else if (dx == -1 && dy == 0) {
         return some(WEST);
       }
       return none();
@@ -68,6 +75,26 @@ public class Point {
     return new Point(x, y);
   }
 
+  /**
+   * Packs a pair of coordinates into a single {@code long}, for when a point needs to be a primitive key regardless
+   * of board size. Use {@link Grid} for the denser {@code int} cell ids of a particular board.
+   */
+  public static long pack(int x, int y) {
+    return ((long) x << 32) | (y & 0xffffffffL);
+  }
+
+  public long pack() {
+    return pack(x, y);
+  }
+
+  public static int unpackX(long packed) {
+    return (int) (packed >> 32);
+  }
+
+  public static int unpackY(long packed) {
+    return (int) packed;
+  }
+
   public Point add(int dx, int dy) {
     return point(x + dx, y + dy);
   }
@@ -77,7 +104,7 @@ public class Point {
   }
 
   public Point add(Direction d) {
-    return add(d.getDir());
+    return point(x + d.dir.x, y + d.dir.y);
   }
 
   public Point mult(int c) {
@@ -101,7 +128,7 @@ public class Point {
   }
 
   public Option<Direction> directionTo(Point p) {
-    return Direction.fromPoint(p.add(this.mult(-1)));
+    return Direction.fromDelta(p.x - x, p.y - y);
   }
 
   @Override
@@ -120,6 +147,7 @@ public class Point {
 
   @Override
   public int hashCode() {
-    return toString().hashCode();
+    // distinct for every point on any board up to 65536 cells high
+    return (x << 16) ^ y;
   }
 }
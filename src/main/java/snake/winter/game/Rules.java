@@ -0,0 +1,120 @@
+package snake.winter.game;
+
+import com.google.errorprone.annotations.Immutable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Optional rules that end a game early when the snake has stopped making progress. Every engine ({@link Board},
+ * {@link MutableBoard} and {@link BatchBoard}) applies them the same way, after any move that did not kill the snake
+ * outright and did not eat:
+ *
+ * <ul>
+ * <li>With a <em>hunger budget</em>, the snake starves once it has gone that many moves since it last ate, or since
+ * the game started. The budget is given per cell of the board, so the same rules suit every board size.
+ * <li>With <em>loop detection</em>, the snake dies as soon as it repeats a position (snake, direction and food, as
+ * told apart by the {@linkplain Board#getZobristKey Zobrist key}) it has already been in since it last ate. A controller
+ * that picks its move from the position alone would go round that loop forever. Detection uses Brent's algorithm on
+ * the rolling key: the engine remembers one earlier key and replaces it at power-of-two distances, so it costs a
+ * compare per move and catches a loop within a couple of laps.
+ * </ul>
+ *
+ * <p>Either way the game ends like any other death: {@code isLive()} turns false, the move is counted and the score
+ * stands, and the engine reports a {@link DeathCause} of {@link DeathCause#STARVED} or {@link DeathCause#LOOPED}.
+ * {@link #rules()} has neither, which are the classic rules.
+ */
+@Immutable
+public final class Rules {
+  public static final int BYTES = 8 + 1;
+  private static final Rules CLASSIC = new Rules(0, false);
+
+  private final double hunger;
+  private final boolean loops;
+
+  private Rules(double hunger, boolean loops) {
+    this.hunger = hunger;
+    this.loops = loops;
+  }
+
+  /**
+   * Returns the classic rules, with no hunger budget and no loop detection.
+   */
+  public static Rules rules() {
+    return CLASSIC;
+  }
+
+  /**
+   * Returns a copy where the snake starves after going the given number of moves per board cell without eating, or
+   * with no hunger budget for 0.
+   */
+  public Rules withHunger(double movesPerCell) {
+    if (movesPerCell < 0) {
+      throw new IllegalArgumentException("the hunger budget cannot be negative");
+    }
+    return new Rules(movesPerCell, loops);
+  }
+
+  /**
+   * Returns a copy that ends the game as soon as the snake repeats a position since it last ate, or not.
+   */
+  public Rules withLoops(boolean newLoops) {
+    return new Rules(hunger, newLoops);
+  }
+
+  /**
+   * Returns the hunger budget in moves per board cell, or 0 if there is none.
+   */
+  public double getHunger() {
+    return hunger;
+  }
+
+  public boolean detectsLoops() {
+    return loops;
+  }
+
+  /**
+   * Returns how many moves in a row without food the snake survives on the given grid, at least 1, or
+   * {@link Integer#MAX_VALUE} if there is no hunger budget.
+   */
+  public int hungerLimit(Grid grid) {
+    if (hunger == 0) {
+      return Integer.MAX_VALUE;
+    }
+    return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.ceil(hunger * grid.size())));
+  }
+
+  /**
+   * Writes the rules in {@link #BYTES} bytes.
+   */
+  public void writeTo(ByteBuffer out) {
+    out.putDouble(hunger).put(loops ? (byte) 1 : (byte) 0);
+  }
+
+  /**
+   * Reads rules written by {@link #writeTo}.
+   */
+  public static Rules readFrom(ByteBuffer in) {
+    double hunger = in.getDouble();
+    boolean loops = in.get() != 0;
+    return hunger == 0 && !loops ? CLASSIC : new Rules(hunger, loops);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof Rules)) {
+      return false;
+    }
+    Rules r = (Rules) obj;
+    return Double.compare(hunger, r.hunger) == 0 && loops == r.loops;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Double.hashCode(hunger) + (loops ? 1 : 0);
+  }
+
+  @Override
+  public String toString() {
+    return "Rules(hunger " + hunger + " moves per cell, loops " + (loops ? "end the game" : "allowed") + ")";
+  }
+}
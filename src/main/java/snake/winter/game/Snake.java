@@ -1,7 +1,9 @@
 package snake.winter.game;
 
+import io.vavr.collection.HashSet;
 import io.vavr.collection.List;
-
+import io.vavr.collection.Queue;
+import io.vavr.collection.Set;
 import io.vavr.control.Option;
 import snake.winter.game.Point.Direction;
 
@@ -9,14 +11,21 @@ import static io.vavr.control.Option.none;
 import static io.vavr.control.Option.some;
 import static snake.winter.game.Point.Direction.complement;
 
+/**
+ * An immutable snake. The body is a persistent queue running from the tail end to the head, paired with a persistent
+ * set of the cells it covers, so stepping, growing and membership checks cost the same no matter how long the snake
+ * is. Moves made by the snake itself are known to be valid and skip the checks done by {@link #snake(Point, List)}.
+ */
 public class Snake {
-  private Point head;
-  private List<Point> tail;
-  private Direction dir;
+  private final Point head;
+  private final Queue<Point> body;
+  private final Set<Point> cells;
+  private final Direction dir;
 
-  private Snake(Point head, List<Point> tail, Direction dir) {
+  private Snake(Point head, Queue<Point> body, Set<Point> cells, Direction dir) {
     this.head = head;
-    this.tail = tail;
+    this.body = body;
+    this.cells = cells;
     this.dir = dir;
   }
 
@@ -24,8 +33,11 @@ public class Snake {
     return head;
   }
 
+  /**
+   * Returns the body behind the head, starting next to the head. This is built on demand and costs O(length).
+   */
   public List<Point> getTail() {
-    return tail;
+    return body.toList().reverse().tail();
   }
 
   public Direction getDir() {
@@ -33,7 +45,21 @@ public class Snake {
   }
 
   public int length() {
-    return 1 + tail.length();
+    return cells.size();
+  }
+
+  /**
+   * Returns the last segment of the snake, the one that moves off the board on the next step.
+   */
+  Point getTailEnd() {
+    return body.head();
+  }
+
+  /**
+   * Returns every cell of the snake, from the tail end up to the head.
+   */
+  Queue<Point> cells() {
+    return body;
   }
 
   /**
@@ -42,7 +68,7 @@ public class Snake {
   public static Snake snake(Point head, int length, Direction dir) {
     List<Point> tail = List.range(1, length).take(length)
                            .map(i -> head.add(complement(dir).getDir().mult(i)));
-    return new Snake(head, tail, dir);
+    return trustedSnake(head, tail, dir);
   }
 
   /**
@@ -50,50 +76,86 @@ public class Snake {
    */
   public static Option<Snake> snake(Point head, List<Point> tail) {
     return tailHelper(tail) && !tail.contains(head)
-               ? tail.get(0).directionTo(head).map(dir -> new Snake(head, tail, dir))
+               ? tail.headOption().flatMap(neck -> neck.directionTo(head)).map(dir -> trustedSnake(head, tail, dir))
                : none();
   }
 
+  /**
+   * Builds a snake without validating the tail; callers must already know the body is well formed.
+   */
+  static Snake trustedSnake(Point head, List<Point> tail, Direction dir) {
+    Queue<Point> body = Queue.ofAll(tail.reverse()).enqueue(head);
+    return new Snake(head, body, HashSet.ofAll(body), dir);
+  }
+
   public static Snake pointSnake(Point head, Direction dir) {
     return snake(head, 1, dir);
   }
 
+  /**
+   * Checks that the tail has no repeated cells and that each segment touches the next, in a single pass.
+   */
   private static boolean tailHelper(List<Point> tail) {
-    return tail.distinct().equals(tail)
-               ? List.range(0, tail.length() - 1)
-                     .foldLeft(true, (valid, i) -> valid && tail.get(i).squareDistance(tail.get(i + 1)) == 1)
-               : false;
+    if (HashSet.ofAll(tail).size() != tail.length()) {
+      return false;
+    }
+    Point prev = null;
+    for (Point p : tail) {
+      if (prev != null && Math.abs(prev.x - p.x) + Math.abs(prev.y - p.y) != 1) {
+        return false;
+      }
+      prev = p;
+    }
+    return true;
   }
 
   /**
    * Moves the snake one step in the given direction.
    */
   public Option<Snake> step(Direction d) {
-    Point newHead = head.add(d);
-    return tail.contains(newHead)
-               ? none()
-               : snake(newHead, tail.insert(0, head).removeLast(x -> true));
+    return step(d, head.add(d));
   }
 
   public Option<Snake> step(Direction... dirs) {
     return List.of(dirs).foldLeft(some(this), (optS, d) -> optS.flatMap(s -> s.step(d)));
   }
 
+  /**
+   * Moves the snake one step onto the given cell, which must be the neighbor of the head in the given direction.
+   * The cell the tail is leaving still counts as part of the snake, so moving onto it fails.
+   */
+  Option<Snake> step(Direction d, Point newHead) {
+    if (cells.contains(newHead)) {
+      return none();
+    }
+    Point tailEnd = body.head();
+    return some(new Snake(newHead, body.tail().enqueue(newHead), cells.remove(tailEnd).add(newHead), d));
+  }
+
   public Option<Snake> grow(Direction d) {
-    return new Snake(head, tail.append(tail.get(tail.length() - 1)), d).step(d);
+    return grow(d, head.add(d));
+  }
+
+  /**
+   * Grows the snake by one segment onto the given cell, which must be the neighbor of the head in the given direction.
+   */
+  Option<Snake> grow(Direction d, Point newHead) {
+    return cells.contains(newHead)
+               ? none()
+               : some(new Snake(newHead, body.enqueue(newHead), cells.add(newHead), d));
   }
 
   public boolean contains(Point p) {
-    return toList().contains(p);
+    return cells.contains(p);
   }
 
   public List<Point> toList() {
-    return tail.insert(0, head);
+    return body.toList().reverse();
   }
 
   @Override
   public String toString() {
-    return "Snake(head: " + head + ", tail: " + tail + ", dir: " + dir + ")";
+    return "Snake(head: " + head + ", tail: " + getTail() + ", dir: " + dir + ")";
   }
 
   @Override
@@ -102,7 +164,7 @@ public class Snake {
       return false;
     }
     Snake s = (Snake) obj;
-    return s.head.equals(head) && s.tail.equals(tail) && s.dir.equals(dir);
+    return s.head.equals(head) && s.dir.equals(dir) && s.body.equals(body);
   }
 
   @Override
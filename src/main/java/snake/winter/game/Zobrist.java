@@ -0,0 +1,64 @@
+package snake.winter.game;
+
+import snake.winter.game.Point.Direction;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys for Zobrist hashing the state of a board: one key per cell for the snake's body, one per cell
+ * for its head, one per cell for the food and one per direction the snake is facing. A board's key is the XOR of the
+ * keys of everything on it, so a move only has to XOR out what changed and XOR in what replaced it.
+ *
+ * <p>The keys come from a fixed seed mixed with the board size, so the same state always hashes to the same key, even
+ * across runs. Every {@link Grid} owns the keys for its size.
+ */
+public final class Zobrist {
+  private static final long SEED = 0x5eed_5a4e_e701_0b15L;
+
+  private final long[] body;
+  private final long[] head;
+  private final long[] food;
+  private final long[] dirs;
+
+  Zobrist(int height, int width) {
+    int size = height * width;
+    SplittableRandom rng = new SplittableRandom(SEED ^ (((long) height << 32) | width));
+    this.body = randomKeys(rng, size);
+    this.head = randomKeys(rng, size);
+    this.food = randomKeys(rng, size);
+    this.dirs = randomKeys(rng, Direction.values().length);
+  }
+
+  private static long[] randomKeys(SplittableRandom rng, int count) {
+    long[] keys = new long[count];
+    for (int i = 0; i < count; i++) {
+      keys[i] = rng.nextLong();
+    }
+    return keys;
+  }
+
+  public long body(int cell) {
+    return body[cell];
+  }
+
+  public long head(int cell) {
+    return head[cell];
+  }
+
+  public long food(int cell) {
+    return food[cell];
+  }
+
+  public long dir(Direction d) {
+    return dirs[d.ordinal()];
+  }
+
+  /**
+   * Returns the change in key when the snake steps from one head cell to another and leaves the given tail cell. Pass
+   * {@link Grid#WALL} as the tail cell when the snake grows instead.
+   */
+  public long move(int oldHead, int newHead, int oldTail, Direction oldDir, Direction newDir) {
+    long delta = head[oldHead] ^ head[newHead] ^ body[newHead] ^ dirs[oldDir.ordinal()] ^ dirs[newDir.ordinal()];
+    return oldTail == Grid.WALL ? delta : delta ^ body[oldTail];
+  }
+}
@@ -0,0 +1,77 @@
+package snake.winter.gui;
+
+import snake.winter.game.Board;
+import snake.winter.game.BoardDiff;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws boards into an off-screen image of the grid, touching only the cells that changed since the last board.
+ *
+ * <p>A {@link BoardDiff} keeps track of what every cell of the image shows, so rendering a board repaints just the
+ * cells whose contents differ: usually the new head, the old head, the vacated tail and the food. This stays correct
+ * however many moves happened between two boards, so the display can skip frames while the game runs ahead.
+ */
+final class BoardRenderer {
+  private final int height;
+  private final int boxSize;
+  private final BufferedImage image;
+  private final Graphics2D graphics;
+  private final BoardDiff diff;
+  private Rectangle dirty;
+
+  BoardRenderer(int height, int width, int boxSize) {
+    this.height = height;
+    this.boxSize = boxSize;
+    this.image = new BufferedImage(width * boxSize, height * boxSize, BufferedImage.TYPE_INT_RGB);
+    this.graphics = image.createGraphics();
+    this.diff = new BoardDiff(height * width);
+    clear();
+  }
+
+  /**
+   * Returns the image of the grid, one {@code boxSize} square per cell.
+   */
+  BufferedImage getImage() {
+    return image;
+  }
+
+  /**
+   * Blanks the whole grid.
+   */
+  void clear() {
+    graphics.setColor(Color.BLACK);
+    graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+    diff.clear();
+  }
+
+  /**
+   * Brings the image up to date with the given board and returns the part of the image that changed, or null if
+   * nothing did.
+   */
+  Rectangle render(Board board) {
+    dirty = null;
+    diff.diff(board, this::paint);
+    return dirty;
+  }
+
+  private void paint(int cell, byte contents) {
+    int x = cell / height * boxSize;
+    int y = cell % height * boxSize;
+    graphics.setColor(Color.BLACK);
+    graphics.fillRect(x, y, boxSize, boxSize);
+    if (contents == BoardDiff.FOOD) {
+      graphics.setColor(Color.RED);
+      graphics.fillOval(x, y, boxSize, boxSize);
+    }
+    else if (contents != BoardDiff.EMPTY) {
+      // a one pixel black gap on the top and left separates neighboring segments
+      graphics.setColor(contents == BoardDiff.HEAD ? Color.BLUE : Color.GREEN);
+      graphics.fillRect(x + 1, y + 1, boxSize - 1, boxSize - 1);
+    }
+
+    Rectangle box = new Rectangle(x, y, boxSize, boxSize);
+    dirty = dirty == null ? box : dirty.union(box);
+  }
+}
@@ -1,9 +1,13 @@
 package snake.winter.gui;
 
+import io.vavr.control.Option;
+import snake.winter.evolution.Champion;
+import snake.winter.evolution.ChampionFeed;
+import snake.winter.evolution.GameFitness;
 import snake.winter.game.Board;
-import snake.winter.game.Point;
 import snake.winter.game.Point.Direction;
-import snake.winter.game.Snake;
+import snake.winter.replay.GameReplay;
+import snake.winter.replay.ReplayPlayer;
 
 import javax.swing.*;
 import java.awt.*;
@@ -12,11 +16,24 @@ import java.util.Random;
 
 import static snake.winter.game.Point.Direction.*;
 
+/**
+ * The game panel, either played from the keyboard, watching a {@link GameReplay}, or watching the champions of a
+ * training run as they are published to a {@link ChampionFeed}.
+ *
+ * <p>The game and the display run on separate timers. The game timer advances the game, as many moves per tick as the
+ * tick rate calls for, and only marks the display stale. The frame timer then redraws at most {@link #FRAME_DELAY}
+ * apart, and only the cells that changed, through a {@link BoardRenderer}. A replay can run at thousands of moves a
+ * second while the display skips the frames in between.
+ */
 public class Game extends JPanel implements ActionListener {
   private static final int DELAY = 100;
+  private static final int FRAME_DELAY = 16;
   private static final int BOX_SIZE = 20;
   private static final int BUFFER = 20;
   private static final int SIDE_PANEL = 250;
+  private static final int MAX_TICK_RATE = 1 << 16;
+  private static final Font TITLE_FONT = new Font("Helvetica", Font.BOLD, BOX_SIZE + 4);
+  private static final Font TEXT_FONT = new Font("Helvetica", Font.BOLD, BOX_SIZE);
 
   private Board currentBoard;
   private Direction currentDir = EAST;
@@ -24,7 +41,22 @@ public class Game extends JPanel implements ActionListener {
   private final int b_height;
   private final int b_width;
   private final Timer timer;
+  private final Timer frameTimer = new Timer(FRAME_DELAY, e -> renderFrame());
   private final Random rng;
+  private final BoardRenderer renderer;
+  // set when watching a recorded game instead of playing
+  private ReplayPlayer player;
+  // set when spectating a training run
+  private final ChampionFeed feed;
+  private final GameFitness fitness;
+  private Champion champion;
+  private int tickRate = 1000 / DELAY;
+  private long lastTick;
+  private long tickDebt;
+  private boolean started;
+  private boolean stale;
+  private FontMetrics titleMetrics;
+  private FontMetrics textMetrics;
 
   public Game(int b_height, int b_width) {
     this(b_height, b_width, new Random());
@@ -35,34 +67,73 @@ public class Game extends JPanel implements ActionListener {
   }
 
   public Game(int b_height, int b_width, Random rng) {
+    this(b_height, b_width, new Timer(DELAY, null), rng);
+  }
+
+  public Game(int b_height, int b_width, Timer timer, Random rng) {
     this.b_height = b_height;
     this.b_width = b_width;
 
-    this.timer = new Timer(DELAY, this);
+    timer.addActionListener(this);
+    this.timer = timer;
     this.rng = rng;
+    this.player = null;
+    this.feed = null;
+    this.fitness = null;
+    this.renderer = new BoardRenderer(b_height, b_width, BOX_SIZE);
 
     initGame();
     repaint();
   }
 
-  public Game(int b_height, int b_width, Timer timer, Random rng) {
-    this.b_height = b_height;
-    this.b_width = b_width;
+  /**
+   * Watches a recorded game. UP and DOWN halve and double the number of moves played per second, LEFT and RIGHT skip
+   * back and forward.
+   */
+  public Game(GameReplay replay) {
+    this.b_height = replay.getHeight();
+    this.b_width = replay.getWidth();
 
-    timer.addActionListener(this);
-    this.timer = timer;
-    this.rng = rng;
+    this.timer = new Timer(DELAY, this);
+    this.rng = null;
+    this.player = replay.player();
+    this.feed = null;
+    this.fitness = null;
+    this.renderer = new BoardRenderer(b_height, b_width, BOX_SIZE);
+
+    initGame();
+    repaint();
+  }
+
+  /**
+   * Watches the champions a training run publishes, replaying each one's first game with the given fitness function.
+   * A champion's game plays through to the end before the newest champion takes over, and plays again while there is
+   * no new one. Picking up a champion never blocks the training threads. UP and DOWN change the speed like in a
+   * replay.
+   */
+  public Game(ChampionFeed feed, GameFitness fitness) {
+    this.b_height = fitness.getHeight();
+    this.b_width = fitness.getWidth();
+
+    this.timer = new Timer(DELAY, this);
+    this.rng = null;
+    this.player = null;
+    this.feed = feed;
+    this.fitness = fitness;
+    this.renderer = new BoardRenderer(b_height, b_width, BOX_SIZE);
 
     initGame();
     repaint();
+    lastTick = System.nanoTime();
+    timer.start();
   }
 
   public int getScore() {
-    return currentBoard.getScore();
+    return currentBoard == null ? 0 : currentBoard.getScore();
   }
 
   public int getMoves() {
-    return currentBoard.getMoves();
+    return currentBoard == null ? 0 : currentBoard.getMoves();
   }
 
   public void initGame() {
@@ -73,26 +144,38 @@ public class Game extends JPanel implements ActionListener {
     setPreferredSize(new Dimension(
         b_width * BOX_SIZE + 2 * BUFFER + SIDE_PANEL,
         b_height * BOX_SIZE + 2 * BUFFER));
+    frameTimer.start();
   }
 
   public void startNewGame() {
     currentDir = EAST;
-    currentBoard = Board.newStartBoard(b_height, b_width, rng);
+    if (player != null) {
+      player.seek(0);
+      currentBoard = player.getBoard();
+    }
+    else {
+      currentBoard = Board.newStartBoard(b_height, b_width, rng);
+    }
+    started = true;
+    renderer.clear();
+    renderer.render(currentBoard);
     repaint();
 
+    lastTick = System.nanoTime();
+    tickDebt = 0;
     timer.restart();
   }
 
   @Override
   protected void paintComponent(Graphics g) {
     super.paintComponent(g);
-    if (!timer.isRunning()) {
+    if (!started) {
       startScreen(g);
     }
     else {
       drawScoreAndMoves(g);
-      if (currentBoard.isLive()) {
-        drawBoard(g);
+      if (!isOver()) {
+        g.drawImage(renderer.getImage(), BUFFER, BUFFER, null);
       }
       else {
         gameOver(g);
@@ -104,80 +187,141 @@ public class Game extends JPanel implements ActionListener {
     g2.setColor(Color.WHITE);
     g2.drawRect(BUFFER - 5, BUFFER - 5,
         b_width * BOX_SIZE + 10, b_height * BOX_SIZE + 10);
-  }
-
-  private void drawBoard(Graphics g) {
-    Point food = currentBoard.getFood();
-    Snake snake = currentBoard.getSnake();
-
-    drawCircleInGame(food, Color.RED, g);
-    drawSquareInGame(snake.getHead(), Color.BLUE, g);
-    snake.getTail().forEach(p -> drawSquareInGame(p, Color.GREEN, g));
-
     Toolkit.getDefaultToolkit().sync();
   }
 
-  private void drawCircleInGame(Point p, Color color, Graphics g) {
-    g.setColor(color);
-    g.fillOval(p.x * BOX_SIZE + BUFFER, p.y * BOX_SIZE + BUFFER, BOX_SIZE, BOX_SIZE);
+  private boolean isOver() {
+    if (feed != null) {
+      return false;
+    }
+    return player != null ? player.isFinished() : !currentBoard.isLive();
   }
 
-  private void drawSquareInGame(Point p, Color color, Graphics g) {
-    g.setColor(color);
-    g.fillRect(p.x * BOX_SIZE + BUFFER, p.y * BOX_SIZE + BUFFER, BOX_SIZE, BOX_SIZE);
-
-    g.setColor(Color.BLACK);
-    g.drawRect(p.x * BOX_SIZE + BUFFER, p.y * BOX_SIZE + BUFFER, BOX_SIZE, BOX_SIZE);
-
+  /**
+   * Brings the off-screen grid up to date with the game and repaints just the cells that changed and the side panel.
+   */
+  private void renderFrame() {
+    if (!stale) {
+      return;
+    }
+    stale = false;
+    if (player != null) {
+      currentBoard = player.getBoard();
+    }
+    if (isOver()) {
+      repaint();
+      return;
+    }
+    Rectangle dirty = renderer.render(currentBoard);
+    if (dirty != null) {
+      repaint(dirty.x + BUFFER, dirty.y + BUFFER, dirty.width, dirty.height);
+    }
+    repaint(b_width * BOX_SIZE + 2 * BUFFER, 0, SIDE_PANEL, b_height * BOX_SIZE + 2 * BUFFER);
   }
 
   private void startScreen(Graphics g) {
     int size = BOX_SIZE + 4;
-    drawTextInGame("Snakevolution!",size, b_height * BOX_SIZE / 2 + BUFFER - size / 2, g);
-    drawTextInGame("SPACE to start", BOX_SIZE, b_height * BOX_SIZE / 2 + BUFFER + size / 2, g);
+    drawTextInGame("Snakevolution!", true, b_height * BOX_SIZE / 2 + BUFFER - size / 2, g);
+    drawTextInGame(feed != null ? "Waiting for a champion" : "SPACE to start", false,
+        b_height * BOX_SIZE / 2 + BUFFER + size / 2, g);
   }
 
   private void gameOver(Graphics g) {
     int size = BOX_SIZE + 4;
-    drawTextInGame("Game Over", size, b_height * BOX_SIZE / 2 + BUFFER - size / 2, g);
-    drawTextInGame("SPACE to try again",BOX_SIZE, b_height * BOX_SIZE / 2 + BUFFER + size / 2, g);
-    drawScoreAndMoves(g);
-    timer.stop();
+    drawTextInGame("Game Over", true, b_height * BOX_SIZE / 2 + BUFFER - size / 2, g);
+    drawTextInGame("SPACE to try again", false, b_height * BOX_SIZE / 2 + BUFFER + size / 2, g);
   }
 
-  private void drawTextInGame(String text, int size, int y, Graphics g) {
-    Font small = new Font("Helvetica", Font.BOLD, size);
-    FontMetrics metr = getFontMetrics(small);
+  private void drawTextInGame(String text, boolean title, int y, Graphics g) {
+    FontMetrics metr = metrics(title);
 
     g.setColor(Color.white);
-    g.setFont(small);
+    g.setFont(metr.getFont());
     g.drawString(text, (b_width * BOX_SIZE - metr.stringWidth(text) ) / 2 + BUFFER, y);
   }
 
   private void drawScoreAndMoves(Graphics g) {
     int size = BOX_SIZE + 4;
-    drawTextInSidePanel("Score: " + getScore(), size,(b_height * BOX_SIZE + 2 * BUFFER) / 2 - size / 2, g);
-    drawTextInSidePanel("Moves: " + getMoves(), size,(b_height * BOX_SIZE + 2 * BUFFER) / 2 + size / 2, g);
+    if (champion != null) {
+      drawTextInSidePanel("Generation: " + champion.getGeneration(),
+          (b_height * BOX_SIZE + 2 * BUFFER) / 2 - 3 * size / 2, g);
+    }
+    drawTextInSidePanel("Score: " + getScore(), (b_height * BOX_SIZE + 2 * BUFFER) / 2 - size / 2, g);
+    drawTextInSidePanel("Moves: " + getMoves(), (b_height * BOX_SIZE + 2 * BUFFER) / 2 + size / 2, g);
   }
 
-  private void drawTextInSidePanel(String text, int size, int y, Graphics g) {
-    Font small = new Font("Helvetica", Font.BOLD, size);
-    FontMetrics metr = getFontMetrics(small);
+  private void drawTextInSidePanel(String text, int y, Graphics g) {
+    FontMetrics metr = metrics(true);
 
     g.setColor(Color.white);
-    g.setFont(small);
+    g.setFont(metr.getFont());
     g.drawString(text, (SIDE_PANEL - metr.stringWidth(text)) / 2 + b_width * BOX_SIZE + 2 * BUFFER, y);
   }
 
+  private FontMetrics metrics(boolean title) {
+    if (titleMetrics == null) {
+      titleMetrics = getFontMetrics(TITLE_FONT);
+      textMetrics = getFontMetrics(TEXT_FONT);
+    }
+    return title ? titleMetrics : textMetrics;
+  }
+
   @Override
   public void actionPerformed(ActionEvent e) {
-    if (currentBoard.isLive()) {
+    if (feed != null && (player == null || player.isFinished())) {
+      nextChampion();
+    }
+    else if (player != null) {
+      // play however many moves the tick rate owes since the last tick, carrying the remainder over
+      long now = System.nanoTime();
+      tickDebt += (now - lastTick) * tickRate;
+      lastTick = now;
+      for (; tickDebt >= 1_000_000_000L && player.step(); tickDebt -= 1_000_000_000L) {
+        stale = true;
+      }
+      if (player.isFinished() && feed == null) {
+        timer.stop();
+      }
+    }
+    else if (currentBoard.isLive()) {
       currentBoard = currentBoard.updateBoard(currentDir);
+      stale = true;
+      if (!currentBoard.isLive()) {
+        timer.stop();
+      }
     }
+  }
 
+  /**
+   * Switches to the newest published champion's game, or plays the current one again if there is none.
+   */
+  private void nextChampion() {
+    Option<Champion> next = feed.take();
+    if (next.isDefined()) {
+      champion = next.get();
+      player = fitness.replay(champion.getGenome(), champion.getSeed()).player();
+    }
+    else if (player != null) {
+      player.seek(0);
+    }
+    else {
+      return;
+    }
+    currentBoard = player.getBoard();
+    started = true;
+    renderer.clear();
+    renderer.render(currentBoard);
     repaint();
   }
 
+  /**
+   * Sets the number of replay moves played per second, and ticks only as often as that needs.
+   */
+  private void setTickRate(int newTickRate) {
+    tickRate = Math.max(1, Math.min(newTickRate, MAX_TICK_RATE));
+    timer.setDelay(Math.max(1, 1000 / tickRate));
+  }
+
   private class SnakeAdapter extends KeyAdapter {
 
     private Direction currentSnakeDir() {
@@ -188,7 +332,10 @@ public class Game extends JPanel implements ActionListener {
     public void keyPressed(KeyEvent e) {
       int key = e.getKeyCode();
 
-      if (key == KeyEvent.VK_LEFT && !currentSnakeDir().equals(EAST)) {
+      if (player != null || feed != null) {
+        replayKeyPressed(key);
+      }
+      else if (key == KeyEvent.VK_LEFT && !currentSnakeDir().equals(EAST)) {
         currentDir = WEST;
       }
       else if (key == KeyEvent.VK_RIGHT && !currentSnakeDir().equals(WEST)) {
@@ -204,5 +351,23 @@ public class Game extends JPanel implements ActionListener {
         startNewGame();
       }
     }
+
+    private void replayKeyPressed(int key) {
+      if (key == KeyEvent.VK_UP) {
+        setTickRate(2 * tickRate);
+      }
+      else if (key == KeyEvent.VK_DOWN) {
+        setTickRate(tickRate / 2);
+      }
+      else if ((key == KeyEvent.VK_LEFT || key == KeyEvent.VK_RIGHT) && timer.isRunning() && player != null) {
+        // skip about ten seconds of play at the current speed
+        int skip = 10 * tickRate;
+        player.seek(player.getMove() + (key == KeyEvent.VK_LEFT ? -skip : skip));
+        stale = true;
+      }
+      else if (key == KeyEvent.VK_SPACE && !timer.isRunning()) {
+        startNewGame();
+      }
+    }
   }
 }
@@ -1,16 +1,38 @@
 package snake.winter.gui;
 
+import io.vavr.control.Option;
+import snake.winter.controller.NetworkController;
+import snake.winter.evolution.ChampionFeed;
+import snake.winter.evolution.Evolution;
+import snake.winter.evolution.GameFitness;
+import snake.winter.evolution.Population;
+import snake.winter.evolution.PopulationEvaluator;
+import snake.winter.neuralnet.Compatibility;
+import snake.winter.neuralnet.InnovationTracker;
+import snake.winter.neuralnet.Speciation;
+import snake.winter.replay.GameReplay;
+import snake.winter.replay.ReplayReader;
+
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class MainFrame extends JFrame {
+  private static final int SPECTATE_SIZE = 10;
+  private static final int SPECTATE_POPULATION = 150;
 
   public MainFrame() {
-    initFrame();
+    this(new Game(25, 25));
+  }
+
+  public MainFrame(Game game) {
+    initFrame(game);
   }
 
-  private void initFrame() {
-    add(new Game(25, 25));
+  private void initFrame(Game game) {
+    add(game);
 
     setResizable(false);
     pack();
@@ -20,11 +42,70 @@ public class MainFrame extends JFrame {
     setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
   }
 
-  public static void main(String[] args) {
+  /**
+   * Starts a game to play, or with a replay file argument, watches the highest scoring game in that file. A second
+   * argument picks a game by its position in the file instead. With {@code --spectate}, starts a training run in the
+   * background and watches each generation's champion play.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length > 0 && args[0].equals("--spectate")) {
+      spectate();
+      return;
+    }
+    GameReplay replay = args.length == 0
+                            ? null
+                            : findReplay(Paths.get(args[0]), args.length > 1 ? Integer.parseInt(args[1]) : -1);
+
+    EventQueue.invokeLater(() -> {
+      JFrame ex = replay == null ? new MainFrame() : new MainFrame(new Game(replay));
+      ex.setVisible(true);
+    });
+  }
+
+  /**
+   * Trains on every core but one, leaving that one to the window.
+   */
+  private static void spectate() {
+    GameFitness fitness = GameFitness.gameFitness(SPECTATE_SIZE, SPECTATE_SIZE, 3);
+    ChampionFeed feed = new ChampionFeed();
+    int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    Thread training = new Thread(() -> {
+      try (PopulationEvaluator<GameFitness.Workspace> evaluator = PopulationEvaluator.evaluator(fitness, threads)) {
+        Evolution evolution = Evolution.evolution(evaluator).withFeed(feed);
+        InnovationTracker tracker = InnovationTracker.tracker(fitness.getSensors().size(), NetworkController.OUTPUTS);
+        Population population = Population.initial(tracker, SPECTATE_POPULATION,
+            Speciation.speciation(Compatibility.compatibility(), 10), System.nanoTime());
+        while (!Thread.currentThread().isInterrupted()) {
+          population = evolution.step(population);
+        }
+      }
+    }, "training");
+    training.setDaemon(true);
+    training.start();
 
     EventQueue.invokeLater(() -> {
-      JFrame ex = new MainFrame();
+      JFrame ex = new MainFrame(new Game(feed, fitness));
       ex.setVisible(true);
     });
   }
+
+  private static GameReplay findReplay(Path path, int index) throws IOException {
+    try (ReplayReader reader = ReplayReader.open(path)) {
+      GameReplay best = null;
+      int i = 0;
+      for (Option<GameReplay> next = reader.next(); next.isDefined(); next = reader.next(), i++) {
+        if (i == index) {
+          return next.get();
+        }
+        if (index < 0 && (best == null || next.get().getFinalScore() > best.getFinalScore())) {
+          best = next.get();
+        }
+      }
+      if (best == null) {
+        throw new IOException(path + (index < 0 ? " has no games" : " has no game number " + index));
+      }
+      return best;
+    }
+  }
 }
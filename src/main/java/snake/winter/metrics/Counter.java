@@ -0,0 +1,37 @@
+package snake.winter.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count that many threads bump at once. Backed by a {@link LongAdder}, so threads counting the same thing spread
+ * over separate cells instead of fighting over one.
+ *
+ * <p>Counting always works; code on a hot path only skips it by checking {@link Metrics#ENABLED} first.
+ */
+public final class Counter {
+  private final String name;
+  private final LongAdder count = new LongAdder();
+
+  Counter(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void increment() {
+    count.increment();
+  }
+
+  public void add(long n) {
+    count.add(n);
+  }
+
+  /**
+   * Returns the count so far. Not an atomic snapshot while other threads are counting.
+   */
+  public long sum() {
+    return count.sum();
+  }
+}
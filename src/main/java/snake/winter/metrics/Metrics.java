@@ -0,0 +1,122 @@
+package snake.winter.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The registry of named {@link Counter}s and {@link Timer}s, plus a few JVM-wide gauges such as bytes allocated.
+ *
+ * <p>Metrics are off unless the JVM starts with {@code -Dsnake.metrics=true}. {@link #ENABLED} is a static final
+ * constant, so once the JIT compiles a hot method, an {@code if (Metrics.ENABLED)} around its counting folds away
+ * completely and the disabled cost is nothing at all. Hot code therefore looks its counters up once, into static
+ * fields, and guards every update:
+ *
+ * <pre>{@code
+ * private static final Counter MOVES = Metrics.counter("game.moves");
+ * ...
+ * if (Metrics.ENABLED) {
+ *   MOVES.increment();
+ * }
+ * }</pre>
+ *
+ * <p>{@link #snapshot} reads everything at once; {@link MetricsReporter} logs it periodically and
+ * {@link #registerMBean} makes it visible to JMX tools such as JConsole.
+ */
+public final class Metrics {
+  public static final boolean ENABLED = Boolean.getBoolean("snake.metrics");
+  public static final String OBJECT_NAME = "snake.winter:type=Metrics";
+
+  private static final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+  private static final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+  private Metrics() {
+  }
+
+  /**
+   * Returns the counter with the given name, creating it the first time.
+   */
+  public static Counter counter(String name) {
+    return counters.computeIfAbsent(name, Counter::new);
+  }
+
+  /**
+   * Returns the timer with the given name, creating it the first time.
+   */
+  public static Timer timer(String name) {
+    return timers.computeIfAbsent(name, Timer::new);
+  }
+
+  /**
+   * Returns the current value of every metric, sorted by name. A timer contributes its {@code .count} and
+   * {@code .nanos}. The {@code jvm.} gauges are the bytes allocated by the threads still alive and the collections and
+   * milliseconds spent in garbage collection since the JVM started.
+   */
+  public static SortedMap<String, Long> snapshot() {
+    SortedMap<String, Long> values = new TreeMap<>();
+    for (Counter c : counters.values()) {
+      values.put(c.getName(), c.sum());
+    }
+    for (Timer t : timers.values()) {
+      values.put(t.getName() + ".count", t.count());
+      values.put(t.getName() + ".nanos", t.totalNanos());
+    }
+
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+      if (allocations.isThreadAllocatedMemoryEnabled()) {
+        long bytes = 0;
+        for (long allocated : allocations.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+          // -1 for threads that died since the ids were read
+          bytes += Math.max(allocated, 0);
+        }
+        values.put("jvm.allocatedBytes", bytes);
+      }
+    }
+    long collections = 0;
+    long collectionMillis = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      collections += Math.max(gc.getCollectionCount(), 0);
+      collectionMillis += Math.max(gc.getCollectionTime(), 0);
+    }
+    values.put("jvm.gc.count", collections);
+    values.put("jvm.gc.millis", collectionMillis);
+    return values;
+  }
+
+  /**
+   * Registers the metrics with the platform MBean server as {@value #OBJECT_NAME}. Registering again does nothing.
+   */
+  public static void registerMBean() {
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(new MBean(), new ObjectName(OBJECT_NAME));
+    }
+    catch (InstanceAlreadyExistsException ex) {
+      // already registered
+    }
+    catch (JMException ex) {
+      throw new IllegalStateException("cannot register " + OBJECT_NAME, ex);
+    }
+  }
+
+  private static final class MBean implements MetricsMXBean {
+    @Override
+    public boolean isEnabled() {
+      return ENABLED;
+    }
+
+    @Override
+    public Map<String, Long> getValues() {
+      return snapshot();
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package snake.winter.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of {@link Metrics}, registered as {@value Metrics#OBJECT_NAME}.
+ */
+public interface MetricsMXBean {
+  /**
+   * Returns whether the hot paths are counting, that is whether the JVM was started with {@code -Dsnake.metrics=true}.
+   */
+  boolean isEnabled();
+
+  /**
+   * Returns every metric's current value by name.
+   */
+  Map<String, Long> getValues();
+}
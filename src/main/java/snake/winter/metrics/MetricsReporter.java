@@ -0,0 +1,73 @@
+package snake.winter.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs every metric at a fixed period on a daemon thread, each with its total and its rate per second over the last
+ * period, e.g. {@code game.moves=81234567 (+2345678/s)}. The log line is built and written only at the end of each
+ * period, so reporting costs the measured code nothing.
+ */
+public final class MetricsReporter implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(MetricsReporter.class);
+
+  private final ScheduledExecutorService scheduler;
+  private SortedMap<String, Long> last;
+  private long lastNanos;
+
+  private MetricsReporter() {
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "metrics-reporter");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.last = Metrics.snapshot();
+    this.lastNanos = System.nanoTime();
+  }
+
+  /**
+   * Registers the {@linkplain Metrics#registerMBean JMX bean} and starts logging every given number of seconds.
+   */
+  public static MetricsReporter start(long periodSeconds) {
+    Metrics.registerMBean();
+    MetricsReporter reporter = new MetricsReporter();
+    reporter.scheduler.scheduleAtFixedRate(reporter::report, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    return reporter;
+  }
+
+  /**
+   * Logs the metrics now, with rates since the last report.
+   */
+  public synchronized void report() {
+    SortedMap<String, Long> now = Metrics.snapshot();
+    long nanos = System.nanoTime();
+    log.info(format(last, now, nanos - lastNanos));
+    last = now;
+    lastNanos = nanos;
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * Formats the given values with their rates per second since the earlier ones, taken the given nanoseconds before.
+   */
+  static String format(Map<String, Long> before, SortedMap<String, Long> after, long elapsedNanos) {
+    StringBuilder line = new StringBuilder("metrics:");
+    double seconds = Math.max(elapsedNanos, 1) / 1e9;
+    for (Map.Entry<String, Long> e : after.entrySet()) {
+      long delta = e.getValue() - before.getOrDefault(e.getKey(), 0L);
+      line.append(' ').append(e.getKey()).append('=').append(e.getValue())
+          .append(" (+").append(Math.round(delta / seconds)).append("/s)");
+    }
+    return line.toString();
+  }
+}
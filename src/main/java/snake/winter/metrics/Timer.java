@@ -0,0 +1,53 @@
+package snake.winter.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how often something happens and how long it takes in total. Meant for coarse phases such as one step of
+ * evolution, where reading the clock twice costs nothing next to the work being timed.
+ */
+public final class Timer {
+  private final String name;
+  private final LongAdder count = new LongAdder();
+  private final LongAdder nanos = new LongAdder();
+
+  Timer(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns a start time for {@link #stop}, or 0 without reading the clock when metrics are disabled.
+   */
+  public static long start() {
+    return Metrics.ENABLED ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Records the time since the given {@link #start}, if metrics are enabled.
+   */
+  public void stop(long start) {
+    if (Metrics.ENABLED) {
+      record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Records one event that took the given number of nanoseconds.
+   */
+  public void record(long elapsedNanos) {
+    count.increment();
+    nanos.add(elapsedNanos);
+  }
+
+  public long count() {
+    return count.sum();
+  }
+
+  public long totalNanos() {
+    return nanos.sum();
+  }
+}
@@ -0,0 +1,102 @@
+package snake.winter.neuralnet;
+
+import com.google.errorprone.annotations.Immutable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The NEAT compatibility distance between two genomes:
+ * {@code excess * E / N + disjoint * D / N + weight * W}, where E and D count the excess and disjoint genes, W is the
+ * mean weight difference of matching genes, and N is the larger genome's gene count (or 1 for small genomes).
+ *
+ * <p>Both genomes keep their genes sorted by innovation number, so the distance takes a single merge pass and no
+ * allocation. When only a yes or no answer against a threshold is needed, the pass stops as soon as the genes seen so
+ * far already put the distance over it.
+ */
+@Immutable
+public class Compatibility {
+  static final int BYTES = 3 * 8 + 4;
+
+  private final double excess;
+  private final double disjoint;
+  private final double weight;
+  private final int normalizeAbove;
+
+  private Compatibility(double excess, double disjoint, double weight, int normalizeAbove) {
+    this.excess = excess;
+    this.disjoint = disjoint;
+    this.weight = weight;
+    this.normalizeAbove = normalizeAbove;
+  }
+
+  /**
+   * Returns the coefficients from the original NEAT paper: 1 for excess and disjoint genes, 0.4 for weights, with
+   * gene counts only normalized for genomes of 20 genes or more.
+   */
+  public static Compatibility compatibility() {
+    return compatibility(1, 1, 0.4, 20);
+  }
+
+  public static Compatibility compatibility(double excess, double disjoint, double weight, int normalizeAbove) {
+    return new Compatibility(excess, disjoint, weight, normalizeAbove);
+  }
+
+  void writeTo(ByteBuffer out) {
+    out.putDouble(excess).putDouble(disjoint).putDouble(weight).putInt(normalizeAbove);
+  }
+
+  static Compatibility readFrom(ByteBuffer in) {
+    return new Compatibility(in.getDouble(), in.getDouble(), in.getDouble(), in.getInt());
+  }
+
+  public double distance(Genome a, Genome b) {
+    return distance(a, b, Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Returns the distance between two genomes if it is at most the cutoff, and otherwise some value above the cutoff.
+   */
+  public double distance(Genome a, Genome b, double cutoff) {
+    int[] ia = a.innovations();
+    int[] ib = b.innovations();
+    int na = ia.length;
+    int nb = ib.length;
+    int longest = Math.max(na, nb);
+    double n = longest < normalizeAbove ? 1 : longest;
+
+    // at least this many genes of the longer genome cannot match anything
+    double unmatched = Math.min(excess, disjoint) * Math.abs(na - nb) / n;
+    if (unmatched > cutoff) {
+      return unmatched;
+    }
+
+    float[] wa = a.weights();
+    float[] wb = b.weights();
+    double disjointCutoff = cutoff * n / disjoint;
+    int i = 0;
+    int j = 0;
+    int disjoints = 0;
+    int matching = 0;
+    double weightDifference = 0;
+    while (i < na && j < nb) {
+      if (ia[i] == ib[j]) {
+        weightDifference += Math.abs(wa[i++] - wb[j++]);
+        matching++;
+      }
+      else {
+        if (ia[i] < ib[j]) {
+          i++;
+        }
+        else {
+          j++;
+        }
+        if (++disjoints > disjointCutoff) {
+          return disjoint * disjoints / n;
+        }
+      }
+    }
+    int excesses = (na - i) + (nb - j);
+    return excess * excesses / n + disjoint * disjoints / n
+               + (matching == 0 ? 0 : weight * weightDifference / matching);
+  }
+}
@@ -1,4 +1,68 @@
 package snake.winter.neuralnet;
 
+import com.google.errorprone.annotations.Immutable;
+
+/**
+ * A read-only view of one connection gene of a {@link Genome}. Genomes store their genes in parallel primitive
+ * arrays; this is only built on demand for inspection and printing.
+ */
+@Immutable
 public class Connection {
+  private final int innovation;
+  private final int in;
+  private final int out;
+  private final float weight;
+  private final boolean enabled;
+
+  private Connection(int innovation, int in, int out, float weight, boolean enabled) {
+    this.innovation = innovation;
+    this.in = in;
+    this.out = out;
+    this.weight = weight;
+    this.enabled = enabled;
+  }
+
+  public static Connection connection(int innovation, int in, int out, float weight, boolean enabled) {
+    return new Connection(innovation, in, out, weight, enabled);
+  }
+
+  public int getInnovation() {
+    return innovation;
+  }
+
+  public int getIn() {
+    return in;
+  }
+
+  public int getOut() {
+    return out;
+  }
+
+  public float getWeight() {
+    return weight;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public String toString() {
+    return "Connection(#" + innovation + ": " + in + " -> " + out + ", " + weight + (enabled ? "" : ", disabled") + ")";
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof Connection)) {
+      return false;
+    }
+    Connection c = (Connection) obj;
+    return c.innovation == innovation && c.in == in && c.out == out
+               && Float.compare(c.weight, weight) == 0 && c.enabled == enabled;
+  }
+
+  @Override
+  public int hashCode() {
+    return ((innovation * 31 + in) * 31 + out) * 31 + Float.floatToIntBits(weight) + (enabled ? 1 : 0);
+  }
 }
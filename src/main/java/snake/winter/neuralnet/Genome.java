@@ -0,0 +1,525 @@
+package snake.winter.neuralnet;
+
+import io.vavr.collection.List;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static snake.winter.neuralnet.Connection.connection;
+import static snake.winter.neuralnet.Node.node;
+
+/**
+ * An immutable NEAT genome: a feed-forward network described by its node ids and its connection genes.
+ *
+ * <p>There are no per-gene objects. The genes live in parallel primitive arrays (innovation number, in-node, out-node,
+ * weight, enabled) sorted by innovation number, and the node ids in a sorted {@code int} array, so crossover is a
+ * single linear merge and copying a genome is a handful of array copies. Arrays are never written after construction,
+ * which lets children share every array they did not change with their parent: a weight mutation only allocates new
+ * weights, and a crossover child only new weights and enabled flags.
+ *
+ * <p>Node ids follow {@link InnovationTracker}: inputs, then bias, then outputs, then hidden nodes. Every genome keeps
+ * its inputs, bias and outputs, and mutations never add a connection that would close a cycle.
+ */
+public final class Genome {
+  /**
+   * Weights of new genes are drawn uniformly from {@code [-WEIGHT_RANGE, WEIGHT_RANGE]}.
+   */
+  public static final float WEIGHT_RANGE = 1f;
+
+  /**
+   * The chance that a gene disabled in either parent is disabled in the child.
+   */
+  public static final double DISABLE_INHERITED = 0.75;
+
+  private final int inputs;
+  private final int outputs;
+  private final int[] nodes;
+  private final int[] innovations;
+  private final int[] ins;
+  private final int[] outs;
+  private final float[] weights;
+  private final boolean[] enabled;
+
+  private Genome(int inputs, int outputs, int[] nodes,
+                 int[] innovations, int[] ins, int[] outs, float[] weights, boolean[] enabled) {
+    this.inputs = inputs;
+    this.outputs = outputs;
+    this.nodes = nodes;
+    this.innovations = innovations;
+    this.ins = ins;
+    this.outs = outs;
+    this.weights = weights;
+    this.enabled = enabled;
+  }
+
+  /**
+   * Creates a genome with no hidden nodes that connects every input and the bias to every output with random weights.
+   */
+  public static Genome minimal(InnovationTracker tracker, SplittableRandom rng) {
+    int inputs = tracker.getInputs();
+    int outputs = tracker.getOutputs();
+    int[] nodes = new int[inputs + 1 + outputs];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = i;
+    }
+
+    int count = (inputs + 1) * outputs;
+    int[] innovations = new int[count];
+    int[] ins = new int[count];
+    int[] outs = new int[count];
+    float[] weights = new float[count];
+    boolean[] enabled = new boolean[count];
+    int g = 0;
+    for (int in = 0; in <= inputs; in++) {
+      for (int out = tracker.firstOutput(); out < tracker.firstHidden(); out++) {
+        innovations[g] = tracker.connection(in, out);
+        ins[g] = in;
+        outs[g] = out;
+        weights[g] = randomWeight(rng);
+        enabled[g] = true;
+        g++;
+      }
+    }
+    return sorted(inputs, outputs, nodes, innovations, ins, outs, weights, enabled);
+  }
+
+  /**
+   * Returns a genome with the given nodes and genes if they are valid: genes sorted by unique innovation number,
+   * nodes sorted and unique, every gene between known nodes and into a non-input node, and no cycles. The arrays are
+   * copied.
+   */
+  public static Genome genome(int inputs, int outputs, int[] nodes,
+                              int[] innovations, int[] ins, int[] outs, float[] weights, boolean[] enabled) {
+    int count = innovations.length;
+    if (ins.length != count || outs.length != count || weights.length != count || enabled.length != count) {
+      throw new IllegalArgumentException("gene arrays have different lengths");
+    }
+    for (int i = 0; i < inputs + 1 + outputs; i++) {
+      if (i >= nodes.length || nodes[i] != i) {
+        throw new IllegalArgumentException("genome is missing input, bias or output node " + i);
+      }
+    }
+    for (int i = 1; i < nodes.length; i++) {
+      if (nodes[i] <= nodes[i - 1]) {
+        throw new IllegalArgumentException("nodes are not sorted and unique");
+      }
+    }
+    for (int g = 0; g < count; g++) {
+      if (g > 0 && innovations[g] <= innovations[g - 1]) {
+        throw new IllegalArgumentException("genes are not sorted by unique innovation number");
+      }
+      if (Arrays.binarySearch(nodes, ins[g]) < 0 || Arrays.binarySearch(nodes, outs[g]) < 0 || outs[g] <= inputs) {
+        throw new IllegalArgumentException("gene " + innovations[g] + " does not connect valid nodes");
+      }
+    }
+    Genome genome = new Genome(inputs, outputs, nodes.clone(),
+        innovations.clone(), ins.clone(), outs.clone(), weights.clone(), enabled.clone());
+    for (int g = 0; g < count; g++) {
+      if (genome.reaches(outs[g], ins[g])) {
+        throw new IllegalArgumentException("gene " + innovations[g] + " closes a cycle");
+      }
+    }
+    return genome;
+  }
+
+  public int getInputs() {
+    return inputs;
+  }
+
+  public int getOutputs() {
+    return outputs;
+  }
+
+  public int nodeCount() {
+    return nodes.length;
+  }
+
+  /**
+   * Returns the id of the i'th node, in ascending id order.
+   */
+  public int getNodeId(int i) {
+    return nodes[i];
+  }
+
+  public Node getNode(int i) {
+    int id = nodes[i];
+    Node.Type type = id < inputs ? Node.Type.INPUT
+                         : id == inputs ? Node.Type.BIAS
+                               : id <= inputs + outputs ? Node.Type.OUTPUT
+                                     : Node.Type.HIDDEN;
+    return node(id, type);
+  }
+
+  public int connectionCount() {
+    return innovations.length;
+  }
+
+  public int getInnovation(int g) {
+    return innovations[g];
+  }
+
+  public int getIn(int g) {
+    return ins[g];
+  }
+
+  public int getOut(int g) {
+    return outs[g];
+  }
+
+  public float getWeight(int g) {
+    return weights[g];
+  }
+
+  public boolean isEnabled(int g) {
+    return enabled[g];
+  }
+
+  public Connection getConnection(int g) {
+    return connection(innovations[g], ins[g], outs[g], weights[g], enabled[g]);
+  }
+
+  /**
+   * Returns the backing innovation numbers, for fast merges within this package. Must not be written.
+   */
+  int[] innovations() {
+    return innovations;
+  }
+
+  /**
+   * Returns the backing weights, for fast merges within this package. Must not be written.
+   */
+  float[] weights() {
+    return weights;
+  }
+
+  /**
+   * Returns every node. This is built on demand.
+   */
+  public List<Node> getNodes() {
+    return List.range(0, nodes.length).map(this::getNode);
+  }
+
+  /**
+   * Returns every connection gene in innovation order. This is built on demand.
+   */
+  public List<Connection> getConnections() {
+    return List.range(0, innovations.length).map(this::getConnection);
+  }
+
+  /**
+   * Returns the number of bytes {@link #writeTo} takes.
+   */
+  public int byteSize() {
+    return 4 * 4 + 4 * nodes.length + 17 * innovations.length;
+  }
+
+  /**
+   * Writes this genome in a compact binary form: a small header, then each array in turn.
+   */
+  public void writeTo(ByteBuffer out) {
+    out.putInt(inputs).putInt(outputs).putInt(nodes.length).putInt(innovations.length);
+    putInts(out, nodes);
+    putInts(out, innovations);
+    putInts(out, ins);
+    putInts(out, outs);
+    out.asFloatBuffer().put(weights);
+    out.position(out.position() + 4 * weights.length);
+    for (boolean e : enabled) {
+      out.put(e ? (byte) 1 : (byte) 0);
+    }
+  }
+
+  /**
+   * Reads a genome written by {@link #writeTo}. The data is trusted as is, without the checks of
+   * {@link #genome}, so callers must make sure it is intact.
+   */
+  public static Genome readFrom(ByteBuffer in) {
+    final int inputs = in.getInt();
+    final int outputs = in.getInt();
+    int nodeCount = in.getInt();
+    int count = in.getInt();
+    final int[] nodes = getInts(in, nodeCount);
+    final int[] innovations = getInts(in, count);
+    final int[] ins = getInts(in, count);
+    final int[] outs = getInts(in, count);
+    float[] weights = new float[count];
+    in.asFloatBuffer().get(weights);
+    in.position(in.position() + 4 * count);
+    boolean[] enabled = new boolean[count];
+    for (int g = 0; g < count; g++) {
+      enabled[g] = in.get() != 0;
+    }
+    return new Genome(inputs, outputs, nodes, innovations, ins, outs, weights, enabled);
+  }
+
+  private static void putInts(ByteBuffer out, int[] values) {
+    out.asIntBuffer().put(values);
+    out.position(out.position() + 4 * values.length);
+  }
+
+  private static int[] getInts(ByteBuffer in, int count) {
+    int[] values = new int[count];
+    in.asIntBuffer().get(values);
+    in.position(in.position() + 4 * count);
+    return values;
+  }
+
+  /**
+   * Returns a copy of this genome where each weight, with the given chance, is either nudged by up to {@code power}
+   * in either direction or, with chance {@code resetRate}, replaced with a fresh random weight. Only the weights are
+   * copied; the structure is shared.
+   */
+  public Genome perturbWeights(SplittableRandom rng, double rate, double power, double resetRate) {
+    float[] newWeights = weights.clone();
+    for (int g = 0; g < newWeights.length; g++) {
+      if (rng.nextDouble() < rate) {
+        newWeights[g] = rng.nextDouble() < resetRate
+                            ? randomWeight(rng)
+                            : newWeights[g] + (float) ((rng.nextDouble() * 2 - 1) * power);
+      }
+    }
+    return new Genome(inputs, outputs, nodes, innovations, ins, outs, newWeights, enabled);
+  }
+
+  /**
+   * Returns a copy of this genome with a new random connection between two nodes that were not connected yet, or this
+   * genome if no such pair that keeps the network acyclic turns up within the given number of attempts.
+   */
+  public Genome addConnection(InnovationTracker tracker, SplittableRandom rng, int attempts) {
+    for (int attempt = 0; attempt < attempts; attempt++) {
+      int in = nodes[rng.nextInt(nodes.length)];
+      int out = nodes[rng.nextInt(nodes.length)];
+      if (isOutput(in) || out <= inputs || in == out || connected(in, out) || reaches(out, in)) {
+        continue;
+      }
+
+      int innovation = tracker.connection(in, out);
+      int at = -Arrays.binarySearch(innovations, innovation) - 1;
+      return new Genome(inputs, outputs, nodes,
+          insert(innovations, at, innovation), insert(ins, at, in), insert(outs, at, out),
+          insert(weights, at, randomWeight(rng)), insert(enabled, at, true));
+    }
+    return this;
+  }
+
+  /**
+   * Returns a copy of this genome where a random enabled connection is split by a new hidden node: the old connection
+   * is disabled, the link into the new node gets weight 1 and the link out of it the old weight, so the network
+   * starts out computing nearly the same thing. Returns this genome if there is nothing to split, or if the tracker
+   * already split that connection into a node this genome has.
+   */
+  public Genome addNode(InnovationTracker tracker, SplittableRandom rng) {
+    int live = 0;
+    for (boolean e : enabled) {
+      live += e ? 1 : 0;
+    }
+    if (live == 0) {
+      return this;
+    }
+    int split = -1;
+    for (int k = rng.nextInt(live); k >= 0; ) {
+      split++;
+      k -= enabled[split] ? 1 : 0;
+    }
+
+    int node = tracker.splitNode(innovations[split]);
+    int nodeAt = Arrays.binarySearch(nodes, node);
+    if (nodeAt >= 0) {
+      return this;
+    }
+    int into = tracker.connection(ins[split], node);
+    int outOf = tracker.connection(node, outs[split]);
+
+    boolean[] newEnabled = enabled.clone();
+    newEnabled[split] = false;
+    int first = Math.min(into, outOf);
+    int second = Math.max(into, outOf);
+    int firstAt = -Arrays.binarySearch(innovations, first) - 1;
+    int secondAt = -Arrays.binarySearch(innovations, second) - 1 + 1;
+    int[] newInnovations = insert(insert(innovations, firstAt, first), secondAt, second);
+    int[] newIns = insert(insert(ins, firstAt, first == into ? ins[split] : node),
+        secondAt, first == into ? node : ins[split]);
+    int[] newOuts = insert(insert(outs, firstAt, first == into ? node : outs[split]),
+        secondAt, first == into ? outs[split] : node);
+    float[] newWeights = insert(insert(weights, firstAt, first == into ? 1f : weights[split]),
+        secondAt, first == into ? weights[split] : 1f);
+    return new Genome(inputs, outputs, insert(nodes, -nodeAt - 1, node),
+        newInnovations, newIns, newOuts, newWeights, insert(insert(newEnabled, firstAt, true), secondAt, true));
+  }
+
+  /**
+   * Breeds two genomes with a single linear merge over their sorted genes. Matching genes take their weight from
+   * either parent at random; disjoint and excess genes come from the fitter parent only, so the child has exactly the
+   * fitter parent's structure and shares those arrays. When the parents are equally fit, pass them in either order.
+   */
+  public static Genome crossover(Genome fitter, Genome other, SplittableRandom rng) {
+    int count = fitter.innovations.length;
+    float[] weights = fitter.weights.clone();
+    boolean[] enabled = fitter.enabled.clone();
+    int[] otherInnovations = other.innovations;
+    int j = 0;
+    for (int g = 0; g < count; g++) {
+      int innovation = fitter.innovations[g];
+      while (j < otherInnovations.length && otherInnovations[j] < innovation) {
+        j++;
+      }
+      if (j == otherInnovations.length) {
+        break;
+      }
+      if (otherInnovations[j] == innovation) {
+        if (rng.nextBoolean()) {
+          weights[g] = other.weights[j];
+        }
+        if (!fitter.enabled[g] || !other.enabled[j]) {
+          enabled[g] = rng.nextDouble() >= DISABLE_INHERITED;
+        }
+      }
+    }
+    return new Genome(fitter.inputs, fitter.outputs, fitter.nodes,
+        fitter.innovations, fitter.ins, fitter.outs, weights, enabled);
+  }
+
+  private boolean isOutput(int node) {
+    return node > inputs && node <= inputs + outputs;
+  }
+
+  private boolean connected(int in, int out) {
+    for (int g = 0; g < ins.length; g++) {
+      if (ins[g] == in && outs[g] == out) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks whether there is a path from one node to another along any gene, enabled or not, so that re-enabling a
+   * gene later can never close a cycle either.
+   */
+  private boolean reaches(int from, int to) {
+    if (from == to) {
+      return true;
+    }
+    boolean[] seen = new boolean[nodes.length];
+    seen[Arrays.binarySearch(nodes, from)] = true;
+    for (boolean changed = true; changed; ) {
+      changed = false;
+      for (int g = 0; g < ins.length; g++) {
+        int out = Arrays.binarySearch(nodes, outs[g]);
+        if (!seen[out] && seen[Arrays.binarySearch(nodes, ins[g])]) {
+          if (outs[g] == to) {
+            return true;
+          }
+          seen[out] = true;
+          changed = true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static float randomWeight(SplittableRandom rng) {
+    return (float) ((rng.nextDouble() * 2 - 1) * WEIGHT_RANGE);
+  }
+
+  private static int[] insert(int[] a, int at, int value) {
+    int[] b = new int[a.length + 1];
+    System.arraycopy(a, 0, b, 0, at);
+    b[at] = value;
+    System.arraycopy(a, at, b, at + 1, a.length - at);
+    return b;
+  }
+
+  private static float[] insert(float[] a, int at, float value) {
+    float[] b = new float[a.length + 1];
+    System.arraycopy(a, 0, b, 0, at);
+    b[at] = value;
+    System.arraycopy(a, at, b, at + 1, a.length - at);
+    return b;
+  }
+
+  private static boolean[] insert(boolean[] a, int at, boolean value) {
+    boolean[] b = new boolean[a.length + 1];
+    System.arraycopy(a, 0, b, 0, at);
+    b[at] = value;
+    System.arraycopy(a, at, b, at + 1, a.length - at);
+    return b;
+  }
+
+  /**
+   * Sorts freshly built gene arrays by innovation number.
+   */
+  private static Genome sorted(int inputs, int outputs, int[] nodes,
+                               int[] innovations, int[] ins, int[] outs, float[] weights, boolean[] enabled) {
+    int count = innovations.length;
+    long[] order = new long[count];
+    for (int g = 0; g < count; g++) {
+      order[g] = ((long) innovations[g] << 32) | g;
+    }
+    Arrays.sort(order);
+    int[] sortedInnovations = new int[count];
+    int[] sortedIns = new int[count];
+    int[] sortedOuts = new int[count];
+    float[] sortedWeights = new float[count];
+    boolean[] sortedEnabled = new boolean[count];
+    for (int i = 0; i < count; i++) {
+      int g = (int) order[i];
+      sortedInnovations[i] = innovations[g];
+      sortedIns[i] = ins[g];
+      sortedOuts[i] = outs[g];
+      sortedWeights[i] = weights[g];
+      sortedEnabled[i] = enabled[g];
+    }
+    return new Genome(inputs, outputs, nodes,
+        sortedInnovations, sortedIns, sortedOuts, sortedWeights, sortedEnabled);
+  }
+
+  @Override
+  public String toString() {
+    return "Genome(nodes: " + getNodes() + ", connections: " + getConnections() + ")";
+  }
+
+  /**
+   * Returns a 64-bit hash of the whole genome, nodes, genes, weights and all, for caches keyed by genome. Equal genomes
+   * hash the same, and different ones collide with negligible probability, though a cache should still check
+   * {@link #equals} before trusting a match.
+   */
+  public long structuralHash() {
+    long h = mix(inputs, outputs);
+    h = mix(h, nodes.length);
+    for (int n : nodes) {
+      h = mix(h, n);
+    }
+    h = mix(h, innovations.length);
+    for (int g = 0; g < innovations.length; g++) {
+      h = mix(h, innovations[g]);
+      h = mix(h, ((long) ins[g] << 32) | (outs[g] & 0xffff_ffffL));
+      h = mix(h, ((long) Float.floatToIntBits(weights[g]) << 1) | (enabled[g] ? 1 : 0));
+    }
+    return h;
+  }
+
+  private static long mix(long h, long value) {
+    long x = (h ^ value) * 0x9e37_79b9_7f4a_7c15L;
+    return x ^ (x >>> 29);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof Genome)) {
+      return false;
+    }
+    Genome o = (Genome) obj;
+    return o.inputs == inputs && o.outputs == outputs && Arrays.equals(o.nodes, nodes)
+               && Arrays.equals(o.innovations, innovations) && Arrays.equals(o.ins, ins)
+               && Arrays.equals(o.outs, outs) && Arrays.equals(o.weights, weights)
+               && Arrays.equals(o.enabled, enabled);
+  }
+
+  @Override
+  public int hashCode() {
+    return ((Arrays.hashCode(nodes) * 31 + Arrays.hashCode(innovations)) * 31
+                + Arrays.hashCode(weights)) * 31 + Arrays.hashCode(enabled);
+  }
+}
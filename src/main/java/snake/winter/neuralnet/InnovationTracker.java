@@ -0,0 +1,129 @@
+package snake.winter.neuralnet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Hands out the global historical markings NEAT uses to line up genes of different genomes: one innovation number per
+ * distinct connection (in-node, out-node), and one new node id per connection that gets split by an add-node
+ * mutation. The same structural change always gets the same marking, no matter which genome makes it first.
+ *
+ * <p>Node ids are laid out as inputs {@code 0 .. inputs - 1}, then the bias node, then the outputs, then hidden nodes
+ * in the order they were created. One tracker is shared by a whole population and is safe to use from many threads.
+ */
+public final class InnovationTracker {
+  private final int inputs;
+  private final int outputs;
+  private final LongIntMap connections = new LongIntMap();
+  private final LongIntMap splits = new LongIntMap();
+  private int nextInnovation;
+  private int nextNode;
+
+  private InnovationTracker(int inputs, int outputs) {
+    if (inputs < 1 || outputs < 1) {
+      throw new IllegalArgumentException("networks need at least one input and one output");
+    }
+    this.inputs = inputs;
+    this.outputs = outputs;
+    this.nextNode = inputs + 1 + outputs;
+  }
+
+  public static InnovationTracker tracker(int inputs, int outputs) {
+    return new InnovationTracker(inputs, outputs);
+  }
+
+  public int getInputs() {
+    return inputs;
+  }
+
+  public int getOutputs() {
+    return outputs;
+  }
+
+  public int biasNode() {
+    return inputs;
+  }
+
+  public int firstOutput() {
+    return inputs + 1;
+  }
+
+  public int firstHidden() {
+    return inputs + 1 + outputs;
+  }
+
+  /**
+   * Returns the innovation number of the connection between two nodes, assigning a new one the first time.
+   */
+  public synchronized int connection(int in, int out) {
+    long key = ((long) in << 32) | (out & 0xffff_ffffL);
+    int innovation = connections.get(key);
+    if (innovation == LongIntMap.MISSING) {
+      innovation = nextInnovation++;
+      connections.put(key, innovation);
+    }
+    return innovation;
+  }
+
+  /**
+   * Returns the id of the hidden node created by splitting the connection with the given innovation number,
+   * assigning a new one the first time.
+   */
+  public synchronized int splitNode(int innovation) {
+    int node = splits.get(innovation);
+    if (node == LongIntMap.MISSING) {
+      node = nextNode++;
+      splits.put(innovation, node);
+    }
+    return node;
+  }
+
+  public synchronized int innovationCount() {
+    return nextInnovation;
+  }
+
+  public synchronized int nodeCount() {
+    return nextNode;
+  }
+
+  /**
+   * Returns the number of bytes {@link #writeTo} takes right now.
+   */
+  public synchronized int byteSize() {
+    return 6 * 4 + 12 * (connections.size() + splits.size());
+  }
+
+  /**
+   * Writes every marking handed out so far, so {@link #readFrom} can restore a tracker that carries on exactly where
+   * this one left off.
+   */
+  public synchronized void writeTo(ByteBuffer out) {
+    out.putInt(inputs).putInt(outputs).putInt(nextInnovation).putInt(nextNode);
+    writeMap(connections, out);
+    writeMap(splits, out);
+  }
+
+  public static InnovationTracker readFrom(ByteBuffer in) {
+    InnovationTracker tracker = new InnovationTracker(in.getInt(), in.getInt());
+    tracker.nextInnovation = in.getInt();
+    tracker.nextNode = in.getInt();
+    readMap(tracker.connections, in);
+    readMap(tracker.splits, in);
+    return tracker;
+  }
+
+  private static void writeMap(LongIntMap map, ByteBuffer out) {
+    long[] keys = new long[map.size()];
+    int[] values = new int[map.size()];
+    map.entries(keys, values);
+    out.putInt(keys.length);
+    for (int i = 0; i < keys.length; i++) {
+      out.putLong(keys[i]).putInt(values[i]);
+    }
+  }
+
+  private static void readMap(LongIntMap map, ByteBuffer in) {
+    for (int i = in.getInt(); i > 0; i--) {
+      map.put(in.getLong(), in.getInt());
+    }
+  }
+}
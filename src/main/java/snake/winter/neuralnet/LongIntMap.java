@@ -0,0 +1,91 @@
+package snake.winter.neuralnet;
+
+import java.util.Arrays;
+
+/**
+ * A minimal open-addressing hash map from {@code long} keys to non-negative {@code int} values, so lookups on the
+ * reproduction hot path neither box keys nor allocate entries. Not thread safe.
+ */
+final class LongIntMap {
+  static final int MISSING = -1;
+
+  private long[] keys;
+  private int[] values;
+  private int size;
+
+  LongIntMap() {
+    keys = new long[64];
+    values = new int[64];
+    Arrays.fill(values, MISSING);
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the value stored for the key, or {@link #MISSING}.
+   */
+  int get(long key) {
+    int mask = keys.length - 1;
+    for (int i = slot(key, mask); values[i] != MISSING; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return values[i];
+      }
+    }
+    return MISSING;
+  }
+
+  /**
+   * Stores a non-negative value for the key, replacing any previous one.
+   */
+  void put(long key, int value) {
+    if (2 * (size + 1) > keys.length) {
+      resize();
+    }
+    int mask = keys.length - 1;
+    int i = slot(key, mask);
+    for (; values[i] != MISSING; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        values[i] = value;
+        return;
+      }
+    }
+    keys[i] = key;
+    values[i] = value;
+    size++;
+  }
+
+  /**
+   * Copies every entry into the given arrays, which must hold at least {@link #size()} entries, in no particular
+   * order.
+   */
+  void entries(long[] keysOut, int[] valuesOut) {
+    int e = 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (values[i] != MISSING) {
+        keysOut[e] = keys[i];
+        valuesOut[e++] = values[i];
+      }
+    }
+  }
+
+  private void resize() {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new long[oldKeys.length * 2];
+    values = new int[oldValues.length * 2];
+    Arrays.fill(values, MISSING);
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != MISSING) {
+        put(oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+
+  private static int slot(long key, int mask) {
+    long h = key * 0x9e37_79b9_7f4a_7c15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+}
@@ -1,4 +1,53 @@
 package snake.winter.neuralnet;
 
+import com.google.errorprone.annotations.Immutable;
+
+/**
+ * A read-only view of one node of a {@link Genome}. Genomes store nodes as plain ids; this is only built on demand for
+ * inspection and printing.
+ */
+@Immutable
 public class Node {
+  public enum Type {
+    INPUT, BIAS, OUTPUT, HIDDEN
+  }
+
+  private final int id;
+  private final Type type;
+
+  private Node(int id, Type type) {
+    this.id = id;
+    this.type = type;
+  }
+
+  public static Node node(int id, Type type) {
+    return new Node(id, type);
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  @Override
+  public String toString() {
+    return "Node(" + id + ", " + type + ")";
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof Node)) {
+      return false;
+    }
+    Node n = (Node) obj;
+    return n.id == id && n.type == type;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * id + type.hashCode();
+  }
 }
@@ -0,0 +1,184 @@
+package snake.winter.neuralnet;
+
+import io.vavr.collection.Array;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Splits a population into species of mutually compatible genomes, generation after generation.
+ *
+ * <p>Each genome joins the first species whose representative lies within the compatibility threshold. Matching
+ * against last generation's representatives is independent per genome, so it runs on every core and exits each
+ * distance early once the threshold is passed. Genomes that match none of them then found new species one at a time:
+ * the first unmatched genome becomes a representative, and the remaining unmatched genomes are checked against it in
+ * parallel. Assignment only depends on the population, so it gives the same species on any number of cores.
+ *
+ * <p>After every generation the threshold moves one step toward the target species count: down when there are too
+ * few species, up when there are too many. Speciations are immutable; {@link #speciate} returns the next one.
+ */
+public final class Speciation {
+  private final Compatibility compatibility;
+  private final int targetSpecies;
+  private final double threshold;
+  private final double thresholdStep;
+  private final Array<Species> species;
+  private final int nextId;
+
+  private Speciation(Compatibility compatibility, int targetSpecies, double threshold, double thresholdStep,
+                     Array<Species> species, int nextId) {
+    this.compatibility = compatibility;
+    this.targetSpecies = targetSpecies;
+    this.threshold = threshold;
+    this.thresholdStep = thresholdStep;
+    this.species = species;
+    this.nextId = nextId;
+  }
+
+  /**
+   * Starts with no species, a threshold of 3 and a threshold step of 0.3.
+   */
+  public static Speciation speciation(Compatibility compatibility, int targetSpecies) {
+    return new Speciation(compatibility, targetSpecies, 3.0, 0.3, Array.empty(), 0);
+  }
+
+  public Speciation withThreshold(double newThreshold) {
+    return new Speciation(compatibility, targetSpecies, newThreshold, thresholdStep, species, nextId);
+  }
+
+  public Speciation withThresholdStep(double newThresholdStep) {
+    return new Speciation(compatibility, targetSpecies, threshold, newThresholdStep, species, nextId);
+  }
+
+  public Compatibility getCompatibility() {
+    return compatibility;
+  }
+
+  public int getTargetSpecies() {
+    return targetSpecies;
+  }
+
+  public double getThreshold() {
+    return threshold;
+  }
+
+  /**
+   * Returns the species of the last population speciated, or none before the first one.
+   */
+  public Array<Species> getSpecies() {
+    return species;
+  }
+
+  /**
+   * Assigns every genome of the population to a species, picks each species' next representative at random and
+   * adjusts the threshold.
+   */
+  public Speciation speciate(Array<Genome> population, SplittableRandom rng) {
+    Genome[] genomes = population.toJavaArray(Genome.class);
+    Genome[] representatives = new Genome[species.size() + genomes.length];
+    int[] ids = new int[representatives.length];
+    int known = 0;
+    for (Species s : species) {
+      representatives[known] = s.getRepresentative();
+      ids[known++] = s.getId();
+    }
+
+    int[] assignment = new int[genomes.length];
+    int previous = known;
+    IntStream.range(0, genomes.length).parallel()
+             .forEach(i -> assignment[i] = match(genomes[i], representatives, previous));
+
+    int[] unmatched = IntStream.range(0, genomes.length).filter(i -> assignment[i] < 0).toArray();
+    int nextSpeciesId = nextId;
+    while (unmatched.length > 0) {
+      int founder = unmatched[0];
+      int s = known++;
+      representatives[s] = genomes[founder];
+      ids[s] = nextSpeciesId++;
+      assignment[founder] = s;
+      Genome rep = genomes[founder];
+      double cutoff = threshold;
+      int[] rest = Arrays.copyOfRange(unmatched, 1, unmatched.length);
+      unmatched = IntStream.of(rest).parallel()
+                           .filter(i -> {
+                             if (compatibility.distance(genomes[i], rep, cutoff) <= cutoff) {
+                               assignment[i] = s;
+                               return false;
+                             }
+                             return true;
+                           })
+                           .toArray();
+    }
+
+    // gather members per species, keeping species in order and dropping the ones nobody joined
+    int[] sizes = new int[known];
+    for (int s : assignment) {
+      sizes[s]++;
+    }
+    int[][] members = new int[known][];
+    for (int s = 0; s < known; s++) {
+      members[s] = new int[sizes[s]];
+    }
+    int[] filled = new int[known];
+    for (int i = 0; i < assignment.length; i++) {
+      int s = assignment[i];
+      members[s][filled[s]++] = i;
+    }
+    Species[] next = new Species[known];
+    int count = 0;
+    for (int s = 0; s < known; s++) {
+      if (sizes[s] > 0) {
+        next[count++] = new Species(ids[s], genomes[members[s][rng.nextInt(sizes[s])]], members[s]);
+      }
+    }
+
+    double newThreshold = count < targetSpecies ? Math.max(thresholdStep, threshold - thresholdStep)
+                              : count > targetSpecies ? threshold + thresholdStep
+                                    : threshold;
+    return new Speciation(compatibility, targetSpecies, newThreshold, thresholdStep,
+        Array.of(next).take(count), nextSpeciesId);
+  }
+
+  /**
+   * Returns the number of bytes {@link #writeTo} takes.
+   */
+  public int byteSize() {
+    return Compatibility.BYTES + 4 + 8 + 8 + 4 + 4 + species.map(Species::byteSize).sum().intValue();
+  }
+
+  /**
+   * Writes the settings, the threshold reached so far and every species with its representative and members.
+   */
+  public void writeTo(ByteBuffer out) {
+    compatibility.writeTo(out);
+    out.putInt(targetSpecies).putDouble(threshold).putDouble(thresholdStep).putInt(nextId).putInt(species.size());
+    species.forEach(s -> s.writeTo(out));
+  }
+
+  public static Speciation readFrom(ByteBuffer in) {
+    Compatibility compatibility = Compatibility.readFrom(in);
+    int targetSpecies = in.getInt();
+    double threshold = in.getDouble();
+    double thresholdStep = in.getDouble();
+    int nextId = in.getInt();
+    Species[] species = new Species[in.getInt()];
+    for (int s = 0; s < species.length; s++) {
+      species[s] = Species.readFrom(in);
+    }
+    return new Speciation(compatibility, targetSpecies, threshold, thresholdStep, Array.of(species), nextId);
+  }
+
+  /**
+   * Returns the first of the given representatives within the threshold of the genome, or -1.
+   */
+  private int match(Genome genome, Genome[] representatives, int count) {
+    for (int s = 0; s < count; s++) {
+      if (compatibility.distance(genome, representatives[s], threshold) <= threshold) {
+        return s;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,78 @@
+package snake.winter.neuralnet;
+
+import io.vavr.collection.Array;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One species of a speciated population: its id, which survives from generation to generation, the genome new
+ * genomes are compared against, and the population indices of its current members.
+ */
+public final class Species {
+  private final int id;
+  private final Genome representative;
+  private final int[] members;
+
+  Species(int id, Genome representative, int[] members) {
+    this.id = id;
+    this.representative = representative;
+    this.members = members;
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  /**
+   * Returns the genome the next generation is compared against: a random member of this generation.
+   */
+  public Genome getRepresentative() {
+    return representative;
+  }
+
+  public int size() {
+    return members.length;
+  }
+
+  /**
+   * Returns the population index of the k'th member, in ascending order.
+   */
+  public int getMember(int k) {
+    return members[k];
+  }
+
+  /**
+   * Returns the population indices of every member, in ascending order. This is built on demand.
+   */
+  public Array<Integer> getMembers() {
+    return Array.ofAll(members);
+  }
+
+  int byteSize() {
+    return 4 + representative.byteSize() + 4 + 4 * members.length;
+  }
+
+  void writeTo(ByteBuffer out) {
+    out.putInt(id);
+    representative.writeTo(out);
+    out.putInt(members.length);
+    for (int m : members) {
+      out.putInt(m);
+    }
+  }
+
+  static Species readFrom(ByteBuffer in) {
+    int id = in.getInt();
+    Genome representative = Genome.readFrom(in);
+    int[] members = new int[in.getInt()];
+    for (int k = 0; k < members.length; k++) {
+      members[k] = in.getInt();
+    }
+    return new Species(id, representative, members);
+  }
+
+  @Override
+  public String toString() {
+    return "Species(" + id + ", " + members.length + " members)";
+  }
+}
@@ -0,0 +1,122 @@
+package snake.winter.replay;
+
+import snake.winter.game.MutableBoard;
+import snake.winter.game.MutableBoard.FoodPlacement;
+import snake.winter.game.Point.Direction;
+import snake.winter.game.Rules;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Records one game at a time into memory, ready for a {@link ReplayWriter} to append to a replay file in one go.
+ *
+ * <p>Moves are packed four to a byte. Every {@code keyframeInterval} moves the recorder also saves the whole board and
+ * the generator state, so a {@link ReplayPlayer} can jump into the middle of a long game without replaying it from
+ * the start. A recorder reuses its buffers from game to game, so each thread playing games should own one.
+ */
+public final class GameRecorder {
+  private final int keyframeInterval;
+  private byte[] moves = new byte[256];
+  private ByteBuffer keyframes = ByteBuffer.allocate(4096);
+  private int moveCount;
+  private int keyframeCount;
+
+  private long id;
+  private int game;
+  private long seed;
+  private int height;
+  private int width;
+  private FoodPlacement placement;
+  private Rules rules;
+  private int score;
+
+  /**
+   * Creates a recorder that saves a keyframe every given number of moves, or never if that is 0.
+   */
+  public GameRecorder(int keyframeInterval) {
+    if (keyframeInterval < 0) {
+      throw new IllegalArgumentException("keyframe interval must not be negative");
+    }
+    this.keyframeInterval = keyframeInterval;
+  }
+
+  /**
+   * Starts recording a new game, played on the given fresh board started from a {@link ReplayRandom} with the given
+   * seed. The board's rules are recorded with it, so the replay ends the way the game did.
+   *
+   * @param id   a label for the game, such as the seed it was scored with
+   * @param game the number of the game among those with the same label
+   */
+  public void start(long id, int game, long seed, MutableBoard board) {
+    this.id = id;
+    this.game = game;
+    this.seed = seed;
+    this.height = board.getHeight();
+    this.width = board.getWidth();
+    this.placement = board.getFoodPlacement();
+    this.rules = board.getRules();
+    this.score = board.getScore();
+    moveCount = 0;
+    keyframeCount = 0;
+    keyframes.clear();
+  }
+
+  /**
+   * Records a move, after it has been applied to the board with the given generator.
+   */
+  public void move(Direction d, MutableBoard board, ReplayRandom rng) {
+    if ((moveCount >> 2) == moves.length) {
+      moves = Arrays.copyOf(moves, moves.length * 2);
+    }
+    int shift = (moveCount & 3) << 1;
+    moves[moveCount >> 2] = (byte) ((shift == 0 ? 0 : moves[moveCount >> 2]) | (d.ordinal() << shift));
+    moveCount++;
+    score = board.getScore();
+
+    if (keyframeInterval > 0 && moveCount % keyframeInterval == 0 && board.isLive()) {
+      int size = board.byteSize();
+      if (keyframes.remaining() < 4 + 8 + 4 + size) {
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(2 * keyframes.capacity(), keyframes.position() + 16 + size));
+        keyframes.flip();
+        keyframes = bigger.put(keyframes);
+      }
+      keyframes.putInt(moveCount).putLong(rng.getState()).putInt(size);
+      board.writeTo(keyframes);
+      keyframeCount++;
+    }
+  }
+
+  public int moveCount() {
+    return moveCount;
+  }
+
+  /**
+   * Returns the recorded game as a replay, without going through a file.
+   */
+  public GameReplay toReplay() {
+    ByteBuffer buffer = ByteBuffer.allocate(byteSize());
+    writeTo(buffer);
+    buffer.flip();
+    return GameReplay.readFrom(buffer);
+  }
+
+  /**
+   * Returns the number of bytes the recorded game takes in a replay file.
+   */
+  int byteSize() {
+    return 8 + 4 + 8 + 4 + 4 + 1 + Rules.BYTES + 4 + 4 + 4 + ((moveCount + 3) >> 2) + 4 + keyframes.position();
+  }
+
+  /**
+   * Writes the recorded game in the layout {@link GameReplay} reads.
+   */
+  void writeTo(ByteBuffer out) {
+    out.putLong(id).putInt(game).putLong(seed).putInt(height).putInt(width).put((byte) placement.ordinal());
+    rules.writeTo(out);
+    out.putInt(keyframeInterval).putInt(moveCount).putInt(score)
+       .put(moves, 0, (moveCount + 3) >> 2)
+       .putInt(keyframeCount)
+       .put(keyframes.array(), 0, keyframes.position());
+  }
+}
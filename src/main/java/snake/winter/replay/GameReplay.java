@@ -0,0 +1,163 @@
+package snake.winter.replay;
+
+import snake.winter.game.MutableBoard;
+import snake.winter.game.MutableBoard.FoodPlacement;
+import snake.winter.game.Point.Direction;
+import snake.winter.game.Rules;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * One recorded game: the seed, board size and rules it started from, every move the snake made and the keyframes saved
+ * along the way. Use {@link #player()} to watch it.
+ */
+public final class GameReplay {
+  private static final Direction[] directions = Direction.values();
+
+  private final long id;
+  private final int game;
+  private final long seed;
+  private final int height;
+  private final int width;
+  private final FoodPlacement placement;
+  private final Rules rules;
+  private final int keyframeInterval;
+  private final int moveCount;
+  private final int finalScore;
+  private final byte[] moves;
+  // keyframe k was saved after keyframeMoves[k] moves, with the generator in keyframeStates[k]
+  private final int[] keyframeMoves;
+  private final long[] keyframeStates;
+  private final byte[][] keyframeBoards;
+
+  private GameReplay(long id, int game, long seed, int height, int width, FoodPlacement placement,
+                     Rules rules, int keyframeInterval, int moveCount, int finalScore, byte[] moves,
+                     int[] keyframeMoves, long[] keyframeStates, byte[][] keyframeBoards) {
+    this.id = id;
+    this.game = game;
+    this.seed = seed;
+    this.height = height;
+    this.width = width;
+    this.placement = placement;
+    this.rules = rules;
+    this.keyframeInterval = keyframeInterval;
+    this.moveCount = moveCount;
+    this.finalScore = finalScore;
+    this.moves = moves;
+    this.keyframeMoves = keyframeMoves;
+    this.keyframeStates = keyframeStates;
+    this.keyframeBoards = keyframeBoards;
+  }
+
+  /**
+   * Reads a game in the layout {@link GameRecorder#writeTo} writes.
+   */
+  static GameReplay readFrom(ByteBuffer in) {
+    long id = in.getLong();
+    int game = in.getInt();
+    long seed = in.getLong();
+    int height = in.getInt();
+    int width = in.getInt();
+    FoodPlacement placement = FoodPlacement.values()[in.get()];
+    Rules rules = Rules.readFrom(in);
+    int keyframeInterval = in.getInt();
+    int moveCount = in.getInt();
+    int finalScore = in.getInt();
+    byte[] moves = new byte[(moveCount + 3) >> 2];
+    in.get(moves);
+    int keyframes = in.getInt();
+    int[] keyframeMoves = new int[keyframes];
+    long[] keyframeStates = new long[keyframes];
+    byte[][] keyframeBoards = new byte[keyframes][];
+    for (int k = 0; k < keyframes; k++) {
+      keyframeMoves[k] = in.getInt();
+      keyframeStates[k] = in.getLong();
+      keyframeBoards[k] = new byte[in.getInt()];
+      in.get(keyframeBoards[k]);
+    }
+    return new GameReplay(id, game, seed, height, width, placement, rules, keyframeInterval, moveCount, finalScore,
+        moves, keyframeMoves, keyframeStates, keyframeBoards);
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public int getGame() {
+    return game;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public FoodPlacement getFoodPlacement() {
+    return placement;
+  }
+
+  public Rules getRules() {
+    return rules;
+  }
+
+  public int getKeyframeInterval() {
+    return keyframeInterval;
+  }
+
+  public int moveCount() {
+    return moveCount;
+  }
+
+  public int getFinalScore() {
+    return finalScore;
+  }
+
+  /**
+   * Returns the i'th move of the game.
+   */
+  public Direction getMove(int i) {
+    if (i < 0 || i >= moveCount) {
+      throw new IndexOutOfBoundsException("move " + i + " of " + moveCount);
+    }
+    return directions[(moves[i >> 2] >> ((i & 3) << 1)) & 3];
+  }
+
+  public int keyframeCount() {
+    return keyframeMoves.length;
+  }
+
+  /**
+   * Returns the index of the last keyframe saved at or before the given move, or -1 if there is none.
+   */
+  int keyframeAtOrBefore(int move) {
+    int k = Arrays.binarySearch(keyframeMoves, move);
+    return k >= 0 ? k : -k - 2;
+  }
+
+  int getKeyframeMove(int k) {
+    return keyframeMoves[k];
+  }
+
+  long getKeyframeState(int k) {
+    return keyframeStates[k];
+  }
+
+  MutableBoard getKeyframeBoard(int k) {
+    return MutableBoard.readFrom(ByteBuffer.wrap(keyframeBoards[k]));
+  }
+
+  /**
+   * Returns a player positioned at the start of the game.
+   */
+  public ReplayPlayer player() {
+    return new ReplayPlayer(this);
+  }
+}
@@ -0,0 +1,88 @@
+package snake.winter.replay;
+
+import snake.winter.game.Board;
+import snake.winter.game.MutableBoard;
+import snake.winter.game.Point.Direction;
+
+/**
+ * Plays a {@link GameReplay} back move by move, rebuilding the board exactly as it was during the game.
+ *
+ * <p>Food placement is replayed from the recorded seed and the game is played by its recorded rules, so only the moves
+ * need storing. {@link #seek} jumps to any move by restoring the closest earlier keyframe and stepping on from there.
+ */
+public final class ReplayPlayer {
+  private final GameReplay replay;
+  private final ReplayRandom rng = new ReplayRandom();
+  private MutableBoard board;
+  private int move;
+
+  ReplayPlayer(GameReplay replay) {
+    this.replay = replay;
+    restart();
+  }
+
+  public GameReplay getReplay() {
+    return replay;
+  }
+
+  /**
+   * Returns the number of moves played so far.
+   */
+  public int getMove() {
+    return move;
+  }
+
+  public boolean isFinished() {
+    return move == replay.moveCount();
+  }
+
+  /**
+   * Returns a snapshot of the board after the moves played so far.
+   */
+  public Board getBoard() {
+    return board.toBoard();
+  }
+
+  /**
+   * Plays the next move, unless the game is already over.
+   *
+   * @return whether a move was played
+   */
+  public boolean step() {
+    if (isFinished()) {
+      return false;
+    }
+    Direction d = replay.getMove(move++);
+    board.updateBoard(d, rng);
+    return true;
+  }
+
+  /**
+   * Moves to the position after the given number of moves, clamped to the length of the game.
+   */
+  public void seek(int target) {
+    target = Math.max(0, Math.min(target, replay.moveCount()));
+    int k = replay.keyframeAtOrBefore(target);
+    int from = k < 0 ? 0 : replay.getKeyframeMove(k);
+    if (target < move || from > move) {
+      if (k < 0) {
+        restart();
+      }
+      else {
+        board = replay.getKeyframeBoard(k);
+        rng.setState(replay.getKeyframeState(k));
+        move = from;
+      }
+    }
+    while (move < target) {
+      step();
+    }
+  }
+
+  private void restart() {
+    rng.setSeed(replay.getSeed());
+    board = MutableBoard.newStartBoard(replay.getHeight(), replay.getWidth(), rng, replay.getFoodPlacement());
+    board.setRules(replay.getRules());
+    move = 0;
+  }
+}
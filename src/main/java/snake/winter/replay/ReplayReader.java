@@ -0,0 +1,101 @@
+package snake.winter.replay;
+
+import io.vavr.collection.Array;
+import io.vavr.control.Option;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the games of a replay file one at a time, in the order they were written.
+ *
+ * <p>Only one record is held in memory at once, so files with millions of games stream through in constant space.
+ */
+public final class ReplayReader implements Closeable {
+  private final Path path;
+  private final FileChannel channel;
+  private final ByteBuffer length = ByteBuffer.allocate(4);
+
+  private ReplayReader(Path path, FileChannel channel) {
+    this.path = path;
+    this.channel = channel;
+  }
+
+  /**
+   * Opens a replay file and checks its header.
+   *
+   * @throws IOException if the file cannot be read, is not a replay or has an unknown version
+   */
+  public static ReplayReader open(Path path) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(ReplayWriter.HEADER_BYTES);
+      if (!fill(channel, header) || header.getInt() != ReplayWriter.MAGIC) {
+        throw new IOException(path + " is not a replay");
+      }
+      int version = header.getInt();
+      if (version != ReplayWriter.VERSION) {
+        throw new IOException(path + " has replay version " + version + ", expected " + ReplayWriter.VERSION);
+      }
+      return new ReplayReader(path, channel);
+    }
+    catch (IOException | RuntimeException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Reads every game in a replay file.
+   */
+  public static Array<GameReplay> readAll(Path path) throws IOException {
+    try (ReplayReader reader = open(path)) {
+      Array<GameReplay> games = Array.empty();
+      for (Option<GameReplay> game = reader.next(); game.isDefined(); game = reader.next()) {
+        games = games.append(game.get());
+      }
+      return games;
+    }
+  }
+
+  /**
+   * Reads the next game, or returns none at the end of the file.
+   *
+   * @throws EOFException if the file ends part way through a game
+   */
+  public Option<GameReplay> next() throws IOException {
+    length.clear();
+    if (!fill(channel, length)) {
+      if (length.position() == 0) {
+        return Option.none();
+      }
+      throw new EOFException(path + " ends part way through a game");
+    }
+    ByteBuffer record = ByteBuffer.allocate(length.getInt());
+    if (!fill(channel, record)) {
+      throw new EOFException(path + " ends part way through a game");
+    }
+    return Option.some(GameReplay.readFrom(record));
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  // reads until the buffer is full, then flips it; false if the channel ran out first
+  private static boolean fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        return false;
+      }
+    }
+    buffer.flip();
+    return true;
+  }
+}
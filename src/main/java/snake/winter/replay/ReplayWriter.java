@@ -0,0 +1,89 @@
+package snake.winter.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends recorded games to a replay file.
+ *
+ * <p>The file is a short header (magic and format version) followed by one length-prefixed record per game, so it can
+ * be read back as a stream while it is still being written. Records are gathered in a large buffer and only reach the
+ * channel when it fills up, so threads playing games mostly just copy a few hundred bytes under a lock. Writing is
+ * safe from many threads at once; records from different threads interleave whole.
+ */
+public final class ReplayWriter implements Closeable {
+  static final int MAGIC = 0x534e_4b52;
+  static final int VERSION = 3;
+  static final int HEADER_BYTES = 4 + 4;
+  private static final int BUFFER_BYTES = 1 << 20;
+
+  private final FileChannel channel;
+  private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+  private long games;
+
+  private ReplayWriter(FileChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * Creates a replay file at the given path, replacing any file already there.
+   */
+  public static ReplayWriter create(Path path) throws IOException {
+    ReplayWriter writer = new ReplayWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING));
+    writer.buffer.putInt(MAGIC).putInt(VERSION);
+    return writer;
+  }
+
+  /**
+   * Appends the game the recorder holds.
+   */
+  public synchronized void write(GameRecorder recorder) throws IOException {
+    int size = recorder.byteSize();
+    if (buffer.remaining() < 4 + size) {
+      drain();
+      if (buffer.capacity() < 4 + size) {
+        buffer = ByteBuffer.allocate(4 + size);
+      }
+    }
+    buffer.putInt(size);
+    recorder.writeTo(buffer);
+    games++;
+  }
+
+  /**
+   * Returns the number of games written so far.
+   */
+  public synchronized long gameCount() {
+    return games;
+  }
+
+  /**
+   * Writes every buffered game through to the file.
+   */
+  public synchronized void flush() throws IOException {
+    drain();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      drain();
+    }
+    finally {
+      channel.close();
+    }
+  }
+
+  private void drain() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+}
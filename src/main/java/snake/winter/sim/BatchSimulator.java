@@ -0,0 +1,136 @@
+package snake.winter.sim;
+
+import snake.winter.controller.Controller;
+import snake.winter.game.MutableBoard;
+import snake.winter.game.MutableBoard.FoodPlacement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+/**
+ * Plays a batch of seeded games headlessly on every core, as fast as the engine allows.
+ *
+ * <p>Game {@code i} is seeded with {@code seed + i}, both for its food and for the controller built for it, so a game
+ * plays out the same way however many threads run the batch. Each thread reuses one {@link MutableBoard} and one
+ * {@link Random} for all the games it plays. Simulators are immutable; the {@code with} methods return copies.
+ */
+public class BatchSimulator {
+  private final int height;
+  private final int width;
+  private final LongFunction<Controller> controllers;
+  private final int games;
+  private final int threads;
+  private final long seed;
+  private final int maxMoves;
+  private final FoodPlacement placement;
+
+  private BatchSimulator(int height, int width, LongFunction<Controller> controllers, int games, int threads,
+                         long seed, int maxMoves, FoodPlacement placement) {
+    this.height = height;
+    this.width = width;
+    this.controllers = controllers;
+    this.games = games;
+    this.threads = threads;
+    this.seed = seed;
+    this.maxMoves = maxMoves;
+    this.placement = placement;
+  }
+
+  /**
+   * Creates a simulator for boards of the given size, building a controller for each game from its seed. By default
+   * it plays 1000 games on every core, and cuts games off after 100 moves per cell of the board.
+   */
+  public static BatchSimulator simulator(int height, int width, LongFunction<Controller> controllers) {
+    return new BatchSimulator(height, width, controllers, 1000, Runtime.getRuntime().availableProcessors(),
+        0, 100 * height * width, FoodPlacement.ORDERED);
+  }
+
+  public BatchSimulator withGames(int newGames) {
+    return new BatchSimulator(height, width, controllers, newGames, threads, seed, maxMoves, placement);
+  }
+
+  public BatchSimulator withThreads(int newThreads) {
+    return new BatchSimulator(height, width, controllers, games, newThreads, seed, maxMoves, placement);
+  }
+
+  public BatchSimulator withSeed(long newSeed) {
+    return new BatchSimulator(height, width, controllers, games, threads, newSeed, maxMoves, placement);
+  }
+
+  public BatchSimulator withMaxMoves(int newMaxMoves) {
+    return new BatchSimulator(height, width, controllers, games, threads, seed, newMaxMoves, placement);
+  }
+
+  public BatchSimulator withFoodPlacement(FoodPlacement newPlacement) {
+    return new BatchSimulator(height, width, controllers, games, threads, seed, maxMoves, newPlacement);
+  }
+
+  /**
+   * Plays every game and reports on them. Blocks until the whole batch is done.
+   */
+  public SimulationReport run() {
+    int[] scores = new int[games];
+    int[] moves = new int[games];
+    AtomicInteger nextGame = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      long start = System.nanoTime();
+      List<Future<LatencyHistogram>> workers = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        workers.add(pool.submit(() -> playGames(nextGame, scores, moves)));
+      }
+
+      LatencyHistogram latencies = new LatencyHistogram();
+      for (Future<LatencyHistogram> worker : workers) {
+        latencies.merge(worker.get());
+      }
+      return new SimulationReport(threads, System.nanoTime() - start, scores, moves, latencies);
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("simulation was interrupted", ex);
+    }
+    catch (ExecutionException ex) {
+      throw new RuntimeException("simulation failed", ex.getCause());
+    }
+    finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Claims games one at a time until there are none left, recording each game's result in its own slot.
+   */
+  private LatencyHistogram playGames(AtomicInteger nextGame, int[] scores, int[] moves) {
+    LatencyHistogram latencies = new LatencyHistogram();
+    Random rng = new Random();
+    MutableBoard board = null;
+    for (int game = nextGame.getAndIncrement(); game < games; game = nextGame.getAndIncrement()) {
+      long gameSeed = seed + game;
+      rng.setSeed(gameSeed);
+      if (board == null) {
+        board = MutableBoard.newStartBoard(height, width, rng, placement);
+      }
+      else {
+        board.reset(rng);
+      }
+
+      Controller controller = controllers.apply(gameSeed);
+      while (board.isLive() && board.getMoves() < maxMoves) {
+        long before = System.nanoTime();
+        board.updateBoard(controller.nextMove(board), rng);
+        latencies.record(System.nanoTime() - before);
+      }
+      scores[game] = board.getScore();
+      moves[game] = board.getMoves();
+    }
+    return latencies;
+  }
+}
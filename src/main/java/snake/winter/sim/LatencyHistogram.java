@@ -0,0 +1,77 @@
+package snake.winter.sim;
+
+/**
+ * A fixed-size log-linear histogram of latencies in nanoseconds. Every power of two is split into 16 buckets, so
+ * recording is a couple of bit operations and percentiles are accurate to within about 6%.
+ */
+public class LatencyHistogram {
+  private static final int SUB_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+  private final long[] counts = new long[64 * SUB_BUCKETS];
+  private long count;
+  private long max;
+
+  /**
+   * Records one latency. Negative values, which only a misbehaving clock can produce, count as zero.
+   */
+  public void record(long nanos) {
+    long v = Math.max(0, nanos);
+    counts[bucket(v)]++;
+    count++;
+    max = Math.max(max, v);
+  }
+
+  /**
+   * Adds every latency recorded by another histogram to this one.
+   */
+  public void merge(LatencyHistogram other) {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+    count += other.count;
+    max = Math.max(max, other.max);
+  }
+
+  public long count() {
+    return count;
+  }
+
+  public long max() {
+    return max;
+  }
+
+  /**
+   * Returns the latency below which the given fraction of recorded latencies fall, rounded up to the top of its
+   * bucket. Returns 0 when nothing has been recorded.
+   */
+  public long percentile(double fraction) {
+    long rank = (long) Math.ceil(fraction * count);
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank && seen > 0) {
+        return Math.min(max, upperBound(i));
+      }
+    }
+    return max;
+  }
+
+  private static int bucket(long v) {
+    if (v < SUB_BUCKETS) {
+      return (int) v;
+    }
+    int exp = 63 - Long.numberOfLeadingZeros(v);
+    int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+    return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  private static long upperBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exp = bucket / SUB_BUCKETS + SUB_BITS - 1;
+    long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exp - SUB_BITS);
+    return lower + (1L << (exp - SUB_BITS)) - 1;
+  }
+}
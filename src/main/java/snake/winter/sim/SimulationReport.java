@@ -0,0 +1,94 @@
+package snake.winter.sim;
+
+import java.util.Arrays;
+
+/**
+ * What a batch of headless games did and how fast it went.
+ */
+public class SimulationReport {
+  private final int threads;
+  private final long wallNanos;
+  private final int[] scores;
+  private final int[] moves;
+  private final LatencyHistogram latencies;
+
+  SimulationReport(int threads, long wallNanos, int[] scores, int[] moves, LatencyHistogram latencies) {
+    this.threads = threads;
+    this.wallNanos = wallNanos;
+    this.scores = scores;
+    this.moves = moves;
+    this.latencies = latencies;
+  }
+
+  public int getGames() {
+    return scores.length;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public long getWallNanos() {
+    return wallNanos;
+  }
+
+  public long getTotalMoves() {
+    return Arrays.stream(moves).asLongStream().sum();
+  }
+
+  /**
+   * Returns the final score of the given game.
+   */
+  public int getScore(int game) {
+    return scores[game];
+  }
+
+  /**
+   * Returns how many moves the given game lasted.
+   */
+  public int getMoves(int game) {
+    return moves[game];
+  }
+
+  public LatencyHistogram getLatencies() {
+    return latencies;
+  }
+
+  public double gamesPerSecond() {
+    return scores.length * 1e9 / wallNanos;
+  }
+
+  public double movesPerSecond() {
+    return getTotalMoves() * 1e9 / wallNanos;
+  }
+
+  public double meanScore() {
+    return Arrays.stream(scores).average().orElse(0);
+  }
+
+  /**
+   * Returns the score reached or beaten by the given fraction of games, so 0.5 is the median.
+   */
+  public int scorePercentile(double fraction) {
+    if (scores.length == 0) {
+      return 0;
+    }
+    int[] sorted = scores.clone();
+    Arrays.sort(sorted);
+    return sorted[Math.min(sorted.length - 1, (int) Math.floor(fraction * sorted.length))];
+  }
+
+  @Override
+  public String toString() {
+    return String.format("SimulationReport(%d games on %d threads in %.3f s%n"
+                             + "\t%.1f games/s, %.0f moves/s, %d moves in total%n"
+                             + "\tmove latency (ns): p50 %d, p90 %d, p99 %d, p99.9 %d, max %d%n"
+                             + "\tscore: min %d, p25 %d, median %d, p75 %d, p99 %d, max %d, mean %.2f%n)",
+        getGames(), threads, wallNanos / 1e9,
+        gamesPerSecond(), movesPerSecond(), getTotalMoves(),
+        latencies.percentile(0.5), latencies.percentile(0.9), latencies.percentile(0.99),
+        latencies.percentile(0.999), latencies.max(),
+        scorePercentile(0), scorePercentile(0.25), scorePercentile(0.5), scorePercentile(0.75),
+        scorePercentile(0.99), scorePercentile(1), meanScore());
+  }
+}
@@ -0,0 +1,125 @@
+package snake.winter.sim;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import io.vavr.collection.Array;
+import snake.winter.controller.Controller;
+import snake.winter.controller.GreedyController;
+import snake.winter.controller.MctsController;
+import snake.winter.controller.PathfindingController;
+import snake.winter.controller.RandomController;
+import snake.winter.controller.ScriptedController;
+import snake.winter.game.MutableBoard.FoodPlacement;
+import snake.winter.game.Point.Direction;
+import snake.winter.metrics.Metrics;
+import snake.winter.metrics.MetricsReporter;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.function.LongFunction;
+
+/**
+ * Command-line entry point for the headless simulator. Run it with {@code gradle runSimulator -Pargs="..."}, or with
+ * {@code --help} to list the options.
+ */
+public class SimulatorMain {
+  enum ControllerType {
+    RANDOM, GREEDY, SCRIPTED, PATHFINDING, MCTS
+  }
+
+  @Parameter(names = {"--games", "-n"}, description = "Number of games to play")
+  private int games = 1000;
+
+  @Parameter(names = "--height", description = "Board height")
+  private int height = 25;
+
+  @Parameter(names = "--width", description = "Board width")
+  private int width = 25;
+
+  @Parameter(names = "--seed", description = "Seed of the first game; game i uses seed + i")
+  private long seed = 0;
+
+  @Parameter(names = {"--threads", "-t"}, description = "Worker threads, defaults to one per core")
+  private int threads = Runtime.getRuntime().availableProcessors();
+
+  @Parameter(names = {"--controller", "-c"},
+      description = "Controller to play with: RANDOM, GREEDY, SCRIPTED, PATHFINDING or MCTS")
+  private ControllerType controller = ControllerType.GREEDY;
+
+  @Parameter(names = "--script", description = "Direction file for the SCRIPTED controller")
+  private String script;
+
+  @Parameter(names = "--mcts-iterations", description = "Search iterations per move for the MCTS controller")
+  private int mctsIterations = 1000;
+
+  @Parameter(names = "--max-moves", description = "Cut games off after this many moves, defaults to 100 per cell")
+  private int maxMoves = 0;
+
+  @Parameter(names = "--food", description = "Food placement: ORDERED (same as Board) or INDEXED (constant time)")
+  private FoodPlacement food = FoodPlacement.ORDERED;
+
+  @Parameter(names = "--warmup", description = "Games to play before measuring, to let the JIT settle")
+  private int warmup = 1000;
+
+  @Parameter(names = "--metrics-period", description = "Seconds between metrics logs, when run with -Dsnake.metrics=true")
+  private int metricsPeriod = 10;
+
+  @Parameter(names = {"--help", "-h"}, help = true, description = "Show this message")
+  private boolean help;
+
+  public static void main(String[] args) throws IOException {
+    SimulatorMain main = new SimulatorMain();
+    JCommander commander = JCommander.newBuilder().addObject(main).programName("runSimulator").build();
+    commander.parse(args);
+    if (main.help) {
+      commander.usage();
+      return;
+    }
+    main.run();
+  }
+
+  private void run() throws IOException {
+    BatchSimulator simulator = BatchSimulator.simulator(height, width, controllers())
+                                   .withThreads(threads)
+                                   .withSeed(seed)
+                                   .withFoodPlacement(food);
+    if (maxMoves > 0) {
+      simulator = simulator.withMaxMoves(maxMoves);
+    }
+
+    if (warmup > 0) {
+      simulator.withGames(warmup).withSeed(seed - warmup).run();
+    }
+    if (!Metrics.ENABLED) {
+      System.out.println(simulator.withGames(games).run());
+      return;
+    }
+    try (MetricsReporter reporter = MetricsReporter.start(metricsPeriod)) {
+      System.out.println(simulator.withGames(games).run());
+      reporter.report();
+    }
+  }
+
+  private LongFunction<Controller> controllers() throws IOException {
+    switch (controller) {
+      case RANDOM:
+        return gameSeed -> new RandomController(new Random(~gameSeed));
+      case GREEDY:
+        return gameSeed -> new GreedyController();
+      case PATHFINDING:
+        return gameSeed -> new PathfindingController();
+      case MCTS:
+        // one search thread per game, since the simulator already plays a game per core
+        return gameSeed -> MctsController.mcts().withIterations(mctsIterations).withSeed(gameSeed);
+      case SCRIPTED:
+        if (script == null) {
+          throw new IllegalArgumentException("the SCRIPTED controller needs a --script file");
+        }
+        Array<Direction> moves = ScriptedController.load(Paths.get(script));
+        return gameSeed -> new ScriptedController(moves);
+      default:
+        throw new IllegalArgumentException("unknown controller: " + controller);
+    }
+  }
+}
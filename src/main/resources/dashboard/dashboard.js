@@ -0,0 +1,100 @@
+// Draws the dashboard from the server-sent events of /events: "stats" carries new generations, "frames" a batch of
+// delta frames of the champion's game. Cells are numbered column by column (x * height + y) and hold 0 (empty),
+// 1 (head), 2 (body) or 3 (food).
+(function () {
+  var COLORS = ["#000", "#00f", "#0c0", "#f00"];
+  var board = document.getElementById("board");
+  var boardContext = board.getContext("2d");
+  var generations = [];
+  var cells = [];
+  var height = 0;
+  var width = 0;
+  var box = 1;
+
+  function resetBoard(frame) {
+    height = frame.height;
+    width = frame.width;
+    box = Math.max(1, Math.floor(Math.min(board.width / width, board.height / height)));
+    cells = new Array(height * width).fill(0);
+    boardContext.fillStyle = COLORS[0];
+    boardContext.fillRect(0, 0, board.width, board.height);
+  }
+
+  function drawCell(cell, contents) {
+    var x = Math.floor(cell / height) * box;
+    var y = (cell % height) * box;
+    boardContext.fillStyle = COLORS[0];
+    boardContext.fillRect(x, y, box, box);
+    if (contents === 3) {
+      boardContext.fillStyle = COLORS[3];
+      boardContext.beginPath();
+      boardContext.arc(x + box / 2, y + box / 2, box / 2, 0, 2 * Math.PI);
+      boardContext.fill();
+    }
+    else if (contents !== 0) {
+      boardContext.fillStyle = COLORS[contents];
+      boardContext.fillRect(x + 1, y + 1, box - 1, box - 1);
+    }
+  }
+
+  function applyFrame(frame) {
+    if (frame.reset) {
+      resetBoard(frame);
+    }
+    for (var i = 0; i < frame.cells.length; i += 2) {
+      cells[frame.cells[i]] = frame.cells[i + 1];
+      drawCell(frame.cells[i], frame.cells[i + 1]);
+    }
+    document.getElementById("generation").textContent = "Generation: " + frame.generation;
+    document.getElementById("score").textContent = "Score: " + frame.score;
+    document.getElementById("moves").textContent = "Moves: " + frame.moves;
+  }
+
+  function plot(id, series) {
+    var canvas = document.getElementById(id);
+    var context = canvas.getContext("2d");
+    context.fillStyle = "#000";
+    context.fillRect(0, 0, canvas.width, canvas.height);
+    if (generations.length === 0) {
+      return;
+    }
+    var max = 0;
+    series.forEach(function (s) {
+      generations.forEach(function (g) {
+        max = Math.max(max, g[s.key]);
+      });
+    });
+    max = max || 1;
+    var step = canvas.width / Math.max(1, generations.length - 1);
+    series.forEach(function (s) {
+      context.strokeStyle = s.color;
+      context.beginPath();
+      generations.forEach(function (g, i) {
+        var y = canvas.height - 10 - (canvas.height - 20) * g[s.key] / max;
+        if (i === 0) {
+          context.moveTo(0, y);
+        }
+        else {
+          context.lineTo(i * step, y);
+        }
+      });
+      context.stroke();
+    });
+    context.fillStyle = "#fff";
+    context.fillText(max.toFixed(2), 4, 12);
+  }
+
+  function drawCharts() {
+    plot("fitness", [{key: "best", color: "#0c0"}, {key: "mean", color: "#888"}]);
+    plot("species", [{key: "species", color: "#09f"}]);
+  }
+
+  var events = new EventSource("/events");
+  events.addEventListener("stats", function (e) {
+    generations = generations.concat(JSON.parse(e.data));
+    drawCharts();
+  });
+  events.addEventListener("frames", function (e) {
+    JSON.parse(e.data).forEach(applyFrame);
+  });
+}());
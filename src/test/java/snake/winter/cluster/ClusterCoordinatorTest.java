@@ -0,0 +1,233 @@
+package snake.winter.cluster;
+
+import io.vavr.collection.Array;
+import org.junit.jupiter.api.Test;
+import snake.winter.controller.NetworkController;
+import snake.winter.evolution.Evaluation;
+import snake.winter.evolution.Fitness;
+import snake.winter.evolution.FitnessFunction;
+import snake.winter.evolution.GameFitness;
+import snake.winter.evolution.PopulationEvaluator;
+import snake.winter.neuralnet.Genome;
+import snake.winter.neuralnet.InnovationTracker;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClusterCoordinatorTest {
+  private static final int testSeed = 121345;
+  private static final GameFitness fitness = GameFitness.gameFitness(8, 8, 2);
+
+  @Test
+  public void protocolRoundTrips() {
+    Array<Genome> genomes = population(5);
+    long[] seeds = {1, 2, 3, 4, 5};
+    ByteBuffer batch = Protocol.batch(7, genomes.toJavaArray(Genome.class), seeds, 1, 4);
+    batch.flip();
+    Protocol.Batch decoded = Protocol.readBatch(batch);
+    assertEquals(7, decoded.batch);
+    assertEquals(genomes.subSequence(1, 4), decoded.genomes);
+    assertEquals(3, decoded.seeds[1]);
+
+    Array<Fitness> results = Array.of(Fitness.fitness(1.5, 2, 3, 40), Fitness.fitness(0, 2, 0, 7));
+    ByteBuffer frame = Protocol.results(9, 12345, results);
+    frame.flip();
+    Protocol.Results r = Protocol.readResults(frame);
+    assertEquals(9, r.batch);
+    assertEquals(12345, r.busyNanos);
+    assertEquals(results, Array.of(r.fitness));
+
+    ByteBuffer corrupt = ByteBuffer.allocate(16).putInt(1).putLong(0).putInt(1_000_000);
+    corrupt.flip();
+    assertThrows(IllegalArgumentException.class, () -> Protocol.readResults(corrupt));
+  }
+
+  @Test
+  public void matchesLocalEvaluation() throws Exception {
+    Array<Genome> population = population(60);
+    Evaluation reference = reference(population);
+
+    try (ClusterCoordinator coordinator = start();
+         ClusterWorker<GameFitness.Workspace> a = connect(coordinator, fitness, 1);
+         ClusterWorker<GameFitness.Workspace> b = connect(coordinator, fitness, 2);
+         ClusterWorker<GameFitness.Workspace> c = connect(coordinator, fitness, 1)) {
+      assertTrue(coordinator.awaitWorkers(3, 10, TimeUnit.SECONDS));
+      for (int run = 0; run < 2; run++) {
+        Evaluation evaluation = coordinator.evaluate(population, testSeed);
+        assertEquals(reference.getFitness(), evaluation.getFitness());
+        assertEquals(reference.getSeed(17), evaluation.getSeed(17));
+        assertEquals(0, evaluation.getStats().getSteals());
+        assertEquals(4, evaluation.getStats().getThreads());
+      }
+
+      Array<WorkerStats> workers = coordinator.getWorkers();
+      assertEquals(3, workers.size());
+      assertEquals(120, workers.map(WorkerStats::getGenomes).sum().longValue());
+      assertEquals(120, a.getGenomes() + b.getGenomes() + c.getGenomes());
+      for (WorkerStats w : workers) {
+        assertEquals(0, w.getQueuedBatches());
+        assertTrue(w.genomesPerSecond() >= 0);
+      }
+    }
+  }
+
+  @Test
+  public void reassignsTheBatchesOfLostWorkers() throws Exception {
+    Array<Genome> population = population(60);
+    Evaluation reference = reference(population);
+
+    AtomicReference<ClusterWorker<GameFitness.Workspace>> doomed = new AtomicReference<>();
+    AtomicInteger scored = new AtomicInteger();
+    FitnessFunction<GameFitness.Workspace> dying = new FitnessFunction<GameFitness.Workspace>() {
+      @Override
+      public GameFitness.Workspace newWorkspace() {
+        return fitness.newWorkspace();
+      }
+
+      @Override
+      public Fitness evaluate(Genome genome, long seed, GameFitness.Workspace workspace) {
+        if (scored.incrementAndGet() == 5) {
+          // drop the connection in the middle of a batch, as if the process had been killed
+          doomed.get().close();
+        }
+        return fitness.evaluate(genome, seed, workspace);
+      }
+    };
+
+    try (ClusterCoordinator coordinator = start()) {
+      // an evaluation started before any worker connects waits for them
+      CompletableFuture<Evaluation> evaluation = CompletableFuture.supplyAsync(
+          () -> coordinator.evaluate(population, testSeed));
+      doomed.set(connect(coordinator, dying, 2));
+      try (ClusterWorker<GameFitness.Workspace> survivor = connect(coordinator, fitness, 1)) {
+        Evaluation result = evaluation.get(60, TimeUnit.SECONDS);
+        assertEquals(reference.getFitness(), result.getFitness());
+        assertTrue(result.getStats().getSteals() > 0);
+        assertTrue(survivor.getGenomes() > 0);
+        assertEquals(1, coordinator.getWorkers().size());
+        assertEquals(reference.getFitness(), coordinator.evaluate(population, testSeed).getFitness());
+      }
+    }
+  }
+
+  @Test
+  public void reassignsTheBatchesOfBrokenWorkers() throws Exception {
+    Array<Genome> population = population(60);
+    Evaluation reference = reference(population);
+
+    FitnessFunction<GameFitness.Workspace> broken = new FitnessFunction<GameFitness.Workspace>() {
+      @Override
+      public GameFitness.Workspace newWorkspace() {
+        return fitness.newWorkspace();
+      }
+
+      @Override
+      public Fitness evaluate(Genome genome, long seed, GameFitness.Workspace workspace) {
+        throw new IllegalStateException("cannot score " + genome);
+      }
+    };
+
+    try (ClusterCoordinator coordinator = start();
+         ClusterWorker<GameFitness.Workspace> failing = connect(coordinator, broken, 1)) {
+      assertTrue(coordinator.awaitWorkers(1, 10, TimeUnit.SECONDS));
+      CompletableFuture<Evaluation> evaluation = CompletableFuture.supplyAsync(
+          () -> coordinator.evaluate(population, testSeed));
+      // the failing worker leaves rather than sit on its batches
+      failing.awaitFinish();
+      ClusterWorker<GameFitness.Workspace> survivor = connect(coordinator, fitness, 1);
+      try {
+        Evaluation result = evaluation.get(60, TimeUnit.SECONDS);
+        assertEquals(reference.getFitness(), result.getFitness());
+        assertEquals(0, failing.getGenomes());
+        assertEquals(Array.of(60L), coordinator.getWorkers().map(WorkerStats::getGenomes));
+      }
+      finally {
+        survivor.close();
+      }
+    }
+  }
+
+  @Test
+  public void reassignsTheBatchesOfSilentWorkers() throws Exception {
+    Array<Genome> population = population(60);
+    Evaluation reference = reference(population);
+
+    try (ClusterCoordinator coordinator = ClusterCoordinator.start(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), fitness.toString(), 2, 500, TimeUnit.MILLISECONDS);
+         Socket silent = new Socket(InetAddress.getLoopbackAddress(), coordinator.getPort())) {
+      // a worker that joins and takes batches, but never answers, as if its process had been stopped
+      DataOutputStream out = new DataOutputStream(silent.getOutputStream());
+      DataInputStream in = new DataInputStream(silent.getInputStream());
+      Protocol.write(out, Protocol.HELLO, Protocol.hello(2, fitness.toString()));
+      assertEquals(Protocol.WELCOME, Protocol.read(in).get());
+      assertTrue(coordinator.awaitWorkers(1, 10, TimeUnit.SECONDS));
+      CompletableFuture<Evaluation> evaluation = CompletableFuture.supplyAsync(
+          () -> coordinator.evaluate(population, testSeed));
+      assertEquals(Protocol.BATCH, Protocol.read(in).get());
+
+      try (ClusterWorker<GameFitness.Workspace> survivor = connect(coordinator, fitness, 1)) {
+        Evaluation result = evaluation.get(60, TimeUnit.SECONDS);
+        assertEquals(reference.getFitness(), result.getFitness());
+        assertTrue(result.getStats().getSteals() > 0);
+        assertEquals(1, coordinator.getWorkers().size());
+        assertTrue(survivor.getGenomes() > 0);
+      }
+      // the coordinator hung up on the silent worker
+      silent.setSoTimeout(10_000);
+      assertThrows(IOException.class, () -> {
+        while (true) {
+          Protocol.read(in);
+        }
+      });
+    }
+  }
+
+  @Test
+  public void refusesWorkersScoringDifferently() throws Exception {
+    try (ClusterCoordinator coordinator = start()) {
+      GameFitness other = GameFitness.gameFitness(9, 9, 2);
+      IOException e = assertThrows(IOException.class, () -> ClusterWorker.connect(
+          new InetSocketAddress(InetAddress.getLoopbackAddress(), coordinator.getPort()), other.toString(), other, 1));
+      assertTrue(e.getMessage().contains("refused"));
+      assertFalse(coordinator.awaitWorkers(1, 100, TimeUnit.MILLISECONDS));
+    }
+  }
+
+  private static ClusterCoordinator start() throws IOException {
+    return ClusterCoordinator.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), fitness.toString(), 2);
+  }
+
+  private static ClusterWorker<GameFitness.Workspace> connect(ClusterCoordinator coordinator,
+                                                              FitnessFunction<GameFitness.Workspace> function,
+                                                              int threads) throws IOException {
+    return ClusterWorker.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), coordinator.getPort()),
+        fitness.toString(), function, threads);
+  }
+
+  private static Evaluation reference(Array<Genome> population) {
+    try (PopulationEvaluator<GameFitness.Workspace> evaluator = PopulationEvaluator.evaluator(fitness, 1)) {
+      return evaluator.evaluate(population, testSeed);
+    }
+  }
+
+  private static Array<Genome> population(int size) {
+    InnovationTracker tracker = InnovationTracker.tracker(NetworkController.INPUTS, NetworkController.OUTPUTS);
+    SplittableRandom rng = new SplittableRandom(testSeed);
+    return Array.fill(size, () -> Genome.minimal(tracker, rng).addNode(tracker, rng));
+  }
+}
@@ -0,0 +1,76 @@
+package snake.winter.controller;
+
+import org.junit.jupiter.api.Test;
+import snake.winter.game.MutableBoard;
+import snake.winter.game.Point.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MctsControllerTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void repeatableTests() {
+    // a single thread with a fixed number of iterations plays the same game every time
+    assertEquals(play(MctsController.mcts().withIterations(100).withSeed(testSeed), 60),
+        play(MctsController.mcts().withIterations(100).withSeed(testSeed), 60));
+  }
+
+  @Test
+  public void beatsGreedyTests() {
+    int mcts = 0;
+    int greedy = 0;
+    for (int game = 0; game < 4; game++) {
+      Random rng = new Random(testSeed + game);
+      MutableBoard board = MutableBoard.newStartBoard(8, 8, rng);
+      try (MctsController controller = MctsController.mcts().withIterations(150).withSeed(game)) {
+        while (board.isLive() && board.getMoves() < 1000) {
+          board.updateBoard(controller.nextMove(board), rng);
+        }
+      }
+      mcts += board.getScore();
+      greedy += score(new GreedyController(), testSeed + game);
+    }
+    assertTrue(mcts > greedy, mcts + " vs " + greedy);
+  }
+
+  @Test
+  public void parallelTests() {
+    Random rng = new Random(testSeed);
+    MutableBoard board = MutableBoard.newStartBoard(8, 8, rng);
+    try (MctsController controller = MctsController.mcts().withThreads(3).withBudget(2).withNodes(1000)) {
+      for (int m = 0; m < 30 && board.isLive(); m++) {
+        board.updateBoard(controller.nextMove(board), rng);
+      }
+    }
+    assertTrue(board.isLive());
+  }
+
+  private static List<Direction> play(MctsController controller, int moves) {
+    Random rng = new Random(testSeed);
+    MutableBoard board = MutableBoard.newStartBoard(8, 8, rng);
+    List<Direction> played = new ArrayList<>();
+    try (MctsController c = controller) {
+      while (board.isLive() && played.size() < moves) {
+        Direction d = c.nextMove(board);
+        played.add(d);
+        board.updateBoard(d, rng);
+      }
+    }
+    return played;
+  }
+
+  private static int score(Controller controller, long seed) {
+    Random rng = new Random(seed);
+    MutableBoard board = MutableBoard.newStartBoard(8, 8, rng);
+    while (board.isLive() && board.getMoves() < 1000) {
+      board.updateBoard(controller.nextMove(board), rng);
+    }
+    return board.getScore();
+  }
+}
@@ -0,0 +1,59 @@
+package snake.winter.controller;
+
+import org.junit.jupiter.api.Test;
+import snake.winter.game.Grid;
+import snake.winter.game.MutableBoard;
+import snake.winter.game.Point.Direction;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PathfindingControllerTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void neverDiesWithASafeMoveTests() {
+    for (int game = 0; game < 20; game++) {
+      Random rng = new Random(testSeed + game);
+      MutableBoard board = MutableBoard.newStartBoard(8, 9, rng);
+      Controller controller = new PathfindingController();
+      while (board.isLive() && board.getMoves() < 5000) {
+        Direction move = controller.nextMove(board);
+        boolean anySafe = false;
+        for (Direction d : Direction.values()) {
+          anySafe |= safe(board, d);
+        }
+        assertTrue(!anySafe || safe(board, move), board.toBoard().toString());
+        board.updateBoard(move, rng);
+      }
+      // a snake that only ever eats when it can still reach its tail fills most of the board
+      assertTrue(board.getScore() >= 8 * 9 / 2, "scored only " + board.getScore());
+    }
+  }
+
+  @Test
+  public void beatsGreedyTests() {
+    long pathfinding = 0;
+    long greedy = 0;
+    for (int game = 0; game < 20; game++) {
+      pathfinding += play(new PathfindingController(), testSeed + game);
+      greedy += play(new GreedyController(), testSeed + game);
+    }
+    assertTrue(pathfinding > 2 * greedy, pathfinding + " vs " + greedy);
+  }
+
+  private static boolean safe(MutableBoard board, Direction d) {
+    int next = board.getGrid().neighbor(board.getHeadCell(), d);
+    return next != Grid.WALL && !board.isOccupied(next);
+  }
+
+  private static int play(Controller controller, long seed) {
+    Random rng = new Random(seed);
+    MutableBoard board = MutableBoard.newStartBoard(12, 12, rng);
+    while (board.isLive() && board.getMoves() < 12 * 12 * 100) {
+      board.updateBoard(controller.nextMove(board), rng);
+    }
+    return board.getScore();
+  }
+}
@@ -0,0 +1,139 @@
+package snake.winter.controller;
+
+import org.junit.jupiter.api.Test;
+import snake.winter.game.Board;
+import snake.winter.game.MutableBoard;
+import snake.winter.game.Point;
+import snake.winter.game.Point.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static snake.winter.game.Point.point;
+
+public class SensorSetTest {
+  private static final int testSeed = 121345;
+  private static final int[][] rays = {{0, -1}, {1, -1}, {1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}};
+
+  @Test
+  public void matchesReferenceTests() {
+    SensorSet window = new WindowSensors(5);
+    SensorSet all = SensorSet.concat(new RaySensors(), new NeighborSensors(), window, new GridSensors(9, 12));
+    assertEquals(32 + 8 + 50 + 3 * 9 * 12, all.size());
+
+    for (Board board : boards(9, 12)) {
+      // pad both ends, so writing past the set's own slots would show
+      float[] out = new float[all.size() + 2];
+      all.sense(MutableBoard.fromBoard(board), out, 1);
+      float[] expected = new float[all.size() + 2];
+      int at = 1;
+      at = rays(board, expected, at);
+      at = neighbors(board, expected, at);
+      at = window(board, 5, expected, at);
+      grid(board, expected, at);
+      assertArrayEquals(expected, out, board.toString());
+    }
+  }
+
+  @Test
+  public void windowSizeTests() {
+    assertThrows(IllegalArgumentException.class, () -> new WindowSensors(4));
+    assertThrows(IllegalArgumentException.class, () -> new GridSensors(5, 5)
+        .sense(MutableBoard.newStartBoard(6, 6, new Random(testSeed)), new float[75], 0));
+  }
+
+  /**
+   * Plays a few seeded games toward the food, keeping every board along the way.
+   */
+  private static List<Board> boards(int height, int width) {
+    List<Board> boards = new ArrayList<>();
+    Random moves = new Random(testSeed);
+    for (int game = 0; game < 20; game++) {
+      Random rng = new Random(testSeed + game);
+      Board board = Board.newStartBoard(height, width, rng);
+      while (board.isLive()) {
+        boards.add(board);
+        Point head = board.getSnake().getHead();
+        Point food = board.getFood();
+        Direction d = moves.nextInt(5) == 0 ? Direction.values()[moves.nextInt(4)]
+                          : food.x != head.x ? (food.x > head.x ? Direction.EAST : Direction.WEST)
+                                : (food.y > head.y ? Direction.SOUTH : Direction.NORTH);
+        board = board.updateBoard(d, rng);
+      }
+    }
+    return boards;
+  }
+
+  private static boolean onBoard(Board board, Point p) {
+    return p.x >= 0 && p.x < board.getWidth() && p.y >= 0 && p.y < board.getHeight();
+  }
+
+  private static int rays(Board board, float[] out, int at) {
+    Point head = board.getSnake().getHead();
+    for (int[] ray : rays) {
+      int distance = 1;
+      float food = 0;
+      float body = 0;
+      for (Point p = head.add(point(ray[0], ray[1])); onBoard(board, p); p = p.add(point(ray[0], ray[1]))) {
+        if (p.equals(board.getFood())) {
+          food = 1f / distance;
+        }
+        if (body == 0 && board.getSnake().contains(p)) {
+          body = 1f / distance;
+        }
+        distance++;
+      }
+      out[at++] = 1f / distance;
+      out[at++] = food;
+      out[at++] = body;
+    }
+    for (Direction d : Direction.values()) {
+      out[at + d.ordinal()] = d == board.getSnake().getDir() ? 1f : 0f;
+      out[at + 4 + d.ordinal()] = towardFood(board, d) ? 1f : 0f;
+    }
+    return at + 8;
+  }
+
+  private static int neighbors(Board board, float[] out, int at) {
+    Point head = board.getSnake().getHead();
+    for (Direction d : Direction.values()) {
+      Point next = head.add(d);
+      out[at + d.ordinal()] = !onBoard(board, next) || board.getSnake().contains(next) ? 1f : 0f;
+      out[at + 4 + d.ordinal()] = towardFood(board, d) ? 1f : 0f;
+    }
+    return at + 8;
+  }
+
+  private static int window(Board board, int size, float[] out, int at) {
+    Point head = board.getSnake().getHead();
+    for (int dy = -size / 2; dy <= size / 2; dy++) {
+      for (int dx = -size / 2; dx <= size / 2; dx++) {
+        Point p = point(head.x + dx, head.y + dy);
+        out[at++] = !onBoard(board, p) || board.getSnake().contains(p) ? 1f : 0f;
+        out[at++] = p.equals(board.getFood()) ? 1f : 0f;
+      }
+    }
+    return at;
+  }
+
+  private static void grid(Board board, float[] out, int at) {
+    for (int x = 0; x < board.getWidth(); x++) {
+      for (int y = 0; y < board.getHeight(); y++) {
+        Point p = point(x, y);
+        out[at++] = board.getSnake().contains(p) ? 1f : 0f;
+        out[at++] = p.equals(board.getSnake().getHead()) ? 1f : 0f;
+        out[at++] = p.equals(board.getFood()) ? 1f : 0f;
+      }
+    }
+  }
+
+  private static boolean towardFood(Board board, Direction d) {
+    Point head = board.getSnake().getHead();
+    Point food = board.getFood();
+    return (food.x - head.x) * d.getDir().x + (food.y - head.y) * d.getDir().y > 0;
+  }
+}
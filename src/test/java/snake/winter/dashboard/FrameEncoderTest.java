@@ -0,0 +1,90 @@
+package snake.winter.dashboard;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import snake.winter.game.Board;
+import snake.winter.game.BoardDiff;
+import snake.winter.game.Grid;
+import snake.winter.game.Point;
+import snake.winter.game.Point.Direction;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FrameEncoderTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void deltaFramesRebuildBoards() {
+    for (int seed = 0; seed < 20; seed++) {
+      Random rng = new Random(testSeed + seed);
+      Random moves = new Random(seed);
+      FrameEncoder encoder = new FrameEncoder();
+      Board board = Board.newStartBoard(12, 15, rng);
+      byte[] view = null;
+      // skip a varying number of boards between frames, the way a slow viewer does
+      int skip = 1 + seed % 4;
+      for (int i = 0; board.isLive() && i < 300; i++) {
+        if (i % skip == 0) {
+          JSONObject frame = encoder.encode(board, 7);
+          assertEquals(i == 0, frame.getBoolean("reset"));
+          if (frame.getBoolean("reset")) {
+            view = new byte[frame.getInt("height") * frame.getInt("width")];
+          }
+          JSONArray cells = frame.getJSONArray("cells");
+          for (int c = 0; c < cells.length(); c += 2) {
+            view[cells.getInt(c)] = (byte) cells.getInt(c + 1);
+          }
+          assertArrayEquals(contents(board), view, "seed " + seed + ", move " + i);
+          assertEquals(board.getScore(), frame.getInt("score"));
+          assertEquals(7, frame.getInt("generation"));
+        }
+        Board next = board.updateBoard(towardFood(board, moves), rng);
+        if (next.isLive()) {
+          board = next;
+        }
+        else {
+          break;
+        }
+      }
+    }
+  }
+
+  @Test
+  public void unchangedBoardsSendNoCells() {
+    FrameEncoder encoder = new FrameEncoder();
+    Board board = Board.newStartBoard(100, 100, testSeed);
+    assertTrue(encoder.encode(board, 0).getJSONArray("cells").length() > 0);
+    JSONObject again = encoder.encode(board, 0);
+    assertFalse(again.getBoolean("reset"));
+    assertEquals(0, again.getJSONArray("cells").length());
+  }
+
+  private static byte[] contents(Board board) {
+    Grid grid = board.getGrid();
+    byte[] cells = new byte[grid.size()];
+    cells[grid.cell(board.getFood())] = BoardDiff.FOOD;
+    for (Point p : board.getSnake().getTail()) {
+      cells[grid.cell(p)] = BoardDiff.BODY;
+    }
+    cells[grid.cell(board.getSnake().getHead())] = BoardDiff.HEAD;
+    return cells;
+  }
+
+  private static Direction towardFood(Board board, Random moves) {
+    if (moves.nextInt(6) == 0) {
+      return Direction.values()[moves.nextInt(4)];
+    }
+    Point head = board.getSnake().getHead();
+    Point food = board.getFood();
+    if (food.x != head.x) {
+      return food.x > head.x ? Direction.EAST : Direction.WEST;
+    }
+    return food.y > head.y ? Direction.SOUTH : Direction.NORTH;
+  }
+}
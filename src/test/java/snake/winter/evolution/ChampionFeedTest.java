@@ -0,0 +1,41 @@
+package snake.winter.evolution;
+
+import org.junit.jupiter.api.Test;
+import snake.winter.controller.NetworkController;
+import snake.winter.neuralnet.Compatibility;
+import snake.winter.neuralnet.InnovationTracker;
+import snake.winter.neuralnet.Speciation;
+import snake.winter.replay.GameReplay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChampionFeedTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void publishTests() {
+    GameFitness fitness = GameFitness.gameFitness(8, 8, 1);
+    ChampionFeed feed = new ChampionFeed();
+    assertTrue(feed.take().isEmpty());
+
+    try (PopulationEvaluator<GameFitness.Workspace> evaluator = PopulationEvaluator.evaluator(fitness, 2)) {
+      Evolution evolution = Evolution.evolution(evaluator).withFeed(feed);
+      InnovationTracker tracker = InnovationTracker.tracker(NetworkController.INPUTS, NetworkController.OUTPUTS);
+      Population population = Population.initial(tracker, 60,
+          Speciation.speciation(Compatibility.compatibility(), 5), testSeed);
+
+      // only the newest champion is kept, and it is taken once
+      Population next = evolution.run(population, 3);
+      Champion champion = feed.take().get();
+      assertTrue(feed.take().isEmpty());
+      assertEquals(2, champion.getGeneration());
+      assertEquals(next.getHistory().last().getBestFitness(), champion.getFitness().getValue());
+
+      // the champion's game replays to exactly the score it was given
+      GameReplay replay = fitness.replay(champion.getGenome(), champion.getSeed());
+      assertEquals(champion.getFitness().getScore(), replay.getFinalScore());
+      assertEquals(champion.getFitness().getMoves(), replay.moveCount());
+    }
+  }
+}
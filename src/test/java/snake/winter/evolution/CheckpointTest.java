@@ -0,0 +1,94 @@
+package snake.winter.evolution;
+
+import org.junit.jupiter.api.Test;
+import snake.winter.controller.NetworkController;
+import snake.winter.neuralnet.Compatibility;
+import snake.winter.neuralnet.InnovationTracker;
+import snake.winter.neuralnet.Speciation;
+import snake.winter.neuralnet.Species;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CheckpointTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void resumeTests() throws IOException {
+    Path dir = Files.createTempDirectory("checkpoints");
+    Path file = dir.resolve("run.ckpt");
+    try (PopulationEvaluator<GameFitness.Workspace> evaluator =
+             PopulationEvaluator.evaluator(GameFitness.gameFitness(8, 8, 2), 2)) {
+      Evolution evolution = Evolution.evolution(evaluator)
+                                     .withReproduction(Reproduction.reproduction().withStructuralRates(0.2, 0.3));
+      Population start = evolution.run(initial(100), 4);
+      Checkpoint.write(start, file);
+      assertEquals(1, fileCount(dir));
+
+      Checkpoint checkpoint = Checkpoint.open(file);
+      assertEquals(4, checkpoint.getGeneration());
+      assertEquals(100, checkpoint.size());
+      assertEquals(start.getGenomes().get(37), checkpoint.getGenome(37));
+      assertEquals(start.getHistory(), checkpoint.getHistory());
+      assertEquals(start.getTracker().nodeCount(), checkpoint.getTracker().nodeCount());
+      Speciation speciation = checkpoint.getSpeciation();
+      assertEquals(start.getSpeciation().getThreshold(), speciation.getThreshold());
+      assertEquals(start.getSpeciation().getSpecies().map(Species::getMembers),
+          speciation.getSpecies().map(Species::getMembers));
+
+      // a resumed run carries on exactly like the original
+      Population resumed = checkpoint.toPopulation();
+      assertEquals(start.getGenomes(), resumed.getGenomes());
+      Population original = evolution.run(start, 3);
+      Population fromCheckpoint = evolution.run(resumed, 3);
+      assertEquals(original.getGenomes(), fromCheckpoint.getGenomes());
+      assertEquals(original.getSeed(), fromCheckpoint.getSeed());
+
+      // overwriting replaces the old checkpoint and leaves no temporary file behind
+      Checkpoint.write(original, file);
+      assertEquals(7, Checkpoint.open(file).getGeneration());
+      assertEquals(1, fileCount(dir));
+    }
+  }
+
+  @Test
+  public void corruptFileTests() throws IOException {
+    Path file = Files.createTempFile("run", ".ckpt");
+    Checkpoint.write(initial(20), file);
+    byte[] bytes = Files.readAllBytes(file);
+
+    bytes[bytes.length / 2] ^= 1;
+    Files.write(file, bytes);
+    assertTrue(assertThrows(IOException.class, () -> Checkpoint.open(file)).getMessage().contains("corrupt"));
+
+    bytes[7] = 99;
+    Files.write(file, bytes);
+    assertTrue(assertThrows(IOException.class, () -> Checkpoint.open(file)).getMessage().contains("version"));
+
+    Files.write(file, new byte[]{1, 2, 3});
+    assertThrows(IOException.class, () -> Checkpoint.open(file));
+    assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".tmp")));
+  }
+
+  private static Population initial(int size) {
+    InnovationTracker tracker = InnovationTracker.tracker(NetworkController.INPUTS, NetworkController.OUTPUTS);
+    return Population.initial(tracker, size, Speciation.speciation(Compatibility.compatibility(), 5), testSeed);
+  }
+
+  private static long fileCount(Path dir) {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.count();
+    }
+    catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package snake.winter.evolution;
+
+import io.vavr.collection.Array;
+import org.junit.jupiter.api.Test;
+import snake.winter.controller.NetworkController;
+import snake.winter.neuralnet.Compatibility;
+import snake.winter.neuralnet.Genome;
+import snake.winter.neuralnet.InnovationTracker;
+import snake.winter.neuralnet.Speciation;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FitnessCacheTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void structuralHashTests() {
+    Array<Genome> genomes = population(20);
+    for (Genome g : genomes) {
+      ByteBuffer buffer = ByteBuffer.allocate(g.byteSize());
+      g.writeTo(buffer);
+      buffer.flip();
+      assertEquals(g.structuralHash(), Genome.readFrom(buffer).structuralHash());
+    }
+    assertEquals(20, genomes.map(Genome::structuralHash).distinct().size());
+    Genome g = genomes.get(0);
+    assertNotEquals(g.structuralHash(), g.perturbWeights(new SplittableRandom(testSeed), 1, 0.5, 0).structuralHash());
+  }
+
+  @Test
+  public void hitsOnlyTheSameGenomeAndSeed() {
+    GameFitness fitness = GameFitness.gameFitness(8, 8, 3);
+    FitnessCache<GameFitness.Workspace> cache = FitnessCache.cache(fitness, 100);
+    GameFitness.Workspace workspace = cache.newWorkspace();
+    Genome genome = population(1).get(0);
+
+    Fitness first = cache.evaluate(genome, testSeed, workspace);
+    assertEquals(fitness.evaluate(genome, testSeed, fitness.newWorkspace()), first);
+    assertSame(first, cache.evaluate(genome, testSeed, workspace));
+    assertEquals(1, cache.hits());
+    assertEquals(1, cache.misses());
+
+    cache.evaluate(genome, testSeed + 1, workspace);
+    assertEquals(2, cache.misses());
+    assertEquals(2, cache.size());
+    assertEquals(1 / 3.0, cache.hitRate(), 1e-9);
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    cache.evaluate(genome, testSeed, workspace);
+    assertEquals(3, cache.misses());
+  }
+
+  @Test
+  public void evictsTheLeastRecentlyUsed() {
+    FitnessCache<GameFitness.Workspace> cache = FitnessCache.cache(GameFitness.gameFitness(6, 6, 1), 32);
+    GameFitness.Workspace workspace = cache.newWorkspace();
+    Genome genome = population(1).get(0);
+    for (int seed = 0; seed < 200; seed++) {
+      cache.evaluate(genome, seed, workspace);
+      // keep seed 0 in use, so it is never the least recently used
+      cache.evaluate(genome, 0, workspace);
+    }
+    assertTrue(cache.size() <= 32);
+    assertEquals(200 - cache.size(), cache.evictions());
+    long misses = cache.misses();
+    cache.evaluate(genome, 0, workspace);
+    assertEquals(misses, cache.misses());
+    assertThrows(IllegalArgumentException.class, () -> FitnessCache.cache(GameFitness.gameFitness(6, 6, 1), 8));
+  }
+
+  @Test
+  public void cachedEvolutionMatchesUncached() {
+    GameFitness fitness = GameFitness.gameFitness(8, 8, 2).withMaxMoves(100);
+    FitnessCache<GameFitness.Workspace> cache = FitnessCache.cache(fitness, 1000);
+    Population plain;
+    Population cached;
+    try (PopulationEvaluator<GameFitness.Workspace> evaluator = PopulationEvaluator.evaluator(fitness, 2)) {
+      plain = Evolution.evolution(evaluator).withFixedSeed(testSeed).run(initial(), 5);
+    }
+    try (PopulationEvaluator<GameFitness.Workspace> evaluator = PopulationEvaluator.evaluator(cache, 3)) {
+      cached = Evolution.evolution(evaluator).withFixedSeed(testSeed).run(initial(), 5);
+    }
+    assertEquals(plain.getGenomes(), cached.getGenomes());
+    assertEquals(plain.getHistory().map(GenerationStats::getBestFitness),
+        cached.getHistory().map(GenerationStats::getBestFitness));
+    // elites and unmutated children carry over from one generation to the next
+    assertTrue(cache.hits() > 0);
+    assertEquals(5 * 40, cache.hits() + cache.misses());
+  }
+
+  private static Population initial() {
+    InnovationTracker tracker = InnovationTracker.tracker(NetworkController.INPUTS, NetworkController.OUTPUTS);
+    return Population.initial(tracker, 40, Speciation.speciation(Compatibility.compatibility(), 4), testSeed);
+  }
+
+  private static Array<Genome> population(int size) {
+    InnovationTracker tracker = InnovationTracker.tracker(NetworkController.INPUTS, NetworkController.OUTPUTS);
+    SplittableRandom rng = new SplittableRandom(testSeed);
+    return Array.fill(size, () -> Genome.minimal(tracker, rng).addNode(tracker, rng));
+  }
+}
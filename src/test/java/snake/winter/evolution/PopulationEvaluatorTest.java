@@ -0,0 +1,65 @@
+package snake.winter.evolution;
+
+import io.vavr.collection.Array;
+import org.junit.jupiter.api.Test;
+import snake.winter.controller.NetworkController;
+import snake.winter.neuralnet.Genome;
+import snake.winter.neuralnet.InnovationTracker;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PopulationEvaluatorTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void sameResultsOnAnyThreadCount() {
+    Array<Genome> population = population(60);
+    GameFitness fitness = GameFitness.gameFitness(8, 8, 3);
+
+    Evaluation reference;
+    try (PopulationEvaluator<GameFitness.Workspace> evaluator = PopulationEvaluator.evaluator(fitness, 1)) {
+      reference = evaluator.evaluate(population, testSeed);
+    }
+    assertEquals(60, reference.getFitness().size());
+    assertTrue(reference.getFitness().exists(f -> f.getScore() > 0));
+
+    for (int threads : new int[]{2, 3, 8}) {
+      try (PopulationEvaluator<GameFitness.Workspace> evaluator = PopulationEvaluator.evaluator(fitness, threads)) {
+        // run twice, so the second run reuses every worker's workspace
+        assertEquals(reference.getFitness(), evaluator.evaluate(population, testSeed).getFitness());
+        Evaluation again = evaluator.evaluate(population, testSeed);
+        assertEquals(reference.getFitness(), again.getFitness());
+        assertEquals(threads, again.getStats().getThreads());
+        assertTrue(again.getStats().utilization() <= 1.0);
+      }
+    }
+
+    try (PopulationEvaluator<GameFitness.Workspace> evaluator = PopulationEvaluator.evaluator(fitness, 2)) {
+      assertNotEquals(reference.getFitness(), evaluator.evaluate(population, testSeed + 1).getFitness());
+    }
+  }
+
+  @Test
+  public void gameFitnessTests() {
+    Genome genome = population(1).get(0);
+    GameFitness fitness = GameFitness.gameFitness(8, 8, 5).withMaxMoves(50);
+    Fitness f = fitness.evaluate(genome, testSeed, fitness.newWorkspace());
+    assertEquals(5, f.getGames());
+    assertTrue(f.getMoves() <= 5 * 50);
+    assertEquals((f.getScore() + f.getMoves() / 50.0) / 5, f.getValue(), 1e-9);
+    // a used workspace gives the same answer as a fresh one
+    GameFitness.Workspace workspace = fitness.newWorkspace();
+    fitness.evaluate(population(2).get(1), testSeed + 7, workspace);
+    assertEquals(f, fitness.evaluate(genome, testSeed, workspace));
+  }
+
+  private static Array<Genome> population(int size) {
+    InnovationTracker tracker = InnovationTracker.tracker(NetworkController.INPUTS, NetworkController.OUTPUTS);
+    SplittableRandom rng = new SplittableRandom(testSeed);
+    return Array.fill(size, () -> Genome.minimal(tracker, rng).addNode(tracker, rng));
+  }
+}
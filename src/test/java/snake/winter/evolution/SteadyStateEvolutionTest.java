@@ -0,0 +1,80 @@
+package snake.winter.evolution;
+
+import io.vavr.collection.Array;
+import org.junit.jupiter.api.Test;
+import snake.winter.controller.NetworkController;
+import snake.winter.neuralnet.Compatibility;
+import snake.winter.neuralnet.InnovationTracker;
+import snake.winter.neuralnet.Speciation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SteadyStateEvolutionTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void reproducibleOnOneThread() {
+    GameFitness fitness = GameFitness.gameFitness(8, 8, 2).withMaxMoves(200);
+    SteadyStateEvolution<GameFitness.Workspace> evolution = SteadyStateEvolution.steadyState(fitness, 1);
+    Population a = evolution.run(initial(30), 4);
+    Population b = evolution.run(initial(30), 4);
+    assertEquals(a.getGenomes(), b.getGenomes());
+    assertEquals(a.getSeed(), b.getSeed());
+    assertEquals(a.getHistory().map(GenerationStats::getBestFitness),
+        b.getHistory().map(GenerationStats::getBestFitness));
+    assertEquals(a.getHistory().map(GenerationStats::getMeanScore), b.getHistory().map(GenerationStats::getMeanScore));
+  }
+
+  @Test
+  public void epochsStandInForGenerations() {
+    GameFitness fitness = GameFitness.gameFitness(8, 8, 2).withMaxMoves(200);
+    ChampionFeed feed = new ChampionFeed();
+    List<Population> epochs = new ArrayList<>();
+    Population p = SteadyStateEvolution.steadyState(fitness, 3).withFeed(feed).run(initial(30), 5, epochs::add);
+
+    assertEquals(5, epochs.size());
+    assertEquals(5, p.getGeneration());
+    assertEquals(30, p.size());
+    Array<GenerationStats> history = p.getHistory();
+    assertEquals(Array.range(0, 5), history.map(GenerationStats::getGeneration));
+    for (int g = 1; g < history.size(); g++) {
+      // the best genome is never replaced
+      assertTrue(history.get(g).getBestFitness() >= history.get(g - 1).getBestFitness());
+      assertTrue(history.get(g).getSpecies() > 0);
+    }
+    assertTrue(history.forAll(s -> s.getUtilization() <= 1.0));
+
+    Champion champion = feed.take().get();
+    assertEquals(4, champion.getGeneration());
+    assertEquals(history.last().getBestFitness(), champion.getFitness().getValue(), 1e-9);
+    // the champion's seed plays its games again
+    assertEquals(champion.getFitness(), fitness.evaluate(champion.getGenome(), champion.getSeed(),
+        fitness.newWorkspace()));
+  }
+
+  @Test
+  public void returnsTheLastEpochSeen() {
+    GameFitness fitness = GameFitness.gameFitness(8, 8, 2).withMaxMoves(200);
+    SteadyStateEvolution<GameFitness.Workspace> evolution = SteadyStateEvolution.steadyState(fitness, 1);
+    List<Population> epochs = new ArrayList<>();
+    Population p = evolution.run(initial(30), 3, epochs::add);
+    // a checkpoint written by the listener carries on exactly as the returned population would
+    assertSame(epochs.get(epochs.size() - 1), p);
+    assertEquals(evolution.run(epochs.get(epochs.size() - 1), 1).getGenomes(), evolution.run(p, 1).getGenomes());
+
+    // and without a listener, the run ends the same way
+    Population quiet = evolution.run(initial(30), 3);
+    assertEquals(p.getSeed(), quiet.getSeed());
+    assertEquals(p.getGenomes(), quiet.getGenomes());
+  }
+
+  private static Population initial(int size) {
+    InnovationTracker tracker = InnovationTracker.tracker(NetworkController.INPUTS, NetworkController.OUTPUTS);
+    return Population.initial(tracker, size, Speciation.speciation(Compatibility.compatibility(), 4), testSeed);
+  }
+}
@@ -0,0 +1,85 @@
+package snake.winter.game;
+
+import org.junit.jupiter.api.Test;
+import snake.winter.game.Point.Direction;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BatchBoardTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void startTests() {
+    BatchBoard batch = BatchBoard.batchBoard(7, 11, 4);
+    batch.start(new long[] {testSeed, 1, 2});
+    assertEquals(3, batch.liveCount());
+    assertEquals(Board.newStartBoard(7, 11, testSeed), batch.toBoard(0));
+    assertEquals(Board.newStartBoard(7, 11, 2), batch.toBoard(2));
+    assertThrows(IllegalArgumentException.class, () -> batch.start(new long[5]));
+  }
+
+  @Test
+  public void lockstepGamesMatchMutableBoard() {
+    int[][] sizes = {{7, 11}, {5, 5}, {10, 10}, {3, 20}, {16, 9}};
+    for (int[] size : sizes) {
+      int games = 60;
+      long[] seeds = new long[games];
+      MutableBoard[] boards = new MutableBoard[games];
+      Random[] rngs = new Random[games];
+      for (int g = 0; g < games; g++) {
+        seeds[g] = testSeed + g;
+        rngs[g] = new Random(seeds[g]);
+        boards[g] = MutableBoard.newStartBoard(size[0], size[1], rngs[g]);
+      }
+      BatchBoard batch = BatchBoard.batchBoard(size[0], size[1], games);
+      batch.start(seeds);
+
+      Random moveRng = new Random(testSeed);
+      int[] moves = new int[games];
+      for (int round = 0; batch.liveCount() > 0; round++) {
+        // a third of the games get cut off early, and must leave the live slots as well
+        if (round == 10) {
+          for (int g = 0; g < games; g += 3) {
+            batch.stop(g);
+            boards[g] = stopped(boards[g]);
+          }
+        }
+        for (int s = 0; s < batch.liveCount(); s++) {
+          int g = batch.liveGame(s);
+          Direction d = moveRng.nextInt(10) == 0
+                            ? Direction.values()[moveRng.nextInt(4)]
+                            : towardFood(boards[g]);
+          moves[s] = d.ordinal();
+          boards[g].updateBoard(d, rngs[g]);
+        }
+        int live = batch.update(moves);
+
+        int expected = 0;
+        for (int g = 0; g < games; g++) {
+          assertEquals(boards[g].toBoard(), batch.toBoard(g), "game " + g + ", round " + round);
+          if (boards[g].isLive()) {
+            assertEquals(g, batch.liveGame(expected++));
+          }
+        }
+        assertEquals(expected, live);
+      }
+    }
+  }
+
+  private static MutableBoard stopped(MutableBoard board) {
+    Board b = board.toBoard();
+    return MutableBoard.fromBoard(Board.board(b.getGrid(), b.getFood(), b.getSnake(), b.getScore(), b.getMoves(),
+        false));
+  }
+
+  private static Direction towardFood(MutableBoard board) {
+    if (board.getFoodX() != board.getHeadX()) {
+      return board.getFoodX() > board.getHeadX() ? Direction.EAST : Direction.WEST;
+    }
+    return board.getFoodY() > board.getHeadY() ? Direction.SOUTH : Direction.NORTH;
+  }
+}
@@ -1,9 +1,13 @@
 package snake.winter.game;
 
 import org.junit.jupiter.api.Test;
+import snake.winter.game.Point.Direction;
+
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static snake.winter.game.Point.Direction.*;
 
@@ -49,4 +53,34 @@ public class BoardTest {
     assertEquals(wallDeath, wallDeath.updateBoard(testSeed, SOUTH, SOUTH, WEST, SOUTH));
     assertEquals(loopDeath, loopDeath.updateBoard(testSeed, NORTH, NORTH, WEST, SOUTH));
   }
+
+  @Test
+  public void zobristKeyTests() {
+    // The incrementally updated key always matches one computed from scratch
+    Random rng = new Random(testSeed);
+    Random moveRng = new Random(testSeed + 1);
+    Board board = Board.newStartBoard(9, 13, rng);
+    Direction[] dirs = {NORTH, EAST, SOUTH, EAST, EAST, SOUTH, WEST, WEST, SOUTH, EAST};
+    for (int i = 0; i < 2000; i++) {
+      Board next = board.updateBoard(moveRng.nextInt(6) == 0 ? dirs[moveRng.nextInt(dirs.length)] : dirs[i % 4], rng);
+      if (!next.isLive()) {
+        assertEquals(board.getZobristKey(), next.getZobristKey());
+        next = Board.newStartBoard(9, 13, rng);
+      }
+      board = next;
+      Board fresh = Board.board(board.getGrid(), board.getFood(), board.getSnake(),
+          board.getScore(), board.getMoves(), board.isLive());
+      assertEquals(fresh.getZobristKey(), board.getZobristKey());
+      assertEquals(fresh.hashCode(), board.hashCode());
+    }
+
+    // Different positions hash differently, and equal boards hash the same
+    Board startBoard = Board.newStartBoard(7, 11, testSeed);
+    Board eat1Board = startBoard.updateBoard(testSeed, NORTH, NORTH, NORTH, WEST);
+    assertNotEquals(startBoard.getZobristKey(), startBoard.updateBoard(NORTH, testSeed).getZobristKey());
+    assertNotEquals(startBoard.updateBoard(NORTH, testSeed).getZobristKey(),
+        startBoard.updateBoard(SOUTH, testSeed).getZobristKey());
+    assertEquals(eat1Board.hashCode(), startBoard.updateBoard(testSeed, NORTH, NORTH, NORTH, WEST).hashCode());
+    assertEquals(eat1Board.getZobristKey(), MutableBoard.fromBoard(eat1Board).toBoard().getZobristKey());
+  }
 }
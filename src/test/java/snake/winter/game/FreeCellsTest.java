@@ -0,0 +1,79 @@
+package snake.winter.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FreeCellsTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void occupyReleaseTests() {
+    // 77 cells, so the last bitset word is only partly used
+    FreeCells cells = new FreeCells(77);
+    boolean[] reference = new boolean[77];
+    Random rng = new Random(testSeed);
+
+    for (int i = 0; i < 5000; i++) {
+      int cell = rng.nextInt(77);
+      if (reference[cell]) {
+        cells.release(cell);
+      }
+      else {
+        cells.occupy(cell);
+      }
+      reference[cell] = !reference[cell];
+
+      int free = 0;
+      for (int c = 0; c < 77; c++) {
+        assertEquals(reference[c], cells.isOccupied(c));
+        if (!reference[c]) {
+          // the k'th free cell in ascending order
+          assertEquals(c, cells.select(free));
+          free++;
+        }
+      }
+      assertEquals(free, cells.count());
+      if (free > 0) {
+        assertFalse(reference[cells.sample(rng)]);
+      }
+    }
+  }
+
+  @Test
+  public void sampleIsUniformTest() {
+    FreeCells cells = new FreeCells(10);
+    cells.occupy(3);
+    cells.occupy(7);
+    cells.occupy(0);
+    cells.release(3);
+
+    Random rng = new Random(testSeed);
+    int[] hits = new int[10];
+    int samples = 80000;
+    for (int i = 0; i < samples; i++) {
+      hits[cells.sample(rng)]++;
+    }
+    assertEquals(0, hits[0]);
+    assertEquals(0, hits[7]);
+    for (int c : new int[] {1, 2, 3, 4, 5, 6, 8, 9}) {
+      // each of the 8 free cells should get about 10000 samples
+      assertTrue(Math.abs(hits[c] - samples / 8) < 500, "cell " + c + " got " + hits[c]);
+    }
+  }
+
+  @Test
+  public void fullBoardTest() {
+    FreeCells cells = new FreeCells(4);
+    for (int c = 0; c < 4; c++) {
+      cells.occupy(c);
+    }
+    assertEquals(0, cells.count());
+    assertThrows(RuntimeException.class, () -> cells.sample(new Random(testSeed)));
+  }
+}
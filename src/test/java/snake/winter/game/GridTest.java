@@ -0,0 +1,53 @@
+package snake.winter.game;
+
+import org.junit.jupiter.api.Test;
+import snake.winter.game.Point.Direction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static snake.winter.game.Point.Direction.*;
+import static snake.winter.game.Point.point;
+
+public class GridTest {
+
+  @Test
+  public void cellTests() {
+    Grid grid = Grid.grid(7, 11);
+    assertSame(grid, Grid.grid(7, 11));
+    assertEquals(77, grid.size());
+
+    for (int x = 0; x < 11; x++) {
+      for (int y = 0; y < 7; y++) {
+        int cell = grid.cell(x, y);
+        assertEquals(x, grid.x(cell));
+        assertEquals(y, grid.y(cell));
+        assertEquals(point(x, y), grid.point(cell));
+        assertSame(grid.point(cell), grid.point(grid.cell(point(x, y))));
+      }
+    }
+  }
+
+  @Test
+  public void neighborTests() {
+    Grid grid = Grid.grid(7, 11);
+    for (int cell = 0; cell < grid.size(); cell++) {
+      Point p = grid.point(cell);
+      for (Direction d : Direction.values()) {
+        Point next = p.add(d);
+        int neighbor = grid.neighbor(cell, d);
+        if (grid.contains(next)) {
+          assertEquals(next, grid.point(neighbor));
+          assertEquals(cell, grid.neighbor(neighbor, Direction.complement(d)));
+        }
+        else {
+          assertEquals(Grid.WALL, neighbor);
+        }
+      }
+    }
+
+    assertEquals(Grid.WALL, grid.neighbor(grid.cell(0, 0), NORTH));
+    assertEquals(Grid.WALL, grid.neighbor(grid.cell(0, 0), WEST));
+    assertEquals(Grid.WALL, grid.neighbor(grid.cell(10, 6), SOUTH));
+    assertEquals(Grid.WALL, grid.neighbor(grid.cell(10, 6), EAST));
+  }
+}
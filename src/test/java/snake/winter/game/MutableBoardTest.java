@@ -0,0 +1,113 @@
+package snake.winter.game;
+
+import org.junit.jupiter.api.Test;
+import snake.winter.game.Point.Direction;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static snake.winter.game.Point.Direction.*;
+
+public class MutableBoardTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void conversionTests() {
+    Board startBoard = Board.newStartBoard(7, 11, testSeed);
+    assertEquals(startBoard, MutableBoard.newStartBoard(7, 11, new Random(testSeed)).toBoard());
+    assertEquals(startBoard, MutableBoard.fromBoard(startBoard).toBoard());
+
+    Board eat2Board = startBoard.updateBoard(testSeed, NORTH, NORTH, NORTH, WEST,
+        SOUTH, SOUTH, SOUTH, SOUTH, SOUTH, SOUTH, WEST);
+    assertEquals(eat2Board, MutableBoard.fromBoard(eat2Board).toBoard());
+
+    MutableBoard copy = MutableBoard.newStartBoard(7, 11, new Random(testSeed + 1));
+    copy.copyFrom(MutableBoard.fromBoard(eat2Board));
+    assertEquals(eat2Board, copy.toBoard());
+  }
+
+  @Test
+  public void snakeMovementTests() {
+    MutableBoard board = MutableBoard.newStartBoard(7, 11, new Random(testSeed));
+    assertTrue(board.updateBoard(new Random(testSeed), NORTH, NORTH, NORTH, WEST));
+    assertEquals(1, board.getScore());
+    assertEquals(4, board.getMoves());
+    assertEquals(4, board.length());
+
+    assertTrue(board.updateBoard(new Random(testSeed), SOUTH, SOUTH, SOUTH, SOUTH, SOUTH, SOUTH, WEST));
+    assertEquals(2, board.getScore());
+    assertEquals(11, board.getMoves());
+    assertEquals(5, board.length());
+    assertEquals(3, board.getHeadX());
+    assertEquals(6, board.getHeadY());
+
+    // Dead boards do not update after death
+    assertFalse(board.updateBoard(new Random(testSeed), NORTH, EAST));
+    Board dead = board.toBoard();
+    assertFalse(board.updateBoard(new Random(testSeed), NORTH, NORTH, WEST, SOUTH));
+    assertEquals(dead, board.toBoard());
+  }
+
+  @Test
+  public void seededGamesMatchBoard() {
+    int[][] sizes = {{7, 11}, {5, 5}, {10, 10}, {3, 20}, {16, 9}};
+    for (int[] size : sizes) {
+      for (int seed = 0; seed < 50; seed++) {
+        replay(size[0], size[1], seed);
+      }
+    }
+  }
+
+  @Test
+  public void indexedFoodTests() {
+    for (int seed = 0; seed < 50; seed++) {
+      Random rng = new Random(seed);
+      Random moveRng = new Random(seed * 31L + 7);
+      MutableBoard board = MutableBoard.newStartBoard(6, 6, rng, MutableBoard.FoodPlacement.INDEXED);
+      for (int i = 0; i < 400 && board.isLive(); i++) {
+        // food must always land on a free cell, and eating it must grow the snake by one
+        assertFalse(board.isOccupied(board.getFoodX(), board.getFoodY()));
+        int length = board.length();
+        int score = board.getScore();
+        Direction d = moveRng.nextInt(8) == 0
+                          ? Direction.values()[moveRng.nextInt(4)]
+                          : towardFood(board.toBoard());
+        board.updateBoard(d, rng);
+        assertEquals(length + board.getScore() - score, board.length());
+      }
+    }
+  }
+
+  private static void replay(int height, int width, int seed) {
+    Random boardRng = new Random(seed);
+    Random mutableRng = new Random(seed);
+    Random moveRng = new Random(seed * 31L + 7);
+
+    Board board = Board.newStartBoard(height, width, boardRng);
+    MutableBoard mutable = MutableBoard.newStartBoard(height, width, mutableRng);
+    assertEquals(board, mutable.toBoard());
+
+    Direction[] dirs = Direction.values();
+    for (int i = 0; i < 400; i++) {
+      // mostly head for the food so games run long enough to grow, with the odd random (often fatal) turn
+      Direction d = moveRng.nextInt(8) == 0
+                        ? dirs[moveRng.nextInt(dirs.length)]
+                        : towardFood(board);
+      board = board.updateBoard(d, boardRng);
+      assertEquals(board.isLive(), mutable.updateBoard(d, mutableRng));
+      assertEquals(board, mutable.toBoard(), "seed " + seed + ", move " + i);
+      assertEquals(board.getZobristKey(), mutable.getZobristKey());
+    }
+  }
+
+  private static Direction towardFood(Board board) {
+    Point head = board.getSnake().getHead();
+    Point food = board.getFood();
+    if (food.x != head.x) {
+      return food.x > head.x ? EAST : WEST;
+    }
+    return food.y > head.y ? SOUTH : NORTH;
+  }
+}
@@ -2,6 +2,10 @@ package snake.winter.game;
 
 import org.junit.jupiter.api.Test;
 import org.quicktheories.core.Gen;
+import snake.winter.game.Point.Direction;
+
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -47,4 +51,35 @@ public class PointTest {
     assertEquals(EAST, p.directionTo(point(3,3)).get());
     assertFalse(p.directionTo(point(5,3)).isDefined());
   }
+
+  @Test
+  public void complementTests() {
+    assertEquals(SOUTH, Direction.complement(NORTH));
+    assertEquals(NORTH, Direction.complement(SOUTH));
+    assertEquals(WEST, Direction.complement(EAST));
+    assertEquals(EAST, Direction.complement(WEST));
+    for (Direction d : Direction.values()) {
+      assertEquals(d.getDir().mult(-1), Direction.complement(d).getDir());
+      assertEquals(d, Direction.fromPoint(d.getDir()).get());
+    }
+  }
+
+  @Test
+  public void hashAndPackTests() {
+    qt().forAll(points()).checkAssert(
+        p -> {
+          assertEquals(point(p.x, p.y).hashCode(), p.hashCode());
+          assertEquals(p.x, Point.unpackX(p.pack()));
+          assertEquals(p.y, Point.unpackY(p.pack()));
+        });
+
+    // every point on a large board hashes differently
+    Set<Integer> hashes = new HashSet<>();
+    for (int x = 0; x < 300; x++) {
+      for (int y = 0; y < 300; y++) {
+        hashes.add(point(x, y).hashCode());
+      }
+    }
+    assertEquals(300 * 300, hashes.size());
+  }
 }
@@ -0,0 +1,201 @@
+package snake.winter.game;
+
+import io.vavr.collection.List;
+import org.junit.jupiter.api.Test;
+import snake.winter.game.Point.Direction;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static snake.winter.game.Point.Direction.*;
+import static snake.winter.game.Point.point;
+
+public class RulesTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void hungerTests() {
+    Grid grid = Grid.grid(6, 6);
+    assertEquals(Integer.MAX_VALUE, Rules.rules().hungerLimit(grid));
+    assertEquals(18, Rules.rules().withHunger(0.5).hungerLimit(grid));
+    assertEquals(1, Rules.rules().withHunger(0.001).hungerLimit(grid));
+
+    // circling a 2x2 square never eats, and starves on exactly the fourth move
+    Board board = circlingBoard(grid).withRules(Rules.rules().withHunger(4 / 36.0));
+    board = board.updateBoard(testSeed, NORTH, EAST, SOUTH);
+    assertTrue(board.isLive());
+    assertEquals(3, board.getHunger());
+    board = board.updateBoard(WEST, testSeed);
+    assertFalse(board.isLive());
+    assertEquals(DeathCause.STARVED, board.getDeathCause());
+    assertEquals(4, board.getMoves());
+    assertEquals(0, board.getScore());
+  }
+
+  @Test
+  public void loopTests() {
+    Grid grid = Grid.grid(6, 6);
+    Board board = circlingBoard(grid);
+    Direction[] circle = {NORTH, EAST, SOUTH, WEST};
+    Board looping = board.withRules(Rules.rules().withLoops(true));
+    for (int i = 0; i < 40 && looping.isLive(); i++) {
+      looping = looping.updateBoard(circle[i % 4], testSeed);
+    }
+    assertEquals(DeathCause.LOOPED, looping.getDeathCause());
+    // one lap to repeat the first position, and the detector catches it within two more
+    assertTrue(looping.getMoves() <= 12, looping.toString());
+
+    // the classic rules let it circle forever
+    for (int i = 0; i < 40; i++) {
+      board = board.updateBoard(circle[i % 4], testSeed);
+    }
+    assertTrue(board.isLive());
+    assertEquals(DeathCause.NONE, board.getDeathCause());
+  }
+
+  @Test
+  public void deathCauseTests() {
+    Board board = Board.newStartBoard(7, 11, testSeed);
+    assertEquals(DeathCause.WALL, board.updateBoard(testSeed, NORTH, NORTH, NORTH, NORTH).getDeathCause());
+    assertEquals(DeathCause.SELF, board.updateBoard(WEST, testSeed).getDeathCause());
+  }
+
+  @Test
+  public void enginesAgreeTests() {
+    // a controller that picks its move from the head cell alone always ends up starving, looping or dead
+    Rules rules = Rules.rules().withHunger(3).withLoops(true);
+    int games = 40;
+    long[] seeds = new long[games];
+    for (int g = 0; g < games; g++) {
+      seeds[g] = testSeed + g;
+    }
+    BatchBoard batch = BatchBoard.batchBoard(8, 9, games);
+    batch.setRules(rules);
+    batch.start(seeds);
+    int[] slotMoves = new int[games];
+
+    Board[] boards = new Board[games];
+    MutableBoard[] mutables = new MutableBoard[games];
+    Random[] boardRngs = new Random[games];
+    Random[] mutableRngs = new Random[games];
+    Direction[][] policies = new Direction[games][];
+    for (int g = 0; g < games; g++) {
+      boardRngs[g] = new Random(seeds[g]);
+      mutableRngs[g] = new Random(seeds[g]);
+      boards[g] = Board.newStartBoard(8, 9, boardRngs[g]).withRules(rules);
+      mutables[g] = MutableBoard.newStartBoard(8, 9, mutableRngs[g]);
+      mutables[g].setRules(rules);
+      policies[g] = policy(boards[g].getGrid(), new Random(~seeds[g]));
+    }
+
+    while (batch.liveCount() > 0) {
+      for (int s = 0; s < batch.liveCount(); s++) {
+        int g = batch.liveGame(s);
+        Direction d = policies[g][batch.getHeadCell(g)];
+        slotMoves[s] = d.ordinal();
+        boards[g] = boards[g].updateBoard(d, boardRngs[g]);
+        mutables[g].updateBoard(d, mutableRngs[g]);
+      }
+      batch.update(slotMoves);
+    }
+
+    int looped = 0;
+    for (int g = 0; g < games; g++) {
+      assertEquals(boards[g], mutables[g].toBoard());
+      assertEquals(boards[g], batch.toBoard(g));
+      assertEquals(boards[g].getDeathCause(), mutables[g].getDeathCause());
+      assertEquals(boards[g].getDeathCause(), batch.getDeathCause(g));
+      assertEquals(boards[g].getHunger(), batch.getHunger(g));
+      assertEquals(boards[g].getZobristKey(), batch.getZobristKey(g));
+      looped += boards[g].getDeathCause() == DeathCause.LOOPED ? 1 : 0;
+    }
+    assertTrue(looped > 0);
+  }
+
+  @Test
+  public void rulesChangeMidGameTests() {
+    // games already under way switch to the new rules on the next move, in the batch as in the mutable engine, and
+    // loop detection starts over
+    Rules rules = Rules.rules().withHunger(3).withLoops(true);
+    int games = 20;
+    long[] seeds = new long[games];
+    for (int g = 0; g < games; g++) {
+      seeds[g] = testSeed + g;
+    }
+    Rules loops = Rules.rules().withLoops(true);
+    BatchBoard batch = BatchBoard.batchBoard(8, 9, games);
+    batch.setRules(loops);
+    batch.start(seeds);
+    int[] slotMoves = new int[games];
+    MutableBoard[] mutables = new MutableBoard[games];
+    Random[] rngs = new Random[games];
+    Direction[][] policies = new Direction[games][];
+    for (int g = 0; g < games; g++) {
+      rngs[g] = new Random(seeds[g]);
+      mutables[g] = MutableBoard.newStartBoard(8, 9, rngs[g]);
+      mutables[g].setRules(loops);
+      policies[g] = policy(mutables[g].getGrid(), new Random(~seeds[g]));
+    }
+
+    for (int round = 0; batch.liveCount() > 0; round++) {
+      if (round == 5) {
+        batch.setRules(rules);
+        for (MutableBoard m : mutables) {
+          m.setRules(rules);
+        }
+      }
+      for (int s = 0; s < batch.liveCount(); s++) {
+        int g = batch.liveGame(s);
+        Direction d = policies[g][batch.getHeadCell(g)];
+        slotMoves[s] = d.ordinal();
+        mutables[g].updateBoard(d, rngs[g]);
+      }
+      batch.update(slotMoves);
+    }
+
+    for (int g = 0; g < games; g++) {
+      assertEquals(mutables[g].toBoard(), batch.toBoard(g));
+      assertEquals(mutables[g].getDeathCause(), batch.getDeathCause(g));
+    }
+  }
+
+  @Test
+  public void codecTests() {
+    MutableBoard board = MutableBoard.newStartBoard(7, 11, new Random(testSeed));
+    board.setRules(Rules.rules().withHunger(2).withLoops(true));
+    board.updateBoard(new Random(testSeed), NORTH, NORTH, EAST);
+    ByteBuffer buffer = ByteBuffer.allocate(board.byteSize());
+    board.writeTo(buffer);
+    assertFalse(buffer.hasRemaining());
+    buffer.flip();
+    MutableBoard copy = MutableBoard.readFrom(buffer);
+    assertEquals(board.getRules(), copy.getRules());
+    assertEquals(board.getHunger(), copy.getHunger());
+    assertEquals(board.toBoard(), copy.toBoard());
+  }
+
+  /**
+   * A snake of length 3 curled into the bottom-left corner of a 2x2 square, facing north, with the food far away.
+   */
+  private static Board circlingBoard(Grid grid) {
+    Snake snake = Snake.trustedSnake(point(1, 4), List.of(point(1, 5), point(0, 5)), NORTH);
+    return Board.board(grid, point(5, 0), snake, 0, 0, true);
+  }
+
+  /**
+   * Picks a random move for every cell that does not lead straight into a wall.
+   */
+  private static Direction[] policy(Grid grid, Random rng) {
+    Direction[] moves = new Direction[grid.size()];
+    for (int cell = 0; cell < grid.size(); cell++) {
+      do {
+        moves[cell] = Direction.values()[rng.nextInt(4)];
+      }
+      while (grid.neighbor(cell, moves[cell]) == Grid.WALL);
+    }
+    return moves;
+  }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static snake.winter.game.Point.Direction.*;
 import static snake.winter.game.Point.point;
 import static snake.winter.game.Snake.pointSnake;
@@ -76,4 +77,37 @@ public class SnakeTest {
     // Test that snakes cannot grow onto themselves
     assertFalse(snake1.grow(WEST).isDefined());
   }
+
+  @Test
+  public void longSnakeTest() {
+    // A snake of length 2000 weaving back and forth over a 100 x 20 area
+    List<Point> body = List.empty();
+    for (int y = 0; y < 20; y++) {
+      for (int i = 0; i < 100; i++) {
+        body = body.prepend(point(y % 2 == 0 ? i : 99 - i, y));
+      }
+    }
+    Snake snake = snake(body.head(), body.tail()).get();
+    assertEquals(2000, snake.length());
+    assertEquals(body, snake.toList());
+
+    // Walk the head along the empty row below and check the body follows it exactly
+    Snake moved = snake.step(SOUTH).get();
+    List<Point> expected = body.prepend(body.head().add(SOUTH)).init();
+    for (int i = 0; i < 99; i++) {
+      moved = moved.step(EAST).get();
+      expected = expected.prepend(expected.head().add(EAST)).init();
+    }
+    assertEquals(snake(expected.head(), expected.tail()).get(), moved);
+    assertFalse(moved.contains(point(0, 0)));
+    assertTrue(moved.contains(expected.last()));
+
+    Snake grown = moved.grow(SOUTH).get();
+    assertEquals(2001, grown.length());
+    assertEquals(expected.prepend(expected.head().add(SOUTH)), grown.toList());
+
+    // Stepping onto the body, including the cell the tail is about to leave, fails
+    assertFalse(grown.step(NORTH).isDefined());
+    assertFalse(snake(point(1, 0), List.of(point(1, 1), point(0, 1), point(0, 0))).get().step(WEST).isDefined());
+  }
 }
@@ -0,0 +1,78 @@
+package snake.winter.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsTest {
+  @Test
+  public void counterTests() throws InterruptedException {
+    Counter counter = Metrics.counter("test.counter");
+    assertSame(counter, Metrics.counter("test.counter"));
+
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    for (int t = 0; t < 4; t++) {
+      pool.execute(() -> {
+        for (int i = 0; i < 10_000; i++) {
+          counter.increment();
+        }
+        counter.add(5);
+      });
+    }
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    assertEquals(40_020, counter.sum());
+    assertEquals(40_020, (long) Metrics.snapshot().get("test.counter"));
+  }
+
+  @Test
+  public void timerTests() {
+    Timer timer = Metrics.timer("test.timer");
+    assertSame(timer, Metrics.timer("test.timer"));
+    timer.record(100);
+    timer.record(250);
+    assertEquals(2, timer.count());
+    assertEquals(350, timer.totalNanos());
+
+    SortedMap<String, Long> values = Metrics.snapshot();
+    assertEquals(2, (long) values.get("test.timer.count"));
+    assertEquals(350, (long) values.get("test.timer.nanos"));
+    assertTrue(values.containsKey("jvm.gc.count"));
+  }
+
+  @Test
+  public void formatTests() {
+    Map<String, Long> before = new TreeMap<>();
+    before.put("a", 10L);
+    SortedMap<String, Long> after = new TreeMap<>();
+    after.put("a", 30L);
+    after.put("b", 5L);
+    assertEquals("metrics: a=30 (+10/s) b=5 (+3/s)", MetricsReporter.format(before, after, 2_000_000_000L));
+  }
+
+  @Test
+  public void mbeanTests() throws Exception {
+    Metrics.counter("test.mbean").add(7);
+    Metrics.registerMBean();
+    Metrics.registerMBean();
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+    assertEquals(Metrics.ENABLED, server.getAttribute(name, "Enabled"));
+    TabularData values = (TabularData) server.getAttribute(name, "Values");
+    assertEquals(7L, values.get(new Object[] {"test.mbean"}).get("value"));
+  }
+}
@@ -0,0 +1,105 @@
+package snake.winter.neuralnet;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CompiledNetworkTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void handWiredTests() {
+    // input 0 -> hidden 3 -> output 2, with the bias (1) feeding the hidden node too; input 0 also feeds output 2
+    Genome g = Genome.genome(1, 1, new int[]{0, 1, 2, 3}, new int[]{0, 1, 2, 3},
+        new int[]{0, 0, 3, 1}, new int[]{2, 3, 2, 3}, new float[]{0.5f, 2f, -1f, 0.25f},
+        new boolean[]{true, true, true, true});
+    CompiledNetwork net = CompiledNetwork.compile(g);
+    assertEquals(1, net.getInputs());
+    assertEquals(1, net.getOutputs());
+    assertEquals(4, net.connectionCount());
+
+    float[] out = new float[1];
+    net.evaluate(new float[]{0.8f}, out);
+    float hidden = CompiledNetwork.activate(2f * 0.8f + 0.25f);
+    assertEquals(CompiledNetwork.activate(0.5f * 0.8f - hidden), out[0], 1e-6f);
+  }
+
+  @Test
+  public void prunesUselessGenesTests() {
+    // hidden node 3 only feeds a disabled gene, so neither it nor its input gene survive compiling
+    Genome g = Genome.genome(1, 1, new int[]{0, 1, 2, 3}, new int[]{0, 1, 2},
+        new int[]{0, 0, 3}, new int[]{2, 3, 2}, new float[]{1f, 1f, 1f},
+        new boolean[]{true, true, false});
+    assertEquals(1, CompiledNetwork.compile(g).connectionCount());
+  }
+
+  @Test
+  public void matchesReferenceTests() {
+    InnovationTracker tracker = InnovationTracker.tracker(6, 3);
+    SplittableRandom rng = new SplittableRandom(testSeed);
+    for (int trial = 0; trial < 200; trial++) {
+      Genome g = Genome.minimal(tracker, rng);
+      for (int m = rng.nextInt(30); m > 0; m--) {
+        g = rng.nextBoolean() ? g.addNode(tracker, rng) : g.addConnection(tracker, rng, 20);
+      }
+      CompiledNetwork net = CompiledNetwork.compile(g);
+
+      int count = 1 + rng.nextInt(20);
+      float[] inputs = new float[count * 6];
+      for (int i = 0; i < inputs.length; i++) {
+        inputs[i] = (float) (rng.nextDouble() * 4 - 2);
+      }
+      float[] batch = new float[count * 3];
+      net.copy().evaluate(inputs, batch, count);
+
+      for (int b = 0; b < count; b++) {
+        float[] in = new float[6];
+        System.arraycopy(inputs, b * 6, in, 0, 6);
+        float[] out = new float[3];
+        net.evaluate(in, out);
+        float[] expected = reference(g, in);
+        assertArrayEquals(expected, out, 1e-6f);
+        for (int o = 0; o < 3; o++) {
+          assertEquals(expected[o], batch[b * 3 + o], 1e-6f);
+        }
+      }
+    }
+  }
+
+  /**
+   * A straightforward evaluator that walks the graph back from each output, memoizing node values.
+   */
+  private static float[] reference(Genome g, float[] in) {
+    List<Connection> connections = g.getConnections().filter(Connection::isEnabled);
+    Map<Integer, Float> values = HashMap.empty();
+    for (int i = 0; i < in.length; i++) {
+      values = values.put(i, in[i]);
+    }
+    values = values.put(g.getInputs(), 1f);
+
+    float[] out = new float[g.getOutputs()];
+    for (int o = 0; o < out.length; o++) {
+      values = value(g.getInputs() + 1 + o, connections, values);
+      out[o] = values.get(g.getInputs() + 1 + o).get();
+    }
+    return out;
+  }
+
+  private static Map<Integer, Float> value(int node, List<Connection> connections, Map<Integer, Float> values) {
+    if (values.containsKey(node)) {
+      return values;
+    }
+    float sum = 0;
+    for (Connection c : connections.filter(c -> c.getOut() == node)) {
+      values = value(c.getIn(), connections, values);
+      sum += c.getWeight() * values.get(c.getIn()).get();
+    }
+    return values.put(node, CompiledNetwork.activate(sum));
+  }
+}
@@ -0,0 +1,184 @@
+package snake.winter.neuralnet;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GenomeTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void minimalGenomeTests() {
+    InnovationTracker tracker = InnovationTracker.tracker(3, 2);
+    Genome a = Genome.minimal(tracker, new SplittableRandom(testSeed));
+    Genome b = Genome.minimal(tracker, new SplittableRandom(testSeed + 1));
+
+    assertEquals(6, a.nodeCount());
+    assertEquals(Node.node(3, Node.Type.BIAS), a.getNode(3));
+    assertEquals(Node.Type.OUTPUT, a.getNode(5).getType());
+    assertEquals(8, a.connectionCount());
+    assertEquals(8, tracker.innovationCount());
+    for (int g = 0; g < a.connectionCount(); g++) {
+      // the same connections get the same innovation numbers in every genome
+      assertEquals(a.getInnovation(g), b.getInnovation(g));
+      assertEquals(a.getIn(g), b.getIn(g));
+      assertTrue(a.isEnabled(g));
+      assertTrue(Math.abs(a.getWeight(g)) <= Genome.WEIGHT_RANGE);
+    }
+  }
+
+  @Test
+  public void addNodeTests() {
+    InnovationTracker tracker = InnovationTracker.tracker(1, 1);
+    Genome g = Genome.minimal(tracker, new SplittableRandom(testSeed));
+    Genome split = g.addNode(tracker, new SplittableRandom(testSeed));
+
+    assertEquals(4, split.nodeCount());
+    assertEquals(3, split.getNodeId(3));
+    assertEquals(Node.Type.HIDDEN, split.getNode(3).getType());
+    assertEquals(4, split.connectionCount());
+    assertEquals(2, split.getConnections().count(Connection::isEnabled) - 1);
+
+    // the split connection is disabled, and its weight moves onto the link out of the new node
+    int old = split.isEnabled(0) ? 1 : 0;
+    assertFalse(split.isEnabled(old));
+    Connection out = split.getConnections().find(c -> c.getIn() == 3).get();
+    assertEquals(split.getWeight(old), out.getWeight());
+    assertEquals(1f, split.getConnections().find(c -> c.getOut() == 3).get().getWeight());
+
+    // splitting the same connection again in another genome reuses the node and its innovation numbers
+    Genome other = Genome.minimal(tracker, new SplittableRandom(testSeed + 1));
+    for (int seed = 0; ; seed++) {
+      Genome otherSplit = other.addNode(tracker, new SplittableRandom(seed));
+      if (otherSplit.getNodeId(3) == 3 && !otherSplit.isEnabled(old)) {
+        assertEquals(split.getConnections().map(Connection::getInnovation),
+            otherSplit.getConnections().map(Connection::getInnovation));
+        break;
+      }
+    }
+    assertEquals(4, tracker.nodeCount());
+  }
+
+  @Test
+  public void addConnectionTests() {
+    InnovationTracker tracker = InnovationTracker.tracker(2, 1);
+    Genome g = Genome.minimal(tracker, new SplittableRandom(testSeed));
+    // a minimal genome is fully connected, so there is nothing left to add
+    assertSame(g, g.addConnection(tracker, new SplittableRandom(testSeed), 50));
+
+    SplittableRandom rng = new SplittableRandom(testSeed);
+    Genome grown = g.addNode(tracker, rng).addNode(tracker, rng).addNode(tracker, rng);
+    Genome connected = grown.addConnection(tracker, rng, 50);
+    assertEquals(grown.connectionCount() + 1, connected.connectionCount());
+    valid(connected);
+  }
+
+  @Test
+  public void randomEvolutionStaysValid() {
+    InnovationTracker tracker = InnovationTracker.tracker(4, 3);
+    SplittableRandom rng = new SplittableRandom(testSeed);
+    Genome[] population = new Genome[50];
+    for (int i = 0; i < population.length; i++) {
+      population[i] = Genome.minimal(tracker, rng);
+    }
+
+    for (int generation = 0; generation < 100; generation++) {
+      Genome[] next = new Genome[population.length];
+      for (int i = 0; i < next.length; i++) {
+        Genome child = Genome.crossover(population[rng.nextInt(population.length)],
+            population[rng.nextInt(population.length)], rng);
+        child = child.perturbWeights(rng, 0.8, 0.5, 0.1);
+        if (rng.nextDouble() < 0.1) {
+          child = child.addNode(tracker, rng);
+        }
+        if (rng.nextDouble() < 0.2) {
+          child = child.addConnection(tracker, rng, 20);
+        }
+        next[i] = child;
+      }
+      population = next;
+    }
+
+    for (Genome g : population) {
+      valid(g);
+    }
+    assertTrue(tracker.nodeCount() > 8);
+  }
+
+  @Test
+  public void crossoverTests() {
+    InnovationTracker tracker = InnovationTracker.tracker(2, 2);
+    SplittableRandom rng = new SplittableRandom(testSeed);
+    Genome fitter = Genome.minimal(tracker, rng).addNode(tracker, rng);
+    Genome other = Genome.minimal(tracker, rng);
+
+    Genome child = Genome.crossover(fitter, other, rng);
+    // the child has the fitter parent's structure, with matching weights from either parent
+    assertEquals(fitter.getConnections().map(Connection::getInnovation),
+        child.getConnections().map(Connection::getInnovation));
+    int fromOther = 0;
+    for (int g = 0; g < child.connectionCount(); g++) {
+      float w = child.getWeight(g);
+      if (g < other.connectionCount()) {
+        // both parents start from the same minimal genes, so the first genes match
+        assertEquals(other.getInnovation(g), child.getInnovation(g));
+        assertTrue(w == fitter.getWeight(g) || w == other.getWeight(g));
+        fromOther += w == other.getWeight(g) && w != fitter.getWeight(g) ? 1 : 0;
+      }
+      else {
+        assertEquals(fitter.getWeight(g), w);
+      }
+    }
+    assertTrue(fromOther > 0);
+    assertNotEquals(fitter, child);
+    assertEquals(fitter, Genome.crossover(fitter, fitter, rng).perturbWeights(rng, 0, 0, 0));
+  }
+
+  @Test
+  public void genomeValidationTests() {
+    int[] nodes = {0, 1, 2, 3};
+    float[] weights = {0.5f, -0.5f};
+    boolean[] enabled = {true, true};
+    Genome g = Genome.genome(1, 1, nodes, new int[]{0, 1}, new int[]{0, 1}, new int[]{2, 2}, weights, enabled);
+    assertEquals(2, g.connectionCount());
+
+    // unsorted innovations
+    assertThrows(IllegalArgumentException.class, () ->
+        Genome.genome(1, 1, nodes, new int[]{1, 0}, new int[]{0, 1}, new int[]{2, 2}, weights, enabled));
+    // a connection into an input
+    assertThrows(IllegalArgumentException.class, () ->
+        Genome.genome(1, 1, nodes, new int[]{0, 1}, new int[]{2, 1}, new int[]{0, 2}, weights, enabled));
+    // a cycle through the hidden node
+    assertThrows(IllegalArgumentException.class, () ->
+        Genome.genome(1, 1, nodes, new int[]{0, 1}, new int[]{2, 3}, new int[]{3, 2}, weights, enabled));
+  }
+
+  private static void valid(Genome g) {
+    int count = g.connectionCount();
+    int[] innovations = new int[count];
+    int[] ins = new int[count];
+    int[] outs = new int[count];
+    float[] weights = new float[count];
+    boolean[] enabled = new boolean[count];
+    for (int i = 0; i < count; i++) {
+      innovations[i] = g.getInnovation(i);
+      ins[i] = g.getIn(i);
+      outs[i] = g.getOut(i);
+      weights[i] = g.getWeight(i);
+      enabled[i] = g.isEnabled(i);
+    }
+    int[] nodes = new int[g.nodeCount()];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = g.getNodeId(i);
+    }
+    // throws if the genome is not sorted, not acyclic or refers to unknown nodes
+    assertEquals(g, Genome.genome(g.getInputs(), g.getOutputs(), nodes, innovations, ins, outs, weights, enabled));
+  }
+}
@@ -0,0 +1,118 @@
+package snake.winter.neuralnet;
+
+import io.vavr.collection.Array;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpeciationTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void distanceTests() {
+    Compatibility c = Compatibility.compatibility(1.0, 0.8, 0.4, 5);
+    Array<Genome> population = population(60, new SplittableRandom(testSeed));
+    for (Genome a : population.take(20)) {
+      for (Genome b : population) {
+        double expected = naiveDistance(a, b, 1.0, 0.8, 0.4, 5);
+        double distance = c.distance(a, b);
+        assertEquals(expected, distance, 1e-9);
+        assertEquals(distance, c.distance(b, a), 1e-9);
+        for (double cutoff : new double[]{0.1, 0.5, 1, 2}) {
+          // under the cutoff the distance is exact, over it only has to stay over it
+          double early = c.distance(a, b, cutoff);
+          if (distance <= cutoff) {
+            assertEquals(distance, early, 1e-9);
+          }
+          else {
+            assertTrue(early > cutoff);
+          }
+        }
+      }
+    }
+    assertEquals(0.0, c.distance(population.get(0), population.get(0)));
+  }
+
+  @Test
+  public void speciateTests() {
+    SplittableRandom rng = new SplittableRandom(testSeed);
+    Compatibility c = Compatibility.compatibility();
+    Speciation speciation = Speciation.speciation(c, 8).withThreshold(1.0);
+
+    for (int generation = 0; generation < 10; generation++) {
+      Array<Genome> population = population(500, rng);
+      Array<Species> previous = speciation.getSpecies();
+      double threshold = speciation.getThreshold();
+      Speciation next = speciation.speciate(population, new SplittableRandom(generation));
+      // speciating is deterministic
+      assertEquals(next.getSpecies().map(Species::getMembers),
+          speciation.speciate(population, new SplittableRandom(generation)).getSpecies().map(Species::getMembers));
+
+      Map<Integer, Species> byMember = HashMap.empty();
+      for (Species s : next.getSpecies()) {
+        for (int m : s.getMembers()) {
+          assertTrue(!byMember.containsKey(m));
+          byMember = byMember.put(m, s);
+        }
+        assertTrue(s.getMembers().map(population::get).contains(s.getRepresentative()));
+      }
+      assertEquals(population.size(), byMember.size());
+
+      // genomes that join an old species join the first old species they are compatible with
+      for (int i = 0; i < population.size(); i++) {
+        Genome g = population.get(i);
+        int first = previous.indexWhere(s -> c.distance(g, s.getRepresentative()) <= threshold);
+        if (first >= 0) {
+          assertEquals(previous.get(first).getId(), byMember.get(i).get().getId());
+        }
+      }
+
+      int count = next.getSpecies().size();
+      assertEquals(count < 8 ? Math.max(0.3, threshold - 0.3) : count > 8 ? threshold + 0.3 : threshold,
+          next.getThreshold(), 1e-9);
+      speciation = next;
+    }
+  }
+
+  private static Array<Genome> population(int size, SplittableRandom rng) {
+    InnovationTracker tracker = InnovationTracker.tracker(4, 2);
+    return Array.fill(size, () -> {
+      Genome g = Genome.minimal(tracker, rng);
+      for (int m = rng.nextInt(12); m > 0; m--) {
+        g = rng.nextBoolean() ? g.addNode(tracker, rng) : g.addConnection(tracker, rng, 10);
+      }
+      return g;
+    });
+  }
+
+  private static double naiveDistance(Genome a, Genome b, double c1, double c2, double c3, int normalizeAbove) {
+    Map<Integer, Float> wa = a.getConnections().toMap(Connection::getInnovation, Connection::getWeight);
+    Map<Integer, Float> wb = b.getConnections().toMap(Connection::getInnovation, Connection::getWeight);
+    int maxA = wa.keySet().max().getOrElse(-1);
+    int maxB = wb.keySet().max().getOrElse(-1);
+    int excess = 0;
+    int disjoint = 0;
+    int matching = 0;
+    double diff = 0;
+    for (int innovation : wa.keySet().addAll(wb.keySet())) {
+      if (wa.containsKey(innovation) && wb.containsKey(innovation)) {
+        matching++;
+        diff += Math.abs(wa.get(innovation).get() - wb.get(innovation).get());
+      }
+      else if (innovation > Math.min(maxA, maxB)) {
+        excess++;
+      }
+      else {
+        disjoint++;
+      }
+    }
+    int longest = Math.max(a.connectionCount(), b.connectionCount());
+    double n = longest < normalizeAbove ? 1 : longest;
+    return c1 * excess / n + c2 * disjoint / n + (matching == 0 ? 0 : c3 * diff / matching);
+  }
+}
@@ -0,0 +1,194 @@
+package snake.winter.replay;
+
+import io.vavr.collection.Array;
+import org.junit.jupiter.api.Test;
+import snake.winter.controller.GreedyController;
+import snake.winter.evolution.Evaluation;
+import snake.winter.evolution.Fitness;
+import snake.winter.evolution.GameFitness;
+import snake.winter.evolution.PopulationEvaluator;
+import snake.winter.game.Board;
+import snake.winter.game.MutableBoard;
+import snake.winter.game.MutableBoard.FoodPlacement;
+import snake.winter.game.Point.Direction;
+import snake.winter.game.Rules;
+import snake.winter.neuralnet.Genome;
+import snake.winter.neuralnet.InnovationTracker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReplayTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void replayRandomTests() {
+    Random expected = new Random(testSeed);
+    ReplayRandom actual = new ReplayRandom(testSeed);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(expected.nextInt(1 + i), actual.nextInt(1 + i));
+      assertEquals(expected.nextLong(), actual.nextLong());
+    }
+
+    // restoring a saved state resumes the same sequence
+    long state = actual.getState();
+    int[] next = {actual.nextInt(), actual.nextInt(), actual.nextInt()};
+    actual.setSeed(testSeed + 1);
+    actual.setState(state);
+    for (int n : next) {
+      assertEquals(n, actual.nextInt());
+    }
+  }
+
+  @Test
+  public void roundTripTests() throws IOException {
+    Path file = Files.createTempFile("games", ".replay");
+    List<List<Board>> played = new ArrayList<>();
+    GameRecorder recorder = new GameRecorder(16);
+    try (ReplayWriter writer = ReplayWriter.create(file)) {
+      for (int seed = 0; seed < 40; seed++) {
+        FoodPlacement placement = FoodPlacement.values()[seed % 2];
+        played.add(play(recorder, seed, placement));
+        writer.write(recorder);
+      }
+      assertEquals(40, writer.gameCount());
+    }
+
+    Array<GameReplay> replays = ReplayReader.readAll(file);
+    assertEquals(played.size(), replays.size());
+    for (int seed = 0; seed < replays.size(); seed++) {
+      GameReplay replay = replays.get(seed);
+      List<Board> boards = played.get(seed);
+      assertEquals(seed, replay.getSeed());
+      assertEquals(boards.size() - 1, replay.moveCount());
+      assertEquals(boards.get(boards.size() - 1).getScore(), replay.getFinalScore());
+
+      // stepping rebuilds every board of the game
+      ReplayPlayer player = replay.player();
+      assertEquals(boards.get(0), player.getBoard());
+      for (int i = 1; i < boards.size(); i++) {
+        assertTrue(player.step());
+        assertEquals(boards.get(i), player.getBoard(), "seed " + seed + ", move " + i);
+      }
+      assertTrue(player.isFinished());
+      assertFalse(player.step());
+
+      // and seeking anywhere, backwards or forwards, lands on the same board
+      SplittableRandom rng = new SplittableRandom(testSeed + seed);
+      for (int i = 0; i < 20; i++) {
+        int target = rng.nextInt(boards.size());
+        player.seek(target);
+        assertEquals(target, player.getMove());
+        assertEquals(boards.get(target), player.getBoard(), "seed " + seed + ", seek " + target);
+      }
+    }
+    Files.delete(file);
+  }
+
+  @Test
+  public void fitnessRecordingTests() throws IOException {
+    Path file = Files.createTempFile("generation", ".replay");
+    InnovationTracker tracker = InnovationTracker.tracker(8, 4);
+    SplittableRandom rng = new SplittableRandom(testSeed);
+    Array<Genome> genomes = Array.fill(30, () -> Genome.minimal(tracker, rng));
+    Evaluation evaluation;
+    try (ReplayWriter writer = ReplayWriter.create(file);
+         PopulationEvaluator<GameFitness.Workspace> evaluator =
+             PopulationEvaluator.evaluator(GameFitness.gameFitness(8, 8, 3).withReplays(writer, 32), 2)) {
+      evaluation = evaluator.evaluate(genomes, testSeed);
+    }
+
+    // every game of every genome is on file, and replays to the score it was given
+    Array<GameReplay> replays = ReplayReader.readAll(file);
+    assertEquals(90, replays.size());
+    assertEquals(evaluation.getFitness().map(Fitness::getScore).sum().longValue(),
+        replays.map(GameReplay::getFinalScore).sum().longValue());
+    for (GameReplay replay : replays) {
+      ReplayPlayer player = replay.player();
+      player.seek(replay.moveCount());
+      assertEquals(replay.getFinalScore(), player.getBoard().getScore());
+      assertEquals(replay.moveCount(), player.getBoard().getMoves());
+    }
+    Files.delete(file);
+  }
+
+  @Test
+  public void rulesTests() {
+    Rules hungry = Rules.rules().withHunger(1);
+    Rules loops = Rules.rules().withLoops(true);
+    Rules both = hungry.withLoops(true);
+    for (Rules rules : new Rules[] {hungry, loops, both}) {
+      // with keyframes and without, stepping or seeking, the replay ends the way the game did
+      for (int keyframes : new int[] {0, 4}) {
+        GameRecorder recorder = new GameRecorder(keyframes);
+        MutableBoard played = circle(recorder, rules);
+        assertFalse(played.isLive());
+        GameReplay replay = recorder.toReplay();
+        assertEquals(rules, replay.getRules());
+
+        ReplayPlayer player = replay.player();
+        while (player.step()) {
+          assertTrue(player.getBoard().isLive() || player.isFinished(), rules + ", move " + player.getMove());
+        }
+        assertEquals(played.toBoard(), player.getBoard(), rules + ", " + keyframes + " moves a keyframe");
+        assertEquals(played.getDeathCause(), player.getBoard().getDeathCause());
+
+        player.seek(1);
+        player.seek(replay.moveCount());
+        assertFalse(player.getBoard().isLive());
+        assertEquals(played.getDeathCause(), player.getBoard().getDeathCause());
+      }
+    }
+  }
+
+  @Test
+  public void rejectsOtherFiles() throws IOException {
+    Path file = Files.createTempFile("not", ".replay");
+    Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+    IOException e = assertThrows(IOException.class, () -> ReplayReader.open(file));
+    assertTrue(e.getMessage().endsWith("is not a replay"));
+    Files.delete(file);
+  }
+
+  // circles a 2x2 square without eating until the rules end the game
+  private static MutableBoard circle(GameRecorder recorder, Rules rules) {
+    ReplayRandom rng = new ReplayRandom(testSeed);
+    MutableBoard board = MutableBoard.newStartBoard(6, 6, rng, FoodPlacement.INDEXED);
+    board.setRules(rules);
+    recorder.start(testSeed, 0, testSeed, board);
+    Direction[] circle = {Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST};
+    while (board.isLive() && board.getMoves() < 500) {
+      Direction d = circle[board.getMoves() % 4];
+      board.updateBoard(d, rng);
+      recorder.move(d, board, rng);
+    }
+    return board;
+  }
+
+  private static List<Board> play(GameRecorder recorder, int seed, FoodPlacement placement) {
+    ReplayRandom rng = new ReplayRandom(seed);
+    Random moveRng = new Random(seed * 31L + 7);
+    MutableBoard board = MutableBoard.newStartBoard(8, 9, rng, placement);
+    GreedyController greedy = new GreedyController();
+    List<Board> boards = new ArrayList<>();
+    boards.add(board.toBoard());
+    recorder.start(seed, 0, seed, board);
+    while (board.isLive() && board.getMoves() < 500) {
+      Direction d = moveRng.nextInt(40) == 0 ? Direction.values()[moveRng.nextInt(4)] : greedy.nextMove(board);
+      board.updateBoard(d, rng);
+      recorder.move(d, board, rng);
+      boards.add(board.toBoard());
+    }
+    return boards;
+  }
+}
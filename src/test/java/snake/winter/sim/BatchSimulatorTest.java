@@ -0,0 +1,73 @@
+package snake.winter.sim;
+
+import org.junit.jupiter.api.Test;
+import snake.winter.controller.GreedyController;
+import snake.winter.controller.RandomController;
+import snake.winter.controller.ScriptedController;
+import snake.winter.game.Board;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static snake.winter.game.Point.Direction.*;
+
+public class BatchSimulatorTest {
+  private static final int testSeed = 121345;
+
+  @Test
+  public void threadCountDoesNotChangeResults() {
+    BatchSimulator simulator = BatchSimulator.simulator(12, 12, seed -> new RandomController(new Random(seed)))
+                                   .withGames(200)
+                                   .withSeed(testSeed);
+    SimulationReport single = simulator.withThreads(1).run();
+    SimulationReport many = simulator.withThreads(4).run();
+    assertEquals(200, many.getGames());
+    for (int game = 0; game < 200; game++) {
+      assertEquals(single.getScore(game), many.getScore(game));
+      assertEquals(single.getMoves(game), many.getMoves(game));
+    }
+    assertEquals(single.getTotalMoves(), many.getLatencies().count());
+  }
+
+  @Test
+  public void scriptedGamesMatchBoard() {
+    // A scripted game plays out exactly like the same moves on a Board sharing one seeded Random
+    String script = "N n north, W s S S, S S S W N E";
+    SimulationReport report = BatchSimulator.simulator(7, 11, seed -> new ScriptedController(ScriptedController.parse(script)))
+                                  .withGames(1)
+                                  .withSeed(testSeed)
+                                  .run();
+    Random rng = new Random(testSeed);
+    Board board = Board.newStartBoard(7, 11, rng)
+                      .updateBoard(rng, NORTH, NORTH, NORTH, WEST, SOUTH, SOUTH, SOUTH, SOUTH, SOUTH,
+                          SOUTH, WEST, NORTH, EAST);
+    assertEquals(board.getScore(), report.getScore(0));
+    assertEquals(board.getMoves(), report.getMoves(0));
+
+    assertThrows(IllegalArgumentException.class, () -> ScriptedController.parse("N up"));
+  }
+
+  @Test
+  public void reportTests() {
+    SimulationReport report = BatchSimulator.simulator(10, 10, seed -> new GreedyController())
+                                  .withGames(50)
+                                  .withMaxMoves(500)
+                                  .run();
+    assertTrue(report.scorePercentile(0) <= report.scorePercentile(0.5));
+    assertTrue(report.scorePercentile(0.5) <= report.scorePercentile(1));
+    for (int game = 0; game < 50; game++) {
+      assertTrue(report.getMoves(game) <= 500);
+    }
+
+    LatencyHistogram latencies = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      latencies.record(i * 100L);
+    }
+    assertEquals(100_000, latencies.max());
+    // percentiles round up to the top of their bucket, which is never more than 1/16 too high
+    assertTrue(latencies.percentile(0.5) >= 50_000 && latencies.percentile(0.5) <= 50_000 * 17 / 16);
+    assertTrue(latencies.percentile(0.99) >= 99_000 && latencies.percentile(0.99) <= 100_000);
+  }
+}